@@ -0,0 +1,155 @@
+package org.jamesgames.jamesjavautils.general;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * ConflatingObserverSet informs observers that only care about the latest event, such as observers of a position or of
+ * progress, where informing an observer of an event that has already been replaced by a newer one is wasted work.
+ * <p>
+ * Each observer is informed on its own {@link java.util.concurrent.Executor} and has a single pending event. Informing
+ * observers puts the event in each observer's pending slot, replacing (conflating) any event the observer has not been
+ * informed of yet, so an observer that can't keep up skips to the newest event instead of falling further and further
+ * behind, and there is never more than one event per observer waiting. An observer is never informed of two events at
+ * once, even on an executor with many threads, and is informed of events in the order they were conflated in.
+ * <p>
+ * Since every event replaces the previous one no matter what kind of event it was, the observers of a
+ * ConflatingObserverSet should only have one kind of event, or one set should be used per kind of event.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+public class ConflatingObserverSet<Observer> {
+
+    private final ObserverSet<PendingEventSlot> pendingEventSlots =
+            new ObserverSet<>(ObserverSet.DispatchMode.copyOnWrite);
+    private final Map<Observer, PendingEventSlot> pendingEventSlotsByObserver = new HashMap<>();
+    private final LongAdder numberOfConflatedEvents = new LongAdder();
+
+    /**
+     * Adds an observer that is informed of events on an executor
+     */
+    public synchronized void addObserver(Observer observer, Executor executor) {
+        Objects.requireNonNull(observer, "observer cannot be null");
+        Objects.requireNonNull(executor, "executor cannot be null");
+        if (pendingEventSlotsByObserver.containsKey(observer)) {
+            throw new IllegalArgumentException("Observer is already observing");
+        }
+        PendingEventSlot pendingEventSlot = new PendingEventSlot(observer, executor);
+        pendingEventSlotsByObserver.put(observer, pendingEventSlot);
+        pendingEventSlots.addObserver(pendingEventSlot);
+    }
+
+    /**
+     * Removes an observer, which is not informed of its pending event if it has one
+     */
+    public synchronized void removeObserver(Observer observer) {
+        Objects.requireNonNull(observer, "observer cannot be null");
+        PendingEventSlot pendingEventSlot = pendingEventSlotsByObserver.remove(observer);
+        if (pendingEventSlot == null) {
+            throw new IllegalArgumentException("Observer was not observing");
+        }
+        pendingEventSlot.removed = true;
+        pendingEventSlots.removeObserver(pendingEventSlot);
+    }
+
+    /**
+     * Makes an event the pending event of every observer, to be informed of on each observer's executor, without
+     * waiting for any observer to be informed
+     *
+     * @throws RejectedExecutionException
+     *         If an observer's executor rejected informing the observer, after every other observer has been given the
+     *         event. The event stays pending for the observers whose executor rejected it, and they are informed of it
+     *         (or a newer event) once an event is accepted by their executor. Any further rejections are suppressed by
+     *         the first.
+     */
+    public void informObservers(Consumer<Observer> informAction) {
+        Objects.requireNonNull(informAction, "informAction cannot be null");
+        RejectedExecutionException[] firstRejection = new RejectedExecutionException[1];
+        pendingEventSlots.informObservers(pendingEventSlot -> {
+            try {
+                pendingEventSlot.setPendingEvent(informAction);
+            } catch (RejectedExecutionException e) {
+                // One observer's executor rejecting the event shouldn't keep the rest of the observers from it
+                if (firstRejection[0] == null) {
+                    firstRejection[0] = e;
+                } else {
+                    firstRejection[0].addSuppressed(e);
+                }
+            }
+        });
+        if (firstRejection[0] != null) {
+            throw firstRejection[0];
+        }
+    }
+
+    public int getNumberOfObservers() {
+        return pendingEventSlots.getNumberOfObservers();
+    }
+
+    /**
+     * @return Number of pending events that were replaced by a newer event before their observer was informed of them
+     */
+    public long getNumberOfConflatedEvents() {
+        return numberOfConflatedEvents.sum();
+    }
+
+    /**
+     * An observer's pending event, and whether informing the observer of it has been handed to the observer's executor
+     */
+    private class PendingEventSlot {
+        private final Observer observer;
+        private final Executor executor;
+        private final AtomicReference<Consumer<Observer>> pendingEvent = new AtomicReference<>();
+        private final AtomicBoolean informScheduled = new AtomicBoolean();
+        private final Runnable informOfPendingEvent = this::informOfPendingEvent;
+        private volatile boolean removed;
+
+        private PendingEventSlot(Observer observer, Executor executor) {
+            this.observer = observer;
+            this.executor = executor;
+        }
+
+        private void setPendingEvent(Consumer<Observer> informAction) {
+            if (pendingEvent.getAndSet(informAction) != null) {
+                numberOfConflatedEvents.increment();
+            }
+            scheduleInformIfNotScheduled();
+        }
+
+        private void scheduleInformIfNotScheduled() {
+            if (informScheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(informOfPendingEvent);
+                } catch (RejectedExecutionException e) {
+                    informScheduled.set(false);
+                    throw e;
+                }
+            }
+        }
+
+        private void informOfPendingEvent() {
+            try {
+                Consumer<Observer> informAction = pendingEvent.getAndSet(null);
+                if (informAction != null && !removed) {
+                    informAction.accept(observer);
+                }
+            } finally {
+                informScheduled.set(false);
+                // An event that arrived while informing saw the inform as still scheduled, so it is scheduled here
+                if (pendingEvent.get() != null && !removed) {
+                    scheduleInformIfNotScheduled();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.jamesgames.jamesjavautils.general;
+
+/**
+ * Flow holds the interfaces of the Reactive Streams protocol, where a {@link
+ * org.jamesgames.jamesjavautils.general.Flow.Subscriber} asks a {@link
+ * org.jamesgames.jamesjavautils.general.Flow.Publisher} for only as many items as it is ready for. These match the
+ * interfaces of java.util.concurrent.Flow, which is not available before Java 9, so that moving to those is only a
+ * change of imports.
+ *
+ * @author James Murphy
+ */
+public final class Flow {
+
+    private Flow() {
+    }
+
+    /**
+     * Produces items for subscribers, only ever sending a subscriber as many items as it has requested
+     */
+    @FunctionalInterface
+    public static interface Publisher<T> {
+        /**
+         * Adds a subscriber, which is passed its {@link org.jamesgames.jamesjavautils.general.Flow.Subscription} through
+         * {@link org.jamesgames.jamesjavautils.general.Flow.Subscriber#onSubscribe(Subscription)} before anything else
+         */
+        public void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * Receives items from a publisher, one method call at a time
+     */
+    public static interface Subscriber<T> {
+        public void onSubscribe(Subscription subscription);
+
+        public void onNext(T item);
+
+        /**
+         * The subscription failed, nothing else is received after this
+         */
+        public void onError(Throwable throwable);
+
+        /**
+         * The publisher has no more items, nothing else is received after this
+         */
+        public void onComplete();
+    }
+
+    /**
+     * Link between a publisher and one of its subscribers
+     */
+    public static interface Subscription {
+        /**
+         * Asks for up to n more items, a subscriber that requests zero or fewer items is sent an error
+         */
+        public void request(long n);
+
+        /**
+         * Stops the subscriber receiving any more items, items already on their way may still be received
+         */
+        public void cancel();
+    }
+}
@@ -5,11 +5,20 @@ import net.jcip.annotations.Immutable;
 /**
  * Represents a pair of integer values. Useful for 2d coordinate representation and for being returned from {@link
  * java.util.function.Function}s.
+ * <p>
+ * Two IntPairs are equal when their values are, so they can be used as keys of hash maps. Where creating an object per
+ * pair is too costly, a pair can be carried as a single long with {@link #pack(int, int)} and read back with {@link
+ * #unpackX(long)} and {@link #unpackY(long)}, and {@link #valueOf(int, int)} reuses the same object for every pair with
+ * both values from -32 to 127, like {@link Integer#valueOf(int)} does for small integers.
  *
  * @author James Murphy
  */
 @Immutable
-public class IntPair {
+public final class IntPair {
+    private static final int lowestCachedValue = -32;
+    private static final int highestCachedValue = 127;
+    private static final int cachedValuesPerDimension = highestCachedValue - lowestCachedValue + 1;
+
     private final int x;
     private final int y;
 
@@ -18,6 +27,46 @@ public class IntPair {
         this.y = y;
     }
 
+    /**
+     * @return An IntPair of the values, which for values from -32 to 127 is the same object every time
+     */
+    public static IntPair valueOf(int x, int y) {
+        if (x < lowestCachedValue || x > highestCachedValue || y < lowestCachedValue || y > highestCachedValue) {
+            return new IntPair(x, y);
+        }
+        int index = (x - lowestCachedValue) * cachedValuesPerDimension + (y - lowestCachedValue);
+        IntPair[] cachedPairs = CachedPairsHolder.cachedPairs;
+        IntPair pair = cachedPairs[index];
+        if (pair == null) {
+            pair = new IntPair(x, y);
+            cachedPairs[index] = pair;
+        }
+        return pair;
+    }
+
+    /**
+     * @return The IntPair of a pair packed with {@link #pack(int, int)}
+     */
+    public static IntPair valueOf(long packedPair) {
+        return valueOf(unpackX(packedPair), unpackY(packedPair));
+    }
+
+    /**
+     * Packs a pair into a long, x in the upper 32 bits and y in the lower 32 bits, so that every pair of ints has its
+     * own long
+     */
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    public static int unpackX(long packedPair) {
+        return (int) (packedPair >> 32);
+    }
+
+    public static int unpackY(long packedPair) {
+        return (int) packedPair;
+    }
+
     public int getX() {
         return x;
     }
@@ -25,4 +74,45 @@ public class IntPair {
     public int getY() {
         return y;
     }
+
+    /**
+     * @return The pair packed into a long, see {@link #pack(int, int)}
+     */
+    public long toPackedLong() {
+        return pack(x, y);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IntPair)) {
+            return false;
+        }
+        IntPair intPair = (IntPair) o;
+        return x == intPair.x && y == intPair.y;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * x + y;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + x + ", " + y + ")";
+    }
+
+    /**
+     * Holds the cache of pairs, so it's only created once {@link #valueOf(int, int)} is first used for a cached pair
+     * rather than whenever IntPair is loaded
+     */
+    private static class CachedPairsHolder {
+        /**
+         * Filled in as pairs are asked for, a race to fill a slot at most creates an extra pair since pairs are
+         * immutable
+         */
+        private static final IntPair[] cachedPairs = new IntPair[cachedValuesPerDimension * cachedValuesPerDimension];
+    }
 }
@@ -0,0 +1,158 @@
+package org.jamesgames.jamesjavautils.general;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * IntPairHashMap maps pairs of ints, such as tile coordinates, to objects without creating an object per key or per
+ * entry, unlike a {@link java.util.HashMap} with {@link org.jamesgames.jamesjavautils.general.IntPair} keys. Keys are
+ * kept packed into longs in a single array and values in a parallel array, and are found by linear probing. Keys can
+ * be passed either as their two ints or packed with {@link org.jamesgames.jamesjavautils.general.IntPair#pack(int,
+ * int)}.
+ * <p>
+ * The load factor is how full the arrays get before they're doubled in size, lower is faster to look up and higher
+ * takes less memory. Null values are not allowed, so a null from {@link #get(int, int)} means there is no value.
+ *
+ * @author James Murphy
+ */
+@NotThreadSafe
+public class IntPairHashMap<V> extends IntPairHashTable {
+
+    /**
+     * Receives each entry of an {@link org.jamesgames.jamesjavautils.general.IntPairHashMap}
+     */
+    @FunctionalInterface
+    public static interface EntryConsumer<V> {
+        public void accept(int x, int y, V value);
+    }
+
+    private Object[] values;
+
+    public IntPairHashMap() {
+        this(defaultExpectedSize);
+    }
+
+    public IntPairHashMap(int expectedSize) {
+        this(expectedSize, defaultLoadFactor);
+    }
+
+    /**
+     * @param expectedSize
+     *         Number of entries the map can hold before it has to grow
+     * @param loadFactor
+     *         Fraction of the map's slots that can be used before it grows, between zero and one
+     */
+    public IntPairHashMap(int expectedSize, float loadFactor) {
+        super(expectedSize, loadFactor);
+        values = new Object[capacity + 1];
+    }
+
+    /**
+     * @return The previous value of the key, or null if it had none
+     */
+    public V put(int x, int y, V value) {
+        return put(IntPair.pack(x, y), value);
+    }
+
+    public V put(long packedPair, V value) {
+        Objects.requireNonNull(value, "value cannot be null");
+        int index = addKey(packedPair);
+        if (index >= 0) {
+            V previousValue = valueAt(index);
+            values[index] = value;
+            return previousValue;
+        }
+        values[~index] = value;
+        growIfFull();
+        return null;
+    }
+
+    /**
+     * @return Value of the key, or null if it has none
+     */
+    public V get(int x, int y) {
+        return get(IntPair.pack(x, y));
+    }
+
+    public V get(long packedPair) {
+        int index = indexOf(packedPair);
+        return index < 0 ? null : valueAt(index);
+    }
+
+    public V getOrDefault(int x, int y, V defaultValue) {
+        V value = get(x, y);
+        return value == null ? defaultValue : value;
+    }
+
+    public boolean containsKey(int x, int y) {
+        return indexOf(IntPair.pack(x, y)) >= 0;
+    }
+
+    public boolean containsKey(long packedPair) {
+        return indexOf(packedPair) >= 0;
+    }
+
+    /**
+     * @return The removed value, or null if the key had none
+     */
+    public V remove(int x, int y) {
+        return remove(IntPair.pack(x, y));
+    }
+
+    public V remove(long packedPair) {
+        int index = indexOf(packedPair);
+        if (index < 0) {
+            return null;
+        }
+        V removedValue = valueAt(index);
+        removeAt(index);
+        return removedValue;
+    }
+
+    /**
+     * Passes each entry to a consumer, in no particular order. The map must not be changed while doing so.
+     */
+    public void forEach(EntryConsumer<? super V> consumer) {
+        Objects.requireNonNull(consumer, "consumer cannot be null");
+        long[] currentKeys = keys;
+        for (int index = 0; index <= capacity; index++) {
+            if (isKeyAt(index)) {
+                long key = currentKeys[index];
+                consumer.accept(IntPair.unpackX(key), IntPair.unpackY(key), valueAt(index));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int index) {
+        return (V) values[index];
+    }
+
+    @Override
+    void moveValues(int[] newIndexes, int newLength) {
+        Object[] newValues = new Object[newLength];
+        for (int oldIndex = 0; oldIndex < newIndexes.length; oldIndex++) {
+            if (newIndexes[oldIndex] >= 0) {
+                newValues[newIndexes[oldIndex]] = values[oldIndex];
+            }
+        }
+        values = newValues;
+    }
+
+    @Override
+    void moveValue(int fromIndex, int toIndex) {
+        values[toIndex] = values[fromIndex];
+    }
+
+    @Override
+    void clearValue(int index) {
+        values[index] = null;
+    }
+
+    @Override
+    void clearValues() {
+        Arrays.fill(values, null);
+    }
+}
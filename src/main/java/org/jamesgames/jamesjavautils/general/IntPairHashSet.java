@@ -0,0 +1,110 @@
+package org.jamesgames.jamesjavautils.general;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.util.Objects;
+
+/**
+ * IntPairHashSet is a set of pairs of ints, such as the coordinates of visited tiles, with no objects created per
+ * pair. It works like {@link org.jamesgames.jamesjavautils.general.IntPairHashMap} without the values.
+ *
+ * @author James Murphy
+ */
+@NotThreadSafe
+public class IntPairHashSet extends IntPairHashTable {
+
+    /**
+     * Receives each pair of an {@link org.jamesgames.jamesjavautils.general.IntPairHashSet}
+     */
+    @FunctionalInterface
+    public static interface PairConsumer {
+        public void accept(int x, int y);
+    }
+
+    public IntPairHashSet() {
+        this(defaultExpectedSize);
+    }
+
+    public IntPairHashSet(int expectedSize) {
+        this(expectedSize, defaultLoadFactor);
+    }
+
+    /**
+     * @param expectedSize
+     *         Number of pairs the set can hold before it has to grow
+     * @param loadFactor
+     *         Fraction of the set's slots that can be used before it grows, between zero and one
+     */
+    public IntPairHashSet(int expectedSize, float loadFactor) {
+        super(expectedSize, loadFactor);
+    }
+
+    /**
+     * @return True if the pair wasn't in the set yet
+     */
+    public boolean add(int x, int y) {
+        return add(IntPair.pack(x, y));
+    }
+
+    public boolean add(long packedPair) {
+        if (addKey(packedPair) >= 0) {
+            return false;
+        }
+        growIfFull();
+        return true;
+    }
+
+    public boolean contains(int x, int y) {
+        return indexOf(IntPair.pack(x, y)) >= 0;
+    }
+
+    public boolean contains(long packedPair) {
+        return indexOf(packedPair) >= 0;
+    }
+
+    /**
+     * @return True if the pair was in the set
+     */
+    public boolean remove(int x, int y) {
+        return remove(IntPair.pack(x, y));
+    }
+
+    public boolean remove(long packedPair) {
+        int index = indexOf(packedPair);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * Passes each pair to a consumer, in no particular order. The set must not be changed while doing so.
+     */
+    public void forEach(PairConsumer consumer) {
+        Objects.requireNonNull(consumer, "consumer cannot be null");
+        long[] currentKeys = keys;
+        for (int index = 0; index <= capacity; index++) {
+            if (isKeyAt(index)) {
+                long key = currentKeys[index];
+                consumer.accept(IntPair.unpackX(key), IntPair.unpackY(key));
+            }
+        }
+    }
+
+    @Override
+    void moveValues(int[] newIndexes, int newLength) {
+    }
+
+    @Override
+    void moveValue(int fromIndex, int toIndex) {
+    }
+
+    @Override
+    void clearValue(int index) {
+    }
+
+    @Override
+    void clearValues() {
+    }
+}
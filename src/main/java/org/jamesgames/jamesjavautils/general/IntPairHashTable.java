@@ -0,0 +1,221 @@
+package org.jamesgames.jamesjavautils.general;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.util.Arrays;
+
+/**
+ * IntPairHashTable is the part shared by the hash maps and set keyed on pairs of ints: an open addressing table of
+ * pairs packed into longs (see {@link org.jamesgames.jamesjavautils.general.IntPair#pack(int, int)}) with linear
+ * probing, where subclasses keep their values in arrays parallel to the keys.
+ * <p>
+ * A key of zero marks a free slot, so the pair (0, 0), which packs to zero, is kept in an extra slot after the others.
+ * Removing a key shifts the keys after it back instead of leaving a marker behind, so lookups never have to step over
+ * removed keys.
+ *
+ * @author James Murphy
+ */
+@NotThreadSafe
+abstract class IntPairHashTable {
+    static final int defaultExpectedSize = 16;
+    static final float defaultLoadFactor = 0.5f;
+    private static final long freeKey = 0;
+
+    private final float loadFactor;
+    /**
+     * The keys, with one more slot than the capacity for the zero key
+     */
+    long[] keys;
+    int capacity;
+    private int mask;
+    private int maximumSizeBeforeGrowing;
+    boolean containsZeroKey;
+    private int size;
+
+    IntPairHashTable(int expectedSize, float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size cannot be negative (you passed " + expectedSize + ")");
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("Load factor has to be between zero and one (you passed " +
+                    loadFactor + ")");
+        }
+        this.loadFactor = loadFactor;
+        setCapacity(capacityFor(expectedSize));
+        keys = new long[capacity + 1];
+    }
+
+    private int capacityFor(int expectedSize) {
+        long neededCapacity = Math.max(2, (long) Math.ceil(expectedSize / (double) loadFactor));
+        if (neededCapacity > 1 << 30) {
+            throw new IllegalArgumentException("Too many entries for one table (you passed " + expectedSize + ")");
+        }
+        return Integer.highestOneBit((int) neededCapacity - 1) << 1;
+    }
+
+    private void setCapacity(int capacity) {
+        this.capacity = capacity;
+        mask = capacity - 1;
+        maximumSizeBeforeGrowing = Math.min(capacity - 1, (int) Math.ceil(capacity * loadFactor));
+    }
+
+    private static int slotOf(long key) {
+        // Mixes every bit of both ints into the bits kept by the mask, or else neighbouring pairs would cluster
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    /**
+     * @return Index of a key, or -1 if the table doesn't contain it
+     */
+    final int indexOf(long key) {
+        if (key == freeKey) {
+            return containsZeroKey ? capacity : -1;
+        }
+        int index = slotOf(key) & mask;
+        long keyAtIndex;
+        while ((keyAtIndex = keys[index]) != freeKey) {
+            if (keyAtIndex == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds a key if the table doesn't contain it yet. The subclass sets the value of a new key at the returned index
+     * and then calls {@link #growIfFull()}.
+     *
+     * @return Index of the key if it was already in the table, otherwise the bitwise complement (a negative number) of
+     * the index it was added at
+     */
+    final int addKey(long key) {
+        if (key == freeKey) {
+            if (containsZeroKey) {
+                return capacity;
+            }
+            containsZeroKey = true;
+            size++;
+            return ~capacity;
+        }
+        int index = slotOf(key) & mask;
+        long keyAtIndex;
+        while ((keyAtIndex = keys[index]) != freeKey) {
+            if (keyAtIndex == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        size++;
+        return ~index;
+    }
+
+    final void growIfFull() {
+        if (size > maximumSizeBeforeGrowing) {
+            if (capacity == 1 << 30) {
+                throw new IllegalStateException("Table cannot grow past " + capacity + " slots");
+            }
+            rehash(capacity * 2);
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int oldCapacity = capacity;
+        setCapacity(newCapacity);
+        long[] newKeys = new long[newCapacity + 1];
+        int[] newIndexes = new int[oldCapacity + 1];
+        for (int oldIndex = 0; oldIndex < oldCapacity; oldIndex++) {
+            long key = oldKeys[oldIndex];
+            if (key == freeKey) {
+                newIndexes[oldIndex] = -1;
+                continue;
+            }
+            int newIndex = slotOf(key) & mask;
+            while (newKeys[newIndex] != freeKey) {
+                newIndex = (newIndex + 1) & mask;
+            }
+            newKeys[newIndex] = key;
+            newIndexes[oldIndex] = newIndex;
+        }
+        newIndexes[oldCapacity] = newCapacity;
+        keys = newKeys;
+        moveValues(newIndexes, newCapacity + 1);
+    }
+
+    /**
+     * Removes the key at an index, shifting back any keys after it that would otherwise no longer be found
+     */
+    final void removeAt(int index) {
+        size--;
+        if (index == capacity) {
+            containsZeroKey = false;
+            clearValue(capacity);
+            return;
+        }
+        int freeIndex = index;
+        int index2 = index;
+        while (true) {
+            index2 = (index2 + 1) & mask;
+            long key = keys[index2];
+            if (key == freeKey) {
+                keys[freeIndex] = freeKey;
+                clearValue(freeIndex);
+                return;
+            }
+            int slot = slotOf(key) & mask;
+            // Move the key back if its slot isn't cyclically between the free index and where it is now
+            boolean slotBetween = freeIndex <= index2 ? freeIndex < slot && slot <= index2 :
+                    freeIndex < slot || slot <= index2;
+            if (!slotBetween) {
+                keys[freeIndex] = key;
+                moveValue(index2, freeIndex);
+                freeIndex = index2;
+            }
+        }
+    }
+
+    /**
+     * Moves the values to a new array of a length, the value at each old index going to the new index given for it
+     * (or nowhere if that is -1)
+     */
+    abstract void moveValues(int[] newIndexes, int newLength);
+
+    abstract void moveValue(int fromIndex, int toIndex);
+
+    abstract void clearValue(int index);
+
+    final boolean isKeyAt(int index) {
+        return index == capacity ? containsZeroKey : keys[index] != freeKey;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes everything, keeping the current capacity
+     */
+    public void clear() {
+        Arrays.fill(keys, freeKey);
+        containsZeroKey = false;
+        size = 0;
+        clearValues();
+    }
+
+    abstract void clearValues();
+
+    public float getLoadFactor() {
+        return loadFactor;
+    }
+}
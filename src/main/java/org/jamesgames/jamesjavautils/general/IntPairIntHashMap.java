@@ -0,0 +1,169 @@
+package org.jamesgames.jamesjavautils.general;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * IntPairIntHashMap maps pairs of ints to ints, such as counts or ids per tile, with no objects created per key, value
+ * or entry. It works like {@link org.jamesgames.jamesjavautils.general.IntPairHashMap}, except that since there is no
+ * null int a key without a value gets the map's no entry value, zero unless given another.
+ *
+ * @author James Murphy
+ */
+@NotThreadSafe
+public class IntPairIntHashMap extends IntPairHashTable {
+
+    /**
+     * Receives each entry of an {@link org.jamesgames.jamesjavautils.general.IntPairIntHashMap}
+     */
+    @FunctionalInterface
+    public static interface EntryConsumer {
+        public void accept(int x, int y, int value);
+    }
+
+    private final int noEntryValue;
+    private int[] values;
+
+    public IntPairIntHashMap() {
+        this(defaultExpectedSize);
+    }
+
+    public IntPairIntHashMap(int expectedSize) {
+        this(expectedSize, defaultLoadFactor, 0);
+    }
+
+    /**
+     * @param expectedSize
+     *         Number of entries the map can hold before it has to grow
+     * @param loadFactor
+     *         Fraction of the map's slots that can be used before it grows, between zero and one
+     * @param noEntryValue
+     *         Value returned for keys without a value
+     */
+    public IntPairIntHashMap(int expectedSize, float loadFactor, int noEntryValue) {
+        super(expectedSize, loadFactor);
+        this.noEntryValue = noEntryValue;
+        values = new int[capacity + 1];
+    }
+
+    /**
+     * @return The previous value of the key, or the no entry value if it had none
+     */
+    public int put(int x, int y, int value) {
+        return put(IntPair.pack(x, y), value);
+    }
+
+    public int put(long packedPair, int value) {
+        int index = addKey(packedPair);
+        if (index >= 0) {
+            int previousValue = values[index];
+            values[index] = value;
+            return previousValue;
+        }
+        values[~index] = value;
+        growIfFull();
+        return noEntryValue;
+    }
+
+    /**
+     * Adds to the value of a key, a key without a value starting from zero
+     *
+     * @return The key's new value
+     */
+    public int addTo(int x, int y, int amount) {
+        return addTo(IntPair.pack(x, y), amount);
+    }
+
+    public int addTo(long packedPair, int amount) {
+        int index = addKey(packedPair);
+        if (index >= 0) {
+            return values[index] += amount;
+        }
+        values[~index] = amount;
+        growIfFull();
+        return amount;
+    }
+
+    /**
+     * @return Value of the key, or the no entry value if it has none
+     */
+    public int get(int x, int y) {
+        return get(IntPair.pack(x, y));
+    }
+
+    public int get(long packedPair) {
+        int index = indexOf(packedPair);
+        return index < 0 ? noEntryValue : values[index];
+    }
+
+    public boolean containsKey(int x, int y) {
+        return indexOf(IntPair.pack(x, y)) >= 0;
+    }
+
+    public boolean containsKey(long packedPair) {
+        return indexOf(packedPair) >= 0;
+    }
+
+    /**
+     * @return The removed value, or the no entry value if the key had none
+     */
+    public int remove(int x, int y) {
+        return remove(IntPair.pack(x, y));
+    }
+
+    public int remove(long packedPair) {
+        int index = indexOf(packedPair);
+        if (index < 0) {
+            return noEntryValue;
+        }
+        int removedValue = values[index];
+        removeAt(index);
+        return removedValue;
+    }
+
+    /**
+     * Passes each entry to a consumer, in no particular order. The map must not be changed while doing so.
+     */
+    public void forEach(EntryConsumer consumer) {
+        Objects.requireNonNull(consumer, "consumer cannot be null");
+        long[] currentKeys = keys;
+        for (int index = 0; index <= capacity; index++) {
+            if (isKeyAt(index)) {
+                long key = currentKeys[index];
+                consumer.accept(IntPair.unpackX(key), IntPair.unpackY(key), values[index]);
+            }
+        }
+    }
+
+    public int getNoEntryValue() {
+        return noEntryValue;
+    }
+
+    @Override
+    void moveValues(int[] newIndexes, int newLength) {
+        int[] newValues = new int[newLength];
+        for (int oldIndex = 0; oldIndex < newIndexes.length; oldIndex++) {
+            if (newIndexes[oldIndex] >= 0) {
+                newValues[newIndexes[oldIndex]] = values[oldIndex];
+            }
+        }
+        values = newValues;
+    }
+
+    @Override
+    void moveValue(int fromIndex, int toIndex) {
+        values[toIndex] = values[fromIndex];
+    }
+
+    @Override
+    void clearValue(int index) {
+        values[index] = 0;
+    }
+
+    @Override
+    void clearValues() {
+        Arrays.fill(values, 0);
+    }
+}
@@ -0,0 +1,219 @@
+package org.jamesgames.jamesjavautils.general;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Times the calls to the observers of an instrumented {@link org.jamesgames.jamesjavautils.general.ObserverSet}. Every
+ * call is counted, but only about one in every sampling rate calls to an observer is timed, keeping the cost of {@link
+ * System#nanoTime()} off of most calls. Which calls are timed is picked at random per thread rather than with a count
+ * shared by every thread informing the observer, so threads informing the same observer at once don't contend on
+ * anything but adding to the observer's counts.
+ * <p>
+ * An observer is only recorded from when it's added to the set (or instrumentation is enabled) until it's removed, a
+ * call to an observer that was already removed (from a set informing a snapshot of its observers) isn't recorded.
+ * <p>
+ * When the observers are only held weakly, each is kept in the map of times in a weak reference, and the times of
+ * collected observers are taken out of the map when an observer is added or removed, or statistics are asked for. The
+ * map is concurrent in both cases, so threads informing observers never wait on each other to find an observer's
+ * times.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+class ObserverInstrumentation<Observer> {
+    private final int samplingRate;
+    private final long latencyBudgetInNanoSeconds;
+    private final boolean weakObservers;
+    /**
+     * Keyed by the observer, or by a {@link WeakObserverKey} of it when observers are held weakly
+     */
+    private final ConcurrentHashMap<Object, ObserverTimes> timesByObserver = new ConcurrentHashMap<>();
+    /**
+     * Keys of observers that have been collected, when observers are held weakly
+     */
+    private final ReferenceQueue<Object> collectedObservers = new ReferenceQueue<>();
+
+    /**
+     * @param weakObservers
+     *         True if the observers are only held weakly, so that instrumenting them doesn't keep them in memory
+     */
+    ObserverInstrumentation(int samplingRate, long latencyBudgetInNanoSeconds, boolean weakObservers) {
+        if (samplingRate <= 0) {
+            throw new IllegalArgumentException("Sampling rate has to be greater than zero (you passed " +
+                    samplingRate + ")");
+        }
+        if (latencyBudgetInNanoSeconds <= 0) {
+            throw new IllegalArgumentException("Latency budget has to be greater than zero (you passed " +
+                    latencyBudgetInNanoSeconds + ")");
+        }
+        this.samplingRate = samplingRate;
+        this.latencyBudgetInNanoSeconds = latencyBudgetInNanoSeconds;
+        this.weakObservers = weakObservers;
+    }
+
+    /**
+     * @return An inform action that does the same as the passed one, while counting and timing the calls
+     */
+    Consumer<Observer> instrument(Consumer<Observer> informAction) {
+        return observer -> inform(observer, informAction);
+    }
+
+    private void inform(Observer observer, Consumer<Observer> informAction) {
+        ObserverTimes times = timesByObserver.get(weakObservers ? new ObserverLookupKey(observer) : observer);
+        if (times == null) {
+            informAction.accept(observer);
+            return;
+        }
+        times.numberOfCalls.increment();
+        if (samplingRate != 1 && ThreadLocalRandom.current().nextInt(samplingRate) != 0) {
+            informAction.accept(observer);
+            return;
+        }
+        long startTime = System.nanoTime();
+        try {
+            informAction.accept(observer);
+        } finally {
+            times.addTimedCall(System.nanoTime() - startTime);
+        }
+    }
+
+    void observerAdded(Observer observer) {
+        removeCollectedObservers();
+        timesByObserver.putIfAbsent(weakObservers ? new WeakObserverKey(observer, collectedObservers) : observer,
+                new ObserverTimes());
+    }
+
+    void observerRemoved(Observer observer) {
+        removeCollectedObservers();
+        timesByObserver.remove(weakObservers ? new ObserverLookupKey(observer) : observer);
+    }
+
+    private void removeCollectedObservers() {
+        Reference<?> collectedObserver;
+        while ((collectedObserver = collectedObservers.poll()) != null) {
+            // A key that has been cleared only equals itself, so this removes just its own times
+            timesByObserver.remove(collectedObserver);
+        }
+    }
+
+    /**
+     * @return Statistics of each observer informed since instrumenting began, with the most total time first
+     */
+    List<ObserverStatistics<Observer>> getObserverStatistics() {
+        removeCollectedObservers();
+        List<ObserverStatistics<Observer>> statistics = new ArrayList<>();
+        timesByObserver.forEach((key, times) -> {
+            Observer observer = getObserver(key);
+            if (observer != null) {
+                statistics.add(times.toStatistics(observer));
+            }
+        });
+        statistics.sort(Comparator.comparingLong(
+                (ObserverStatistics<Observer> observerStatistics) ->
+                        observerStatistics.getEstimatedTotalTimeInNanoSeconds()).reversed());
+        return statistics;
+    }
+
+    /**
+     * @return The observer of a key of the map of times, or null if it has been collected
+     */
+    @SuppressWarnings("unchecked")
+    private Observer getObserver(Object key) {
+        return (Observer) (weakObservers ? ((WeakObserverKey) key).get() : key);
+    }
+
+    private class ObserverTimes {
+        private final LongAdder numberOfCalls = new LongAdder();
+        private final LongAdder numberOfTimedCalls = new LongAdder();
+        private final LongAdder totalTimedTimeInNanoSeconds = new LongAdder();
+        private final AtomicLong maximumTimeInNanoSeconds = new AtomicLong();
+        private final LongAdder numberOfTimedCallsOverLatencyBudget = new LongAdder();
+
+        private void addTimedCall(long timeInNanoSeconds) {
+            numberOfTimedCalls.increment();
+            totalTimedTimeInNanoSeconds.add(timeInNanoSeconds);
+            maximumTimeInNanoSeconds.accumulateAndGet(timeInNanoSeconds, Math::max);
+            if (timeInNanoSeconds > latencyBudgetInNanoSeconds) {
+                numberOfTimedCallsOverLatencyBudget.increment();
+            }
+        }
+
+        private ObserverStatistics<Observer> toStatistics(Observer observer) {
+            return new ObserverStatistics<>(observer, numberOfCalls.sum(), numberOfTimedCalls.sum(),
+                    totalTimedTimeInNanoSeconds.sum(), maximumTimeInNanoSeconds.get(),
+                    numberOfTimedCallsOverLatencyBudget.sum(), latencyBudgetInNanoSeconds);
+        }
+    }
+
+    /**
+     * Weakly held key of an observer's times, equal to the keys of any equal observer for as long as its observer
+     * hasn't been collected
+     */
+    private static class WeakObserverKey extends WeakReference<Object> {
+        private final int hashCode;
+
+        private WeakObserverKey(Object observer, ReferenceQueue<Object> collectedObservers) {
+            super(observer, collectedObservers);
+            hashCode = observer.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            Object observer = get();
+            if (observer == null) {
+                return false;
+            }
+            if (o instanceof WeakObserverKey) {
+                return observer.equals(((WeakObserverKey) o).get());
+            }
+            return o instanceof ObserverLookupKey && observer.equals(((ObserverLookupKey) o).observer);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * Strongly held key for looking up an observer's times without creating a weak reference
+     */
+    private static class ObserverLookupKey {
+        private final Object observer;
+
+        private ObserverLookupKey(Object observer) {
+            this.observer = observer;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o instanceof WeakObserverKey) {
+                return observer.equals(((WeakObserverKey) o).get());
+            }
+            return o instanceof ObserverLookupKey && observer.equals(((ObserverLookupKey) o).observer);
+        }
+
+        @Override
+        public int hashCode() {
+            return observer.hashCode();
+        }
+    }
+}
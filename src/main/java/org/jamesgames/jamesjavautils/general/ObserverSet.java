@@ -2,39 +2,488 @@ package org.jamesgames.jamesjavautils.general;
 
 import net.jcip.annotations.ThreadSafe;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Consumer;
 
 /**
  * ObserverSet is a class that helps implement an Observer pattern. The class holds a {@link java.util.Set} of some type
  * of object, which are assumed to be in this case a type that depicts events that one would want to observe (listen
  * to). ObserverSet is thread safe.
+ * <p>
+ * How observers are informed depends on the {@link org.jamesgames.jamesjavautils.general.ObserverSet.DispatchMode} the
+ * set was created with. By default the set's lock is held while observers are informed, so a slow observer holds up
+ * every other thread informing or changing the set. In copy on write mode the observers are kept in an array that is
+ * replaced (never changed) when an observer is added or removed, and informing observers just reads the current array
+ * with no lock, so any number of threads can inform observers at once, and observers can add or remove observers
+ * (including themselves) while being informed. Each add or remove copies the array, so copy on write mode suits sets
+ * that are informed far more often than they are changed.
+ * <p>
+ * Parallel mode stores observers the same way as copy on write mode, but when there are more observers than the serial
+ * threshold they are split into chunks of up to the threshold's number of observers, which are informed at the same time
+ * on an executor (the common {@link java.util.concurrent.ForkJoinPool} unless another is supplied) while the calling
+ * thread informs the last chunk itself and then waits for the rest. In any mode {@link
+ * #informObserversWithoutWaiting(java.util.function.Consumer)} informs observers on the executor without the calling
+ * thread waiting at all.
+ * <p>
+ * In weak references mode the set only holds its observers weakly, so an observer that is never removed doesn't stay
+ * in memory (and keep being informed) because of the set. Observers are otherwise kept and informed like in copy on
+ * write mode, and the references of collected observers are taken out of the set both when an observer is added or
+ * removed and when observers are informed, so memory and the time to inform observers only grow with the observers
+ * still alive. Since nothing else may be holding onto it, an observer made from a lambda or anonymous class should be
+ * kept in a field of whatever it is observing on behalf of.
+ * <p>
+ * Instrumentation can be turned on (see {@link #enableInstrumentation(int, long)}) in any mode to find which observers
+ * are slow to be informed. While it is off it costs a single read of a field per call to inform observers.
  *
  * @author James Murphy
  */
 @ThreadSafe
 public class ObserverSet<Observer> {
 
+    /**
+     * How observers are stored and informed.
+     */
+    public static enum DispatchMode {
+        /**
+         * Observers are kept in a hash set and informed while holding the set's lock
+         */
+        synchronizedSet,
+        /**
+         * Observers are kept in an array that is copied on every change and informed without any lock
+         */
+        copyOnWrite,
+        /**
+         * Observers are kept like in copy on write mode and informed in chunks on an executor when there are many
+         */
+        parallel,
+        /**
+         * Observers are kept weakly in an array like in copy on write mode, and taken out once they're collected
+         */
+        weakReferences
+    }
+
+    private static final Object[] noObservers = new Object[0];
+    private static final int defaultSerialThreshold = 1024;
+
+    private final DispatchMode dispatchMode;
+    private final Executor parallelExecutor;
+    private final int serialThreshold;
     private final Set<Observer> observers = new HashSet<>();
 
+    /**
+     * Observers when in copy on write, parallel or weak references mode (where each is in a {@link
+     * java.lang.ref.WeakReference}), the array is never changed once it's set, only replaced
+     */
+    private volatile Object[] observerSnapshot = noObservers;
+    /**
+     * References of observers that have been collected, when in weak references mode
+     */
+    private final ReferenceQueue<Object> collectedObservers = new ReferenceQueue<>();
+    /**
+     * Null while instrumentation is off
+     */
+    private volatile ObserverInstrumentation<Observer> instrumentation;
+
+    public ObserverSet() {
+        this(DispatchMode.synchronizedSet);
+    }
+
+    /**
+     * Creates an ObserverSet that stores and informs observers in a specific dispatch mode
+     */
+    public ObserverSet(DispatchMode dispatchMode) {
+        this(dispatchMode, ForkJoinPool.commonPool(), defaultSerialThreshold);
+    }
+
+    /**
+     * Creates an ObserverSet in parallel mode
+     *
+     * @param parallelExecutor
+     *         Executor chunks of observers are informed on, a chunk the executor rejects is informed on the calling
+     *         thread instead
+     * @param serialThreshold
+     *         Most observers informed on the calling thread alone, and the size of each chunk when there are more
+     */
+    public ObserverSet(Executor parallelExecutor, int serialThreshold) {
+        this(DispatchMode.parallel, parallelExecutor, serialThreshold);
+    }
+
+    private ObserverSet(DispatchMode dispatchMode, Executor parallelExecutor, int serialThreshold) {
+        if (serialThreshold <= 0) {
+            throw new IllegalArgumentException("Serial threshold has to be greater than zero (you passed " +
+                    serialThreshold + ")");
+        }
+        this.dispatchMode = Objects.requireNonNull(dispatchMode, "dispatchMode cannot be null");
+        this.parallelExecutor = Objects.requireNonNull(parallelExecutor, "parallelExecutor cannot be null");
+        this.serialThreshold = serialThreshold;
+    }
+
     public synchronized void addObserver(Observer observer) {
-        boolean listenerNotYetAdded = observers.add(Objects.requireNonNull(observer, "observer cannot be null"));
-        if (!listenerNotYetAdded) {
-            throw new IllegalArgumentException("Observer is already observing");
+        Objects.requireNonNull(observer, "observer cannot be null");
+        if (dispatchMode != DispatchMode.synchronizedSet) {
+            purgeCollectedObserversWhileLocked();
+            Object[] snapshot = observerSnapshot;
+            if (indexOf(snapshot, observer) != -1) {
+                throw new IllegalArgumentException("Observer is already observing");
+            }
+            Object[] newSnapshot = Arrays.copyOf(snapshot, snapshot.length + 1);
+            newSnapshot[snapshot.length] =
+                    dispatchMode == DispatchMode.weakReferences ? new WeakReference<>(observer, collectedObservers) :
+                            observer;
+            observerSnapshot = newSnapshot;
+        } else {
+            boolean listenerNotYetAdded = observers.add(observer);
+            if (!listenerNotYetAdded) {
+                throw new IllegalArgumentException("Observer is already observing");
+            }
+        }
+        ObserverInstrumentation<Observer> currentInstrumentation = instrumentation;
+        if (currentInstrumentation != null) {
+            currentInstrumentation.observerAdded(observer);
         }
     }
 
     public synchronized void removeObserver(Observer observer) {
-        boolean listenerExisted = observers.remove(Objects.requireNonNull(observer, "observer cannot be null"));
+        Objects.requireNonNull(observer, "observer cannot be null");
+        if (dispatchMode != DispatchMode.synchronizedSet) {
+            purgeCollectedObserversWhileLocked();
+            Object[] snapshot = observerSnapshot;
+            int index = indexOf(snapshot, observer);
+            if (index == -1) {
+                throw new IllegalArgumentException("Observer was not observing");
+            }
+            Object[] newSnapshot = new Object[snapshot.length - 1];
+            System.arraycopy(snapshot, 0, newSnapshot, 0, index);
+            System.arraycopy(snapshot, index + 1, newSnapshot, index, snapshot.length - index - 1);
+            observerSnapshot = newSnapshot;
+        } else {
+            boolean listenerExisted = observers.remove(observer);
+
+            if (!listenerExisted) {
+                throw new IllegalArgumentException("Observer was not observing");
+            }
+        }
+        ObserverInstrumentation<Observer> currentInstrumentation = instrumentation;
+        if (currentInstrumentation != null) {
+            currentInstrumentation.observerRemoved(observer);
+        }
+    }
+
+    private int indexOf(Object[] snapshot, Object observer) {
+        for (int i = 0; i < snapshot.length; i++) {
+            if (observer.equals(getObserver(snapshot[i]))) {
+                return i;
+            }
+        }
+        return -1;
+    }
 
-        if (!listenerExisted) {
-            throw new IllegalArgumentException("Observer was not observing");
+    /**
+     * @return The observer of an element of the snapshot, or null if it has been collected
+     */
+    @SuppressWarnings("unchecked")
+    private Observer getObserver(Object snapshotElement) {
+        if (dispatchMode == DispatchMode.weakReferences) {
+            return ((WeakReference<Observer>) snapshotElement).get();
         }
+        return (Observer) snapshotElement;
     }
 
-    public synchronized void informObservers(Consumer<Observer> informAction) {
+    /**
+     * Takes the references of collected observers out of the snapshot, which when nothing has been collected is only
+     * a check of the reference queue with no lock
+     */
+    private void purgeCollectedObservers() {
+        if (collectedObservers.poll() != null) {
+            synchronized (this) {
+                purgeCollectedObserversWhileLocked();
+            }
+        }
+    }
+
+    private void purgeCollectedObserversWhileLocked() {
+        if (dispatchMode != DispatchMode.weakReferences) {
+            return;
+        }
+        while (collectedObservers.poll() != null) {
+            // Any reference that has been cleared is taken out below, whether or not it has been queued yet
+        }
+        Object[] snapshot = observerSnapshot;
+        int numberOfLiveObservers = 0;
+        Object[] liveObservers = new Object[snapshot.length];
+        for (Object reference : snapshot) {
+            if (((WeakReference<?>) reference).get() != null) {
+                liveObservers[numberOfLiveObservers++] = reference;
+            }
+        }
+        if (numberOfLiveObservers != snapshot.length) {
+            observerSnapshot = Arrays.copyOf(liveObservers, numberOfLiveObservers);
+        }
+    }
+
+    public void informObservers(Consumer<Observer> informAction) {
+        ObserverInstrumentation<Observer> currentInstrumentation = instrumentation;
+        if (currentInstrumentation != null) {
+            informAction = currentInstrumentation.instrument(informAction);
+        }
+        switch (dispatchMode) {
+            case synchronizedSet:
+                informObserversWhileLocked(informAction);
+                break;
+            case copyOnWrite:
+                informObserversInSnapshot(informAction);
+                break;
+            case parallel:
+                informObserversInParallel(informAction);
+                break;
+            case weakReferences:
+                informLiveObservers(informAction);
+                break;
+        }
+    }
+
+    private synchronized void informObserversWhileLocked(Consumer<Observer> informAction) {
         observers.forEach(informAction);
     }
+
+    @SuppressWarnings("unchecked")
+    private void informObserversInSnapshot(Consumer<Observer> informAction) {
+        // Observers added or removed while informing are left out or still informed, as of when informing began
+        Object[] snapshot = observerSnapshot;
+        for (Object observer : snapshot) {
+            informAction.accept((Observer) observer);
+        }
+    }
+
+    private void informLiveObservers(Consumer<Observer> informAction) {
+        purgeCollectedObservers();
+        Object[] snapshot = observerSnapshot;
+        for (Object reference : snapshot) {
+            Observer observer = getObserver(reference);
+            if (observer != null) {
+                informAction.accept(observer);
+            }
+        }
+    }
+
+    private void informObserversInParallel(Consumer<Observer> informAction) {
+        Object[] snapshot = observerSnapshot;
+        if (snapshot.length <= serialThreshold) {
+            informObserversInChunk(snapshot, 0, snapshot.length, informAction);
+            return;
+        }
+        int numberOfChunks = (snapshot.length + serialThreshold - 1) / serialThreshold;
+        int lastChunkStart = (numberOfChunks - 1) * serialThreshold;
+        CompletableFuture<Void> otherChunks =
+                informObserversInChunksOnExecutor(snapshot, lastChunkStart, informAction);
+        try {
+            informObserversInChunk(snapshot, lastChunkStart, snapshot.length, informAction);
+        } catch (RuntimeException | Error e) {
+            // Still wait for the other chunks, but what the calling thread's own observer threw is what's thrown
+            try {
+                joinRethrowingCause(otherChunks);
+            } catch (RuntimeException | Error otherChunkException) {
+                if (otherChunkException != e) {
+                    e.addSuppressed(otherChunkException);
+                }
+            }
+            throw e;
+        }
+        joinRethrowingCause(otherChunks);
+    }
+
+    /**
+     * Informs observers on the set's executor, in chunks if there are more observers than the serial threshold, without
+     * waiting for them to be informed. Observers are informed as of when this method is called, and without holding
+     * the set's lock even when in synchronized set mode.
+     *
+     * @return Completes once every observer has been informed, or exceptionally if any observer threw, which can be
+     * ignored if the caller doesn't care
+     */
+    public CompletableFuture<Void> informObserversWithoutWaiting(Consumer<Observer> informAction) {
+        Objects.requireNonNull(informAction, "informAction cannot be null");
+        ObserverInstrumentation<Observer> currentInstrumentation = instrumentation;
+        if (currentInstrumentation != null) {
+            informAction = currentInstrumentation.instrument(informAction);
+        }
+        Object[] snapshot;
+        if (dispatchMode == DispatchMode.weakReferences) {
+            snapshot = getLiveObservers();
+        } else if (dispatchMode != DispatchMode.synchronizedSet) {
+            snapshot = observerSnapshot;
+        } else {
+            synchronized (this) {
+                snapshot = observers.toArray();
+            }
+        }
+        return informObserversInChunksOnExecutor(snapshot, snapshot.length, informAction);
+    }
+
+    /**
+     * Informs the observers before an index of a snapshot on the set's executor, one task per chunk
+     */
+    private CompletableFuture<Void> informObserversInChunksOnExecutor(Object[] snapshot, int end,
+            Consumer<Observer> informAction) {
+        if (end <= serialThreshold) {
+            return informObserversInChunkOnExecutor(snapshot, 0, end, informAction);
+        }
+        CompletableFuture<?>[] chunks = new CompletableFuture<?>[(end + serialThreshold - 1) / serialThreshold];
+        for (int chunk = 0; chunk < chunks.length; chunk++) {
+            int start = chunk * serialThreshold;
+            int chunkEnd = Math.min(start + serialThreshold, end);
+            chunks[chunk] = informObserversInChunkOnExecutor(snapshot, start, chunkEnd, informAction);
+        }
+        return CompletableFuture.allOf(chunks);
+    }
+
+    /**
+     * Informs a chunk of observers on the set's executor, or on the calling thread if the executor rejects the chunk,
+     * so that a rejection never leaves some observers uninformed
+     */
+    private CompletableFuture<Void> informObserversInChunkOnExecutor(Object[] snapshot, int start, int end,
+            Consumer<Observer> informAction) {
+        try {
+            return CompletableFuture.runAsync(() -> informObserversInChunk(snapshot, start, end, informAction),
+                    parallelExecutor);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<Void> informedInline = new CompletableFuture<>();
+            try {
+                informObserversInChunk(snapshot, start, end, informAction);
+                informedInline.complete(null);
+            } catch (RuntimeException | Error observerException) {
+                // Reported when joined, like an exception thrown by an observer informed on the executor
+                informedInline.completeExceptionally(observerException);
+            }
+            return informedInline;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void informObserversInChunk(Object[] snapshot, int start, int end, Consumer<Observer> informAction) {
+        for (int i = start; i < end; i++) {
+            informAction.accept((Observer) snapshot[i]);
+        }
+    }
+
+    private static void joinRethrowingCause(CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            // Throw what the observer threw, as it would have been thrown if informed on the calling thread
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Starts recording the number of calls to each observer and how long they take, replacing anything recorded
+     * before
+     *
+     * @param samplingRate
+     *         About one in this many calls to each observer is timed, 1 to time every call
+     * @param latencyBudgetInNanoSeconds
+     *         Time a call to an observer should take at most, observers with calls over it are flagged in their
+     *         statistics
+     */
+    public synchronized void enableInstrumentation(int samplingRate, long latencyBudgetInNanoSeconds) {
+        ObserverInstrumentation<Observer> newInstrumentation = new ObserverInstrumentation<>(samplingRate,
+                latencyBudgetInNanoSeconds, dispatchMode == DispatchMode.weakReferences);
+        // Holding the set's lock, so no observer can be added or removed between these and the new instrumentation
+        if (dispatchMode == DispatchMode.synchronizedSet) {
+            observers.forEach(newInstrumentation::observerAdded);
+        } else {
+            for (Object snapshotElement : observerSnapshot) {
+                Observer observer = getObserver(snapshotElement);
+                if (observer != null) {
+                    newInstrumentation.observerAdded(observer);
+                }
+            }
+        }
+        instrumentation = newInstrumentation;
+    }
+
+    /**
+     * Stops recording calls to observers and forgets what was recorded
+     */
+    public void disableInstrumentation() {
+        instrumentation = null;
+    }
+
+    public boolean isInstrumentationEnabled() {
+        return instrumentation != null;
+    }
+
+    /**
+     * @return Statistics of each observer informed since instrumentation was enabled, most total time first, or an
+     * empty list if instrumentation is off
+     */
+    public List<ObserverStatistics<Observer>> getObserverStatistics() {
+        ObserverInstrumentation<Observer> currentInstrumentation = instrumentation;
+        if (currentInstrumentation == null) {
+            return Collections.emptyList();
+        }
+        return currentInstrumentation.getObserverStatistics();
+    }
+
+    /**
+     * @return Statistics of only the observers with a timed call over the latency budget, most total time first
+     */
+    public List<ObserverStatistics<Observer>> getObserverStatisticsOverLatencyBudget() {
+        List<ObserverStatistics<Observer>> statistics = getObserverStatistics();
+        statistics.removeIf(observerStatistics -> !observerStatistics.isOverLatencyBudget());
+        return statistics;
+    }
+
+    /**
+     * @return Number of observers currently observing
+     */
+    public int getNumberOfObservers() {
+        if (dispatchMode == DispatchMode.weakReferences) {
+            return getLiveObservers().length;
+        }
+        if (dispatchMode != DispatchMode.synchronizedSet) {
+            return observerSnapshot.length;
+        }
+        synchronized (this) {
+            return observers.size();
+        }
+    }
+
+    /**
+     * @return Observers in weak references mode that haven't been collected, held strongly in the returned array
+     */
+    private Object[] getLiveObservers() {
+        purgeCollectedObservers();
+        Object[] snapshot = observerSnapshot;
+        Object[] liveObservers = new Object[snapshot.length];
+        int numberOfLiveObservers = 0;
+        for (Object reference : snapshot) {
+            Observer observer = getObserver(reference);
+            if (observer != null) {
+                liveObservers[numberOfLiveObservers++] = observer;
+            }
+        }
+        return Arrays.copyOf(liveObservers, numberOfLiveObservers);
+    }
+
+    public DispatchMode getDispatchMode() {
+        return dispatchMode;
+    }
 }
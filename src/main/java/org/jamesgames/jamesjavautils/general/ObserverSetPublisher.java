@@ -0,0 +1,503 @@
+package org.jamesgames.jamesjavautils.general;
+
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * ObserverSetPublisher is a {@link org.jamesgames.jamesjavautils.general.Flow.Publisher} of the events of an {@link
+ * org.jamesgames.jamesjavautils.general.ObserverSet}, for connecting observed events to subscribers that may be slower
+ * than the events happen. The publisher observes the set through an observer that turns each call it gets into an
+ * event (for example {@code eventSink -> position -> eventSink.accept(position)} for an observer with a single method
+ * that takes a position), and events can also be submitted directly with {@link #submit(Object)}.
+ * <p>
+ * Each subscriber has a buffer holding up to a fixed number of events, and is sent events from its buffer on an
+ * executor only as it requests them. When an event arrives for a subscriber whose buffer is full, the subscriber's
+ * {@link org.jamesgames.jamesjavautils.general.ObserverSetPublisher.OverflowPolicy} decides what happens, so neither
+ * memory nor the events a slow subscriber has missed can grow without bound unless chosen to. Blocking loses an event
+ * only if the submitting thread is interrupted while waiting, at the cost of holding up whoever submitted the event
+ * (the thread informing the observer set), so it should not be used with an executor that runs on the submitting
+ * thread, or with a {@link java.util.concurrent.ForkJoinPool} whose threads may be the ones submitting.
+ * <p>
+ * Once the publisher is closed, events its observer is still being informed of are quietly dropped, while submitting
+ * an event directly is an error. If the executor rejects sending a subscriber its signals (such as a bounded or shut
+ * down executor), that subscription is ended and the subscriber is sent the {@link
+ * java.util.concurrent.RejectedExecutionException} as its error on the thread the executor rejected.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+public class ObserverSetPublisher<Event> implements Flow.Publisher<Event>, Closeable {
+
+    /**
+     * What happens to an event for a subscriber whose buffer is full
+     */
+    public static enum OverflowPolicy {
+        /**
+         * The oldest event in the buffer is dropped to make room
+         */
+        dropOldest,
+        /**
+         * The new event is dropped
+         */
+        dropNewest,
+        /**
+         * Submitting the event waits until the subscriber has made room, or drops the event if the submitting thread
+         * is interrupted while waiting
+         */
+        block,
+        /**
+         * The subscription is ended by sending the subscriber an error
+         */
+        error
+    }
+
+    private static final int defaultBufferCapacity = 256;
+
+    private final ObserverSet<BufferedSubscription> subscriptions =
+            new ObserverSet<>(ObserverSet.DispatchMode.copyOnWrite);
+    private final Runnable stopObserving;
+    private final Executor executor;
+    private final int defaultSubscriberBufferCapacity;
+    private final OverflowPolicy defaultOverflowPolicy;
+    private final LongAdder numberOfDroppedEvents = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Creates an ObserverSetPublisher whose subscribers are sent events on the common {@link
+     * java.util.concurrent.ForkJoinPool} and by default have room for 256 events, dropping the oldest event when full
+     * (blocking could wait on the same pool that has to send the events making room)
+     */
+    public <Observer> ObserverSetPublisher(ObserverSet<Observer> observedSet,
+            Function<Consumer<Event>, Observer> observerFactory) {
+        this(observedSet, observerFactory, ForkJoinPool.commonPool(), defaultBufferCapacity,
+                OverflowPolicy.dropOldest);
+    }
+
+    /**
+     * @param observedSet
+     *         Set whose events are published
+     * @param observerFactory
+     *         Creates the observer added to the set, from a sink that the observer passes its events to
+     * @param executor
+     *         Executor subscribers are sent events on, a subscription whose signals it rejects is ended with an error
+     * @param defaultSubscriberBufferCapacity
+     *         Most events buffered for a subscriber, unless given when subscribing
+     * @param defaultOverflowPolicy
+     *         What happens when a subscriber's buffer is full, unless given when subscribing
+     */
+    public <Observer> ObserverSetPublisher(ObserverSet<Observer> observedSet,
+            Function<Consumer<Event>, Observer> observerFactory, Executor executor, int defaultSubscriberBufferCapacity,
+            OverflowPolicy defaultOverflowPolicy) {
+        Objects.requireNonNull(observedSet, "observedSet cannot be null");
+        Objects.requireNonNull(observerFactory, "observerFactory cannot be null");
+        this.executor = Objects.requireNonNull(executor, "executor cannot be null");
+        this.defaultOverflowPolicy =
+                Objects.requireNonNull(defaultOverflowPolicy, "defaultOverflowPolicy cannot be null");
+        checkBufferCapacity(defaultSubscriberBufferCapacity);
+        this.defaultSubscriberBufferCapacity = defaultSubscriberBufferCapacity;
+        Observer observer = Objects.requireNonNull(observerFactory.apply(this::submitIfOpen),
+                "observerFactory cannot create a null observer");
+        observedSet.addObserver(observer);
+        stopObserving = () -> observedSet.removeObserver(observer);
+    }
+
+    private static void checkBufferCapacity(int bufferCapacity) {
+        if (bufferCapacity <= 0) {
+            throw new IllegalArgumentException("Buffer capacity has to be greater than zero (you passed " +
+                    bufferCapacity + ")");
+        }
+    }
+
+    /**
+     * Subscribes with the publisher's default buffer capacity and overflow policy
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super Event> subscriber) {
+        subscribe(subscriber, defaultSubscriberBufferCapacity, defaultOverflowPolicy);
+    }
+
+    public void subscribe(Flow.Subscriber<? super Event> subscriber, int bufferCapacity,
+            OverflowPolicy overflowPolicy) {
+        Objects.requireNonNull(subscriber, "subscriber cannot be null");
+        Objects.requireNonNull(overflowPolicy, "overflowPolicy cannot be null");
+        checkBufferCapacity(bufferCapacity);
+        BufferedSubscription subscription = new BufferedSubscription(subscriber, bufferCapacity, overflowPolicy);
+        subscriptions.addObserver(subscription);
+        subscription.start();
+        if (closed) {
+            subscription.complete();
+        }
+    }
+
+    /**
+     * Submits an event to every current subscriber, the same as the observer of the observed set does with each call
+     * it gets
+     *
+     * @throws IllegalStateException
+     *         If the publisher is closed
+     */
+    public void submit(Event event) {
+        Objects.requireNonNull(event, "event cannot be null");
+        if (closed) {
+            throw new IllegalStateException("ObserverSetPublisher is closed");
+        }
+        subscriptions.informObservers(subscription -> subscription.offer(event));
+    }
+
+    /**
+     * Where the observer of the observed set sends its events. The observed set may still be informing the observer
+     * when the publisher is closed, and throwing at that set for it would break its loop over its other observers, so
+     * events after closing are dropped instead.
+     */
+    private void submitIfOpen(Event event) {
+        Objects.requireNonNull(event, "event cannot be null");
+        if (!closed) {
+            subscriptions.informObservers(subscription -> subscription.offer(event));
+        }
+    }
+
+    /**
+     * Stops observing the observed set and completes every subscriber once it has been sent the events left in its
+     * buffer
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        stopObserving.run();
+        subscriptions.informObservers(BufferedSubscription::complete);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return A snapshot of the buffer and demand of every subscription that hasn't been cancelled or ended
+     */
+    public List<SubscriptionSnapshot> getSubscriptionSnapshots() {
+        List<SubscriptionSnapshot> snapshots = new ArrayList<>();
+        subscriptions.informObservers(subscription -> snapshots.add(subscription.snapshot()));
+        return snapshots;
+    }
+
+    public int getNumberOfSubscribers() {
+        return subscriptions.getNumberOfObservers();
+    }
+
+    /**
+     * @return Number of events in the buffers of every current subscriber
+     */
+    public int getNumberOfBufferedEvents() {
+        int[] numberOfBufferedEvents = new int[1];
+        subscriptions.informObservers(subscription -> numberOfBufferedEvents[0] += subscription.getBufferOccupancy());
+        return numberOfBufferedEvents[0];
+    }
+
+    /**
+     * @return Number of events dropped for any subscriber, ever
+     */
+    public long getNumberOfDroppedEvents() {
+        return numberOfDroppedEvents.sum();
+    }
+
+    /**
+     * A subscriber's subscription, with the buffer of events waiting to be sent to it. The subscriber is sent
+     * everything (including its subscription) on the publisher's executor, one signal at a time.
+     */
+    private class BufferedSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super Event> subscriber;
+        private final int bufferCapacity;
+        private final OverflowPolicy overflowPolicy;
+        private final ArrayDeque<Event> buffer;
+        private final Runnable sendSignals = this::sendSignals;
+        // Everything below is guarded by the subscription's lock
+        private long demand;
+        private long numberOfDroppedEventsForSubscriber;
+        private boolean subscribeSent;
+        private boolean sendingScheduled;
+        private boolean completed;
+        private Throwable error;
+        private boolean ended;
+
+        private BufferedSubscription(Flow.Subscriber<? super Event> subscriber, int bufferCapacity,
+                OverflowPolicy overflowPolicy) {
+            this.subscriber = subscriber;
+            this.bufferCapacity = bufferCapacity;
+            this.overflowPolicy = overflowPolicy;
+            buffer = new ArrayDeque<>(Math.min(bufferCapacity, defaultBufferCapacity));
+        }
+
+        private void start() {
+            scheduleSending();
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (ended) {
+                    return;
+                }
+                if (n <= 0) {
+                    error = new IllegalArgumentException("Requested events have to be greater than zero (you passed " +
+                            n + ")");
+                    buffer.clear();
+                    notifyAll();
+                } else {
+                    // Demand past what a long can hold is treated as unbounded
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+            }
+            scheduleSending();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                if (ended) {
+                    return;
+                }
+                ended = true;
+                buffer.clear();
+                notifyAll();
+            }
+            subscriptions.removeObserver(this);
+        }
+
+        private void offer(Event event) {
+            synchronized (this) {
+                while (!ended && error == null && buffer.size() >= bufferCapacity) {
+                    switch (overflowPolicy) {
+                        case dropOldest:
+                            buffer.poll();
+                            eventDropped();
+                            break;
+                        case dropNewest:
+                            eventDropped();
+                            return;
+                        case block:
+                            try {
+                                wait();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                eventDropped();
+                                return;
+                            }
+                            break;
+                        case error:
+                            error = new IllegalStateException("Subscriber's buffer of " + bufferCapacity +
+                                    " events overflowed");
+                            buffer.clear();
+                            eventDropped();
+                            break;
+                    }
+                }
+                if (ended) {
+                    return;
+                }
+                if (error == null) {
+                    buffer.add(event);
+                }
+                if (demand == 0 && error == null) {
+                    return;
+                }
+            }
+            scheduleSending();
+        }
+
+        private void eventDropped() {
+            numberOfDroppedEventsForSubscriber++;
+            numberOfDroppedEvents.increment();
+        }
+
+        private void complete() {
+            synchronized (this) {
+                completed = true;
+            }
+            scheduleSending();
+        }
+
+        private void scheduleSending() {
+            synchronized (this) {
+                if (sendingScheduled || ended) {
+                    return;
+                }
+                sendingScheduled = true;
+            }
+            try {
+                executor.execute(sendSignals);
+            } catch (RejectedExecutionException e) {
+                endAfterRejection(e);
+            }
+        }
+
+        /**
+         * Ends the subscription when the executor won't send its signals, or else it would never be sent another
+         * signal and a submitter blocked on its full buffer would wait forever. Nothing else is sending the subscriber
+         * signals, so its error is sent from the calling thread.
+         */
+        private void endAfterRejection(RejectedExecutionException rejection) {
+            boolean sendSubscribe;
+            synchronized (this) {
+                sendingScheduled = false;
+                if (ended) {
+                    return;
+                }
+                ended = true;
+                buffer.clear();
+                notifyAll();
+                sendSubscribe = !subscribeSent;
+                subscribeSent = true;
+            }
+            subscriptions.removeObserver(this);
+            try {
+                if (sendSubscribe) {
+                    subscriber.onSubscribe(this);
+                }
+                subscriber.onError(rejection);
+            } catch (RuntimeException e) {
+                // A subscriber isn't allowed to throw, and the subscription has already ended
+            }
+        }
+
+        /**
+         * Sends the subscriber its subscription, then as many buffered events as it has requested, then its error or
+         * completion once there's nothing more to send, never from more than one thread at once
+         */
+        private void sendSignals() {
+            while (true) {
+                Event event = null;
+                Throwable errorToSend = null;
+                boolean sendSubscribe = false;
+                boolean sendComplete = false;
+                boolean endedNow = false;
+                synchronized (this) {
+                    if (ended) {
+                        sendingScheduled = false;
+                        return;
+                    }
+                    if (!subscribeSent) {
+                        subscribeSent = true;
+                        sendSubscribe = true;
+                    } else if (error != null) {
+                        errorToSend = error;
+                        ended = true;
+                        endedNow = true;
+                    } else if (demand > 0 && !buffer.isEmpty()) {
+                        event = buffer.poll();
+                        if (demand != Long.MAX_VALUE) {
+                            demand--;
+                        }
+                        // Room was made for a submitter blocked on a full buffer
+                        notifyAll();
+                    } else if (completed && buffer.isEmpty()) {
+                        sendComplete = true;
+                        ended = true;
+                        endedNow = true;
+                    } else {
+                        sendingScheduled = false;
+                        return;
+                    }
+                }
+                if (endedNow) {
+                    subscriptions.removeObserver(this);
+                }
+                try {
+                    if (sendSubscribe) {
+                        subscriber.onSubscribe(this);
+                    } else if (errorToSend != null) {
+                        subscriber.onError(errorToSend);
+                    } else if (sendComplete) {
+                        subscriber.onComplete();
+                    } else {
+                        subscriber.onNext(event);
+                    }
+                } catch (RuntimeException e) {
+                    // A subscriber isn't allowed to throw, so it's treated as having cancelled
+                    cancel();
+                    synchronized (this) {
+                        sendingScheduled = false;
+                    }
+                    return;
+                }
+            }
+        }
+
+        private synchronized int getBufferOccupancy() {
+            return buffer.size();
+        }
+
+        private synchronized SubscriptionSnapshot snapshot() {
+            return new SubscriptionSnapshot(buffer.size(), bufferCapacity, overflowPolicy, demand,
+                    numberOfDroppedEventsForSubscriber);
+        }
+    }
+
+    /**
+     * The state of a subscription at one moment, for looking at how full its buffer is without being able to request
+     * events for or cancel the subscription
+     */
+    @Immutable
+    public static class SubscriptionSnapshot {
+        private final int bufferOccupancy;
+        private final int bufferCapacity;
+        private final OverflowPolicy overflowPolicy;
+        private final long demand;
+        private final long numberOfDroppedEvents;
+
+        private SubscriptionSnapshot(int bufferOccupancy, int bufferCapacity, OverflowPolicy overflowPolicy, long demand,
+                long numberOfDroppedEvents) {
+            this.bufferOccupancy = bufferOccupancy;
+            this.bufferCapacity = bufferCapacity;
+            this.overflowPolicy = overflowPolicy;
+            this.demand = demand;
+            this.numberOfDroppedEvents = numberOfDroppedEvents;
+        }
+
+        /**
+         * @return Number of events that were waiting in the buffer to be requested
+         */
+        public int getBufferOccupancy() {
+            return bufferOccupancy;
+        }
+
+        public int getBufferCapacity() {
+            return bufferCapacity;
+        }
+
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        /**
+         * @return Number of events that were requested but not sent yet
+         */
+        public long getDemand() {
+            return demand;
+        }
+
+        public long getNumberOfDroppedEvents() {
+            return numberOfDroppedEvents;
+        }
+
+        @Override
+        public String toString() {
+            return bufferOccupancy + " of " + bufferCapacity + " events buffered (" + overflowPolicy + " when full), " +
+                    demand + " requested, " + numberOfDroppedEvents + " dropped";
+        }
+    }
+}
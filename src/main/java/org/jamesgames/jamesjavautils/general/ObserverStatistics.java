@@ -0,0 +1,96 @@
+package org.jamesgames.jamesjavautils.general;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * ObserverStatistics is a snapshot of how long an observer of an instrumented {@link
+ * org.jamesgames.jamesjavautils.general.ObserverSet} has taken to be informed, for finding which observer is
+ * responsible when informing observers gets slow. Only some of the calls to an observer are timed (see {@link
+ * org.jamesgames.jamesjavautils.general.ObserverSet#enableInstrumentation(int, long)}), so the total time is an estimate
+ * made from the timed calls.
+ *
+ * @author James Murphy
+ */
+@Immutable
+public class ObserverStatistics<Observer> {
+    private final Observer observer;
+    private final long numberOfCalls;
+    private final long numberOfTimedCalls;
+    private final long totalTimedTimeInNanoSeconds;
+    private final long maximumTimeInNanoSeconds;
+    private final long numberOfTimedCallsOverLatencyBudget;
+    private final long latencyBudgetInNanoSeconds;
+
+    ObserverStatistics(Observer observer, long numberOfCalls, long numberOfTimedCalls, long totalTimedTimeInNanoSeconds,
+            long maximumTimeInNanoSeconds, long numberOfTimedCallsOverLatencyBudget, long latencyBudgetInNanoSeconds) {
+        this.observer = observer;
+        this.numberOfCalls = numberOfCalls;
+        this.numberOfTimedCalls = numberOfTimedCalls;
+        this.totalTimedTimeInNanoSeconds = totalTimedTimeInNanoSeconds;
+        this.maximumTimeInNanoSeconds = maximumTimeInNanoSeconds;
+        this.numberOfTimedCallsOverLatencyBudget = numberOfTimedCallsOverLatencyBudget;
+        this.latencyBudgetInNanoSeconds = latencyBudgetInNanoSeconds;
+    }
+
+    public Observer getObserver() {
+        return observer;
+    }
+
+    /**
+     * @return Number of times the observer was informed, timed or not
+     */
+    public long getNumberOfCalls() {
+        return numberOfCalls;
+    }
+
+    public long getNumberOfTimedCalls() {
+        return numberOfTimedCalls;
+    }
+
+    /**
+     * @return Total time of only the timed calls
+     */
+    public long getTotalTimedTimeInNanoSeconds() {
+        return totalTimedTimeInNanoSeconds;
+    }
+
+    /**
+     * @return Total time of every call, estimated from the mean time of the timed calls
+     */
+    public long getEstimatedTotalTimeInNanoSeconds() {
+        return getMeanTimeInNanoSeconds() * numberOfCalls;
+    }
+
+    public long getMeanTimeInNanoSeconds() {
+        return numberOfTimedCalls == 0 ? 0 : totalTimedTimeInNanoSeconds / numberOfTimedCalls;
+    }
+
+    /**
+     * @return Longest of the timed calls
+     */
+    public long getMaximumTimeInNanoSeconds() {
+        return maximumTimeInNanoSeconds;
+    }
+
+    public long getNumberOfTimedCallsOverLatencyBudget() {
+        return numberOfTimedCallsOverLatencyBudget;
+    }
+
+    public long getLatencyBudgetInNanoSeconds() {
+        return latencyBudgetInNanoSeconds;
+    }
+
+    /**
+     * @return True if any timed call took longer than the latency budget
+     */
+    public boolean isOverLatencyBudget() {
+        return numberOfTimedCallsOverLatencyBudget > 0;
+    }
+
+    @Override
+    public String toString() {
+        return observer + ": " + numberOfCalls + " calls, " + getMeanTimeInNanoSeconds() + "ns mean, " +
+                maximumTimeInNanoSeconds + "ns max, " + numberOfTimedCallsOverLatencyBudget + " of " +
+                numberOfTimedCalls + " timed calls over the " + latencyBudgetInNanoSeconds + "ns budget";
+    }
+}
@@ -0,0 +1,363 @@
+package org.jamesgames.jamesjavautils.general;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * RingBufferEventBus is an asynchronous alternative to informing an {@link org.jamesgames.jamesjavautils.general.ObserverSet}
+ * directly. Publishers write events into a ring buffer and return right away, and a single consumer informs the bus's
+ * observers of the events in the order they were published, so a slow observer only holds up the consumer and not the
+ * publishers (until the buffer fills up).
+ * <p>
+ * Every slot of the ring buffer holds an event object created up front by the event factory, and publishing an event
+ * is filling in the fields of the slot's event rather than creating a new one, so publishing and informing observers
+ * create no garbage. Each published event has a sequence number, publishers claim sequence numbers with a compare and
+ * swap and the consumer informs observers of every event up to the highest contiguous published sequence at once (a
+ * batch), letting observers tell when a batch ends so they can, for example, flush once per batch instead of once per
+ * event.
+ * <p>
+ * Events can be published from any number of threads. The consumer is either the bus's own thread (see {@link
+ * #start()}) or whichever single thread calls {@link #drain()}. An event object must not be kept by an observer after
+ * it has been informed of it, as the slot is reused once the buffer wraps around.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+public class RingBufferEventBus<Event> {
+
+    /**
+     * How a publisher waits for room in a full buffer, and how the consumer thread waits for events in an empty buffer
+     */
+    public static enum WaitStrategy {
+        /**
+         * Busy spin, lowest latency but keeps a core busy the whole time
+         */
+        spin,
+        /**
+         * Yield to other threads between checks
+         */
+        yield,
+        /**
+         * Park for a short time between checks, cheapest on the CPU but adds up to the park time in latency
+         */
+        park
+    }
+
+    /**
+     * Observes the events published to a {@link org.jamesgames.jamesjavautils.general.RingBufferEventBus}
+     */
+    @FunctionalInterface
+    public static interface EventObserver<Event> {
+        /**
+         * @param event
+         *         Published event, only valid until this method returns
+         * @param sequence
+         *         Sequence number of the event, increasing by one for each published event
+         * @param endOfBatch
+         *         True if the event is the last of the batch the consumer is currently informing observers of
+         */
+        public void eventPublished(Event event, long sequence, boolean endOfBatch);
+    }
+
+    private static final long parkTimeInNanoSeconds = 50_000;
+
+    private final Object[] events;
+    private final int indexMask;
+    /**
+     * The sequence last published in each slot, a slot holds a published event when it matches the wanted sequence
+     */
+    private final AtomicLongArray publishedSequences;
+    private final AtomicLong claimedSequence = new AtomicLong(-1);
+    /**
+     * Only written by the consumer, read by publishers to know how far they can go without overwriting unread events
+     */
+    private volatile long consumedSequence = -1;
+    private final WaitStrategy waitStrategy;
+    private final int maximumBatchSize;
+    private final ObserverSet<EventObserver<Event>> observers =
+            new ObserverSet<>(ObserverSet.DispatchMode.copyOnWrite);
+    private final ObserverInformer observerInformer = new ObserverInformer();
+    private volatile boolean running;
+    private volatile Thread consumerThread;
+
+    /**
+     * Creates a RingBufferEventBus that parks while waiting and informs observers of up to a buffer's worth of events
+     * at once
+     */
+    public RingBufferEventBus(int bufferSize, Supplier<Event> eventFactory) {
+        this(bufferSize, eventFactory, WaitStrategy.park);
+    }
+
+    public RingBufferEventBus(int bufferSize, Supplier<Event> eventFactory, WaitStrategy waitStrategy) {
+        this(bufferSize, eventFactory, waitStrategy, bufferSize);
+    }
+
+    /**
+     * @param bufferSize
+     *         Number of event slots, has to be a power of two
+     * @param eventFactory
+     *         Creates the event object for each slot
+     * @param maximumBatchSize
+     *         Most events the consumer informs observers of before checking for newly published events
+     */
+    public RingBufferEventBus(int bufferSize, Supplier<Event> eventFactory, WaitStrategy waitStrategy,
+            int maximumBatchSize) {
+        if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("Buffer size has to be a power of two (you passed " + bufferSize + ")");
+        }
+        if (maximumBatchSize <= 0) {
+            throw new IllegalArgumentException("Maximum batch size has to be greater than zero (you passed " +
+                    maximumBatchSize + ")");
+        }
+        Objects.requireNonNull(eventFactory, "eventFactory cannot be null");
+        this.waitStrategy = Objects.requireNonNull(waitStrategy, "waitStrategy cannot be null");
+        this.maximumBatchSize = maximumBatchSize;
+        events = new Object[bufferSize];
+        indexMask = bufferSize - 1;
+        publishedSequences = new AtomicLongArray(bufferSize);
+        for (int i = 0; i < bufferSize; i++) {
+            events[i] = Objects.requireNonNull(eventFactory.get(), "eventFactory cannot create null events");
+            publishedSequences.set(i, -1);
+        }
+    }
+
+    public void addObserver(EventObserver<Event> observer) {
+        observers.addObserver(observer);
+    }
+
+    public void removeObserver(EventObserver<Event> observer) {
+        observers.removeObserver(observer);
+    }
+
+    /**
+     * Publishes an event, waiting for room if the buffer is full
+     *
+     * @param eventFiller
+     *         Fills in the fields of the reused event object, should not keep a reference to it
+     */
+    public void publishEvent(Consumer<Event> eventFiller) {
+        long sequence = next();
+        try {
+            eventFiller.accept(getEvent(sequence));
+        } finally {
+            publish(sequence);
+        }
+    }
+
+    /**
+     * Publishes an event if the buffer has room for it, never waiting
+     *
+     * @param eventFiller
+     *         Fills in the fields of the reused event object, should not keep a reference to it
+     * @return True if the event was published, false if the buffer was full
+     */
+    public boolean tryPublishEvent(Consumer<Event> eventFiller) {
+        long sequence = tryNext();
+        if (sequence == -1) {
+            return false;
+        }
+        try {
+            eventFiller.accept(getEvent(sequence));
+        } finally {
+            publish(sequence);
+        }
+        return true;
+    }
+
+    /**
+     * Claims the next sequence, waiting for room if the buffer is full. The event for the sequence is then filled in
+     * through {@link #getEvent(long)} and the sequence has to be passed to {@link #publish(long)} afterwards, as the
+     * consumer will not get past an unpublished sequence.
+     */
+    public long next() {
+        int timesWaited = 0;
+        long sequence;
+        while ((sequence = tryNext()) == -1) {
+            waitOnce(timesWaited++);
+        }
+        return sequence;
+    }
+
+    /**
+     * Claims the next sequence like {@link #next()} but never waits
+     *
+     * @return The claimed sequence, or -1 if the buffer is full
+     */
+    public long tryNext() {
+        while (true) {
+            long current = claimedSequence.get();
+            long next = current + 1;
+            if (next - events.length > consumedSequence) {
+                return -1;
+            }
+            if (claimedSequence.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * @return The reused event object in the slot of a claimed sequence
+     */
+    @SuppressWarnings("unchecked")
+    public Event getEvent(long sequence) {
+        return (Event) events[(int) sequence & indexMask];
+    }
+
+    /**
+     * Publishes the event of a claimed sequence, making it visible to the consumer
+     */
+    public void publish(long sequence) {
+        publishedSequences.lazySet((int) sequence & indexMask, sequence);
+    }
+
+    /**
+     * Informs observers of the next batch of published events, for when the bus is not started and the calling thread
+     * acts as the consumer. Only one thread may drain at a time.
+     *
+     * @return Number of events observers were informed of
+     */
+    public int drain() {
+        if (consumerThread != null) {
+            throw new IllegalStateException("The bus's consumer thread is running, it cannot also be drained");
+        }
+        return drainBatch();
+    }
+
+    private int drainBatch() {
+        long firstSequence = consumedSequence + 1;
+        long lastSequence = firstSequence - 1;
+        long batchLimit = firstSequence + maximumBatchSize;
+        while (lastSequence + 1 < batchLimit &&
+                publishedSequences.get((int) (lastSequence + 1) & indexMask) == lastSequence + 1) {
+            lastSequence++;
+        }
+        if (lastSequence < firstSequence) {
+            return 0;
+        }
+        long sequence = firstSequence;
+        try {
+            for (; sequence <= lastSequence; sequence++) {
+                observerInformer.setEvent(getEvent(sequence), sequence, sequence == lastSequence);
+                observers.informObservers(observerInformer);
+            }
+        } finally {
+            // An event whose observer threw is counted as consumed so the consumer doesn't get stuck on it
+            consumedSequence = Math.min(sequence, lastSequence);
+            observerInformer.setEvent(null, 0, false);
+        }
+        return (int) (lastSequence - firstSequence + 1);
+    }
+
+    /**
+     * Starts a daemon thread that acts as the consumer, waiting with the bus's wait strategy while there are no events
+     */
+    public synchronized void start() {
+        if (consumerThread != null) {
+            throw new IllegalStateException("RingBufferEventBus is already started");
+        }
+        running = true;
+        consumerThread = new Thread(this::consumeUntilStopped, "RingBufferEventBus consumer");
+        consumerThread.setDaemon(true);
+        consumerThread.start();
+    }
+
+    /**
+     * Stops the consumer thread once it has informed observers of every event published so far, and waits for it to
+     * end
+     */
+    public synchronized void stop() throws InterruptedException {
+        if (consumerThread == null) {
+            throw new IllegalStateException("RingBufferEventBus is not started");
+        }
+        running = false;
+        LockSupport.unpark(consumerThread);
+        consumerThread.join();
+        consumerThread = null;
+    }
+
+    private void consumeUntilStopped() {
+        int timesWaited = 0;
+        while (true) {
+            boolean stopping = !running;
+            int eventsConsumed;
+            try {
+                eventsConsumed = drainBatch();
+            } catch (RuntimeException e) {
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                eventsConsumed = 1;
+            }
+            if (eventsConsumed > 0) {
+                timesWaited = 0;
+            } else if (stopping) {
+                return;
+            } else {
+                waitOnce(timesWaited++);
+            }
+        }
+    }
+
+    private void waitOnce(int timesWaited) {
+        switch (waitStrategy) {
+            case spin:
+                break;
+            case yield:
+                Thread.yield();
+                break;
+            case park:
+                // Spin briefly first so an event arriving right away isn't delayed by a whole park
+                if (timesWaited < 100) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(parkTimeInNanoSeconds);
+                }
+                break;
+        }
+    }
+
+    /**
+     * @return Number of events that can be published before the buffer is full
+     */
+    public int getRemainingCapacity() {
+        return (int) (events.length - (claimedSequence.get() - consumedSequence));
+    }
+
+    public int getBufferSize() {
+        return events.length;
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    public boolean isStarted() {
+        return running;
+    }
+
+    /**
+     * Informs each observer of the current event, reused for every event so informing observers creates no garbage
+     */
+    private class ObserverInformer implements Consumer<EventObserver<Event>> {
+        private Event event;
+        private long sequence;
+        private boolean endOfBatch;
+
+        private void setEvent(Event event, long sequence, boolean endOfBatch) {
+            this.event = event;
+            this.sequence = sequence;
+            this.endOfBatch = endOfBatch;
+        }
+
+        @Override
+        public void accept(EventObserver<Event> observer) {
+            observer.eventPublished(event, sequence, endOfBatch);
+        }
+    }
+}
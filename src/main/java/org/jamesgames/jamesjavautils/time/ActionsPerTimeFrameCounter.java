@@ -2,6 +2,8 @@ package org.jamesgames.jamesjavautils.time;
 
 import net.jcip.annotations.NotThreadSafe;
 
+import java.util.Objects;
+
 /**
  * ActionsPerTimeFrameCounter counts how many actions occur in a certain amount of time and publishes a value of how
  * many times the action happened in the past fully counted time frame. ActionsPerTimeFrameCounter does not know of any
@@ -34,6 +36,11 @@ public class ActionsPerTimeFrameCounter {
      */
     private final long timeFrameInNanoSeconds;
 
+    /**
+     * Clock used to calculate elapsed time when actions are added without an elapsed time
+     */
+    private final NanoClock clock;
+
     /**
      * Holds the amount of computed actions in the currently timed time frame
      */
@@ -54,12 +61,26 @@ public class ActionsPerTimeFrameCounter {
 
     private long systemNanoTimeAtLastActionUpdate = notKeepingTrackOfTimeYet;
 
+    /**
+     * Informed whenever a new actions per time frame value is published, null if there is none
+     */
+    private TimeFrameCompletedListener timeFrameCompletedListener;
+
     /**
      * Creates a ActionsPerTimeFrameCounter with specified time frame on how long to calculate each new actions per time
      * frame value
      */
     public ActionsPerTimeFrameCounter(long timeFrameInNanoSeconds) {
+        this(timeFrameInNanoSeconds, SystemNanoClock.getInstance());
+    }
+
+    /**
+     * Creates a ActionsPerTimeFrameCounter with specified time frame on how long to calculate each new actions per time
+     * frame value, and a clock used to calculate elapsed time when actions are added with {@link #addActions(int)}
+     */
+    public ActionsPerTimeFrameCounter(long timeFrameInNanoSeconds, NanoClock clock) {
         this.timeFrameInNanoSeconds = timeFrameInNanoSeconds;
+        this.clock = Objects.requireNonNull(clock, "clock cannot be null");
     }
 
     /**
@@ -77,7 +98,8 @@ public class ActionsPerTimeFrameCounter {
 
     /**
      * Adds a number of actions to the current time frame (possibly some of the actions will be added to next time frame
-     * if time frame ends here), uses the current system time of System.NanoTime to calculate elapsed time.
+     * if time frame ends here), uses the current time of the counter's clock (System.NanoTime unless another clock was
+     * given) to calculate elapsed time.
      *
      * @param numberOfActions
      *         Number of actions done
@@ -97,12 +119,12 @@ public class ActionsPerTimeFrameCounter {
         // In addition, it has been known that sometimes System.nanoTime on different JVM implementations returns a time
         // specific to a CPU, where one CPU may be a time less than another, which can cause a negative value from
         // the subtraction from the buggy implementation. This has been fixed in Oracle JVMs from what I can see though.
-        addActionsInNanoseconds(numberOfActions, Math.max(0, System.nanoTime() - systemNanoTimeAtLastActionUpdate));
+        addActionsInNanoseconds(numberOfActions, Math.max(0, clock.nanoTime() - systemNanoTimeAtLastActionUpdate));
     }
 
     private void setInitialStartTimeForActionCounting() {
         elapsedTimeFrameTimeInNanoSeconds = 0;
-        systemNanoTimeAtLastActionUpdate = System.nanoTime();
+        systemNanoTimeAtLastActionUpdate = clock.nanoTime();
     }
 
     private static long millisecondsToNanoSeconds(long milliseconds) {
@@ -179,7 +201,7 @@ public class ActionsPerTimeFrameCounter {
         long amountOfTimeAllottedToOldTimeFrame = timeFrameInNanoSeconds - elapsedTimeFrameTimeInNanoSeconds;
         long amountOfTimeAllottedToNewTimeFrame = exceededElapsedTimeFrameTime - timeFrameInNanoSeconds;
         float actionsForOldTimeFrame =
-                (amountOfTimeAllottedToOldTimeFrame / (float) timeElapsedInNanoSeconds) * numberOfActions;
+                actionsForTimeAllotted(numberOfActions, amountOfTimeAllottedToOldTimeFrame, timeElapsedInNanoSeconds);
         float actionsForNewTimeFrame = numberOfActions - actionsForOldTimeFrame;
 
         // Update how many actions were in current time frame
@@ -193,6 +215,17 @@ public class ActionsPerTimeFrameCounter {
         elapsedTimeFrameTimeInNanoSeconds = amountOfTimeAllottedToNewTimeFrame;
     }
 
+    /**
+     * Actions that were added with some elapsed time are assumed to have happened evenly over that elapsed time, so
+     * when the elapsed time is split over a time frame border the actions are split by the same fraction.
+     *
+     * @return The portion of the actions that happened in the allotted part of the elapsed time
+     */
+    static float actionsForTimeAllotted(float numberOfActions, long timeAllottedInNanoSeconds,
+            long timeElapsedInNanoSeconds) {
+        return (timeAllottedInNanoSeconds / (float) timeElapsedInNanoSeconds) * numberOfActions;
+    }
+
     private void updateActionCountAndTime(int numberOfActions, long potentialNewElapsedTimeFrameTime) {
         elapsedTimeFrameTimeInNanoSeconds = potentialNewElapsedTimeFrameTime;
         actionCountInCurrentTimeFrame += numberOfActions;
@@ -201,6 +234,18 @@ public class ActionsPerTimeFrameCounter {
     private void updateActionCountForLastTimeFrameAndResetCurrentCount() {
         actionCountInLastTimeFrame = actionCountInCurrentTimeFrame;
         actionCountInCurrentTimeFrame = 0;
+        if (timeFrameCompletedListener != null) {
+            timeFrameCompletedListener.timeFrameCompleted(actionCountInLastTimeFrame);
+        }
+    }
+
+    /**
+     * Sets a listener that is informed each time a new actions per time frame value is published, such as a {@link
+     * org.jamesgames.jamesjavautils.time.TimeSeriesRecorder} to keep the history of the counter. If elapsed time skips
+     * over whole time frames at once only the last of them is published. Pass null to remove the listener.
+     */
+    public void setTimeFrameCompletedListener(TimeFrameCompletedListener timeFrameCompletedListener) {
+        this.timeFrameCompletedListener = timeFrameCompletedListener;
     }
 
     public float getActionCountPerTimeFrame() {
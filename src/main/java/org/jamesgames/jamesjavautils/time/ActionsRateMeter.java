@@ -0,0 +1,181 @@
+package org.jamesgames.jamesjavautils.time;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.util.Objects;
+
+/**
+ * ActionsRateMeter measures the rate of actions as exponentially weighted moving averages over the last 1, 5 and 15
+ * intervals, as well as the mean rate since the meter started. The per interval counts that {@link
+ * org.jamesgames.jamesjavautils.time.ActionsPerTimeFrameCounter} publishes can jump around a lot from one time frame to
+ * the next, the moving averages smooth that out while still following real changes in rate, which makes them better
+ * for deciding things like when to scale up or to lower graphical quality. All rates are in actions per interval.
+ * <p>
+ * Time is accounted for the same way as ActionsPerTimeFrameCounter, if actions are added with an amount of elapsed
+ * time that crosses interval borders then the actions are split fractionally over the intervals. The averages are only
+ * updated when an interval completes, and any number of intervals passing at once is a single update, so memory and the
+ * cost of adding actions stay constant. ActionsRateMeter is meant for a single thread, see {@link
+ * org.jamesgames.jamesjavautils.time.ConcurrentActionsRateMeter} for when many threads add actions.
+ *
+ * @author James Murphy
+ */
+@NotThreadSafe
+public class ActionsRateMeter {
+
+    private static final int numberOfNanoSecondsInMillisecond = 1_000_000;
+
+    /**
+     * Holds a value to signal that the application has not began counting actions yet
+     */
+    private static final long notKeepingTrackOfTimeYet = -1;
+
+    private final long intervalInNanoSeconds;
+    private final NanoClock clock;
+    private final ExponentiallyWeightedMovingAverages averages = new ExponentiallyWeightedMovingAverages();
+
+    private float actionCountInCurrentInterval;
+    private long elapsedTimeInCurrentIntervalInNanoSeconds;
+    private double totalActionCount;
+    private long totalElapsedTimeInNanoSeconds;
+    private long systemNanoTimeAtLastActionUpdate = notKeepingTrackOfTimeYet;
+
+    /**
+     * Creates a ActionsRateMeter with a specified interval that rates are measured in, and averaged over
+     */
+    public ActionsRateMeter(long intervalInNanoSeconds) {
+        this(intervalInNanoSeconds, SystemNanoClock.getInstance());
+    }
+
+    /**
+     * Creates a ActionsRateMeter with a specified interval that rates are measured in, and a clock used to calculate
+     * elapsed time when actions are added with {@link #addActions(int)}
+     */
+    public ActionsRateMeter(long intervalInNanoSeconds, NanoClock clock) {
+        if (intervalInNanoSeconds <= 0) {
+            throw new IllegalArgumentException(
+                    "Interval has to be greater than zero (you passed " + intervalInNanoSeconds + ")");
+        }
+        this.intervalInNanoSeconds = intervalInNanoSeconds;
+        this.clock = Objects.requireNonNull(clock, "clock cannot be null");
+    }
+
+    /**
+     * Adds a number of actions to the current interval (possibly some of the actions will be added to later intervals
+     * if the elapsed time crosses interval borders)
+     *
+     * @param numberOfActions
+     *         Number of actions done
+     * @param timeElapsedInMilliseconds
+     *         Amount of time that has elapsed since the last addActions call
+     */
+    public void addActionsInMilliseconds(int numberOfActions, long timeElapsedInMilliseconds) {
+        addActionsInNanoseconds(numberOfActions, timeElapsedInMilliseconds * numberOfNanoSecondsInMillisecond);
+    }
+
+    /**
+     * Adds a number of actions to the current interval (possibly some of the actions will be added to later intervals
+     * if the elapsed time crosses interval borders), uses the current time of the meter's clock (System.NanoTime
+     * unless another clock was given) to calculate elapsed time.
+     *
+     * @param numberOfActions
+     *         Number of actions done
+     */
+    public void addActions(int numberOfActions) {
+        if (numberOfActions < 0) {
+            throw new IllegalArgumentException(
+                    "Number of actions has to be non negative (you passed " + numberOfActions + ")");
+        }
+        if (systemNanoTimeAtLastActionUpdate == notKeepingTrackOfTimeYet) {
+            systemNanoTimeAtLastActionUpdate = clock.nanoTime();
+        }
+        // Math.max for the same reason as ActionsPerTimeFrameCounter, System.nanoTime could appear to go backwards
+        addActionsInNanoseconds(numberOfActions, Math.max(0, clock.nanoTime() - systemNanoTimeAtLastActionUpdate));
+    }
+
+    /**
+     * Adds a number of actions to the current interval (possibly some of the actions will be added to later intervals
+     * if the elapsed time crosses interval borders)
+     *
+     * @param numberOfActions
+     *         Number of actions done
+     * @param timeElapsedInNanoSeconds
+     *         Amount of time that has elapsed since the last addActions call
+     */
+    public void addActionsInNanoseconds(int numberOfActions, long timeElapsedInNanoSeconds) {
+        if (timeElapsedInNanoSeconds < 0) {
+            throw new IllegalArgumentException(
+                    "Time elapsed has to be non negative (you passed " + timeElapsedInNanoSeconds + ")");
+        }
+        if (numberOfActions < 0) {
+            throw new IllegalArgumentException(
+                    "Number of actions has to be non negative (you passed " + numberOfActions + ")");
+        }
+        if (systemNanoTimeAtLastActionUpdate == notKeepingTrackOfTimeYet) {
+            systemNanoTimeAtLastActionUpdate = clock.nanoTime();
+        }
+
+        if (elapsedTimeInCurrentIntervalInNanoSeconds + timeElapsedInNanoSeconds <= intervalInNanoSeconds) {
+            actionCountInCurrentInterval += numberOfActions;
+            elapsedTimeInCurrentIntervalInNanoSeconds += timeElapsedInNanoSeconds;
+        } else {
+            addActionsOverIntervalBorders(numberOfActions, timeElapsedInNanoSeconds);
+        }
+
+        totalActionCount += numberOfActions;
+        totalElapsedTimeInNanoSeconds += timeElapsedInNanoSeconds;
+        systemNanoTimeAtLastActionUpdate += timeElapsedInNanoSeconds;
+    }
+
+    private void addActionsOverIntervalBorders(int numberOfActions, long timeElapsedInNanoSeconds) {
+        long timeAllottedToCurrentInterval = intervalInNanoSeconds - elapsedTimeInCurrentIntervalInNanoSeconds;
+        actionCountInCurrentInterval += ActionsPerTimeFrameCounter.actionsForTimeAllotted(numberOfActions,
+                timeAllottedToCurrentInterval, timeElapsedInNanoSeconds);
+        averages.update(actionCountInCurrentInterval, 1);
+
+        // Every full interval in the left over time has the same share of the actions, so they are one update
+        long timeLeftOver = timeElapsedInNanoSeconds - timeAllottedToCurrentInterval;
+        long numberOfFullIntervals = (timeLeftOver - 1) / intervalInNanoSeconds;
+        averages.update(ActionsPerTimeFrameCounter.actionsForTimeAllotted(numberOfActions, intervalInNanoSeconds,
+                timeElapsedInNanoSeconds), numberOfFullIntervals);
+
+        long timeAllottedToLastInterval = timeLeftOver - numberOfFullIntervals * intervalInNanoSeconds;
+        actionCountInCurrentInterval = ActionsPerTimeFrameCounter.actionsForTimeAllotted(numberOfActions,
+                timeAllottedToLastInterval, timeElapsedInNanoSeconds);
+        elapsedTimeInCurrentIntervalInNanoSeconds = timeAllottedToLastInterval;
+    }
+
+    /**
+     * @return The moving average of actions per interval over roughly the last interval, 0 until an interval completes
+     */
+    public double getOneIntervalRate() {
+        return averages.getOneIntervalAverage();
+    }
+
+    /**
+     * @return The moving average of actions per interval over roughly the last 5 intervals, 0 until an interval
+     * completes
+     */
+    public double getFiveIntervalRate() {
+        return averages.getFiveIntervalAverage();
+    }
+
+    /**
+     * @return The moving average of actions per interval over roughly the last 15 intervals, 0 until an interval
+     * completes
+     */
+    public double getFifteenIntervalRate() {
+        return averages.getFifteenIntervalAverage();
+    }
+
+    /**
+     * @return The mean number of actions per interval since the meter started
+     */
+    public double getMeanRate() {
+        return totalElapsedTimeInNanoSeconds == 0 ? 0 :
+                totalActionCount * intervalInNanoSeconds / totalElapsedTimeInNanoSeconds;
+    }
+
+    public long getIntervalInNanoSeconds() {
+        return intervalInNanoSeconds;
+    }
+}
@@ -0,0 +1,79 @@
+package org.jamesgames.jamesjavautils.time;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * CoarseNanoClock is a {@link org.jamesgames.jamesjavautils.time.NanoClock} that is refreshed from System.nanoTime by a
+ * background daemon thread every so often (its resolution), so reading the time is only a read of a volatile field
+ * rather than a call into the operating system's clock. This is useful for code that reads the time millions of times a
+ * second but only needs the time to be accurate to within the resolution, such as counting actions per second. The time
+ * never goes backwards, even if System.nanoTime appears to.
+ * <p>
+ * The background thread keeps running until {@link #close()} is called, after which the time no longer changes.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+public class CoarseNanoClock implements NanoClock, AutoCloseable {
+
+    private static final long defaultResolutionInNanoSeconds = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final long resolutionInNanoSeconds;
+    private final Thread refreshingThread;
+    private volatile long currentTimeInNanoSeconds = System.nanoTime();
+    private volatile boolean closed;
+
+    /**
+     * Creates a CoarseNanoClock with a resolution of one millisecond
+     */
+    public CoarseNanoClock() {
+        this(defaultResolutionInNanoSeconds);
+    }
+
+    /**
+     * Creates a CoarseNanoClock that refreshes its time every resolution amount of time (how close to the resolution
+     * the thread actually wakes up depends on the operating system)
+     */
+    public CoarseNanoClock(long resolutionInNanoSeconds) {
+        if (resolutionInNanoSeconds <= 0) {
+            throw new IllegalArgumentException(
+                    "Resolution has to be greater than zero (you passed " + resolutionInNanoSeconds + ")");
+        }
+        this.resolutionInNanoSeconds = resolutionInNanoSeconds;
+        refreshingThread = new Thread(this::refreshTimeUntilClosed, "CoarseNanoClock refresher");
+        refreshingThread.setDaemon(true);
+        refreshingThread.start();
+    }
+
+    private void refreshTimeUntilClosed() {
+        while (!closed) {
+            LockSupport.parkNanos(this, resolutionInNanoSeconds);
+            long systemTime = System.nanoTime();
+            // Only this thread writes the time, so there's no lost update between the read and the write
+            if (systemTime > currentTimeInNanoSeconds) {
+                currentTimeInNanoSeconds = systemTime;
+            }
+        }
+    }
+
+    @Override
+    public long nanoTime() {
+        return currentTimeInNanoSeconds;
+    }
+
+    public long getResolutionInNanoSeconds() {
+        return resolutionInNanoSeconds;
+    }
+
+    /**
+     * Stops the background thread from refreshing the time
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(refreshingThread);
+    }
+}
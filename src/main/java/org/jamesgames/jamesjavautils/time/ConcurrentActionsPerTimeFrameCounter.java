@@ -0,0 +1,217 @@
+package org.jamesgames.jamesjavautils.time;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ConcurrentActionsPerTimeFrameCounter is a thread safe version of {@link org.jamesgames.jamesjavautils.time.ActionsPerTimeFrameCounter}
+ * meant for when many threads are counting actions at once. Like ActionsPerTimeFrameCounter it publishes how many
+ * actions happened in the past fully counted time frame (tumbling time frames, not the last x amount of time). Unlike
+ * ActionsPerTimeFrameCounter, actions are always counted towards the time frame that the current time of the counter's
+ * clock falls in, since there is no single "last addActions call" to split elapsed time from when many threads add
+ * actions.
+ * <p>
+ * Each thread adds its actions to one of several stripes (roughly one per processor), each stripe sitting on its own
+ * cache line so threads on different cores do not fight over the same memory. Every stripe keeps two slots, one for
+ * even numbered time frames and one for odd, and each slot is tagged with the time frame it was counted in. When a time
+ * frame ends nothing has to be moved or reset by a writer, a writer that finds a slot tagged with an old time frame just
+ * replaces it, and readers merge the slots of the past time frame across all stripes. The merged value is cached per
+ * time frame so readers on other threads only pay for the merge once per time frame.
+ * <p>
+ * A writer can read the clock just before a time frame ends and add its actions just after a reader merged that time
+ * frame. So that those actions aren't lost, the writer checks after adding whether its time frame was already merged,
+ * and if so throws away the cached value so the next reader merges again. The one case where actions can still be lost
+ * is a writer paused for more than a whole time frame between reading the clock and adding its actions, as by then its
+ * slot is being reused for a newer time frame. A count that would go past what a slot holds (2^40 - 1 actions in one
+ * time frame for one stripe) stays at the most a slot holds.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+public class ConcurrentActionsPerTimeFrameCounter {
+
+    /**
+     * Holds a value to signal that the application has not began counting actions yet
+     */
+    private static final long notKeepingTrackOfTimeYet = -1;
+
+    /**
+     * Number of longs between the slots of two stripes, 16 longs being 128 bytes keeps each stripe on its own cache
+     * line (and away from the adjacent cache line prefetcher).
+     */
+    private static final int longsPerStripe = 16;
+
+    /**
+     * A slot holds a time frame tag in the upper bits and an action count in the lower bits so both can be updated with
+     * a single compare and set.
+     */
+    private static final int bitsForActionCount = 40;
+    private static final long actionCountMask = (1L << bitsForActionCount) - 1;
+    private static final long timeFrameTagMask = (1L << (Long.SIZE - bitsForActionCount)) - 1;
+
+    /**
+     * Stands in for a published value that a writer has thrown away, as it added actions after the merge
+     */
+    private static final PublishedTimeFrame discardedPublishedTimeFrame = new PublishedTimeFrame(Long.MIN_VALUE, 0);
+
+    private final long timeFrameInNanoSeconds;
+    private final NanoClock clock;
+    private final int stripeMask;
+    private final AtomicLongArray stripes;
+    private final AtomicLong systemNanoTimeAtStartOfCounting = new AtomicLong(notKeepingTrackOfTimeYet);
+
+    /**
+     * The last merged value, cached so readers only merge the stripes once per time frame (unless a late writer throws
+     * it away)
+     */
+    private final AtomicReference<PublishedTimeFrame> lastPublishedTimeFrame =
+            new AtomicReference<>(new PublishedTimeFrame(notKeepingTrackOfTimeYet, 0));
+
+    /**
+     * Creates a ConcurrentActionsPerTimeFrameCounter with specified time frame on how long to calculate each new
+     * actions per time frame value, with a stripe per available processor
+     */
+    public ConcurrentActionsPerTimeFrameCounter(long timeFrameInNanoSeconds) {
+        this(timeFrameInNanoSeconds, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a ConcurrentActionsPerTimeFrameCounter with specified time frame on how long to calculate each new
+     * actions per time frame value, and roughly how many threads are expected to add actions at once (rounded up to a
+     * power of two)
+     */
+    public ConcurrentActionsPerTimeFrameCounter(long timeFrameInNanoSeconds, int expectedNumberOfWritingThreads) {
+        this(timeFrameInNanoSeconds, expectedNumberOfWritingThreads, SystemNanoClock.getInstance());
+    }
+
+    /**
+     * Creates a ConcurrentActionsPerTimeFrameCounter with specified time frame on how long to calculate each new
+     * actions per time frame value, roughly how many threads are expected to add actions at once, and a clock used to
+     * tell which time frame actions are added in
+     */
+    public ConcurrentActionsPerTimeFrameCounter(long timeFrameInNanoSeconds, int expectedNumberOfWritingThreads,
+            NanoClock clock) {
+        if (timeFrameInNanoSeconds <= 0) {
+            throw new IllegalArgumentException(
+                    "Time frame has to be greater than zero (you passed " + timeFrameInNanoSeconds + ")");
+        }
+        if (expectedNumberOfWritingThreads <= 0) {
+            throw new IllegalArgumentException("Expected number of writing threads has to be greater than zero " +
+                    "(you passed " + expectedNumberOfWritingThreads + ")");
+        }
+        this.timeFrameInNanoSeconds = timeFrameInNanoSeconds;
+        this.clock = Objects.requireNonNull(clock, "clock cannot be null");
+        int numberOfStripes = Integer.highestOneBit(Math.min(expectedNumberOfWritingThreads, 1 << 16) * 2 - 1);
+        this.stripeMask = numberOfStripes - 1;
+        // One extra stripe worth of padding at the front so the first stripe doesn't share a line with the array header
+        this.stripes = new AtomicLongArray((numberOfStripes + 1) * longsPerStripe);
+    }
+
+    /**
+     * Adds a number of actions to the time frame that the current time of the counter's clock falls in (System.NanoTime
+     * unless another clock was given).
+     *
+     * @param numberOfActions
+     *         Number of actions done
+     */
+    public void addActions(int numberOfActions) {
+        if (numberOfActions < 0) {
+            throw new IllegalArgumentException(
+                    "Number of actions has to be non negative (you passed " + numberOfActions + ")");
+        }
+        long timeFrameIndex = currentTimeFrameIndex(startCountingIfNotAlreadyStarted());
+        long timeFrameTag = timeFrameIndex & timeFrameTagMask;
+        int slotIndex = slotIndexFor(stripeIndexForCurrentThread(), timeFrameIndex);
+        while (true) {
+            long slot = stripes.get(slotIndex);
+            long actionCount = (slot >>> bitsForActionCount) == timeFrameTag ? slot & actionCountMask : 0;
+            long newSlot = (timeFrameTag << bitsForActionCount) |
+                    Math.min(actionCountMask, actionCount + numberOfActions);
+            if (stripes.compareAndSet(slotIndex, slot, newSlot)) {
+                break;
+            }
+        }
+        if (lastPublishedTimeFrame.get().timeFrameIndex >= timeFrameIndex) {
+            // A reader merged this time frame before these actions were added, so it has to be merged again
+            lastPublishedTimeFrame.set(discardedPublishedTimeFrame);
+        }
+    }
+
+    /**
+     * @return The number of actions counted in the last fully counted time frame
+     */
+    public float getActionCountPerTimeFrame() {
+        long startTime = systemNanoTimeAtStartOfCounting.get();
+        if (startTime == notKeepingTrackOfTimeYet) {
+            return 0;
+        }
+        long lastFullTimeFrameIndex = currentTimeFrameIndex(startTime) - 1;
+        PublishedTimeFrame published = lastPublishedTimeFrame.get();
+        if (published.timeFrameIndex != lastFullTimeFrameIndex) {
+            published = new PublishedTimeFrame(lastFullTimeFrameIndex, mergeStripesForTimeFrame(lastFullTimeFrameIndex));
+            lastPublishedTimeFrame.set(published);
+            // A writer that added its actions after the merge but checked for a merge before it was published didn't
+            // throw it away, so merge once more now that it's published, any later writer will see it
+            long actionCount = mergeStripesForTimeFrame(lastFullTimeFrameIndex);
+            if (actionCount != published.actionCount) {
+                PublishedTimeFrame remerged = new PublishedTimeFrame(lastFullTimeFrameIndex, actionCount);
+                lastPublishedTimeFrame.compareAndSet(published, remerged);
+                published = remerged;
+            }
+        }
+        return published.actionCount;
+    }
+
+    private long mergeStripesForTimeFrame(long timeFrameIndex) {
+        if (timeFrameIndex < 0) {
+            return 0;
+        }
+        long timeFrameTag = timeFrameIndex & timeFrameTagMask;
+        long actionCount = 0;
+        for (int stripeIndex = 0; stripeIndex <= stripeMask; stripeIndex++) {
+            long slot = stripes.get(slotIndexFor(stripeIndex, timeFrameIndex));
+            if ((slot >>> bitsForActionCount) == timeFrameTag) {
+                actionCount += slot & actionCountMask;
+            }
+        }
+        return actionCount;
+    }
+
+    private long startCountingIfNotAlreadyStarted() {
+        long startTime = systemNanoTimeAtStartOfCounting.get();
+        if (startTime == notKeepingTrackOfTimeYet) {
+            systemNanoTimeAtStartOfCounting.compareAndSet(notKeepingTrackOfTimeYet, clock.nanoTime());
+            startTime = systemNanoTimeAtStartOfCounting.get();
+        }
+        return startTime;
+    }
+
+    private long currentTimeFrameIndex(long startTime) {
+        // Math.max for the same reason as ActionsPerTimeFrameCounter, System.nanoTime could appear to go backwards
+        return Math.max(0, clock.nanoTime() - startTime) / timeFrameInNanoSeconds;
+    }
+
+    private int slotIndexFor(int stripeIndex, long timeFrameIndex) {
+        return (stripeIndex + 1) * longsPerStripe + (int) (timeFrameIndex & 1);
+    }
+
+    private int stripeIndexForCurrentThread() {
+        // Fibonacci hashing of the thread id spreads sequentially created threads across the stripes
+        long threadHash = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return (int) (threadHash >>> 32) & stripeMask;
+    }
+
+    private static class PublishedTimeFrame {
+        private final long timeFrameIndex;
+        private final long actionCount;
+
+        private PublishedTimeFrame(long timeFrameIndex, long actionCount) {
+            this.timeFrameIndex = timeFrameIndex;
+            this.actionCount = actionCount;
+        }
+    }
+}
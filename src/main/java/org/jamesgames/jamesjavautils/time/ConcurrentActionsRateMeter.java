@@ -0,0 +1,159 @@
+package org.jamesgames.jamesjavautils.time;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ConcurrentActionsRateMeter is a thread safe version of {@link org.jamesgames.jamesjavautils.time.ActionsRateMeter},
+ * measuring the rate of actions as exponentially weighted moving averages over the last 1, 5 and 15 intervals, as well
+ * as the mean rate since the meter started. All rates are in actions per interval.
+ * <p>
+ * Like {@link org.jamesgames.jamesjavautils.time.ConcurrentActionsPerTimeFrameCounter}, actions are counted towards the
+ * interval that the current time of the meter's clock falls in. Actions are added to one of several stripes (roughly one
+ * per processor, each on its own cache line) so threads adding actions at once don't contend with each other, and
+ * whichever thread first notices that an interval has completed takes the count out of every stripe with a get and set
+ * and updates the averages. Taking the count out with a get and set means no action is ever lost, though an action
+ * added at the very moment an interval completes may be counted towards the next interval. Writers never wait on a
+ * lock, only the thread updating the averages does, in case a later interval completes before it has finished.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+public class ConcurrentActionsRateMeter {
+
+    /**
+     * Number of longs between two stripes, 16 longs being 128 bytes keeps each stripe on its own cache line (and away
+     * from the adjacent cache line prefetcher).
+     */
+    private static final int longsPerStripe = 16;
+
+    private final long intervalInNanoSeconds;
+    private final NanoClock clock;
+    private final ExponentiallyWeightedMovingAverages averages = new ExponentiallyWeightedMovingAverages();
+    private final int stripeMask;
+    private final AtomicLongArray actionCountInCurrentIntervalStripes;
+    private final LongAdder totalActionCount = new LongAdder();
+    private final long systemNanoTimeAtStart;
+    private final AtomicLong systemNanoTimeAtStartOfCurrentInterval;
+
+    /**
+     * Creates a ConcurrentActionsRateMeter with a specified interval that rates are measured in, and averaged over
+     */
+    public ConcurrentActionsRateMeter(long intervalInNanoSeconds) {
+        this(intervalInNanoSeconds, SystemNanoClock.getInstance());
+    }
+
+    /**
+     * Creates a ConcurrentActionsRateMeter with a specified interval that rates are measured in, and a clock used to
+     * tell which interval actions are added in
+     */
+    public ConcurrentActionsRateMeter(long intervalInNanoSeconds, NanoClock clock) {
+        if (intervalInNanoSeconds <= 0) {
+            throw new IllegalArgumentException(
+                    "Interval has to be greater than zero (you passed " + intervalInNanoSeconds + ")");
+        }
+        this.intervalInNanoSeconds = intervalInNanoSeconds;
+        this.clock = Objects.requireNonNull(clock, "clock cannot be null");
+        this.systemNanoTimeAtStart = clock.nanoTime();
+        this.systemNanoTimeAtStartOfCurrentInterval = new AtomicLong(systemNanoTimeAtStart);
+        int numberOfStripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+        this.stripeMask = numberOfStripes - 1;
+        // One extra stripe worth of padding at the front so the first stripe doesn't share a line with the array header
+        this.actionCountInCurrentIntervalStripes = new AtomicLongArray((numberOfStripes + 1) * longsPerStripe);
+    }
+
+    /**
+     * Adds a number of actions to the interval that the current time of the clock falls in
+     *
+     * @param numberOfActions
+     *         Number of actions done
+     */
+    public void addActions(int numberOfActions) {
+        if (numberOfActions < 0) {
+            throw new IllegalArgumentException(
+                    "Number of actions has to be non negative (you passed " + numberOfActions + ")");
+        }
+        updateAveragesIfIntervalCompleted();
+        actionCountInCurrentIntervalStripes.addAndGet(stripeIndexForCurrentThread(), numberOfActions);
+        totalActionCount.add(numberOfActions);
+    }
+
+    private void updateAveragesIfIntervalCompleted() {
+        long startOfCurrentInterval = systemNanoTimeAtStartOfCurrentInterval.get();
+        long timeSinceStartOfInterval = clock.nanoTime() - startOfCurrentInterval;
+        if (timeSinceStartOfInterval < intervalInNanoSeconds) {
+            return;
+        }
+        long numberOfCompletedIntervals = timeSinceStartOfInterval / intervalInNanoSeconds;
+        long startOfNewInterval = startOfCurrentInterval + numberOfCompletedIntervals * intervalInNanoSeconds;
+        // Only the thread that moves the interval forward updates the averages, any other thread just carries on
+        if (systemNanoTimeAtStartOfCurrentInterval.compareAndSet(startOfCurrentInterval, startOfNewInterval)) {
+            // Held across taking the count and both updates, so the thread moving past a later interval can't update
+            // the averages in between, or with its count before the count of this interval
+            synchronized (averages) {
+                averages.update(takeActionCountOfCurrentInterval(), 1);
+                averages.update(0, numberOfCompletedIntervals - 1);
+            }
+        }
+    }
+
+    private long takeActionCountOfCurrentInterval() {
+        long actionCount = 0;
+        for (int stripeIndex = 0; stripeIndex <= stripeMask; stripeIndex++) {
+            actionCount += actionCountInCurrentIntervalStripes.getAndSet(stripeArrayIndex(stripeIndex), 0);
+        }
+        return actionCount;
+    }
+
+    private int stripeIndexForCurrentThread() {
+        // Fibonacci hashing of the thread id spreads sequentially created threads across the stripes
+        long threadHash = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return stripeArrayIndex((int) (threadHash >>> 32) & stripeMask);
+    }
+
+    private static int stripeArrayIndex(int stripeIndex) {
+        return (stripeIndex + 1) * longsPerStripe;
+    }
+
+    /**
+     * @return The moving average of actions per interval over roughly the last interval, 0 until an interval completes
+     */
+    public double getOneIntervalRate() {
+        updateAveragesIfIntervalCompleted();
+        return averages.getOneIntervalAverage();
+    }
+
+    /**
+     * @return The moving average of actions per interval over roughly the last 5 intervals, 0 until an interval
+     * completes
+     */
+    public double getFiveIntervalRate() {
+        updateAveragesIfIntervalCompleted();
+        return averages.getFiveIntervalAverage();
+    }
+
+    /**
+     * @return The moving average of actions per interval over roughly the last 15 intervals, 0 until an interval
+     * completes
+     */
+    public double getFifteenIntervalRate() {
+        updateAveragesIfIntervalCompleted();
+        return averages.getFifteenIntervalAverage();
+    }
+
+    /**
+     * @return The mean number of actions per interval since the meter was created
+     */
+    public double getMeanRate() {
+        long elapsedTime = clock.nanoTime() - systemNanoTimeAtStart;
+        return elapsedTime <= 0 ? 0 : totalActionCount.sum() * (double) intervalInNanoSeconds / elapsedTime;
+    }
+
+    public long getIntervalInNanoSeconds() {
+        return intervalInNanoSeconds;
+    }
+}
@@ -2,7 +2,7 @@ package org.jamesgames.jamesjavautils.time;
 
 import net.jcip.annotations.NotThreadSafe;
 
-import java.util.Random;
+import java.util.Objects;
 
 /**
  * ElapsedTimeTimer is used to time events based on a target time some amount of milliseconds or nanoseconds in the
@@ -17,8 +17,8 @@ import java.util.Random;
 @NotThreadSafe
 public class ElapsedTimeTimer {
     private static final int numberOfNanoSecondsInMillisecond = 1_000_000;
-    private static final Random randomTargetTimeGenerator = new Random();
 
+    private RandomTimeGenerator randomTargetTimeGenerator = RandomTimeGenerator.getUniformThreadLocalGenerator();
     private long totalElapsedTimeInNanoSeconds;
     private long targetTimeInNanoSeconds;
     private boolean timerFinished;
@@ -41,6 +41,25 @@ public class ElapsedTimeTimer {
                 exclusiveUpperBoundInNanoseconds);
     }
 
+    /**
+     * Creates a ElapsedTimeTimer with a target time randomly between two times, picked by a specific generator.
+     */
+    public ElapsedTimeTimer(long inclusiveLowerBoundInNanoseconds,
+            long exclusiveUpperBoundInNanoseconds, RandomTimeGenerator randomTargetTimeGenerator) {
+        setRandomTargetTimeGenerator(randomTargetTimeGenerator);
+        setTargetTimeToRandomTimeSpecifiedInNanoSeconds(inclusiveLowerBoundInNanoseconds,
+                exclusiveUpperBoundInNanoseconds);
+    }
+
+    /**
+     * Sets the generator used to pick random target times, by default random target times are uniformly distributed
+     * and drawn from ThreadLocalRandom. Takes effect the next time a random target time is set.
+     */
+    public void setRandomTargetTimeGenerator(RandomTimeGenerator randomTargetTimeGenerator) {
+        this.randomTargetTimeGenerator =
+                Objects.requireNonNull(randomTargetTimeGenerator, "randomTargetTimeGenerator cannot be null");
+    }
+
     public void setTargetTimeInNanoSeconds(long targetTimeInNanoSeconds) {
         if (targetTimeInNanoSeconds < 0) {
             throw new IllegalArgumentException("time to reach cannot be less than zero");
@@ -58,15 +77,8 @@ public class ElapsedTimeTimer {
 
     public void setTargetTimeToRandomTimeSpecifiedInNanoSeconds(long inclusiveLowerBound,
             long exclusiveUpperBound) {
-        if (inclusiveLowerBound < 0) {
-            throw new IllegalArgumentException("inclusive bound must be equal to zero or greater " +
-                    "(inclusive: " + inclusiveLowerBound + ", exclusive: " + exclusiveUpperBound + ")");
-        } else if (exclusiveUpperBound <= inclusiveLowerBound) {
-            throw new IllegalArgumentException("exclusive bound cannot be less than or equal to inclusive bound " +
-                    "(inclusive: " + inclusiveLowerBound + ", exclusive: " + exclusiveUpperBound + ")");
-        }
-        setTargetTimeInNanoSeconds(inclusiveLowerBound +
-                ((long) (randomTargetTimeGenerator.nextDouble() * (exclusiveUpperBound - inclusiveLowerBound))));
+        setTargetTimeInNanoSeconds(
+                randomTargetTimeGenerator.nextTimeInNanoSeconds(inclusiveLowerBound, exclusiveUpperBound));
     }
 
     public void resetTargetTimeToRandomTimeSpecifiedInMilliseconds(long inclusiveLowerBound,
@@ -117,6 +129,21 @@ public class ElapsedTimeTimer {
         resetElapsedTimeInNanoSeconds(totalElapsedTimeInNanoSeconds - targetTimeInNanoSeconds);
     }
 
+    long getTotalElapsedTimeInNanoSeconds() {
+        return totalElapsedTimeInNanoSeconds;
+    }
+
+    long getTargetTimeInNanoSeconds() {
+        return targetTimeInNanoSeconds;
+    }
+
+    /**
+     * Sets the total elapsed time without checking if the timer finished
+     */
+    void setTotalElapsedTimeInNanoSeconds(long totalElapsedTimeInNanoSeconds) {
+        this.totalElapsedTimeInNanoSeconds = totalElapsedTimeInNanoSeconds;
+    }
+
     public boolean isTimerFinished() {
         return timerFinished;
     }
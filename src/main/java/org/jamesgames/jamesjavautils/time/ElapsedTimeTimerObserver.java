@@ -18,4 +18,21 @@ public interface ElapsedTimeTimerObserver {
      *         Reference to the ElapsedTimeTimerObserver that the event originated from.
      */
     public void targetTimePassed(ObservableElapsedTimeTimer timer);
+
+    /**
+     * To be called when the timer reached its target time a number of times at once, when the timer uses the {@link
+     * org.jamesgames.jamesjavautils.time.ObservableElapsedTimeTimer.CatchUpMode#batched} catch up mode. By default this
+     * calls {@link #targetTimePassed(ObservableElapsedTimeTimer)} once for each time, observers that can handle many
+     * at once (such as adding to a score) can override this to do so in one step.
+     *
+     * @param timer
+     *         Reference to the ElapsedTimeTimerObserver that the event originated from.
+     * @param numberOfTimesPassed
+     *         Number of times the target time was reached, at least one
+     */
+    public default void targetTimePassed(ObservableElapsedTimeTimer timer, long numberOfTimesPassed) {
+        for (long i = 0; i < numberOfTimesPassed; i++) {
+            targetTimePassed(timer);
+        }
+    }
 }
@@ -0,0 +1,73 @@
+package org.jamesgames.jamesjavautils.time;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * ExponentiallyWeightedMovingAverages holds the 1, 5 and 15 interval exponentially weighted moving averages of how
+ * many actions happen per interval, shared by {@link org.jamesgames.jamesjavautils.time.ActionsRateMeter} and {@link
+ * org.jamesgames.jamesjavautils.time.ConcurrentActionsRateMeter}. Each average moves towards a new value by a fraction
+ * that depends on how many intervals it averages over, so the 1 interval average reacts quickly and the 15 interval
+ * average is smooth. Updating with the same value for many intervals is done in one step, since moving towards the same
+ * value n times is the same as moving towards it once with the fraction raised to the nth power.
+ * <p>
+ * Updates are synchronized so that two threads updating at once can't interleave their writes of the averages, and any
+ * thread may read them without locking.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+final class ExponentiallyWeightedMovingAverages {
+
+    private static final int oneInterval = 1;
+    private static final int fiveIntervals = 5;
+    private static final int fifteenIntervals = 15;
+
+    private volatile boolean averagesStarted;
+    private volatile double oneIntervalAverage;
+    private volatile double fiveIntervalAverage;
+    private volatile double fifteenIntervalAverage;
+
+    /**
+     * Updates the averages as if some number of intervals each had the same number of actions
+     *
+     * @param actionsPerInterval
+     *         Number of actions in each interval
+     * @param numberOfIntervals
+     *         Number of intervals that passed
+     */
+    synchronized void update(double actionsPerInterval, long numberOfIntervals) {
+        if (numberOfIntervals <= 0) {
+            return;
+        }
+        if (!averagesStarted) {
+            // Nothing to average with yet, so start all averages at the first value instead of climbing from zero
+            oneIntervalAverage = actionsPerInterval;
+            fiveIntervalAverage = actionsPerInterval;
+            fifteenIntervalAverage = actionsPerInterval;
+            averagesStarted = true;
+            return;
+        }
+        oneIntervalAverage = movedAverage(oneIntervalAverage, actionsPerInterval, numberOfIntervals, oneInterval);
+        fiveIntervalAverage = movedAverage(fiveIntervalAverage, actionsPerInterval, numberOfIntervals, fiveIntervals);
+        fifteenIntervalAverage =
+                movedAverage(fifteenIntervalAverage, actionsPerInterval, numberOfIntervals, fifteenIntervals);
+    }
+
+    private static double movedAverage(double average, double actionsPerInterval, long numberOfIntervals,
+            int intervalsAveragedOver) {
+        double portionOfOldAverageKept = Math.exp(-numberOfIntervals / (double) intervalsAveragedOver);
+        return actionsPerInterval + (average - actionsPerInterval) * portionOfOldAverageKept;
+    }
+
+    double getOneIntervalAverage() {
+        return oneIntervalAverage;
+    }
+
+    double getFiveIntervalAverage() {
+        return fiveIntervalAverage;
+    }
+
+    double getFifteenIntervalAverage() {
+        return fifteenIntervalAverage;
+    }
+}
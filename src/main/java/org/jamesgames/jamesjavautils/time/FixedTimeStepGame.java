@@ -0,0 +1,29 @@
+package org.jamesgames.jamesjavautils.time;
+
+/**
+ * FixedTimeStepGame is an interface for what a {@link org.jamesgames.jamesjavautils.time.FixedTimeStepGameLoop} runs,
+ * the game's state is updated in fixed steps of time and rendered as often as the loop can (or as often as the target
+ * frames per second allows).
+ *
+ * @author James Murphy
+ */
+public interface FixedTimeStepGame {
+
+    /**
+     * To be called to move the game's state forward by one fixed step of time. Every call is given the same step.
+     *
+     * @param timeStepInNanoSeconds
+     *         Amount of time to move the game's state forward by
+     */
+    public void update(long timeStepInNanoSeconds);
+
+    /**
+     * To be called to render the game. Rendering usually happens part way between two updates, so the interpolation
+     * says how far between the last update and the next one the current time is, which can be used to draw moving
+     * things between their previous and current positions for smooth motion.
+     *
+     * @param interpolation
+     *         From 0 (just after the last update) up to but not including 1 (right before the next update)
+     */
+    public void render(float interpolation);
+}
@@ -0,0 +1,252 @@
+package org.jamesgames.jamesjavautils.time;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * FixedTimeStepGameLoop runs a {@link org.jamesgames.jamesjavautils.time.FixedTimeStepGame}, updating the game in fixed
+ * steps of time and rendering it in between. Time that passes between frames is accumulated, and the game is updated
+ * once for every full step of accumulated time, the time left over is passed on to rendering as an interpolation
+ * value. This keeps the game's simulation the same no matter how fast or slow frames are rendered.
+ * <p>
+ * If the game falls behind (such as updates taking longer than the step they simulate) the loop would keep trying to
+ * catch up with more and more updates per frame, and never recover. To prevent that, only a maximum number of updates
+ * are done per frame and any further time owed to the game is dropped, so the game slows down instead of freezing.
+ * <p>
+ * When a target frames per second is set, the loop waits between frames by parking the thread until it is close to the
+ * next frame's time and then spinning (yielding) for the rest, since parking alone usually wakes up late. Frame times
+ * are scheduled from the previous frame's scheduled time rather than from when it actually happened so the frame rate
+ * doesn't drift. Updates and frames per second are counted with {@link org.jamesgames.jamesjavautils.time.ActionsPerTimeFrameCounter}s
+ * using the loop's clock.
+ * <p>
+ * The loop runs on the thread that calls {@link #run()}. {@link #runFrame()} can be used instead of run to drive the
+ * loop one frame at a time, such as with a {@link org.jamesgames.jamesjavautils.time.ManualNanoClock}, but only from
+ * one thread at a time and not while the loop is running, so the loop as a whole is not thread safe. {@link #stop()},
+ * the settings and the per second counts can be used from any thread. Calling stop before run is called stops that
+ * run before its first frame, rather than being lost.
+ *
+ * @author James Murphy
+ */
+@NotThreadSafe
+public class FixedTimeStepGameLoop {
+
+    private static final long oneSecondInNanoSeconds = TimeUnit.SECONDS.toNanos(1);
+    private static final int defaultMaxUpdatesPerFrame = 5;
+    private static final long defaultSpinTimeInNanoSeconds = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * Holds a value to signal that no frame has been run yet
+     */
+    private static final long noFrameRunYet = -1;
+
+    /**
+     * States of the loop, stop requested being either a running loop that has yet to stop, or a stop that the next run
+     * is to obey
+     */
+    private static final int idle = 0;
+    private static final int running = 1;
+    private static final int stopRequested = 2;
+
+    private final FixedTimeStepGame game;
+    private final long timeStepInNanoSeconds;
+    private final NanoClock clock;
+    private final ActionsPerTimeFrameCounter updatesPerSecondCounter;
+    private final ActionsPerTimeFrameCounter framesPerSecondCounter;
+
+    private volatile int maxUpdatesPerFrame = defaultMaxUpdatesPerFrame;
+    private volatile long targetFrameTimeInNanoSeconds;
+    private volatile long spinTimeInNanoSeconds = defaultSpinTimeInNanoSeconds;
+    private final AtomicInteger state = new AtomicInteger(idle);
+    private volatile float updatesPerSecond;
+    private volatile float framesPerSecond;
+    private volatile long droppedTimeInNanoSeconds;
+
+    // Only touched by the thread running the loop
+    private long timeOfLastFrame = noFrameRunYet;
+    private long scheduledTimeOfNextFrame = noFrameRunYet;
+    private long accumulatedTimeInNanoSeconds;
+
+    /**
+     * Creates a FixedTimeStepGameLoop that updates a game in fixed time steps, rendering as fast as possible
+     */
+    public FixedTimeStepGameLoop(FixedTimeStepGame game, long timeStepInNanoSeconds) {
+        this(game, timeStepInNanoSeconds, SystemNanoClock.getInstance());
+    }
+
+    /**
+     * Creates a FixedTimeStepGameLoop that updates a game in fixed time steps, rendering as fast as possible, using a
+     * clock to tell how much time has passed
+     */
+    public FixedTimeStepGameLoop(FixedTimeStepGame game, long timeStepInNanoSeconds, NanoClock clock) {
+        if (timeStepInNanoSeconds <= 0) {
+            throw new IllegalArgumentException(
+                    "Time step has to be greater than zero (you passed " + timeStepInNanoSeconds + ")");
+        }
+        this.game = Objects.requireNonNull(game, "game cannot be null");
+        this.timeStepInNanoSeconds = timeStepInNanoSeconds;
+        this.clock = Objects.requireNonNull(clock, "clock cannot be null");
+        this.updatesPerSecondCounter = new ActionsPerTimeFrameCounter(oneSecondInNanoSeconds, clock);
+        this.framesPerSecondCounter = new ActionsPerTimeFrameCounter(oneSecondInNanoSeconds, clock);
+    }
+
+    /**
+     * Runs frames until {@link #stop()} is called, waiting between frames if a target frames per second is set. Returns
+     * right away without running a frame if stop was called since the last run ended.
+     *
+     * @throws IllegalStateException
+     *         If the loop is already running
+     */
+    public void run() {
+        if (!state.compareAndSet(idle, running)) {
+            if (state.compareAndSet(stopRequested, idle)) {
+                return;
+            }
+            throw new IllegalStateException("Loop is already running");
+        }
+        try {
+            while (state.get() == running) {
+                runFrame();
+                waitForNextFrame();
+            }
+        } finally {
+            state.set(idle);
+        }
+    }
+
+    /**
+     * Stops the loop after the frame it is currently running, or if it isn't running, stops the next call to {@link
+     * #run()} before it runs a frame
+     */
+    public void stop() {
+        state.set(stopRequested);
+    }
+
+    public boolean isRunning() {
+        return state.get() == running;
+    }
+
+    /**
+     * Runs a single frame, updating the game once for each full time step that has passed since the last frame (up to
+     * the max updates per frame) and then rendering it
+     *
+     * @return The number of updates done in the frame
+     */
+    public int runFrame() {
+        long currentTime = clock.nanoTime();
+        if (timeOfLastFrame == noFrameRunYet) {
+            timeOfLastFrame = currentTime;
+        }
+        // Math.max for the same reason as ActionsPerTimeFrameCounter, the clock could appear to go backwards
+        accumulatedTimeInNanoSeconds += Math.max(0, currentTime - timeOfLastFrame);
+        timeOfLastFrame = currentTime;
+
+        int updatesThisFrame = 0;
+        int maxUpdates = maxUpdatesPerFrame;
+        while (accumulatedTimeInNanoSeconds >= timeStepInNanoSeconds && updatesThisFrame < maxUpdates) {
+            game.update(timeStepInNanoSeconds);
+            accumulatedTimeInNanoSeconds -= timeStepInNanoSeconds;
+            updatesThisFrame++;
+        }
+        if (accumulatedTimeInNanoSeconds >= timeStepInNanoSeconds) {
+            // Too far behind to catch up, drop the full steps that are owed so the next frame doesn't fall further back
+            long timeToDrop = accumulatedTimeInNanoSeconds - accumulatedTimeInNanoSeconds % timeStepInNanoSeconds;
+            accumulatedTimeInNanoSeconds -= timeToDrop;
+            droppedTimeInNanoSeconds += timeToDrop;
+        }
+
+        game.render(accumulatedTimeInNanoSeconds / (float) timeStepInNanoSeconds);
+
+        updatesPerSecondCounter.addActions(updatesThisFrame);
+        framesPerSecondCounter.addActions(1);
+        updatesPerSecond = updatesPerSecondCounter.getActionCountPerTimeFrame();
+        framesPerSecond = framesPerSecondCounter.getActionCountPerTimeFrame();
+        return updatesThisFrame;
+    }
+
+    private void waitForNextFrame() {
+        long targetFrameTime = targetFrameTimeInNanoSeconds;
+        if (targetFrameTime == 0) {
+            return;
+        }
+        long currentTime = clock.nanoTime();
+        if (scheduledTimeOfNextFrame == noFrameRunYet ||
+                currentTime - scheduledTimeOfNextFrame > targetFrameTime) {
+            // First frame, or more than a frame late, rescheduling from now rather than rushing frames to catch up
+            scheduledTimeOfNextFrame = currentTime;
+        }
+        scheduledTimeOfNextFrame += targetFrameTime;
+
+        long spinTime = spinTimeInNanoSeconds;
+        long timeUntilNextFrame;
+        while ((timeUntilNextFrame = scheduledTimeOfNextFrame - clock.nanoTime()) > spinTime && isRunning()) {
+            LockSupport.parkNanos(this, timeUntilNextFrame - spinTime);
+        }
+        while (scheduledTimeOfNextFrame - clock.nanoTime() > 0 && isRunning()) {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Sets how many frames per second the loop aims for when running with {@link #run()}, or 0 to render as fast as
+     * possible
+     */
+    public void setTargetFramesPerSecond(int targetFramesPerSecond) {
+        if (targetFramesPerSecond < 0) {
+            throw new IllegalArgumentException(
+                    "Target frames per second has to be non negative (you passed " + targetFramesPerSecond + ")");
+        }
+        targetFrameTimeInNanoSeconds = targetFramesPerSecond == 0 ? 0 : oneSecondInNanoSeconds / targetFramesPerSecond;
+    }
+
+    /**
+     * Sets the most updates done in one frame, any more time owed to the game after that is dropped
+     */
+    public void setMaxUpdatesPerFrame(int maxUpdatesPerFrame) {
+        if (maxUpdatesPerFrame <= 0) {
+            throw new IllegalArgumentException(
+                    "Max updates per frame has to be greater than zero (you passed " + maxUpdatesPerFrame + ")");
+        }
+        this.maxUpdatesPerFrame = maxUpdatesPerFrame;
+    }
+
+    /**
+     * Sets how long before the next frame the loop stops parking the thread and spins instead, a longer spin time
+     * uses more processor time but lowers the jitter of frame times
+     */
+    public void setSpinTimeInNanoSeconds(long spinTimeInNanoSeconds) {
+        if (spinTimeInNanoSeconds < 0) {
+            throw new IllegalArgumentException(
+                    "Spin time has to be non negative (you passed " + spinTimeInNanoSeconds + ")");
+        }
+        this.spinTimeInNanoSeconds = spinTimeInNanoSeconds;
+    }
+
+    /**
+     * @return Number of updates done in the last full second
+     */
+    public float getUpdatesPerSecond() {
+        return updatesPerSecond;
+    }
+
+    /**
+     * @return Number of frames rendered in the last full second
+     */
+    public float getFramesPerSecond() {
+        return framesPerSecond;
+    }
+
+    /**
+     * @return Total amount of time dropped because the game fell too far behind to catch up
+     */
+    public long getDroppedTimeInNanoSeconds() {
+        return droppedTimeInNanoSeconds;
+    }
+
+    public long getTimeStepInNanoSeconds() {
+        return timeStepInNanoSeconds;
+    }
+}
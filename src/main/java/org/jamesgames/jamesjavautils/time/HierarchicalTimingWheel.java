@@ -0,0 +1,298 @@
+package org.jamesgames.jamesjavautils.time;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * HierarchicalTimingWheel owns a set of registered {@link org.jamesgames.jamesjavautils.time.ElapsedTimeTimer}s (and
+ * {@link org.jamesgames.jamesjavautils.time.ObservableElapsedTimeTimer}s) and advances all of them with a single call to
+ * {@link #advance(long)}, instead of the user calling addElapsedTimeInNanoSeconds on every timer each update. Only timers
+ * that reach their target time are touched during an advance, so the cost of an advance depends on how many timers
+ * finish rather than on how many are registered.
+ * <p>
+ * Each timer is placed in a slot by the tick its target time will be reached on. There are several levels of 64 slots,
+ * the first level has a slot per tick, and each level above has slots 64 times longer than the level below. Timers far
+ * in the future sit in the upper levels and are moved down a level when the wheel reaches their slot, so each timer is
+ * moved at most once per level before it finishes. Empty slots are skipped using a bit per slot, so advancing over a long
+ * time with nothing finishing is cheap too.
+ * <p>
+ * A timer is only given its elapsed time when it reaches its target time, when it is unregistered, or when it is
+ * changed through {@link #changeTimer(ElapsedTimeTimer, java.util.function.Consumer)}. When a timer reaches its target
+ * time it is given all of the time elapsed up to the end of the advance in one call, exactly as if the user had called
+ * addElapsedTimeInNanoSeconds on it, so fixed and random target times behave the same and observers of an
+ * ObservableElapsedTimeTimer are informed the same (including changing the target time from an observer). An
+ * ObservableElapsedTimeTimer re-arms itself and stays in the wheel, while an ElapsedTimeTimer that finished stays
+ * registered but is not checked again until it is changed, such as being reset through changeTimer. Registered timers
+ * should not be changed directly, as they may not have been given all their elapsed time yet.
+ *
+ * @author James Murphy
+ */
+@NotThreadSafe
+public class HierarchicalTimingWheel {
+
+    private static final int bitsPerLevel = 6;
+    private static final int slotsPerLevel = 1 << bitsPerLevel;
+    private static final int slotMask = slotsPerLevel - 1;
+
+    /**
+     * Enough levels to cover every non negative long tick
+     */
+    private static final int numberOfLevels = (Long.SIZE + bitsPerLevel - 1) / bitsPerLevel;
+
+    private static final int notInASlot = -1;
+
+    private final long tickInNanoSeconds;
+    private final Entry[][] slotHeads = new Entry[numberOfLevels][slotsPerLevel];
+    private final long[] occupiedSlotsPerLevel = new long[numberOfLevels];
+    private final Map<ElapsedTimeTimer, Entry> entries = new IdentityHashMap<>();
+
+    /**
+     * Entries in the current slot that are in the current tick but haven't reached their target time yet
+     */
+    private final ArrayDeque<Entry> entriesNotYetDue = new ArrayDeque<>();
+
+    private long elapsedTimeInNanoSeconds;
+    private long currentTick;
+
+    /**
+     * Creates a HierarchicalTimingWheel with a tick length, timers that finish within the same tick are found by the
+     * wheel at the same time, so the tick length should be around the smallest expected target time
+     */
+    public HierarchicalTimingWheel(long tickInNanoSeconds) {
+        if (tickInNanoSeconds <= 0) {
+            throw new IllegalArgumentException(
+                    "Tick length has to be greater than zero (you passed " + tickInNanoSeconds + ")");
+        }
+        this.tickInNanoSeconds = tickInNanoSeconds;
+    }
+
+    /**
+     * Registers a timer so it is advanced by this wheel from now on. A timer can only be registered with one wheel.
+     */
+    public void register(ElapsedTimeTimer timer) {
+        Objects.requireNonNull(timer, "timer cannot be null");
+        if (entries.containsKey(timer)) {
+            throw new IllegalArgumentException("Timer is already registered");
+        }
+        Entry entry = new Entry(timer, elapsedTimeInNanoSeconds);
+        entries.put(timer, entry);
+        // A timer whose target time has already been reached finishes now, the same as if time was added to it
+        timer.addElapsedTimeInNanoSeconds(0);
+        if (entry.registered) {
+            schedule(entry);
+        }
+    }
+
+    /**
+     * Unregisters a timer, giving it all the time that has elapsed since it was last updated by the wheel
+     */
+    public void unregister(ElapsedTimeTimer timer) {
+        Entry entry = entries.remove(Objects.requireNonNull(timer, "timer cannot be null"));
+        if (entry == null) {
+            throw new IllegalArgumentException("Timer was not registered");
+        }
+        entry.registered = false;
+        unlink(entry);
+        giveTimerElapsedTime(entry);
+    }
+
+    /**
+     * Changes a registered timer, such as setting a new target time or resetting its elapsed time. The timer is given
+     * all the time that has elapsed since it was last updated by the wheel before the change is made, and is placed
+     * in the wheel by its new target time after.
+     */
+    public <T extends ElapsedTimeTimer> void changeTimer(T timer, Consumer<? super T> change) {
+        Entry entry = entries.get(Objects.requireNonNull(timer, "timer cannot be null"));
+        if (entry == null) {
+            throw new IllegalArgumentException("Timer was not registered");
+        }
+        unlink(entry);
+        giveTimerElapsedTime(entry);
+        change.accept(timer);
+        // Like register, a change to an already reached target time finishes the timer now
+        timer.addElapsedTimeInNanoSeconds(0);
+        if (entry.registered) {
+            schedule(entry);
+        }
+    }
+
+    public void advanceInMilliseconds(long elapsedTimeInMilliseconds) {
+        advance(ElapsedTimeTimer.millisecondsToNanoSeconds(elapsedTimeInMilliseconds));
+    }
+
+    /**
+     * Advances every registered timer by an amount of time, timers that reach their target time are given their
+     * elapsed time (finishing them, or for an ObservableElapsedTimeTimer informing its observers)
+     */
+    public void advance(long elapsedTimeInNanoSeconds) {
+        if (elapsedTimeInNanoSeconds < 0) {
+            throw new IllegalArgumentException("elapsed time cannot be less than zero");
+        }
+        this.elapsedTimeInNanoSeconds += elapsedTimeInNanoSeconds;
+        long targetTick = this.elapsedTimeInNanoSeconds / tickInNanoSeconds;
+
+        finishDueEntriesInCurrentSlot();
+        while (currentTick < targetTick) {
+            currentTick = Math.min(nextTickWithOccupiedSlot(), targetTick);
+            moveDownEntriesOfSlotsStartingAtCurrentTick();
+            finishDueEntriesInCurrentSlot();
+        }
+    }
+
+    private void finishDueEntriesInCurrentSlot() {
+        int slot = (int) (currentTick & slotMask);
+        Entry entry;
+        while ((entry = slotHeads[0][slot]) != null) {
+            unlink(entry);
+            if (entry.deadlineInNanoSeconds > elapsedTimeInNanoSeconds) {
+                entriesNotYetDue.add(entry);
+                continue;
+            }
+            giveTimerElapsedTime(entry);
+            // An observer may have unregistered or changed the timer, in which case it's already taken care of
+            if (entry.registered && entry.level == notInASlot) {
+                schedule(entry);
+            }
+        }
+        while ((entry = entriesNotYetDue.poll()) != null) {
+            if (entry.registered && entry.level == notInASlot) {
+                link(entry, 0, slot);
+            }
+        }
+    }
+
+    private long nextTickWithOccupiedSlot() {
+        long nextTick = Long.MAX_VALUE;
+        for (int level = 0; level < numberOfLevels; level++) {
+            int shift = level * bitsPerLevel;
+            int currentSlot = (int) ((currentTick >>> shift) & slotMask);
+            // Slots in a level are never behind the current slot, so only slots after the current one are checked
+            long laterOccupiedSlots = occupiedSlotsPerLevel[level] & (-2L << currentSlot);
+            if (laterOccupiedSlots != 0) {
+                long slotStartTick = startOfLevelRotation(currentTick, level) |
+                        ((long) Long.numberOfTrailingZeros(laterOccupiedSlots) << shift);
+                nextTick = Math.min(nextTick, slotStartTick);
+            }
+        }
+        return nextTick;
+    }
+
+    private void moveDownEntriesOfSlotsStartingAtCurrentTick() {
+        // From the top down, so entries moved down from a higher level can be moved down again if needed
+        for (int level = numberOfLevels - 1; level > 0; level--) {
+            int shift = level * bitsPerLevel;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                continue;
+            }
+            int slot = (int) ((currentTick >>> shift) & slotMask);
+            Entry entry;
+            while ((entry = slotHeads[level][slot]) != null) {
+                unlink(entry);
+                insert(entry);
+            }
+        }
+    }
+
+    private void giveTimerElapsedTime(Entry entry) {
+        long timeSinceLastUpdate = elapsedTimeInNanoSeconds - entry.elapsedTimeOfWheelAtLastUpdate;
+        entry.elapsedTimeOfWheelAtLastUpdate = elapsedTimeInNanoSeconds;
+        entry.timer.addElapsedTimeInNanoSeconds(timeSinceLastUpdate);
+    }
+
+    private void schedule(Entry entry) {
+        ElapsedTimeTimer timer = entry.timer;
+        if (timer.isTimerFinished()) {
+            // A finished ElapsedTimeTimer has nothing more to reach until it's changed
+            return;
+        }
+        long timeLeftUntilTarget = timer.getTargetTimeInNanoSeconds() - timer.getTotalElapsedTimeInNanoSeconds();
+        long deadline = entry.elapsedTimeOfWheelAtLastUpdate + timeLeftUntilTarget;
+        entry.deadlineInNanoSeconds = deadline < 0 ? Long.MAX_VALUE : deadline;
+        insert(entry);
+    }
+
+    private void insert(Entry entry) {
+        long deadlineTick = Math.max(currentTick, entry.deadlineInNanoSeconds / tickInNanoSeconds);
+        // The lowest level where the deadline is in the same rotation of slots as the current tick
+        int level = 0;
+        while (startOfLevelRotation(deadlineTick, level) != startOfLevelRotation(currentTick, level)) {
+            level++;
+        }
+        link(entry, level, (int) ((deadlineTick >>> (level * bitsPerLevel)) & slotMask));
+    }
+
+    private static long startOfLevelRotation(long tick, int level) {
+        int bitsOfRotation = (level + 1) * bitsPerLevel;
+        return bitsOfRotation >= Long.SIZE ? 0 : (tick >>> bitsOfRotation) << bitsOfRotation;
+    }
+
+    private void link(Entry entry, int level, int slot) {
+        Entry head = slotHeads[level][slot];
+        entry.next = head;
+        entry.previous = null;
+        if (head != null) {
+            head.previous = entry;
+        }
+        slotHeads[level][slot] = entry;
+        occupiedSlotsPerLevel[level] |= 1L << slot;
+        entry.level = level;
+        entry.slot = slot;
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.level == notInASlot) {
+            return;
+        }
+        if (entry.previous != null) {
+            entry.previous.next = entry.next;
+        } else {
+            slotHeads[entry.level][entry.slot] = entry.next;
+            if (entry.next == null) {
+                occupiedSlotsPerLevel[entry.level] &= ~(1L << entry.slot);
+            }
+        }
+        if (entry.next != null) {
+            entry.next.previous = entry.previous;
+        }
+        entry.next = null;
+        entry.previous = null;
+        entry.level = notInASlot;
+        entry.slot = notInASlot;
+    }
+
+    public boolean isRegistered(ElapsedTimeTimer timer) {
+        return entries.containsKey(timer);
+    }
+
+    public int getNumberOfRegisteredTimers() {
+        return entries.size();
+    }
+
+    /**
+     * @return Total time the wheel has been advanced by
+     */
+    public long getElapsedTimeInNanoSeconds() {
+        return elapsedTimeInNanoSeconds;
+    }
+
+    private static class Entry {
+        private final ElapsedTimeTimer timer;
+        private long elapsedTimeOfWheelAtLastUpdate;
+        private long deadlineInNanoSeconds;
+        private boolean registered = true;
+        private int level = notInASlot;
+        private int slot = notInASlot;
+        private Entry previous;
+        private Entry next;
+
+        private Entry(ElapsedTimeTimer timer, long elapsedTimeOfWheelAtLastUpdate) {
+            this.timer = timer;
+            this.elapsedTimeOfWheelAtLastUpdate = elapsedTimeOfWheelAtLastUpdate;
+        }
+    }
+}
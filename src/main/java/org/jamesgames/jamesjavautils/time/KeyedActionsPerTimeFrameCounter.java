@@ -0,0 +1,318 @@
+package org.jamesgames.jamesjavautils.time;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * KeyedActionsPerTimeFrameCounter counts actions per key (such as per user or per endpoint) over tumbling time frames,
+ * publishing how many actions each key had in the past fully counted time frame like {@link
+ * org.jamesgames.jamesjavautils.time.ActionsPerTimeFrameCounter} does for a single count. Rather than a counter per key,
+ * which grows without bound with the number of keys, counts are kept in a count-min sketch: a few rows of counters where
+ * each key is hashed to one counter per row, and the count of a key is the smallest of its counters. Keys that share a
+ * counter make each other's counts too high, but never too low. With a width of w counters per row and a depth of d rows
+ * a key's count is over by at most e / w (about 2.7 / w) of all actions in the time frame, with a probability of 1 -
+ * (1 / e)^d. Counters are updated conservatively (only raised as far as the key's new count) which keeps the
+ * overcounting well under that bound in practice.
+ * <p>
+ * The keys with the most actions (the heavy hitters) are also tracked, as a sketch can't list its keys. A fixed number
+ * of keys are kept along with their counts, and a key that isn't tracked replaces the tracked key with the lowest count
+ * once its own count is higher.
+ * <p>
+ * Memory is fixed when the counter is created no matter how many keys are counted, and adding actions never allocates.
+ * Like {@link org.jamesgames.jamesjavautils.time.ConcurrentActionsPerTimeFrameCounter}, actions are counted towards the
+ * time frame that the current time of the counter's clock falls in.
+ *
+ * @param <K>
+ *         Type of key actions are counted for, keys need a well spread out hashCode
+ * @author James Murphy
+ */
+@NotThreadSafe
+public class KeyedActionsPerTimeFrameCounter<K> {
+
+    private static final int defaultWidth = 2048;
+    private static final int defaultDepth = 4;
+    private static final int defaultNumberOfHeavyHitters = 16;
+
+    /**
+     * Holds a value to signal that the application has not began counting actions yet
+     */
+    private static final long notKeepingTrackOfTimeYet = -1;
+
+    private final long timeFrameInNanoSeconds;
+    private final NanoClock clock;
+    private final int width;
+    private final int depth;
+
+    private long[] currentSketch;
+    private long[] lastSketch;
+    private long actionCountInCurrentTimeFrame;
+    private long actionCountInLastTimeFrame;
+
+    private Object[] currentHeavyHitters;
+    private int[] currentHeavyHitterHashes;
+    private long[] currentHeavyHitterCounts;
+    private int numberOfCurrentHeavyHitters;
+    private int indexOfLowestCurrentHeavyHitter;
+    private Object[] lastHeavyHitters;
+    private int[] lastHeavyHitterHashes;
+    private long[] lastHeavyHitterCounts;
+    private int numberOfLastHeavyHitters;
+
+    private long systemNanoTimeAtStartOfCounting = notKeepingTrackOfTimeYet;
+    private long currentTimeFrameIndex;
+
+    /**
+     * Creates a KeyedActionsPerTimeFrameCounter with specified time frame on how long to calculate each new actions per
+     * time frame value, with a sketch of 4 rows of 2048 counters and tracking the 16 keys with the most actions
+     */
+    public KeyedActionsPerTimeFrameCounter(long timeFrameInNanoSeconds) {
+        this(timeFrameInNanoSeconds, defaultWidth, defaultDepth, defaultNumberOfHeavyHitters);
+    }
+
+    /**
+     * Creates a KeyedActionsPerTimeFrameCounter with specified time frame on how long to calculate each new actions per
+     * time frame value, how many counters are in each row of the sketch (rounded up to a power of two), how many rows
+     * the sketch has, and how many of the keys with the most actions are tracked
+     */
+    public KeyedActionsPerTimeFrameCounter(long timeFrameInNanoSeconds, int width, int depth,
+            int numberOfHeavyHitters) {
+        this(timeFrameInNanoSeconds, width, depth, numberOfHeavyHitters, SystemNanoClock.getInstance());
+    }
+
+    /**
+     * Creates a KeyedActionsPerTimeFrameCounter with specified time frame on how long to calculate each new actions per
+     * time frame value, how many counters are in each row of the sketch (rounded up to a power of two), how many rows
+     * the sketch has, how many of the keys with the most actions are tracked, and a clock used to tell which time frame
+     * actions are added in
+     */
+    public KeyedActionsPerTimeFrameCounter(long timeFrameInNanoSeconds, int width, int depth,
+            int numberOfHeavyHitters, NanoClock clock) {
+        if (timeFrameInNanoSeconds <= 0) {
+            throw new IllegalArgumentException(
+                    "Time frame has to be greater than zero (you passed " + timeFrameInNanoSeconds + ")");
+        }
+        if (width <= 0 || width > 1 << 30) {
+            throw new IllegalArgumentException("Width has to be from 1 to 2^30 (you passed " + width + ")");
+        }
+        if (depth <= 0 || depth > 16) {
+            throw new IllegalArgumentException("Depth has to be from 1 to 16 (you passed " + depth + ")");
+        }
+        if ((long) Integer.highestOneBit(width * 2 - 1) * depth > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Width times depth is too large (you passed " + width + " and " +
+                    depth + ")");
+        }
+        if (numberOfHeavyHitters < 0) {
+            throw new IllegalArgumentException(
+                    "Number of heavy hitters has to be non negative (you passed " + numberOfHeavyHitters + ")");
+        }
+        this.timeFrameInNanoSeconds = timeFrameInNanoSeconds;
+        this.clock = Objects.requireNonNull(clock, "clock cannot be null");
+        this.width = Integer.highestOneBit(width * 2 - 1);
+        this.depth = depth;
+        currentSketch = new long[this.width * depth];
+        lastSketch = new long[this.width * depth];
+        currentHeavyHitters = new Object[numberOfHeavyHitters];
+        currentHeavyHitterHashes = new int[numberOfHeavyHitters];
+        currentHeavyHitterCounts = new long[numberOfHeavyHitters];
+        lastHeavyHitters = new Object[numberOfHeavyHitters];
+        lastHeavyHitterHashes = new int[numberOfHeavyHitters];
+        lastHeavyHitterCounts = new long[numberOfHeavyHitters];
+    }
+
+    /**
+     * Adds a number of actions for a key to the time frame that the current time of the counter's clock falls in
+     * (System.NanoTime unless another clock was given).
+     *
+     * @param key
+     *         Key the actions were done for
+     * @param numberOfActions
+     *         Number of actions done
+     */
+    public void addActions(K key, int numberOfActions) {
+        Objects.requireNonNull(key, "key cannot be null");
+        if (numberOfActions < 0) {
+            throw new IllegalArgumentException(
+                    "Number of actions has to be non negative (you passed " + numberOfActions + ")");
+        }
+        moveToCurrentTimeFrame();
+        int keyHash = key.hashCode();
+        long count = addToSketch(keyHash, numberOfActions);
+        actionCountInCurrentTimeFrame += numberOfActions;
+        updateHeavyHitters(key, keyHash, count);
+    }
+
+    /**
+     * Conservative update, each of the key's counters is only raised as far as the key's new count (the lowest of its
+     * counters plus the actions), as raising them further would only overcount other keys sharing the counters
+     *
+     * @return The key's new count
+     */
+    private long addToSketch(int keyHash, int numberOfActions) {
+        long hash = spreadHash(keyHash);
+        int firstIndex = (int) hash;
+        int step = (int) (hash >>> 32) | 1;
+        long count = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            count = Math.min(count, currentSketch[indexInRow(row, firstIndex, step)]);
+        }
+        count += numberOfActions;
+        for (int row = 0; row < depth; row++) {
+            int index = indexInRow(row, firstIndex, step);
+            if (currentSketch[index] < count) {
+                currentSketch[index] = count;
+            }
+        }
+        return count;
+    }
+
+    private static long spreadHash(int keyHash) {
+        // Murmur3's 64 bit finalizer, so keys with hash codes that only differ in a few bits land on unrelated counters
+        long hash = keyHash * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * Each row uses a different hash of the key, made from two halves of one hash (double hashing)
+     */
+    private int indexInRow(int row, int firstIndex, int step) {
+        return row * width + ((firstIndex + row * step) & (width - 1));
+    }
+
+    private void updateHeavyHitters(K key, int keyHash, long count) {
+        int capacity = currentHeavyHitters.length;
+        if (capacity == 0) {
+            return;
+        }
+        for (int i = 0; i < numberOfCurrentHeavyHitters; i++) {
+            if (currentHeavyHitterHashes[i] == keyHash && key.equals(currentHeavyHitters[i])) {
+                currentHeavyHitterCounts[i] = count;
+                if (i == indexOfLowestCurrentHeavyHitter) {
+                    findLowestCurrentHeavyHitter();
+                }
+                return;
+            }
+        }
+        int index;
+        if (numberOfCurrentHeavyHitters < capacity) {
+            index = numberOfCurrentHeavyHitters++;
+        } else if (count > currentHeavyHitterCounts[indexOfLowestCurrentHeavyHitter]) {
+            index = indexOfLowestCurrentHeavyHitter;
+        } else {
+            return;
+        }
+        currentHeavyHitters[index] = key;
+        currentHeavyHitterHashes[index] = keyHash;
+        currentHeavyHitterCounts[index] = count;
+        findLowestCurrentHeavyHitter();
+    }
+
+    private void findLowestCurrentHeavyHitter() {
+        int lowestIndex = 0;
+        for (int i = 1; i < numberOfCurrentHeavyHitters; i++) {
+            if (currentHeavyHitterCounts[i] < currentHeavyHitterCounts[lowestIndex]) {
+                lowestIndex = i;
+            }
+        }
+        indexOfLowestCurrentHeavyHitter = lowestIndex;
+    }
+
+    private void moveToCurrentTimeFrame() {
+        long currentTime = clock.nanoTime();
+        if (systemNanoTimeAtStartOfCounting == notKeepingTrackOfTimeYet) {
+            systemNanoTimeAtStartOfCounting = currentTime;
+        }
+        // Math.max for the same reason as ActionsPerTimeFrameCounter, System.nanoTime could appear to go backwards
+        long timeFrameIndex = Math.max(0, currentTime - systemNanoTimeAtStartOfCounting) / timeFrameInNanoSeconds;
+        if (timeFrameIndex <= currentTimeFrameIndex) {
+            return;
+        }
+        if (timeFrameIndex == currentTimeFrameIndex + 1) {
+            // The current time frame becomes the last, swapping the arrays rather than copying them
+            long[] sketch = lastSketch;
+            lastSketch = currentSketch;
+            currentSketch = sketch;
+            actionCountInLastTimeFrame = actionCountInCurrentTimeFrame;
+            Object[] heavyHitters = lastHeavyHitters;
+            lastHeavyHitters = currentHeavyHitters;
+            currentHeavyHitters = heavyHitters;
+            int[] heavyHitterHashes = lastHeavyHitterHashes;
+            lastHeavyHitterHashes = currentHeavyHitterHashes;
+            currentHeavyHitterHashes = heavyHitterHashes;
+            long[] heavyHitterCounts = lastHeavyHitterCounts;
+            lastHeavyHitterCounts = currentHeavyHitterCounts;
+            currentHeavyHitterCounts = heavyHitterCounts;
+            numberOfLastHeavyHitters = numberOfCurrentHeavyHitters;
+        } else {
+            // A whole time frame passed with no actions at all
+            Arrays.fill(lastSketch, 0);
+            Arrays.fill(lastHeavyHitters, null);
+            actionCountInLastTimeFrame = 0;
+            numberOfLastHeavyHitters = 0;
+        }
+        Arrays.fill(currentSketch, 0);
+        // Cleared so keys of old time frames can be garbage collected
+        Arrays.fill(currentHeavyHitters, null);
+        actionCountInCurrentTimeFrame = 0;
+        numberOfCurrentHeavyHitters = 0;
+        indexOfLowestCurrentHeavyHitter = 0;
+        currentTimeFrameIndex = timeFrameIndex;
+    }
+
+    /**
+     * @return The estimated number of actions a key had in the last fully counted time frame, never less than the real
+     * number
+     */
+    public long getActionCountPerTimeFrame(K key) {
+        Objects.requireNonNull(key, "key cannot be null");
+        moveToCurrentTimeFrame();
+        long hash = spreadHash(key.hashCode());
+        int firstIndex = (int) hash;
+        int step = (int) (hash >>> 32) | 1;
+        long count = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            count = Math.min(count, lastSketch[indexInRow(row, firstIndex, step)]);
+        }
+        return count;
+    }
+
+    /**
+     * @return The number of actions of all keys in the last fully counted time frame
+     */
+    public long getTotalActionCountPerTimeFrame() {
+        moveToCurrentTimeFrame();
+        return actionCountInLastTimeFrame;
+    }
+
+    /**
+     * @return The keys with the most actions in the last fully counted time frame along with their estimated action
+     * counts, highest count first
+     */
+    @SuppressWarnings("unchecked")
+    public Map<K, Long> getHeavyHittersPerTimeFrame() {
+        moveToCurrentTimeFrame();
+        List<Integer> indexes = new ArrayList<>(numberOfLastHeavyHitters);
+        for (int i = 0; i < numberOfLastHeavyHitters; i++) {
+            indexes.add(i);
+        }
+        indexes.sort((first, second) -> Long.compare(lastHeavyHitterCounts[second], lastHeavyHitterCounts[first]));
+        Map<K, Long> heavyHitters = new LinkedHashMap<>();
+        for (int index : indexes) {
+            heavyHitters.put((K) lastHeavyHitters[index], lastHeavyHitterCounts[index]);
+        }
+        return heavyHitters;
+    }
+
+    public long getTimeFrameInNanoSeconds() {
+        return timeFrameInNanoSeconds;
+    }
+}
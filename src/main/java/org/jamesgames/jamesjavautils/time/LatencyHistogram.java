@@ -0,0 +1,309 @@
+package org.jamesgames.jamesjavautils.time;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyHistogram records how long actions took, and can answer questions about the distribution of those times
+ * such as the median, the 99th percentile or the max. Where {@link org.jamesgames.jamesjavautils.time.ActionsPerTimeFrameCounter}
+ * counts how many actions happened, LatencyHistogram counts how long each one took.
+ * <p>
+ * Times are counted in buckets that grow logarithmically (in the style of an HDR histogram): every power of two range of
+ * nanoseconds is split into the same number of evenly sized sub buckets, so a recorded time is always known to within
+ * a fixed relative error no matter how big it is. With the default of 7 significant binary digits the error is under 1%.
+ * Times under the number of sub buckets are counted exactly. Times over the highest trackable time are counted in the
+ * last bucket, although the exact max is always kept.
+ * <p>
+ * All counts live in one fixed primitive array, so recording a time never allocates, and each record is a single atomic
+ * increment of its bucket. Any number of threads can record at once, and any thread can read, copy or take an interval
+ * snapshot while others are recording. An interval snapshot moves the counts out of the histogram and leaves it empty,
+ * so a histogram can be used with tumbling intervals like ActionsPerTimeFrameCounter, and histograms from different
+ * threads or intervals can be merged together with {@link #addHistogram(LatencyHistogram)}.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+public class LatencyHistogram {
+
+    private static final int defaultNumberOfSignificantBinaryDigits = 7;
+    private static final long defaultHighestTrackableTimeInNanoSeconds = TimeUnit.HOURS.toNanos(1);
+
+    /**
+     * Holds a value to signal that nothing has been recorded yet for the min
+     */
+    private static final long noTimeRecordedYet = Long.MAX_VALUE;
+
+    private final int numberOfSignificantBinaryDigits;
+    private final int subBucketsPerPowerOfTwo;
+    private final long highestTrackableTimeInNanoSeconds;
+    private final AtomicLongArray bucketCounts;
+    private final AtomicLong minTimeInNanoSeconds = new AtomicLong(noTimeRecordedYet);
+    private final AtomicLong maxTimeInNanoSeconds = new AtomicLong(0);
+
+    /**
+     * Creates a LatencyHistogram that can track times up to an hour with under 1% error
+     */
+    public LatencyHistogram() {
+        this(defaultHighestTrackableTimeInNanoSeconds, defaultNumberOfSignificantBinaryDigits);
+    }
+
+    /**
+     * Creates a LatencyHistogram that can track times up to a highest time, with a number of significant binary
+     * digits kept of each time (the relative error of a recorded time is at most 1 / 2^numberOfSignificantBinaryDigits)
+     */
+    public LatencyHistogram(long highestTrackableTimeInNanoSeconds, int numberOfSignificantBinaryDigits) {
+        if (numberOfSignificantBinaryDigits < 1 || numberOfSignificantBinaryDigits > 16) {
+            throw new IllegalArgumentException("Number of significant binary digits has to be from 1 to 16 " +
+                    "(you passed " + numberOfSignificantBinaryDigits + ")");
+        }
+        if (highestTrackableTimeInNanoSeconds < 1) {
+            throw new IllegalArgumentException("Highest trackable time has to be greater than zero " +
+                    "(you passed " + highestTrackableTimeInNanoSeconds + ")");
+        }
+        this.numberOfSignificantBinaryDigits = numberOfSignificantBinaryDigits;
+        this.subBucketsPerPowerOfTwo = 1 << numberOfSignificantBinaryDigits;
+        this.highestTrackableTimeInNanoSeconds = highestTrackableTimeInNanoSeconds;
+        this.bucketCounts = new AtomicLongArray(bucketIndexFor(highestTrackableTimeInNanoSeconds) + 1);
+    }
+
+    /**
+     * Records that an action took some amount of time
+     *
+     * @param timeInMilliseconds
+     *         Amount of time the action took
+     */
+    public void recordTimeInMilliseconds(long timeInMilliseconds) {
+        recordTimeInNanoseconds(TimeUnit.MILLISECONDS.toNanos(timeInMilliseconds));
+    }
+
+    /**
+     * Records that an action took some amount of time
+     *
+     * @param timeInNanoSeconds
+     *         Amount of time the action took
+     */
+    public void recordTimeInNanoseconds(long timeInNanoSeconds) {
+        recordTimesInNanoseconds(timeInNanoSeconds, 1);
+    }
+
+    /**
+     * Records that a number of actions each took some amount of time
+     *
+     * @param timeInNanoSeconds
+     *         Amount of time each action took
+     * @param numberOfActions
+     *         Number of actions that took that amount of time
+     */
+    public void recordTimesInNanoseconds(long timeInNanoSeconds, long numberOfActions) {
+        if (timeInNanoSeconds < 0) {
+            throw new IllegalArgumentException(
+                    "Time has to be non negative (you passed " + timeInNanoSeconds + ")");
+        }
+        if (numberOfActions < 0) {
+            throw new IllegalArgumentException(
+                    "Number of actions has to be non negative (you passed " + numberOfActions + ")");
+        }
+        int bucketIndex = bucketIndexFor(Math.min(timeInNanoSeconds, highestTrackableTimeInNanoSeconds));
+        bucketCounts.getAndAdd(bucketIndex, numberOfActions);
+        updateMin(timeInNanoSeconds);
+        updateMax(timeInNanoSeconds);
+    }
+
+    private void updateMin(long timeInNanoSeconds) {
+        long currentMin;
+        while (timeInNanoSeconds < (currentMin = minTimeInNanoSeconds.get())) {
+            if (minTimeInNanoSeconds.compareAndSet(currentMin, timeInNanoSeconds)) {
+                return;
+            }
+        }
+    }
+
+    private void updateMax(long timeInNanoSeconds) {
+        long currentMax;
+        while (timeInNanoSeconds > (currentMax = maxTimeInNanoSeconds.get())) {
+            if (maxTimeInNanoSeconds.compareAndSet(currentMax, timeInNanoSeconds)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Times under the number of sub buckets get a bucket each. Larger times are shifted right until only the
+     * significant binary digits are left, and each shift moves the time to the next power of two range of buckets.
+     */
+    private int bucketIndexFor(long timeInNanoSeconds) {
+        int highestBit = 63 - Long.numberOfLeadingZeros(timeInNanoSeconds);
+        int shift = Math.max(0, highestBit - numberOfSignificantBinaryDigits);
+        return shift * subBucketsPerPowerOfTwo + (int) (timeInNanoSeconds >>> shift);
+    }
+
+    private int shiftForBucketIndex(int bucketIndex) {
+        return Math.max(0, bucketIndex / subBucketsPerPowerOfTwo - 1);
+    }
+
+    private long lowestTimeInBucket(int bucketIndex) {
+        int shift = shiftForBucketIndex(bucketIndex);
+        return (long) (bucketIndex - shift * subBucketsPerPowerOfTwo) << shift;
+    }
+
+    private long highestTimeInBucket(int bucketIndex) {
+        return lowestTimeInBucket(bucketIndex) + (1L << shiftForBucketIndex(bucketIndex)) - 1;
+    }
+
+    /**
+     * @return The number of recorded times
+     */
+    public long getTotalCount() {
+        long totalCount = 0;
+        for (int i = 0; i < bucketCounts.length(); i++) {
+            totalCount += bucketCounts.get(i);
+        }
+        return totalCount;
+    }
+
+    /**
+     * @return The highest recorded time, or 0 if nothing has been recorded
+     */
+    public long getMaxTimeInNanoSeconds() {
+        return maxTimeInNanoSeconds.get();
+    }
+
+    /**
+     * @return The lowest recorded time, or 0 if nothing has been recorded
+     */
+    public long getMinTimeInNanoSeconds() {
+        long min = minTimeInNanoSeconds.get();
+        return min == noTimeRecordedYet ? 0 : min;
+    }
+
+    /**
+     * @return The mean of the recorded times (each time being the middle of the bucket it was counted in), or 0 if
+     * nothing has been recorded
+     */
+    public double getMeanTimeInNanoSeconds() {
+        long totalCount = 0;
+        double totalTime = 0;
+        for (int i = 0; i < bucketCounts.length(); i++) {
+            long count = bucketCounts.get(i);
+            if (count != 0) {
+                totalCount += count;
+                totalTime += count * ((lowestTimeInBucket(i) + highestTimeInBucket(i)) / 2.0);
+            }
+        }
+        return totalCount == 0 ? 0 : totalTime / totalCount;
+    }
+
+    /**
+     * Gets the time that a percentage of the recorded times are at or below, such as 50 for the median or 99.9 for the
+     * 99.9th percentile. The time returned is the highest time of the bucket the percentile falls in, but never more
+     * than the max recorded time.
+     *
+     * @param percentile
+     *         Percentile from 0 to 100
+     * @return The time at the percentile, or 0 if nothing has been recorded
+     */
+    public long getTimeAtPercentileInNanoSeconds(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile has to be from 0 to 100 (you passed " + percentile + ")");
+        }
+        long totalCount = getTotalCount();
+        if (totalCount == 0) {
+            return 0;
+        }
+        long countAtPercentile = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long countSoFar = 0;
+        for (int i = 0; i < bucketCounts.length(); i++) {
+            countSoFar += bucketCounts.get(i);
+            if (countSoFar >= countAtPercentile) {
+                // The last bucket also holds every time over the highest trackable time, so only the max describes it
+                return i == bucketCounts.length() - 1 ? getMaxTimeInNanoSeconds() :
+                        Math.min(highestTimeInBucket(i), getMaxTimeInNanoSeconds());
+            }
+        }
+        // Times were recorded while counting, the percentile falls in the max bucket
+        return getMaxTimeInNanoSeconds();
+    }
+
+    /**
+     * Adds all the counts of another histogram to this one, both histograms have to have been created with the same
+     * highest trackable time and significant binary digits
+     */
+    public void addHistogram(LatencyHistogram other) {
+        checkSameBuckets(other);
+        for (int i = 0; i < bucketCounts.length(); i++) {
+            long count = other.bucketCounts.get(i);
+            if (count != 0) {
+                bucketCounts.getAndAdd(i, count);
+            }
+        }
+        if (other.minTimeInNanoSeconds.get() != noTimeRecordedYet) {
+            updateMin(other.minTimeInNanoSeconds.get());
+        }
+        updateMax(other.maxTimeInNanoSeconds.get());
+    }
+
+    /**
+     * Moves everything recorded since the last interval snapshot (or since creation) into another histogram, leaving
+     * this histogram empty for the next interval. No recorded time is lost or counted twice even if other threads are
+     * recording at the same time, although a time recorded during the snapshot may be in either interval.
+     *
+     * @param intervalHistogram
+     *         Histogram to add the counts of the interval to, usually an empty histogram that is reused each interval,
+     *         and has to have been created with the same highest trackable time and significant binary digits
+     */
+    public void moveIntervalInto(LatencyHistogram intervalHistogram) {
+        checkSameBuckets(intervalHistogram);
+        long min = minTimeInNanoSeconds.getAndSet(noTimeRecordedYet);
+        long max = maxTimeInNanoSeconds.getAndSet(0);
+        for (int i = 0; i < bucketCounts.length(); i++) {
+            if (bucketCounts.get(i) != 0) {
+                intervalHistogram.bucketCounts.getAndAdd(i, bucketCounts.getAndSet(i, 0));
+            }
+        }
+        if (min != noTimeRecordedYet) {
+            intervalHistogram.updateMin(min);
+        }
+        intervalHistogram.updateMax(max);
+    }
+
+    /**
+     * Removes everything recorded
+     */
+    public void reset() {
+        for (int i = 0; i < bucketCounts.length(); i++) {
+            bucketCounts.set(i, 0);
+        }
+        minTimeInNanoSeconds.set(noTimeRecordedYet);
+        maxTimeInNanoSeconds.set(0);
+    }
+
+    /**
+     * @return A new histogram with the same buckets as this one, and a copy of everything recorded so far
+     */
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = createEmptyCopy();
+        copy.addHistogram(this);
+        return copy;
+    }
+
+    /**
+     * @return A new empty histogram with the same buckets as this one
+     */
+    public LatencyHistogram createEmptyCopy() {
+        return new LatencyHistogram(highestTrackableTimeInNanoSeconds, numberOfSignificantBinaryDigits);
+    }
+
+    private void checkSameBuckets(LatencyHistogram other) {
+        if (other.numberOfSignificantBinaryDigits != numberOfSignificantBinaryDigits ||
+                other.highestTrackableTimeInNanoSeconds != highestTrackableTimeInNanoSeconds) {
+            throw new IllegalArgumentException("Histograms have different buckets, (highest trackable time: " +
+                    highestTrackableTimeInNanoSeconds + ", significant binary digits: " +
+                    numberOfSignificantBinaryDigits + ") vs (highest trackable time: " +
+                    other.highestTrackableTimeInNanoSeconds + ", significant binary digits: " +
+                    other.numberOfSignificantBinaryDigits + ")");
+        }
+    }
+}
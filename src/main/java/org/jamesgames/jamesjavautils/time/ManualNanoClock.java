@@ -0,0 +1,49 @@
+package org.jamesgames.jamesjavautils.time;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * ManualNanoClock is a {@link org.jamesgames.jamesjavautils.time.NanoClock} whose time only changes when it is advanced,
+ * which makes anything that reads the time from it deterministic, such as in tests or when replaying a simulation.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+public class ManualNanoClock implements NanoClock {
+
+    private volatile long currentTimeInNanoSeconds;
+
+    /**
+     * Creates a ManualNanoClock starting at a time of zero
+     */
+    public ManualNanoClock() {
+        this(0);
+    }
+
+    public ManualNanoClock(long startTimeInNanoSeconds) {
+        this.currentTimeInNanoSeconds = startTimeInNanoSeconds;
+    }
+
+    @Override
+    public long nanoTime() {
+        return currentTimeInNanoSeconds;
+    }
+
+    public synchronized void advanceInNanoSeconds(long elapsedTimeInNanoSeconds) {
+        if (elapsedTimeInNanoSeconds < 0) {
+            throw new IllegalArgumentException("elapsed time cannot be less than zero");
+        }
+        currentTimeInNanoSeconds += elapsedTimeInNanoSeconds;
+    }
+
+    public void advanceInMilliseconds(long elapsedTimeInMilliseconds) {
+        advanceInNanoSeconds(ElapsedTimeTimer.millisecondsToNanoSeconds(elapsedTimeInMilliseconds));
+    }
+
+    /**
+     * Sets the time of the clock, unlike advancing the clock this allows the time to go backwards
+     */
+    public synchronized void setNanoTime(long timeInNanoSeconds) {
+        currentTimeInNanoSeconds = timeInNanoSeconds;
+    }
+}
@@ -0,0 +1,76 @@
+package org.jamesgames.jamesjavautils.time;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanNotificationInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ReflectionException;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+/**
+ * MetricMBean exposes the values of a metric in a {@link org.jamesgames.jamesjavautils.time.MetricsRegistry} as read
+ * only JMX attributes of type double, each attribute read straight from the metric when asked for.
+ *
+ * @author James Murphy
+ */
+class MetricMBean implements DynamicMBean {
+
+    private final Map<String, DoubleSupplier> values;
+    private final MBeanInfo info;
+
+    MetricMBean(String name, MetricSnapshot.MetricType type, Map<String, DoubleSupplier> values) {
+        this.values = values;
+        MBeanAttributeInfo[] attributes = values.keySet().stream()
+                .map(valueName -> new MBeanAttributeInfo(valueName, "double", valueName + " of " + name, true, false,
+                        false))
+                .toArray(MBeanAttributeInfo[]::new);
+        this.info = new MBeanInfo(MetricMBean.class.getName(), type + " " + name, attributes, null,
+                new MBeanOperationInfo[0], new MBeanNotificationInfo[0]);
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        DoubleSupplier value = values.get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException("No attribute named " + attribute);
+        }
+        return value.getAsDouble();
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metric attributes are read only (" + attribute.getName() + ")");
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList attributeList = new AttributeList();
+        for (String attribute : attributes) {
+            DoubleSupplier value = values.get(attribute);
+            if (value != null) {
+                attributeList.add(new Attribute(attribute, value.getAsDouble()));
+            }
+        }
+        return attributeList;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName), "Metrics have no operations");
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        return info;
+    }
+}
@@ -0,0 +1,65 @@
+package org.jamesgames.jamesjavautils.time;
+
+import net.jcip.annotations.Immutable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * MetricSnapshot holds the values of a metric in a {@link org.jamesgames.jamesjavautils.time.MetricsRegistry} at the
+ * time the snapshot was taken, such as the rates of a meter or the percentiles of a histogram, each value named the
+ * same as the metric's JMX attribute.
+ *
+ * @author James Murphy
+ */
+@Immutable
+public class MetricSnapshot {
+
+    /**
+     * The kinds of metrics a MetricsRegistry can hold
+     */
+    public static enum MetricType {counter, meter, histogram, timer, gauge}
+
+    private final String name;
+    private final MetricType type;
+    private final Map<String, Double> values;
+
+    MetricSnapshot(String name, MetricType type, Map<String, Double> values) {
+        this.name = Objects.requireNonNull(name, "name cannot be null");
+        this.type = Objects.requireNonNull(type, "type cannot be null");
+        this.values = Collections.unmodifiableMap(new LinkedHashMap<>(values));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public MetricType getType() {
+        return type;
+    }
+
+    /**
+     * @return The values of the metric by name, in the order the metric defines them
+     */
+    public Map<String, Double> getValues() {
+        return values;
+    }
+
+    /**
+     * @return The value with a name
+     */
+    public double getValue(String valueName) {
+        Double value = values.get(valueName);
+        if (value == null) {
+            throw new IllegalArgumentException("Metric " + name + " has no value named " + valueName);
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + type + ") " + values;
+    }
+}
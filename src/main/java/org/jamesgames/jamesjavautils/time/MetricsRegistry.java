@@ -0,0 +1,271 @@
+package org.jamesgames.jamesjavautils.time;
+
+import net.jcip.annotations.ThreadSafe;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * MetricsRegistry keeps track of named counters, meters, histograms and timers so they can be looked at while an
+ * application runs, either by pulling {@link org.jamesgames.jamesjavautils.time.MetricSnapshot}s from the registry or
+ * through JMX once the registry is exported to an MBean server (each metric becoming an MBean with a read only double
+ * attribute per value, under the object name "domain:type=metricType,name=metricName").
+ * <p>
+ * Registering a metric doesn't change it in any way, the registry only reads a metric's values when a snapshot is
+ * taken or a JMX attribute is read, so threads adding actions or recording times are never blocked or slowed down by
+ * the registry. The thread safe metrics (such as {@link org.jamesgames.jamesjavautils.time.ConcurrentActionsPerTimeFrameCounter}
+ * and {@link org.jamesgames.jamesjavautils.time.LatencyHistogram}) can be read at any time. Metrics that are not thread
+ * safe (such as {@link org.jamesgames.jamesjavautils.time.ActionsPerTimeFrameCounter} and {@link
+ * org.jamesgames.jamesjavautils.time.ElapsedTimeTimer}) are read without any synchronization as well, so values read
+ * from a thread other than the one updating the metric may be somewhat out of date.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+public class MetricsRegistry {
+
+    private static final double[] exportedPercentiles = {50, 90, 99, 99.9};
+
+    private final Map<String, RegisteredMetric> metrics = new ConcurrentHashMap<>();
+
+    // Guarded by this, only registering, unregistering and exporting change these
+    private MBeanServer mBeanServer;
+    private String exportedDomain;
+
+    public void registerCounter(String name, ActionsPerTimeFrameCounter counter) {
+        Objects.requireNonNull(counter, "counter cannot be null");
+        Map<String, DoubleSupplier> values = new LinkedHashMap<>();
+        values.put("actionCountPerTimeFrame", counter::getActionCountPerTimeFrame);
+        register(name, MetricSnapshot.MetricType.counter, values);
+    }
+
+    public void registerCounter(String name, ConcurrentActionsPerTimeFrameCounter counter) {
+        Objects.requireNonNull(counter, "counter cannot be null");
+        Map<String, DoubleSupplier> values = new LinkedHashMap<>();
+        values.put("actionCountPerTimeFrame", counter::getActionCountPerTimeFrame);
+        register(name, MetricSnapshot.MetricType.counter, values);
+    }
+
+    public void registerCounter(String name, SlidingWindowActionsCounter counter) {
+        Objects.requireNonNull(counter, "counter cannot be null");
+        Map<String, DoubleSupplier> values = new LinkedHashMap<>();
+        values.put("actionCountInWindow", counter::getActionCountInWindow);
+        register(name, MetricSnapshot.MetricType.counter, values);
+    }
+
+    public void registerMeter(String name, ActionsRateMeter meter) {
+        Objects.requireNonNull(meter, "meter cannot be null");
+        Map<String, DoubleSupplier> values = new LinkedHashMap<>();
+        values.put("oneIntervalRate", meter::getOneIntervalRate);
+        values.put("fiveIntervalRate", meter::getFiveIntervalRate);
+        values.put("fifteenIntervalRate", meter::getFifteenIntervalRate);
+        values.put("meanRate", meter::getMeanRate);
+        register(name, MetricSnapshot.MetricType.meter, values);
+    }
+
+    public void registerMeter(String name, ConcurrentActionsRateMeter meter) {
+        Objects.requireNonNull(meter, "meter cannot be null");
+        Map<String, DoubleSupplier> values = new LinkedHashMap<>();
+        values.put("oneIntervalRate", meter::getOneIntervalRate);
+        values.put("fiveIntervalRate", meter::getFiveIntervalRate);
+        values.put("fifteenIntervalRate", meter::getFifteenIntervalRate);
+        values.put("meanRate", meter::getMeanRate);
+        register(name, MetricSnapshot.MetricType.meter, values);
+    }
+
+    public void registerHistogram(String name, LatencyHistogram histogram) {
+        Objects.requireNonNull(histogram, "histogram cannot be null");
+        Map<String, DoubleSupplier> values = new LinkedHashMap<>();
+        values.put("totalCount", histogram::getTotalCount);
+        values.put("minTimeInNanoSeconds", histogram::getMinTimeInNanoSeconds);
+        values.put("meanTimeInNanoSeconds", histogram::getMeanTimeInNanoSeconds);
+        values.put("maxTimeInNanoSeconds", histogram::getMaxTimeInNanoSeconds);
+        for (double percentile : exportedPercentiles) {
+            String percentileName = percentile == Math.rint(percentile) ?
+                    Long.toString((long) percentile) : Double.toString(percentile).replace('.', '_');
+            values.put("timeAtPercentile" + percentileName + "InNanoSeconds",
+                    () -> histogram.getTimeAtPercentileInNanoSeconds(percentile));
+        }
+        register(name, MetricSnapshot.MetricType.histogram, values);
+    }
+
+    public void registerTimer(String name, ElapsedTimeTimer timer) {
+        Objects.requireNonNull(timer, "timer cannot be null");
+        Map<String, DoubleSupplier> values = new LinkedHashMap<>();
+        values.put("totalElapsedTimeInNanoSeconds", timer::getTotalElapsedTimeInNanoSeconds);
+        values.put("targetTimeInNanoSeconds", timer::getTargetTimeInNanoSeconds);
+        values.put("timerFinished", () -> timer.isTimerFinished() ? 1 : 0);
+        register(name, MetricSnapshot.MetricType.timer, values);
+    }
+
+    /**
+     * Registers a single value read from a supplier whenever the metric is read, such as the size of a queue
+     */
+    public void registerGauge(String name, DoubleSupplier gauge) {
+        Objects.requireNonNull(gauge, "gauge cannot be null");
+        Map<String, DoubleSupplier> values = new LinkedHashMap<>();
+        values.put("value", gauge);
+        register(name, MetricSnapshot.MetricType.gauge, values);
+    }
+
+    private synchronized void register(String name, MetricSnapshot.MetricType type,
+            Map<String, DoubleSupplier> values) {
+        Objects.requireNonNull(name, "name cannot be null");
+        if (metrics.containsKey(name)) {
+            throw new IllegalArgumentException("A metric is already registered with the name " + name);
+        }
+        RegisteredMetric metric = new RegisteredMetric(name, type, Collections.unmodifiableMap(values));
+        if (mBeanServer != null) {
+            exportMetric(metric);
+        }
+        metrics.put(name, metric);
+    }
+
+    /**
+     * Removes a metric from the registry, and from the MBean server if the registry is exported
+     */
+    public synchronized void unregister(String name) {
+        RegisteredMetric metric = metrics.remove(name);
+        if (metric == null) {
+            throw new IllegalArgumentException("No metric is registered with the name " + name);
+        }
+        if (mBeanServer != null) {
+            unexportMetric(metric);
+        }
+    }
+
+    public boolean isRegistered(String name) {
+        return metrics.containsKey(name);
+    }
+
+    /**
+     * @return Snapshots of every registered metric, sorted by name
+     */
+    public List<MetricSnapshot> snapshot() {
+        List<MetricSnapshot> snapshots = new ArrayList<>(metrics.size());
+        for (RegisteredMetric metric : metrics.values()) {
+            snapshots.add(metric.snapshot());
+        }
+        snapshots.sort(Comparator.comparing(MetricSnapshot::getName));
+        return snapshots;
+    }
+
+    /**
+     * @return Snapshot of the metric registered with a name
+     */
+    public MetricSnapshot snapshot(String name) {
+        RegisteredMetric metric = metrics.get(name);
+        if (metric == null) {
+            throw new IllegalArgumentException("No metric is registered with the name " + name);
+        }
+        return metric.snapshot();
+    }
+
+    /**
+     * Exports every registered metric, and every metric registered later, to the platform MBean server
+     */
+    public void exportToPlatformMBeanServer(String domain) {
+        exportToMBeanServer(ManagementFactory.getPlatformMBeanServer(), domain);
+    }
+
+    /**
+     * Exports every registered metric, and every metric registered later, to an MBean server under a domain
+     */
+    public synchronized void exportToMBeanServer(MBeanServer mBeanServer, String domain) {
+        Objects.requireNonNull(mBeanServer, "mBeanServer cannot be null");
+        Objects.requireNonNull(domain, "domain cannot be null");
+        if (this.mBeanServer != null) {
+            throw new IllegalStateException("Metrics are already exported to the domain " + exportedDomain);
+        }
+        this.mBeanServer = mBeanServer;
+        this.exportedDomain = domain;
+        for (RegisteredMetric metric : metrics.values()) {
+            exportMetric(metric);
+        }
+    }
+
+    /**
+     * Removes every registered metric from the MBean server the registry was exported to
+     */
+    public synchronized void stopExporting() {
+        if (mBeanServer == null) {
+            return;
+        }
+        for (RegisteredMetric metric : metrics.values()) {
+            unexportMetric(metric);
+        }
+        mBeanServer = null;
+        exportedDomain = null;
+    }
+
+    /**
+     * @return Name the metric has (or would have) in the MBean server the registry is exported to
+     */
+    public synchronized ObjectName getObjectName(String name) {
+        RegisteredMetric metric = metrics.get(name);
+        if (metric == null) {
+            throw new IllegalArgumentException("No metric is registered with the name " + name);
+        }
+        if (exportedDomain == null) {
+            throw new IllegalStateException("Metrics are not exported");
+        }
+        return objectNameFor(metric);
+    }
+
+    private ObjectName objectNameFor(RegisteredMetric metric) {
+        try {
+            return new ObjectName(exportedDomain + ":type=" + metric.type + ",name=" + ObjectName.quote(metric.name));
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException("Domain " + exportedDomain + " is not a valid JMX domain", e);
+        }
+    }
+
+    private void exportMetric(RegisteredMetric metric) {
+        try {
+            mBeanServer.registerMBean(new MetricMBean(metric.name, metric.type, metric.values), objectNameFor(metric));
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not export metric " + metric.name, e);
+        }
+    }
+
+    private void unexportMetric(RegisteredMetric metric) {
+        try {
+            mBeanServer.unregisterMBean(objectNameFor(metric));
+        } catch (InstanceNotFoundException e) {
+            // Someone else already removed it, nothing left to do
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not stop exporting metric " + metric.name, e);
+        }
+    }
+
+    private static class RegisteredMetric {
+        private final String name;
+        private final MetricSnapshot.MetricType type;
+        private final Map<String, DoubleSupplier> values;
+
+        private RegisteredMetric(String name, MetricSnapshot.MetricType type, Map<String, DoubleSupplier> values) {
+            this.name = name;
+            this.type = type;
+            this.values = values;
+        }
+
+        private MetricSnapshot snapshot() {
+            Map<String, Double> snapshotValues = new LinkedHashMap<>();
+            values.forEach((valueName, value) -> snapshotValues.put(valueName, value.getAsDouble()));
+            return new MetricSnapshot(name, type, snapshotValues);
+        }
+    }
+}
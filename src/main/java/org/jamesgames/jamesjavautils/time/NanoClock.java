@@ -0,0 +1,19 @@
+package org.jamesgames.jamesjavautils.time;
+
+/**
+ * NanoClock is a source of nanosecond time in the style of System.nanoTime, the value only has meaning when compared
+ * with another value from the same clock. Classes in the time package that read the current time take a NanoClock so
+ * the time can come from the system ({@link org.jamesgames.jamesjavautils.time.SystemNanoClock}), from a clock that is
+ * advanced manually such as in tests ({@link org.jamesgames.jamesjavautils.time.ManualNanoClock}), or from a clock that
+ * is cheaper to read than the system clock ({@link org.jamesgames.jamesjavautils.time.CoarseNanoClock}).
+ *
+ * @author James Murphy
+ */
+@FunctionalInterface
+public interface NanoClock {
+
+    /**
+     * @return The current time of the clock in nanoseconds
+     */
+    public long nanoTime();
+}
@@ -2,20 +2,59 @@ package org.jamesgames.jamesjavautils.time;
 
 import org.jamesgames.jamesjavautils.general.ObserverSet;
 
+import java.util.Objects;
+
 /**
  * ObservableElapsedTimeTimer is much like an {@link org.jamesgames.jamesjavautils.time.ElapsedTimeTimer} where it is
  * used to time events based on a target time some amount of milliseconds or nanoseconds in the future. It's slightly
  * different where when the target time has passed it notifies registered observers {@link
  * org.jamesgames.jamesjavautils.time.ElapsedTimeTimerObserver} and resets it's target time (instead of having the
  * client code that uses the timer to do both actions manually).
+ * <p>
+ * If enough time is added at once to pass the target time several times, how the timer catches up is decided by its
+ * {@link org.jamesgames.jamesjavautils.time.ObservableElapsedTimeTimer.CatchUpMode}. By default the timer catches up by
+ * recursively adding the time left over past the target, which uses a stack frame per time the target is passed, so a
+ * large amount of time added to a timer with a small target can overflow the stack. The iterative and batched modes
+ * catch up in a loop (or for specified target times, with a single division) instead. The iterative mode still informs
+ * observers once per pass, so it can be given a maximum number of passes per addition of elapsed time, past which
+ * passes are dropped (and counted) rather than informed.
  *
  * @author James Murphy
  */
 public class ObservableElapsedTimeTimer extends ElapsedTimeTimer {
     private static enum LastTargetTimeSetMethod {random, specified}
 
+    /**
+     * How a timer catches up when the target time is passed several times by one addition of elapsed time.
+     */
+    public static enum CatchUpMode {
+        /**
+         * The time past the target is added back to the timer, recursively passing the target again, one stack frame
+         * per time the target is passed. Observers of later passes are informed before observers of earlier passes.
+         */
+        recursive,
+        /**
+         * The target time is passed one time after another in a loop, observers are informed of each pass in order and
+         * can change the target time before the next pass is checked. At most {@link
+         * #setMaximumIterativePassesPerAddition(long)} passes are informed per addition of elapsed time, the passes
+         * past that are dropped, counted with a single division of the time left by the target time. With no maximum,
+         * the default, a small target passed many times still takes a loop over every pass.
+         */
+        iterative,
+        /**
+         * All the times the target time is passed are counted first and then observers are informed once with {@link
+         * org.jamesgames.jamesjavautils.time.ElapsedTimeTimerObserver#targetTimePassed(ObservableElapsedTimeTimer,
+         * long)}. For a specified target time the count is a single division, for random target times each new target
+         * is picked in a loop.
+         */
+        batched
+    }
+
     private final ObserverSet<ElapsedTimeTimerObserver> observers = new ObserverSet<>();
 
+    private CatchUpMode catchUpMode = CatchUpMode.recursive;
+    private long maximumIterativePassesPerAddition = Long.MAX_VALUE;
+    private long numberOfDroppedPasses;
     private LastTargetTimeSetMethod lastTargetTimeSetMethod;
     private long lastSpecifiedTargetTimeInNanoSeconds;
     private long lastInclusiveRandomTimeInNanoSeconds;
@@ -43,6 +82,16 @@ public class ObservableElapsedTimeTimer extends ElapsedTimeTimer {
         recordRandomTargetTime(inclusiveLowerBoundInNanoseconds, exclusiveUpperBoundInNanoseconds);
     }
 
+    /**
+     * Creates a ObservableElapsedTimeTimer with a target time randomly between two times, picked by a specific
+     * generator every time the timer resets.
+     */
+    public ObservableElapsedTimeTimer(long inclusiveLowerBoundInNanoseconds,
+            long exclusiveUpperBoundInNanoseconds, RandomTimeGenerator randomTargetTimeGenerator) {
+        super(inclusiveLowerBoundInNanoseconds, exclusiveUpperBoundInNanoseconds, randomTargetTimeGenerator);
+        recordRandomTargetTime(inclusiveLowerBoundInNanoseconds, exclusiveUpperBoundInNanoseconds);
+    }
+
     private void recordRandomTargetTime(long inclusiveLowerBoundInNanoseconds,
             long exclusiveUpperBoundInNanoseconds) {
         lastTargetTimeSetMethod = LastTargetTimeSetMethod.random;
@@ -50,6 +99,45 @@ public class ObservableElapsedTimeTimer extends ElapsedTimeTimer {
         lastExclusiveRandomTimeInNanoSeconds = exclusiveUpperBoundInNanoseconds;
     }
 
+    /**
+     * Sets how the timer catches up when the target time is passed several times by one addition of elapsed time
+     */
+    public final void setCatchUpMode(CatchUpMode catchUpMode) {
+        this.catchUpMode = Objects.requireNonNull(catchUpMode, "catchUpMode cannot be null");
+    }
+
+    public final CatchUpMode getCatchUpMode() {
+        return catchUpMode;
+    }
+
+    /**
+     * Sets the most times observers are informed of the target time being passed by one addition of elapsed time in
+     * the iterative catch up mode, by default there is no maximum
+     *
+     * @param maximumIterativePassesPerAddition
+     *         Most passes informed per addition, the passes past it are dropped and counted by {@link
+     *         #getNumberOfDroppedPasses()}
+     */
+    public final void setMaximumIterativePassesPerAddition(long maximumIterativePassesPerAddition) {
+        if (maximumIterativePassesPerAddition < 1) {
+            throw new IllegalArgumentException("Maximum passes per addition has to be at least one (you passed " +
+                    maximumIterativePassesPerAddition + ")");
+        }
+        this.maximumIterativePassesPerAddition = maximumIterativePassesPerAddition;
+    }
+
+    public final long getMaximumIterativePassesPerAddition() {
+        return maximumIterativePassesPerAddition;
+    }
+
+    /**
+     * @return Number of times the target time was passed without observers being informed, as they were over the
+     * maximum number of iterative passes per addition of elapsed time
+     */
+    public final long getNumberOfDroppedPasses() {
+        return numberOfDroppedPasses;
+    }
+
     public final void addElapsedTimeTimerObserver(ElapsedTimeTimerObserver observer) {
         observers.addObserver(observer);
     }
@@ -87,6 +175,20 @@ public class ObservableElapsedTimeTimer extends ElapsedTimeTimer {
 
     @Override
     protected final void onTimerFinished() {
+        switch (catchUpMode) {
+            case recursive:
+                catchUpRecursively();
+                break;
+            case iterative:
+                catchUpIteratively();
+                break;
+            case batched:
+                catchUpInOneBatch();
+                break;
+        }
+    }
+
+    private void catchUpRecursively() {
         // Important that the timer is now set to unfinished before resetting the time elapsed, that way if we pass
         // the target time again during the elapsed time reset then the observers can pick up another target time event
         // occurring.
@@ -99,8 +201,56 @@ public class ObservableElapsedTimeTimer extends ElapsedTimeTimer {
         // observer's target time change to be ignored...)
         resetTimerToLastUsedTargetTimeSettings();
         observers.informObservers(observer -> observer.targetTimePassed(this));
+    }
 
+    private void catchUpIteratively() {
+        // The timer is left unfinished the whole time, the elapsed time is lowered directly rather than being added
+        // back, so passing the target again is picked up by the loop and not by a nested onTimerFinished call.
+        setTimerUnfinished();
+        long passesLeft = maximumIterativePassesPerAddition;
+        do {
+            setTotalElapsedTimeInNanoSeconds(getTotalElapsedTimeInNanoSeconds() - getTargetTimeInNanoSeconds());
+            // Same as the recursive catch up, the target time is reset before observers are informed so they can
+            // change it, and the next pass is checked against whatever target they leave behind
+            resetTimerToLastUsedTargetTimeSettings();
+            observers.informObservers(observer -> observer.targetTimePassed(this));
+            passesLeft--;
+        } while (passesLeft > 0 && hasPassedTargetTimeThatCanBeCaughtUpOn());
+        if (hasPassedTargetTimeThatCanBeCaughtUpOn()) {
+            // Over the maximum, the rest of the passes are dropped in one go against the target observers left behind
+            // (for random targets, as if every dropped pass had picked that same target)
+            long targetTime = getTargetTimeInNanoSeconds();
+            numberOfDroppedPasses += getTotalElapsedTimeInNanoSeconds() / targetTime;
+            setTotalElapsedTimeInNanoSeconds(getTotalElapsedTimeInNanoSeconds() % targetTime);
+        }
+    }
 
+    private void catchUpInOneBatch() {
+        setTimerUnfinished();
+        long numberOfTimesPassed;
+        if (lastTargetTimeSetMethod == LastTargetTimeSetMethod.specified && lastSpecifiedTargetTimeInNanoSeconds > 0) {
+            long elapsedTime = getTotalElapsedTimeInNanoSeconds() - getTargetTimeInNanoSeconds();
+            numberOfTimesPassed = 1 + elapsedTime / lastSpecifiedTargetTimeInNanoSeconds;
+            setTotalElapsedTimeInNanoSeconds(elapsedTime % lastSpecifiedTargetTimeInNanoSeconds);
+            resetTimerToLastUsedTargetTimeSettings();
+        } else {
+            numberOfTimesPassed = 0;
+            do {
+                setTotalElapsedTimeInNanoSeconds(getTotalElapsedTimeInNanoSeconds() - getTargetTimeInNanoSeconds());
+                resetTimerToLastUsedTargetTimeSettings();
+                numberOfTimesPassed++;
+            } while (hasPassedTargetTimeThatCanBeCaughtUpOn());
+        }
+        long finalNumberOfTimesPassed = numberOfTimesPassed;
+        observers.informObservers(observer -> observer.targetTimePassed(this, finalNumberOfTimesPassed));
+    }
+
+    /**
+     * A target time of zero is passed by any amount of elapsed time, so it is only counted as passed once per addition
+     * of elapsed time (the recursive catch up would never stop).
+     */
+    private boolean hasPassedTargetTimeThatCanBeCaughtUpOn() {
+        return getTargetTimeInNanoSeconds() > 0 && getTotalElapsedTimeInNanoSeconds() >= getTargetTimeInNanoSeconds();
     }
 
     private void resetTimerToLastUsedTargetTimeSettings() {
@@ -0,0 +1,147 @@
+package org.jamesgames.jamesjavautils.time;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * RandomTimeGenerator picks random times between an inclusive lower bound and an exclusive upper bound, used for the
+ * random target times of {@link org.jamesgames.jamesjavautils.time.ElapsedTimeTimer}s and {@link
+ * org.jamesgames.jamesjavautils.time.TimerPool}s. Times can be spread over the bounds with one of several {@link
+ * org.jamesgames.jamesjavautils.time.RandomTimeGenerator.Distribution}s, such as an exponential distribution to spread
+ * out many timers that would otherwise re-arm in a burst.
+ * <p>
+ * A RandomTimeGenerator draws from {@link java.util.concurrent.ThreadLocalRandom}, so any number of threads can use it
+ * (and share it) without contending over a single seed like a shared {@link java.util.Random} would. For times that
+ * are the same every run, use a {@link org.jamesgames.jamesjavautils.time.SeededRandomTimeGenerator} instead, which is
+ * meant for a single thread.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+public class RandomTimeGenerator {
+
+    /**
+     * How random times are spread between the lower and upper bound.
+     */
+    public static enum Distribution {
+        /**
+         * Every time between the bounds is as likely
+         */
+        uniform,
+        /**
+         * Times near the lower bound are most likely, thinning out exponentially towards the upper bound with the
+         * bounds covering four mean times
+         */
+        exponential,
+        /**
+         * Times near the middle of the bounds are most likely, normally distributed with the bounds three standard
+         * deviations from the middle, and with times outside of the bounds picked again
+         */
+        truncatedGaussian
+    }
+
+    private static final double numberOfMeanTimesBetweenExponentialBounds = 4;
+    private static final double numberOfStandardDeviationsToGaussianBounds = 3;
+
+    private static final RandomTimeGenerator uniformThreadLocalGenerator =
+            new RandomTimeGenerator(Distribution.uniform);
+
+    private final Distribution distribution;
+
+    /**
+     * Creates a RandomTimeGenerator that uses a distribution and draws from {@link
+     * java.util.concurrent.ThreadLocalRandom}, safe to use from many threads at once
+     */
+    public RandomTimeGenerator(Distribution distribution) {
+        this.distribution = Objects.requireNonNull(distribution, "distribution cannot be null");
+    }
+
+    /**
+     * @return A shared generator of uniformly distributed times drawn from {@link java.util.concurrent.ThreadLocalRandom}
+     */
+    public static RandomTimeGenerator getUniformThreadLocalGenerator() {
+        return uniformThreadLocalGenerator;
+    }
+
+    /**
+     * @return A generator for another timer, pool or thread, which is this same generator since it is already safe to
+     * share
+     */
+    public RandomTimeGenerator split() {
+        return this;
+    }
+
+    public Distribution getDistribution() {
+        return distribution;
+    }
+
+    /**
+     * @return A random time greater than or equal to the lower bound and less than the upper bound
+     */
+    public long nextTimeInNanoSeconds(long inclusiveLowerBound, long exclusiveUpperBound) {
+        if (inclusiveLowerBound < 0) {
+            throw new IllegalArgumentException("inclusive bound must be equal to zero or greater " +
+                    "(inclusive: " + inclusiveLowerBound + ", exclusive: " + exclusiveUpperBound + ")");
+        } else if (exclusiveUpperBound <= inclusiveLowerBound) {
+            throw new IllegalArgumentException("exclusive bound cannot be less than or equal to inclusive bound " +
+                    "(inclusive: " + inclusiveLowerBound + ", exclusive: " + exclusiveUpperBound + ")");
+        }
+        long range = exclusiveUpperBound - inclusiveLowerBound;
+        // Rounding of the double could land on the range itself, which is outside of the exclusive bound
+        return inclusiveLowerBound + Math.min(range - 1, (long) (nextFractionOfRange() * range));
+    }
+
+    /**
+     * @return A uniformly distributed random number between 0 inclusive and 1 exclusive
+     */
+    double nextRandomDouble() {
+        return ThreadLocalRandom.current().nextDouble();
+    }
+
+    /**
+     * @return A random number between 0 inclusive and 1 exclusive, spread by the generator's distribution
+     */
+    private double nextFractionOfRange() {
+        switch (distribution) {
+            case exponential:
+                return nextExponentialFractionOfRange();
+            case truncatedGaussian:
+                return nextTruncatedGaussianFractionOfRange();
+            default:
+                return nextRandomDouble();
+        }
+    }
+
+    private double nextExponentialFractionOfRange() {
+        // Inverse of the exponential distribution's cumulative distribution function, scaled so that the uniform random
+        // number only ever maps inside the range, which truncates the distribution without having to pick again
+        double fractionOfDistributionInRange = 1 - Math.exp(-numberOfMeanTimesBetweenExponentialBounds);
+        double exponential = -Math.log(1 - nextRandomDouble() * fractionOfDistributionInRange);
+        return exponential / numberOfMeanTimesBetweenExponentialBounds;
+    }
+
+    private double nextTruncatedGaussianFractionOfRange() {
+        double fraction;
+        do {
+            fraction = 0.5 + nextGaussian() / (2 * numberOfStandardDeviationsToGaussianBounds);
+        } while (fraction < 0 || fraction >= 1);
+        return fraction;
+    }
+
+    /**
+     * Marsaglia polar method, as SplittableRandom has no nextGaussian
+     */
+    private double nextGaussian() {
+        double x;
+        double y;
+        double squaredLength;
+        do {
+            x = 2 * nextRandomDouble() - 1;
+            y = 2 * nextRandomDouble() - 1;
+            squaredLength = x * x + y * y;
+        } while (squaredLength >= 1 || squaredLength == 0);
+        return x * Math.sqrt(-2 * Math.log(squaredLength) / squaredLength);
+    }
+}
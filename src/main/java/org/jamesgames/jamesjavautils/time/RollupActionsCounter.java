@@ -0,0 +1,259 @@
+package org.jamesgames.jamesjavautils.time;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RollupActionsCounter counts actions at several resolutions of time at once, such as per second, per minute and per
+ * hour, replacing an {@link org.jamesgames.jamesjavautils.time.ActionsPerTimeFrameCounter} per resolution that would
+ * all have to be given every action. Actions are only ever added to the current time frame of the finest level, and
+ * when a time frame of a level completes its count is added once to the current time frame of the next coarser level,
+ * so adding actions is a single write to an array no matter how many levels there are.
+ * <p>
+ * Each level keeps the counts of a number of its past time frames in a ring of longs, and that many time frames of a
+ * level make up one time frame of the next level (so by default 60 seconds, 60 minutes and 24 hours are kept). Memory
+ * is fixed once the counter is created, and when a lot of time passes at once each level only clears as much of its
+ * ring as there are slots, so catching up on time is bounded too.
+ * <p>
+ * Unlike ActionsPerTimeFrameCounter, actions are not split over the time frames that elapsed time crosses; actions are
+ * counted in the time frame that the end of the elapsed time falls in. A time frame completes as soon as its full
+ * length of time has passed.
+ *
+ * @author James Murphy
+ */
+@NotThreadSafe
+public class RollupActionsCounter {
+
+    private static final int numberOfNanoSecondsInMillisecond = 1_000_000;
+    private static final int[] defaultTimeFramesKeptPerLevel = {60, 60, 24};
+
+    /**
+     * Holds a value to signal that the application has not began counting actions yet
+     */
+    private static final long notKeepingTrackOfTimeYet = -1;
+
+    private final NanoClock clock;
+    private final long[] timeFrameInNanoSecondsPerLevel;
+    private final int[] timeFramesKeptPerLevel;
+
+    /**
+     * Action counts of each level's time frames, a time frame's count is at its index modulo the ring's length
+     */
+    private final long[][] actionCountRings;
+    private final long[] currentTimeFrameIndexPerLevel;
+
+    private long totalElapsedTimeInNanoSeconds;
+    private long systemNanoTimeAtLastActionUpdate = notKeepingTrackOfTimeYet;
+
+    /**
+     * Creates a RollupActionsCounter that counts actions per second, per minute and per hour, keeping the last 60
+     * seconds, 60 minutes and 24 hours
+     */
+    public RollupActionsCounter() {
+        this(TimeUnit.SECONDS.toNanos(1), defaultTimeFramesKeptPerLevel);
+    }
+
+    /**
+     * Creates a RollupActionsCounter with a time frame for the finest level and how many time frames each level keeps,
+     * where the time frames kept by one level make up one time frame of the next level
+     */
+    public RollupActionsCounter(long finestTimeFrameInNanoSeconds, int[] timeFramesKeptPerLevel) {
+        this(finestTimeFrameInNanoSeconds, timeFramesKeptPerLevel, SystemNanoClock.getInstance());
+    }
+
+    /**
+     * Creates a RollupActionsCounter with a time frame for the finest level and how many time frames each level keeps,
+     * where the time frames kept by one level make up one time frame of the next level, and a clock used to calculate
+     * elapsed time when actions are added with {@link #addActions(int)}
+     */
+    public RollupActionsCounter(long finestTimeFrameInNanoSeconds, int[] timeFramesKeptPerLevel, NanoClock clock) {
+        if (finestTimeFrameInNanoSeconds <= 0) {
+            throw new IllegalArgumentException(
+                    "Time frame has to be greater than zero (you passed " + finestTimeFrameInNanoSeconds + ")");
+        }
+        Objects.requireNonNull(timeFramesKeptPerLevel, "timeFramesKeptPerLevel cannot be null");
+        if (timeFramesKeptPerLevel.length == 0) {
+            throw new IllegalArgumentException("There has to be at least one level");
+        }
+        this.clock = Objects.requireNonNull(clock, "clock cannot be null");
+        this.timeFramesKeptPerLevel = timeFramesKeptPerLevel.clone();
+        int numberOfLevels = timeFramesKeptPerLevel.length;
+        timeFrameInNanoSecondsPerLevel = new long[numberOfLevels];
+        actionCountRings = new long[numberOfLevels][];
+        currentTimeFrameIndexPerLevel = new long[numberOfLevels];
+        long timeFrameInNanoSeconds = finestTimeFrameInNanoSeconds;
+        for (int level = 0; level < numberOfLevels; level++) {
+            int timeFramesKept = timeFramesKeptPerLevel[level];
+            if (timeFramesKept <= 0) {
+                throw new IllegalArgumentException("Time frames kept has to be greater than zero (you passed " +
+                        timeFramesKept + " for level " + level + ")");
+            }
+            timeFrameInNanoSecondsPerLevel[level] = timeFrameInNanoSeconds;
+            // One more slot than is kept for the time frame currently being counted
+            actionCountRings[level] = new long[timeFramesKept + 1];
+            if (level + 1 < numberOfLevels) {
+                try {
+                    timeFrameInNanoSeconds = Math.multiplyExact(timeFrameInNanoSeconds, timeFramesKept);
+                } catch (ArithmeticException e) {
+                    throw new IllegalArgumentException("Time frame of level " + (level + 1) + " is too long", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a number of actions to the time frame that the end of the elapsed time falls in
+     *
+     * @param numberOfActions
+     *         Number of actions done
+     * @param timeElapsedInMilliseconds
+     *         Amount of time that has elapsed since the last addActions call
+     */
+    public void addActionsInMilliseconds(int numberOfActions, long timeElapsedInMilliseconds) {
+        addActionsInNanoseconds(numberOfActions, timeElapsedInMilliseconds * numberOfNanoSecondsInMillisecond);
+    }
+
+    /**
+     * Adds a number of actions to the current time frame, uses the current time of the counter's clock (System.NanoTime
+     * unless another clock was given) to calculate elapsed time.
+     *
+     * @param numberOfActions
+     *         Number of actions done
+     */
+    public void addActions(int numberOfActions) {
+        if (numberOfActions < 0) {
+            throw new IllegalArgumentException(
+                    "Number of actions has to be non negative (you passed " + numberOfActions + ")");
+        }
+        if (systemNanoTimeAtLastActionUpdate == notKeepingTrackOfTimeYet) {
+            systemNanoTimeAtLastActionUpdate = clock.nanoTime();
+        }
+        // Math.max for the same reason as ActionsPerTimeFrameCounter, System.nanoTime could appear to go backwards
+        addActionsInNanoseconds(numberOfActions, Math.max(0, clock.nanoTime() - systemNanoTimeAtLastActionUpdate));
+    }
+
+    /**
+     * Adds a number of actions to the time frame that the end of the elapsed time falls in
+     *
+     * @param numberOfActions
+     *         Number of actions done
+     * @param timeElapsedInNanoSeconds
+     *         Amount of time that has elapsed since the last addActions call
+     */
+    public void addActionsInNanoseconds(int numberOfActions, long timeElapsedInNanoSeconds) {
+        if (timeElapsedInNanoSeconds < 0) {
+            throw new IllegalArgumentException(
+                    "Time elapsed has to be non negative (you passed " + timeElapsedInNanoSeconds + ")");
+        }
+        if (numberOfActions < 0) {
+            throw new IllegalArgumentException(
+                    "Number of actions has to be non negative (you passed " + numberOfActions + ")");
+        }
+        if (systemNanoTimeAtLastActionUpdate == notKeepingTrackOfTimeYet) {
+            systemNanoTimeAtLastActionUpdate = clock.nanoTime();
+        }
+        totalElapsedTimeInNanoSeconds += timeElapsedInNanoSeconds;
+        systemNanoTimeAtLastActionUpdate += timeElapsedInNanoSeconds;
+
+        long finestTimeFrameIndex = totalElapsedTimeInNanoSeconds / timeFrameInNanoSecondsPerLevel[0];
+        if (finestTimeFrameIndex != currentTimeFrameIndexPerLevel[0]) {
+            advanceLevel(0, finestTimeFrameIndex);
+        }
+        long[] finestRing = actionCountRings[0];
+        finestRing[(int) (finestTimeFrameIndex % finestRing.length)] += numberOfActions;
+    }
+
+    /**
+     * Moves a level to a later time frame, rolling the count of the time frame that completed into the next level
+     */
+    private void advanceLevel(int level, long newTimeFrameIndex) {
+        long[] ring = actionCountRings[level];
+        long completedTimeFrameIndex = currentTimeFrameIndexPerLevel[level];
+        boolean hasCoarserLevel = level + 1 < actionCountRings.length;
+        if (hasCoarserLevel) {
+            // The coarser level is always on the time frame that this level's current time frame belongs to
+            long[] coarserRing = actionCountRings[level + 1];
+            coarserRing[(int) (currentTimeFrameIndexPerLevel[level + 1] % coarserRing.length)] +=
+                    ring[(int) (completedTimeFrameIndex % ring.length)];
+        }
+
+        // Time frames that were skipped over had no actions, as does the new time frame
+        if (newTimeFrameIndex - completedTimeFrameIndex >= ring.length) {
+            Arrays.fill(ring, 0);
+        } else {
+            for (long index = completedTimeFrameIndex + 1; index <= newTimeFrameIndex; index++) {
+                ring[(int) (index % ring.length)] = 0;
+            }
+        }
+        currentTimeFrameIndexPerLevel[level] = newTimeFrameIndex;
+
+        if (hasCoarserLevel) {
+            long coarserTimeFrameIndex = newTimeFrameIndex / timeFramesKeptPerLevel[level];
+            if (coarserTimeFrameIndex != currentTimeFrameIndexPerLevel[level + 1]) {
+                advanceLevel(level + 1, coarserTimeFrameIndex);
+            }
+        }
+    }
+
+    /**
+     * @return The number of actions counted in the last completed time frame of a level
+     */
+    public long getActionCountPerTimeFrame(int level) {
+        return getActionCountInTimeFrame(level, 1);
+    }
+
+    /**
+     * @param level
+     *         Level of the time frame, 0 being the finest
+     * @param timeFramesAgo
+     *         How many time frames ago, 0 being the time frame currently being counted and 1 the last completed time
+     *         frame, up to the number of time frames the level keeps
+     * @return The number of actions counted in a time frame of a level, 0 for time frames before counting started
+     */
+    public long getActionCountInTimeFrame(int level, int timeFramesAgo) {
+        checkLevel(level);
+        long[] ring = actionCountRings[level];
+        if (timeFramesAgo < 0 || timeFramesAgo >= ring.length) {
+            throw new IllegalArgumentException("Time frames ago has to be from 0 to " + (ring.length - 1) +
+                    " (you passed " + timeFramesAgo + ")");
+        }
+        long timeFrameIndex = currentTimeFrameIndexPerLevel[level] - timeFramesAgo;
+        return timeFrameIndex < 0 ? 0 : ring[(int) (timeFrameIndex % ring.length)];
+    }
+
+    /**
+     * @return The total number of actions counted in a number of the last completed time frames of a level, such as
+     * the last 60 seconds
+     */
+    public long getActionCountInLastTimeFrames(int level, int numberOfTimeFrames) {
+        checkLevel(level);
+        if (numberOfTimeFrames < 0 || numberOfTimeFrames > timeFramesKeptPerLevel[level]) {
+            throw new IllegalArgumentException("Number of time frames has to be from 0 to " +
+                    timeFramesKeptPerLevel[level] + " (you passed " + numberOfTimeFrames + ")");
+        }
+        long actionCount = 0;
+        for (int timeFramesAgo = 1; timeFramesAgo <= numberOfTimeFrames; timeFramesAgo++) {
+            actionCount += getActionCountInTimeFrame(level, timeFramesAgo);
+        }
+        return actionCount;
+    }
+
+    public long getTimeFrameInNanoSeconds(int level) {
+        checkLevel(level);
+        return timeFrameInNanoSecondsPerLevel[level];
+    }
+
+    public int getNumberOfLevels() {
+        return actionCountRings.length;
+    }
+
+    private void checkLevel(int level) {
+        if (level < 0 || level >= actionCountRings.length) {
+            throw new IllegalArgumentException("Level has to be from 0 to " + (actionCountRings.length - 1) +
+                    " (you passed " + level + ")");
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.jamesgames.jamesjavautils.time;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.util.SplittableRandom;
+
+/**
+ * SeededRandomTimeGenerator is a {@link org.jamesgames.jamesjavautils.time.RandomTimeGenerator} that draws from a
+ * {@link java.util.SplittableRandom} created from a seed, and so generates the same times every time it is created with
+ * the same seed. Unlike a RandomTimeGenerator it is only to be used by a single thread at a time, {@link #split()}
+ * gives an independent generator (also reproducible) for each other timer, pool or thread.
+ *
+ * @author James Murphy
+ */
+@NotThreadSafe
+public class SeededRandomTimeGenerator extends RandomTimeGenerator {
+    private final SplittableRandom seededRandom;
+
+    public SeededRandomTimeGenerator(Distribution distribution, long seed) {
+        this(distribution, new SplittableRandom(seed));
+    }
+
+    private SeededRandomTimeGenerator(Distribution distribution, SplittableRandom seededRandom) {
+        super(distribution);
+        this.seededRandom = seededRandom;
+    }
+
+    /**
+     * @return A new generator with the same distribution seeded from this one, so a whole tree of split generators can
+     * be reproduced from the first seed
+     */
+    @Override
+    public SeededRandomTimeGenerator split() {
+        return new SeededRandomTimeGenerator(getDistribution(), seededRandom.split());
+    }
+
+    @Override
+    double nextRandomDouble() {
+        return seededRandom.nextDouble();
+    }
+}
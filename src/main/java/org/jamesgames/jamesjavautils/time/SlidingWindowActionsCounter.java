@@ -0,0 +1,246 @@
+package org.jamesgames.jamesjavautils.time;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.util.Objects;
+
+/**
+ * SlidingWindowActionsCounter counts how many actions occurred in the last x amount of time, where x is the supplied
+ * window length. This differs from {@link org.jamesgames.jamesjavautils.time.ActionsPerTimeFrameCounter} which only
+ * publishes the count of the last full time frame, so its value lags up to a full time frame behind and jumps on each
+ * time frame border. SlidingWindowActionsCounter splits the window into a number of sub buckets kept in a ring, and
+ * the published value is the sum of the current partly filled bucket, the full buckets before it, and the part of the
+ * oldest bucket that still falls inside the window (assuming the actions in that bucket were spread evenly over it).
+ * More buckets makes the value smoother at the cost of a little more memory, reading the value never depends on the
+ * number of buckets.
+ * <p>
+ * Like ActionsPerTimeFrameCounter, if actions are added with an amount of elapsed time that crosses bucket borders then
+ * the actions are split fractionally depending on how much of the elapsed time goes to each bucket. Adding actions
+ * within the current bucket costs constant time, and so does crossing one bucket border (amortised, as the running sum
+ * of the buckets is recomputed from the ring once per lap of it so rounding errors can't build up). Adding actions
+ * after a gap that crosses several borders is not constant time though: it costs time per border crossed, since each
+ * bucket that falls out of the window has to be taken off the running sum, so an addition after a long idle gap costs
+ * up to the number of buckets in the window. Only gaps of a whole window or more are back to constant time, as the
+ * whole ring is refilled at once. Counters updated about once per bucket (or more often) only ever cross one border at
+ * a time.
+ *
+ * @author James Murphy
+ */
+@NotThreadSafe
+public class SlidingWindowActionsCounter {
+
+    private static final int numberOfNanoSecondsInMillisecond = 1_000_000;
+
+    /**
+     * Holds a value to signal that the application has not began counting actions yet
+     */
+    private static final long notKeepingTrackOfTimeYet = -1;
+
+    private final long bucketLengthInNanoSeconds;
+    private final int numberOfBucketsInWindow;
+    private final NanoClock clock;
+
+    /**
+     * Ring of buckets, one more bucket than the window holds so the oldest bucket that is only partly inside the window
+     * is still known.
+     */
+    private final float[] bucketActionCounts;
+
+    /**
+     * Generation a bucket was last written in, if a bucket wasn't written in the current generation its value is
+     * {@link #uniformBucketActionCount}. This lets the whole ring be refilled without touching every bucket.
+     */
+    private final long[] bucketGenerations;
+    private long currentGeneration;
+    private float uniformBucketActionCount;
+
+    private int currentBucketIndex;
+    private long elapsedTimeInCurrentBucketInNanoSeconds;
+
+    /**
+     * Sum of the buckets in the ring other than the current bucket
+     */
+    private double actionCountInPreviousBuckets;
+
+    private long systemNanoTimeAtLastActionUpdate = notKeepingTrackOfTimeYet;
+
+    /**
+     * Creates a SlidingWindowActionsCounter with a specified window length, split into a number of buckets. The
+     * window length is rounded down to a multiple of the number of buckets.
+     */
+    public SlidingWindowActionsCounter(long windowLengthInNanoSeconds, int numberOfBucketsInWindow) {
+        this(windowLengthInNanoSeconds, numberOfBucketsInWindow, SystemNanoClock.getInstance());
+    }
+
+    /**
+     * Creates a SlidingWindowActionsCounter with a specified window length, split into a number of buckets, and a clock
+     * used to calculate elapsed time when actions are added with {@link #addActions(int)}
+     */
+    public SlidingWindowActionsCounter(long windowLengthInNanoSeconds, int numberOfBucketsInWindow, NanoClock clock) {
+        if (numberOfBucketsInWindow <= 0) {
+            throw new IllegalArgumentException(
+                    "Number of buckets has to be greater than zero (you passed " + numberOfBucketsInWindow + ")");
+        }
+        if (windowLengthInNanoSeconds < numberOfBucketsInWindow) {
+            throw new IllegalArgumentException("Window length has to be at least one nanosecond per bucket " +
+                    "(you passed " + windowLengthInNanoSeconds + " for " + numberOfBucketsInWindow + " buckets)");
+        }
+        this.numberOfBucketsInWindow = numberOfBucketsInWindow;
+        this.clock = Objects.requireNonNull(clock, "clock cannot be null");
+        this.bucketLengthInNanoSeconds = windowLengthInNanoSeconds / numberOfBucketsInWindow;
+        this.bucketActionCounts = new float[numberOfBucketsInWindow + 1];
+        this.bucketGenerations = new long[numberOfBucketsInWindow + 1];
+    }
+
+    /**
+     * Adds a number of actions to the current bucket (possibly some of the actions will be added to later buckets if
+     * the elapsed time crosses bucket borders)
+     *
+     * @param numberOfActions
+     *         Number of actions done
+     * @param timeElapsedInMilliseconds
+     *         Amount of time that has elapsed since the last addActions call
+     */
+    public void addActionsInMilliseconds(int numberOfActions, long timeElapsedInMilliseconds) {
+        addActionsInNanoseconds(numberOfActions, timeElapsedInMilliseconds * numberOfNanoSecondsInMillisecond);
+    }
+
+    /**
+     * Adds a number of actions to the current bucket (possibly some of the actions will be added to later buckets if
+     * the elapsed time crosses bucket borders), uses the current time of the counter's clock (System.NanoTime unless
+     * another clock was given) to calculate elapsed time.
+     *
+     * @param numberOfActions
+     *         Number of actions done
+     */
+    public void addActions(int numberOfActions) {
+        if (numberOfActions < 0) {
+            throw new IllegalArgumentException(
+                    "Number of actions has to be non negative (you passed " + numberOfActions + ")");
+        }
+        if (systemNanoTimeAtLastActionUpdate == notKeepingTrackOfTimeYet) {
+            systemNanoTimeAtLastActionUpdate = clock.nanoTime();
+        }
+        // Math.max for the same reason as ActionsPerTimeFrameCounter, System.nanoTime could appear to go backwards
+        addActionsInNanoseconds(numberOfActions, Math.max(0, clock.nanoTime() - systemNanoTimeAtLastActionUpdate));
+    }
+
+    /**
+     * Adds a number of actions to the current bucket (possibly some of the actions will be added to later buckets if
+     * the elapsed time crosses bucket borders)
+     *
+     * @param numberOfActions
+     *         Number of actions done
+     * @param timeElapsedInNanoSeconds
+     *         Amount of time that has elapsed since the last addActions call
+     */
+    public void addActionsInNanoseconds(int numberOfActions, long timeElapsedInNanoSeconds) {
+        if (timeElapsedInNanoSeconds < 0) {
+            throw new IllegalArgumentException(
+                    "Time elapsed has to be non negative (you passed " + timeElapsedInNanoSeconds + ")");
+        }
+        if (numberOfActions < 0) {
+            throw new IllegalArgumentException(
+                    "Number of actions has to be non negative (you passed " + numberOfActions + ")");
+        }
+        if (systemNanoTimeAtLastActionUpdate == notKeepingTrackOfTimeYet) {
+            systemNanoTimeAtLastActionUpdate = clock.nanoTime();
+        }
+
+        if (elapsedTimeInCurrentBucketInNanoSeconds + timeElapsedInNanoSeconds <= bucketLengthInNanoSeconds) {
+            addToCurrentBucket(numberOfActions);
+            elapsedTimeInCurrentBucketInNanoSeconds += timeElapsedInNanoSeconds;
+        } else {
+            addActionsOverBucketBorders(numberOfActions, timeElapsedInNanoSeconds);
+        }
+
+        systemNanoTimeAtLastActionUpdate += timeElapsedInNanoSeconds;
+    }
+
+    private void addActionsOverBucketBorders(int numberOfActions, long timeElapsedInNanoSeconds) {
+        // Finish off the current bucket
+        long timeAllottedToCurrentBucket = bucketLengthInNanoSeconds - elapsedTimeInCurrentBucketInNanoSeconds;
+        addToCurrentBucket(ActionsPerTimeFrameCounter.actionsForTimeAllotted(numberOfActions,
+                timeAllottedToCurrentBucket, timeElapsedInNanoSeconds));
+        moveToNextBucket();
+
+        // The time left over is split into full buckets, and a last bucket of greater than 0 and up to a full bucket
+        // length of time (a bucket that is exactly full stays current, the same as ActionsPerTimeFrameCounter)
+        long timeLeftOver = timeElapsedInNanoSeconds - timeAllottedToCurrentBucket;
+        long numberOfFullBuckets = (timeLeftOver - 1) / bucketLengthInNanoSeconds;
+        float actionsPerFullBucket = ActionsPerTimeFrameCounter.actionsForTimeAllotted(numberOfActions,
+                bucketLengthInNanoSeconds, timeElapsedInNanoSeconds);
+        if (numberOfFullBuckets >= numberOfBucketsInWindow) {
+            // Every bucket before the current one is one of the full buckets, so refill the whole ring at once
+            currentGeneration++;
+            uniformBucketActionCount = actionsPerFullBucket;
+            actionCountInPreviousBuckets = (double) actionsPerFullBucket * numberOfBucketsInWindow;
+            setBucket(currentBucketIndex, 0);
+        } else {
+            for (long i = 0; i < numberOfFullBuckets; i++) {
+                addToCurrentBucket(actionsPerFullBucket);
+                moveToNextBucket();
+            }
+        }
+
+        long timeAllottedToLastBucket = timeLeftOver - numberOfFullBuckets * bucketLengthInNanoSeconds;
+        addToCurrentBucket(ActionsPerTimeFrameCounter.actionsForTimeAllotted(numberOfActions,
+                timeAllottedToLastBucket, timeElapsedInNanoSeconds));
+        elapsedTimeInCurrentBucketInNanoSeconds = timeAllottedToLastBucket;
+    }
+
+    private void moveToNextBucket() {
+        int nextBucketIndex = currentBucketIndex + 1 == bucketActionCounts.length ? 0 : currentBucketIndex + 1;
+        // The next bucket is the oldest in the ring, it falls out of the window as the current bucket becomes a
+        // previous bucket
+        actionCountInPreviousBuckets += getBucket(currentBucketIndex) - getBucket(nextBucketIndex);
+        setBucket(nextBucketIndex, 0);
+        currentBucketIndex = nextBucketIndex;
+        elapsedTimeInCurrentBucketInNanoSeconds = 0;
+        if (nextBucketIndex == 0) {
+            // Once per lap of the ring, so a counter that never goes idle for a whole window doesn't build up rounding
+            // errors in the running sum forever
+            recomputeActionCountInPreviousBuckets();
+        }
+    }
+
+    private void recomputeActionCountInPreviousBuckets() {
+        double actionCount = 0;
+        for (int i = 0; i < bucketActionCounts.length; i++) {
+            if (i != currentBucketIndex) {
+                actionCount += getBucket(i);
+            }
+        }
+        actionCountInPreviousBuckets = actionCount;
+    }
+
+    private void addToCurrentBucket(float numberOfActions) {
+        setBucket(currentBucketIndex, getBucket(currentBucketIndex) + numberOfActions);
+    }
+
+    private float getBucket(int bucketIndex) {
+        return bucketGenerations[bucketIndex] == currentGeneration ? bucketActionCounts[bucketIndex] :
+                uniformBucketActionCount;
+    }
+
+    private void setBucket(int bucketIndex, float actionCount) {
+        bucketActionCounts[bucketIndex] = actionCount;
+        bucketGenerations[bucketIndex] = currentGeneration;
+    }
+
+    /**
+     * @return The number of actions that happened within the last window length of time
+     */
+    public float getActionCountInWindow() {
+        int oldestBucketIndex = currentBucketIndex + 1 == bucketActionCounts.length ? 0 : currentBucketIndex + 1;
+        // The oldest bucket is only partly inside the window, by as much time as the current bucket has left
+        float portionOfOldestBucketOutsideOfWindow =
+                elapsedTimeInCurrentBucketInNanoSeconds / (float) bucketLengthInNanoSeconds;
+        return (float) (actionCountInPreviousBuckets + getBucket(currentBucketIndex) -
+                getBucket(oldestBucketIndex) * portionOfOldestBucketOutsideOfWindow);
+    }
+
+    public long getWindowLengthInNanoSeconds() {
+        return bucketLengthInNanoSeconds * numberOfBucketsInWindow;
+    }
+}
@@ -0,0 +1,27 @@
+package org.jamesgames.jamesjavautils.time;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * SystemNanoClock is a {@link org.jamesgames.jamesjavautils.time.NanoClock} that reads System.nanoTime every time it is
+ * asked for the time.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+public final class SystemNanoClock implements NanoClock {
+
+    private static final SystemNanoClock instance = new SystemNanoClock();
+
+    private SystemNanoClock() {
+    }
+
+    public static SystemNanoClock getInstance() {
+        return instance;
+    }
+
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+}
@@ -0,0 +1,20 @@
+package org.jamesgames.jamesjavautils.time;
+
+/**
+ * TimeFrameCompletedListener is an interface that depicts an event when an {@link
+ * org.jamesgames.jamesjavautils.time.ActionsPerTimeFrameCounter} has completed a time frame and published a new actions
+ * per time frame value.
+ *
+ * @author James Murphy
+ */
+@FunctionalInterface
+public interface TimeFrameCompletedListener {
+
+    /**
+     * To be called when a time frame completes, on the thread that added the actions which completed it.
+     *
+     * @param actionCount
+     *         Number of actions counted in the completed time frame, the same value as the counter now publishes
+     */
+    public void timeFrameCompleted(float actionCount);
+}
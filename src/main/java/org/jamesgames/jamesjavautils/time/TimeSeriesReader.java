@@ -0,0 +1,88 @@
+package org.jamesgames.jamesjavautils.time;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * TimeSeriesReader reads back the history written by a {@link org.jamesgames.jamesjavautils.time.TimeSeriesRecorder},
+ * from the oldest record still in the file to the newest, such as for looking at what a counter did before a crash.
+ * The file can be read while a recorder is still writing to it, though records written during the read may then be
+ * read as either their old or new value.
+ * <p>
+ * Run as a program with a file as the argument, the records are printed as comma separated timestamp and value lines.
+ *
+ * @author James Murphy
+ */
+public class TimeSeriesReader {
+
+    /**
+     * Receives each record read from a file
+     */
+    @FunctionalInterface
+    public static interface RecordConsumer {
+        public void accept(long timestampInMilliseconds, double value);
+    }
+
+    private TimeSeriesReader() {
+    }
+
+    /**
+     * Reads each record in a file, oldest first
+     *
+     * @return Number of records read
+     */
+    public static long readRecords(Path file, RecordConsumer consumer) throws IOException {
+        Objects.requireNonNull(file, "file cannot be null");
+        Objects.requireNonNull(consumer, "consumer cannot be null");
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < TimeSeriesRecorder.headerSizeInBytes) {
+                throw new IOException(file + " is not a time series file, it is too small");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt(0) != TimeSeriesRecorder.magicNumber) {
+            throw new IOException(file + " is not a time series file");
+        }
+        if (buffer.getInt(4) != TimeSeriesRecorder.formatVersion) {
+            throw new IOException(file + " has an unknown format version " + buffer.getInt(4));
+        }
+        int capacity = buffer.getInt(TimeSeriesRecorder.capacityPosition);
+        if (buffer.capacity() !=
+                TimeSeriesRecorder.headerSizeInBytes + (long) capacity * TimeSeriesRecorder.recordSizeInBytes) {
+            throw new IOException(file + " is not the size its capacity of " + capacity + " records needs");
+        }
+        long recordCount = buffer.getLong(TimeSeriesRecorder.recordCountPosition);
+        // A record is left out if the recorder stopped while it was being overwritten
+        long oldestRecord = Math.max(buffer.getLong(TimeSeriesRecorder.oldestRecordPosition),
+                Math.max(0, recordCount - capacity));
+        for (long record = oldestRecord; record < recordCount; record++) {
+            int position = TimeSeriesRecorder.headerSizeInBytes +
+                    (int) (record % capacity) * TimeSeriesRecorder.recordSizeInBytes;
+            consumer.accept(buffer.getLong(position), buffer.getDouble(position + Long.BYTES));
+        }
+        return recordCount - oldestRecord;
+    }
+
+    /**
+     * Prints each record in a file as a line of its timestamp and value separated by a comma, oldest first
+     */
+    public static void printRecords(Path file, PrintStream out) throws IOException {
+        out.println("timestampInMilliseconds,value");
+        readRecords(file, (timestamp, value) -> out.println(timestamp + "," + value));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: TimeSeriesReader <time series file>");
+            System.exit(1);
+        }
+        printRecords(Paths.get(args[0]), System.out);
+    }
+}
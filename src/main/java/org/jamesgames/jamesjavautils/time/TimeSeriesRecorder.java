@@ -0,0 +1,144 @@
+package org.jamesgames.jamesjavautils.time;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * TimeSeriesRecorder keeps a history of values, such as each completed time frame of an {@link
+ * org.jamesgames.jamesjavautils.time.ActionsPerTimeFrameCounter} (the recorder can be set as the counter's {@link
+ * org.jamesgames.jamesjavautils.time.TimeFrameCompletedListener}), in a file with room for a fixed number of records.
+ * Once the file is full each new record overwrites the oldest one. Every record is a timestamp (milliseconds since the
+ * epoch) and a value, and {@link org.jamesgames.jamesjavautils.time.TimeSeriesReader} can read them back.
+ * <p>
+ * The file is memory mapped, so recording a value is just writing to memory with no system calls. The operating system
+ * writes the memory to the file on its own, so the history survives the process crashing (though not the machine
+ * crashing, unless {@link #force()} was called). Once the file is full, the number of the oldest record still readable is
+ * moved past the record about to be overwritten before it is, and the new record is written before the count of
+ * records, so a crash in the middle of recording leaves both the new and the overwritten record out rather than a half
+ * written record in.
+ * <p>
+ * File layout, all big endian: a header of a magic number (int), format version (int), capacity in records (int), an
+ * unused int, the total number of records ever recorded (long) and the number of the oldest record that can be read
+ * (long), followed by the records of a timestamp (long) and value (double) each.
+ *
+ * @author James Murphy
+ */
+@NotThreadSafe
+public class TimeSeriesRecorder implements TimeFrameCompletedListener, Closeable {
+
+    static final int magicNumber = 0x4A545352;
+    static final int formatVersion = 1;
+    static final int headerSizeInBytes = 32;
+    static final int recordSizeInBytes = Long.BYTES + Double.BYTES;
+    static final int capacityPosition = 8;
+    static final int recordCountPosition = 16;
+    static final int oldestRecordPosition = 24;
+
+    private final int capacity;
+    private MappedByteBuffer buffer;
+    private long recordCount;
+
+    /**
+     * Creates a TimeSeriesRecorder that records into a file with room for a number of records. If the file already
+     * holds a history with the same capacity then recording continues after its newest record, otherwise the file is
+     * created (or replaced) with an empty history.
+     */
+    public TimeSeriesRecorder(Path file, int capacity) throws IOException {
+        Objects.requireNonNull(file, "file cannot be null");
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity has to be greater than zero (you passed " + capacity + ")");
+        }
+        if (capacity > (Integer.MAX_VALUE - headerSizeInBytes) / recordSizeInBytes) {
+            throw new IllegalArgumentException("Capacity is too large to map (you passed " + capacity + ")");
+        }
+        this.capacity = capacity;
+        long fileSize = headerSizeInBytes + (long) capacity * recordSizeInBytes;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            boolean continuingHistory = channel.size() == fileSize;
+            if (channel.size() > fileSize) {
+                // Left over from a history with a larger capacity, which the reader would otherwise go by the size of
+                channel.truncate(fileSize);
+            }
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            continuingHistory = continuingHistory && buffer.getInt(0) == magicNumber &&
+                    buffer.getInt(4) == formatVersion && buffer.getInt(capacityPosition) == capacity;
+            if (continuingHistory) {
+                recordCount = buffer.getLong(recordCountPosition);
+            } else {
+                buffer.putInt(0, magicNumber);
+                buffer.putInt(4, formatVersion);
+                buffer.putInt(capacityPosition, capacity);
+                buffer.putLong(recordCountPosition, 0);
+                buffer.putLong(oldestRecordPosition, 0);
+            }
+        }
+    }
+
+    /**
+     * Records a value with the current time as its timestamp
+     */
+    public void record(double value) {
+        record(System.currentTimeMillis(), value);
+    }
+
+    /**
+     * Records a value with a timestamp
+     */
+    public void record(long timestampInMilliseconds, double value) {
+        if (buffer == null) {
+            throw new IllegalStateException("TimeSeriesRecorder is closed");
+        }
+        if (recordCount >= capacity) {
+            // The record being overwritten stops being readable before any of it is overwritten
+            buffer.putLong(oldestRecordPosition, recordCount - capacity + 1);
+        }
+        int position = headerSizeInBytes + (int) (recordCount % capacity) * recordSizeInBytes;
+        buffer.putLong(position, timestampInMilliseconds);
+        buffer.putDouble(position + Long.BYTES, value);
+        buffer.putLong(recordCountPosition, ++recordCount);
+    }
+
+    @Override
+    public void timeFrameCompleted(float actionCount) {
+        record(actionCount);
+    }
+
+    /**
+     * Makes sure everything recorded so far is written to the storage device the file is on
+     */
+    public void force() {
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * @return Total number of records ever recorded to the file, including ones that have since been overwritten
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Forces everything recorded to the file and stops recording, the mapping of the file is released once the
+     * recorder is garbage collected
+     */
+    @Override
+    public void close() {
+        force();
+        buffer = null;
+    }
+}
@@ -0,0 +1,288 @@
+package org.jamesgames.jamesjavautils.time;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * TimerPool holds a large number of lightweight timers that work like {@link org.jamesgames.jamesjavautils.time.ElapsedTimeTimer},
+ * each with an elapsed time and a target time and finishing once the elapsed time reaches the target time. Rather than
+ * an object per timer, the timers are stored as parallel primitive arrays (one long array of elapsed times, one long
+ * array of target times, and bit sets of which timers are finished and which are in use), and each timer is addressed by
+ * an int handle. This keeps millions of timers to around 16 bytes each, and advancing all of them is a tight loop over
+ * the arrays with no objects to follow.
+ * <p>
+ * Timers are advanced all at once with {@link #advanceAllInNanoSeconds(long)}, which returns how many timers finished
+ * during the advance, and the handles of those timers are put into the array returned by {@link
+ * #getNewlyFinishedHandles()}. That array is reused by every advance, so advancing never allocates. A handle that is
+ * freed may be handed out again by a later allocation.
+ * <p>
+ * Timers can also be given random target times, picked by the pool's {@link
+ * org.jamesgames.jamesjavautils.time.RandomTimeGenerator}.
+ *
+ * @author James Murphy
+ */
+@NotThreadSafe
+public class TimerPool {
+
+    private static final int defaultInitialCapacity = 64;
+    private static final int bitsPerWord = Long.SIZE;
+
+    /**
+     * Target time of timers not in use, so that they never finish
+     */
+    private static final long unusedTargetTime = Long.MAX_VALUE;
+
+    private long[] elapsedTimesInNanoSeconds;
+    private long[] targetTimesInNanoSeconds;
+    private long[] finishedTimers;
+    private long[] timersInUse;
+    private int[] newlyFinishedHandles;
+    private RandomTimeGenerator randomTargetTimeGenerator = RandomTimeGenerator.getUniformThreadLocalGenerator();
+
+    /**
+     * Handles that were freed, reused before handing out never used handles
+     */
+    private int[] freeHandles;
+    private int numberOfFreeHandles;
+
+    /**
+     * Every handle below this has been handed out at some point, so only these are looped over when advancing
+     */
+    private int highestHandleEverUsedPlusOne;
+    private int numberOfTimersInUse;
+
+    public TimerPool() {
+        this(defaultInitialCapacity);
+    }
+
+    /**
+     * Creates a TimerPool with room for a number of timers before it has to grow
+     */
+    public TimerPool(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException(
+                    "Initial capacity has to be greater than zero (you passed " + initialCapacity + ")");
+        }
+        elapsedTimesInNanoSeconds = new long[initialCapacity];
+        targetTimesInNanoSeconds = new long[initialCapacity];
+        Arrays.fill(targetTimesInNanoSeconds, unusedTargetTime);
+        finishedTimers = new long[wordsForBits(initialCapacity)];
+        timersInUse = new long[wordsForBits(initialCapacity)];
+        newlyFinishedHandles = new int[initialCapacity];
+        freeHandles = new int[initialCapacity];
+    }
+
+    private static int wordsForBits(int numberOfBits) {
+        return (numberOfBits + bitsPerWord - 1) / bitsPerWord;
+    }
+
+    /**
+     * Creates a timer with a specific target time
+     *
+     * @return Handle of the new timer
+     */
+    public int allocateTimer(long targetTimeInNanoSeconds) {
+        checkTargetTime(targetTimeInNanoSeconds);
+        int handle;
+        if (numberOfFreeHandles > 0) {
+            handle = freeHandles[--numberOfFreeHandles];
+        } else {
+            if (highestHandleEverUsedPlusOne == elapsedTimesInNanoSeconds.length) {
+                grow();
+            }
+            handle = highestHandleEverUsedPlusOne++;
+        }
+        elapsedTimesInNanoSeconds[handle] = 0;
+        targetTimesInNanoSeconds[handle] = targetTimeInNanoSeconds;
+        clearBit(finishedTimers, handle);
+        setBit(timersInUse, handle);
+        numberOfTimersInUse++;
+        return handle;
+    }
+
+    public int allocateTimerInMilliseconds(long targetTimeInMilliseconds) {
+        return allocateTimer(ElapsedTimeTimer.millisecondsToNanoSeconds(targetTimeInMilliseconds));
+    }
+
+    /**
+     * Creates a timer with a target time randomly between two times
+     *
+     * @return Handle of the new timer
+     */
+    public int allocateTimerWithRandomTargetTime(long inclusiveLowerBoundInNanoseconds,
+            long exclusiveUpperBoundInNanoseconds) {
+        return allocateTimer(randomTargetTimeGenerator.nextTimeInNanoSeconds(inclusiveLowerBoundInNanoseconds,
+                exclusiveUpperBoundInNanoseconds));
+    }
+
+    /**
+     * Sets the generator used to pick random target times for the pool's timers, by default random target times are
+     * uniformly distributed and drawn from ThreadLocalRandom
+     */
+    public void setRandomTargetTimeGenerator(RandomTimeGenerator randomTargetTimeGenerator) {
+        this.randomTargetTimeGenerator =
+                Objects.requireNonNull(randomTargetTimeGenerator, "randomTargetTimeGenerator cannot be null");
+    }
+
+    /**
+     * Frees a timer, the handle may be given to a later allocated timer
+     */
+    public void freeTimer(int handle) {
+        checkHandle(handle);
+        targetTimesInNanoSeconds[handle] = unusedTargetTime;
+        clearBit(timersInUse, handle);
+        clearBit(finishedTimers, handle);
+        freeHandles[numberOfFreeHandles++] = handle;
+        numberOfTimersInUse--;
+    }
+
+    private void grow() {
+        int newCapacity = elapsedTimesInNanoSeconds.length * 2;
+        if (newCapacity < 0) {
+            throw new IllegalStateException("TimerPool cannot hold any more timers");
+        }
+        elapsedTimesInNanoSeconds = Arrays.copyOf(elapsedTimesInNanoSeconds, newCapacity);
+        int oldCapacity = targetTimesInNanoSeconds.length;
+        targetTimesInNanoSeconds = Arrays.copyOf(targetTimesInNanoSeconds, newCapacity);
+        Arrays.fill(targetTimesInNanoSeconds, oldCapacity, newCapacity, unusedTargetTime);
+        finishedTimers = Arrays.copyOf(finishedTimers, wordsForBits(newCapacity));
+        timersInUse = Arrays.copyOf(timersInUse, wordsForBits(newCapacity));
+        newlyFinishedHandles = new int[newCapacity];
+        freeHandles = Arrays.copyOf(freeHandles, newCapacity);
+    }
+
+    public int advanceAllInMilliseconds(long elapsedTimeInMilliseconds) {
+        return advanceAllInNanoSeconds(ElapsedTimeTimer.millisecondsToNanoSeconds(elapsedTimeInMilliseconds));
+    }
+
+    /**
+     * Adds elapsed time to every timer in the pool
+     *
+     * @return The number of timers that finished during this advance, their handles are at the start of the array
+     * returned by {@link #getNewlyFinishedHandles()}
+     */
+    public int advanceAllInNanoSeconds(long elapsedTimeInNanoSeconds) {
+        if (elapsedTimeInNanoSeconds < 0) {
+            throw new IllegalArgumentException("elapsed time cannot be less than zero");
+        }
+        long[] elapsedTimes = elapsedTimesInNanoSeconds;
+        long[] targetTimes = targetTimesInNanoSeconds;
+        int numberOfHandles = highestHandleEverUsedPlusOne;
+        int numberOfNewlyFinishedTimers = 0;
+        for (int wordStart = 0; wordStart < numberOfHandles; wordStart += bitsPerWord) {
+            int wordEnd = Math.min(wordStart + bitsPerWord, numberOfHandles);
+            // Kept free of branches so the JIT can unroll and vectorize it, a timer has reached its target when
+            // target - elapsed - 1 is negative, which is the sign bit moved into the timer's bit of the word
+            long reachedTargetTimers = 0;
+            for (int i = wordStart; i < wordEnd; i++) {
+                long elapsedTime = elapsedTimes[i] + elapsedTimeInNanoSeconds;
+                elapsedTimes[i] = elapsedTime;
+                reachedTargetTimers |= ((targetTimes[i] - elapsedTime - 1) >>> 63) << (i - wordStart);
+            }
+            int word = wordStart / bitsPerWord;
+            long newlyFinishedTimers = reachedTargetTimers & timersInUse[word] & ~finishedTimers[word];
+            finishedTimers[word] |= newlyFinishedTimers;
+            while (newlyFinishedTimers != 0) {
+                newlyFinishedHandles[numberOfNewlyFinishedTimers++] =
+                        wordStart + Long.numberOfTrailingZeros(newlyFinishedTimers);
+                newlyFinishedTimers &= newlyFinishedTimers - 1;
+            }
+        }
+        return numberOfNewlyFinishedTimers;
+    }
+
+    /**
+     * @return Array holding the handles of timers that finished in the last advance, from the start of the array up to
+     * the number returned by the advance. The array is reused (and may be replaced if the pool grows), so it should not
+     * be kept between advances.
+     */
+    public int[] getNewlyFinishedHandles() {
+        return newlyFinishedHandles;
+    }
+
+    public void setTargetTimeInNanoSeconds(int handle, long targetTimeInNanoSeconds) {
+        checkHandle(handle);
+        checkTargetTime(targetTimeInNanoSeconds);
+        targetTimesInNanoSeconds[handle] = targetTimeInNanoSeconds;
+    }
+
+    public void setTargetTimeInMilliseconds(int handle, long targetTimeInMilliseconds) {
+        setTargetTimeInNanoSeconds(handle, ElapsedTimeTimer.millisecondsToNanoSeconds(targetTimeInMilliseconds));
+    }
+
+    public void setTargetTimeToRandomTimeSpecifiedInNanoSeconds(int handle, long inclusiveLowerBound,
+            long exclusiveUpperBound) {
+        setTargetTimeInNanoSeconds(handle,
+                randomTargetTimeGenerator.nextTimeInNanoSeconds(inclusiveLowerBound, exclusiveUpperBound));
+    }
+
+    private static void checkTargetTime(long targetTimeInNanoSeconds) {
+        if (targetTimeInNanoSeconds < 0) {
+            throw new IllegalArgumentException("time to reach cannot be less than zero");
+        }
+    }
+
+    /**
+     * Resets the elapsed time of a timer to zero, making it unfinished. If its target time is zero it will finish
+     * again on the next advance.
+     */
+    public void resetElapsedTime(int handle) {
+        checkHandle(handle);
+        elapsedTimesInNanoSeconds[handle] = 0;
+        clearBit(finishedTimers, handle);
+    }
+
+    /**
+     * Resets the elapsed time of a timer to how much time it went past its target time, making it unfinished. If
+     * it is still past its target time it will finish again on the next advance.
+     */
+    public void resetElapsedTimeToTimePastCurrentTarget(int handle) {
+        checkHandle(handle);
+        if (elapsedTimesInNanoSeconds[handle] < targetTimesInNanoSeconds[handle]) {
+            throw new IllegalArgumentException("total time elapsed so far is not more than current target yet, " +
+                    " total elapsed time: " + elapsedTimesInNanoSeconds[handle] + ", target time: " +
+                    targetTimesInNanoSeconds[handle]);
+        }
+        elapsedTimesInNanoSeconds[handle] -= targetTimesInNanoSeconds[handle];
+        clearBit(finishedTimers, handle);
+    }
+
+    public boolean isTimerFinished(int handle) {
+        checkHandle(handle);
+        return isBitSet(finishedTimers, handle);
+    }
+
+    public long getElapsedTimeInNanoSeconds(int handle) {
+        checkHandle(handle);
+        return elapsedTimesInNanoSeconds[handle];
+    }
+
+    public long getTargetTimeInNanoSeconds(int handle) {
+        checkHandle(handle);
+        return targetTimesInNanoSeconds[handle];
+    }
+
+    public int getNumberOfTimers() {
+        return numberOfTimersInUse;
+    }
+
+    private void checkHandle(int handle) {
+        if (handle < 0 || handle >= highestHandleEverUsedPlusOne || !isBitSet(timersInUse, handle)) {
+            throw new IllegalArgumentException("Handle does not refer to a timer in use (you passed " + handle + ")");
+        }
+    }
+
+    private static boolean isBitSet(long[] bits, int index) {
+        return (bits[index / bitsPerWord] & (1L << index)) != 0;
+    }
+
+    private static void setBit(long[] bits, int index) {
+        bits[index / bitsPerWord] |= 1L << index;
+    }
+
+    private static void clearBit(long[] bits, int index) {
+        bits[index / bitsPerWord] &= ~(1L << index);
+    }
+}
@@ -0,0 +1,212 @@
+package org.jamesgames.jamesjavautils.time;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * TokenBucketRateLimiter limits how often work can be done to a number of permits per time frame, while allowing bursts
+ * of up to a number of permits at once. Permits refill continuously (not all at once at the start of each time frame),
+ * and the bucket holds at most the burst capacity, so permits not used while idle are not saved up beyond that. The
+ * bucket starts full.
+ * <p>
+ * Rather than a count of tokens and a time they were last refilled, the bucket is kept as a single long: the time at
+ * which the bucket will be full again (a generic cell rate algorithm). Acquiring permits moves that time forward by how
+ * long the permits take to refill, and is allowed as long as the time stays within the burst capacity's worth of time
+ * from now. So every acquire is a single compare and set, with no lock, and threads on many cores can acquire permits
+ * at once. The time it takes for a permit to refill is rounded to a whole nanosecond per acquire, which only matters for
+ * rates of hundreds of millions of permits a second.
+ * <p>
+ * {@link #tryAcquire(int)} never waits, {@link #acquire(int)} reserves the permits right away and then parks the thread
+ * until they are due. Acquired permits are counted with a {@link org.jamesgames.jamesjavautils.time.ConcurrentActionsPerTimeFrameCounter}
+ * so the limiter can report the rate it is actually letting work through.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+public class TokenBucketRateLimiter {
+
+    private final NanoClock clock;
+    private final int burstCapacity;
+    private final double nanoSecondsPerPermit;
+    private final long burstCapacityInNanoSeconds;
+    private final ConcurrentActionsPerTimeFrameCounter acquiredPermitsCounter;
+
+    /**
+     * Time (of the clock) at which the bucket will be full again, if it's in the past then the bucket is full
+     */
+    private final AtomicLong timeBucketIsFullInNanoSeconds;
+
+    /**
+     * Creates a TokenBucketRateLimiter that lets through a number of permits per time frame, with a burst capacity of
+     * the same number of permits
+     */
+    public TokenBucketRateLimiter(long permitsPerTimeFrame, long timeFrameInNanoSeconds) {
+        this(permitsPerTimeFrame, timeFrameInNanoSeconds, (int) Math.min(Integer.MAX_VALUE, permitsPerTimeFrame));
+    }
+
+    /**
+     * Creates a TokenBucketRateLimiter that lets through a number of permits per time frame, with up to a burst
+     * capacity of permits acquired at once
+     */
+    public TokenBucketRateLimiter(long permitsPerTimeFrame, long timeFrameInNanoSeconds, int burstCapacity) {
+        this(permitsPerTimeFrame, timeFrameInNanoSeconds, burstCapacity, SystemNanoClock.getInstance());
+    }
+
+    /**
+     * Creates a TokenBucketRateLimiter that lets through a number of permits per time frame, with up to a burst
+     * capacity of permits acquired at once, using a clock to tell how much time has passed for permits to refill
+     */
+    public TokenBucketRateLimiter(long permitsPerTimeFrame, long timeFrameInNanoSeconds, int burstCapacity,
+            NanoClock clock) {
+        if (permitsPerTimeFrame <= 0) {
+            throw new IllegalArgumentException(
+                    "Permits per time frame has to be greater than zero (you passed " + permitsPerTimeFrame + ")");
+        }
+        if (timeFrameInNanoSeconds <= 0) {
+            throw new IllegalArgumentException(
+                    "Time frame has to be greater than zero (you passed " + timeFrameInNanoSeconds + ")");
+        }
+        if (burstCapacity <= 0) {
+            throw new IllegalArgumentException(
+                    "Burst capacity has to be greater than zero (you passed " + burstCapacity + ")");
+        }
+        this.clock = Objects.requireNonNull(clock, "clock cannot be null");
+        this.burstCapacity = burstCapacity;
+        this.nanoSecondsPerPermit = timeFrameInNanoSeconds / (double) permitsPerTimeFrame;
+        this.burstCapacityInNanoSeconds = refillTimeInNanoSeconds(burstCapacity);
+        this.acquiredPermitsCounter = new ConcurrentActionsPerTimeFrameCounter(timeFrameInNanoSeconds,
+                Runtime.getRuntime().availableProcessors(), clock);
+        this.timeBucketIsFullInNanoSeconds = new AtomicLong(clock.nanoTime());
+    }
+
+    private long refillTimeInNanoSeconds(long numberOfPermits) {
+        return Math.round(numberOfPermits * nanoSecondsPerPermit);
+    }
+
+    /**
+     * Acquires a single permit if one is available right now
+     *
+     * @return True if the permit was acquired
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    /**
+     * Acquires a number of permits if that many are available right now, either all of the permits are acquired or
+     * none are
+     *
+     * @param permits
+     *         Number of permits to acquire, no more than the burst capacity
+     * @return True if the permits were acquired
+     */
+    public boolean tryAcquire(int permits) {
+        checkPermits(permits);
+        if (permits > burstCapacity) {
+            throw new IllegalArgumentException("Permits can never be more than the burst capacity of " +
+                    burstCapacity + " (you passed " + permits + ")");
+        }
+        long refillTime = refillTimeInNanoSeconds(permits);
+        while (true) {
+            long currentTime = clock.nanoTime();
+            long timeBucketIsFull = timeBucketIsFullInNanoSeconds.get();
+            long newTimeBucketIsFull = Math.max(timeBucketIsFull, currentTime) + refillTime;
+            if (newTimeBucketIsFull - currentTime > burstCapacityInNanoSeconds) {
+                return false;
+            }
+            if (timeBucketIsFullInNanoSeconds.compareAndSet(timeBucketIsFull, newTimeBucketIsFull)) {
+                acquiredPermitsCounter.addActions(permits);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Acquires a single permit, waiting until it is available
+     *
+     * @return The amount of time the thread had to wait for the permit
+     */
+    public long acquire() {
+        return acquire(1);
+    }
+
+    /**
+     * Acquires a number of permits, waiting until they are available. The permits are reserved right away, so threads
+     * that acquire permits later wait behind this thread even if this thread is still waiting. More permits than the
+     * burst capacity can be acquired, the wait is just as long as it takes for that many permits to refill.
+     * <p>
+     * Waiting is not interrupted, since the permits are already reserved by then. If the thread is interrupted while
+     * waiting it keeps waiting until the permits are due, and its interrupt status is set again before returning.
+     *
+     * @param permits
+     *         Number of permits to acquire
+     * @return The amount of time the thread had to wait for the permits
+     */
+    public long acquire(int permits) {
+        checkPermits(permits);
+        long refillTime = refillTimeInNanoSeconds(permits);
+        long currentTime;
+        long newTimeBucketIsFull;
+        while (true) {
+            currentTime = clock.nanoTime();
+            long timeBucketIsFull = timeBucketIsFullInNanoSeconds.get();
+            newTimeBucketIsFull = Math.max(timeBucketIsFull, currentTime) + refillTime;
+            if (timeBucketIsFullInNanoSeconds.compareAndSet(timeBucketIsFull, newTimeBucketIsFull)) {
+                break;
+            }
+        }
+        acquiredPermitsCounter.addActions(permits);
+
+        long timePermitsAreDue = newTimeBucketIsFull - burstCapacityInNanoSeconds;
+        long waitTime = Math.max(0, timePermitsAreDue - currentTime);
+        boolean interrupted = false;
+        long timeUntilDue;
+        while ((timeUntilDue = timePermitsAreDue - clock.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, timeUntilDue);
+            // parkNanos returns right away while the interrupt status is set, so it's cleared to keep from spinning
+            interrupted |= Thread.interrupted();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return waitTime;
+    }
+
+    private static void checkPermits(int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits has to be greater than zero (you passed " + permits + ")");
+        }
+    }
+
+    /**
+     * @return The number of permits that could be acquired right now without waiting
+     */
+    public int getAvailablePermits() {
+        long currentTime = clock.nanoTime();
+        long timeBucketIsFull = Math.max(timeBucketIsFullInNanoSeconds.get(), currentTime);
+        long timeLeftInBucket = burstCapacityInNanoSeconds - (timeBucketIsFull - currentTime);
+        if (timeLeftInBucket <= 0) {
+            return 0;
+        }
+        // The rounding of refill times means the floor of the division could be one permit under what tryAcquire allows
+        int availablePermits = (int) Math.min(burstCapacity, (long) (timeLeftInBucket / nanoSecondsPerPermit));
+        while (availablePermits < burstCapacity && refillTimeInNanoSeconds(availablePermits + 1) <= timeLeftInBucket) {
+            availablePermits++;
+        }
+        return availablePermits;
+    }
+
+    /**
+     * @return The number of permits acquired in the last fully counted time frame
+     */
+    public float getAcquiredPermitsPerTimeFrame() {
+        return acquiredPermitsCounter.getActionCountPerTimeFrame();
+    }
+
+    public int getBurstCapacity() {
+        return burstCapacity;
+    }
+}
@@ -0,0 +1,410 @@
+package org.jamesgames.jamesjavautils.time;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * VirtualTimeScheduler runs a simulation in virtual time, jumping straight from one event to the next rather than
+ * waiting for real time to pass, so hours of a game or server can be simulated in seconds. Events are tasks scheduled
+ * to run at a time (once or repeatedly) and registered {@link org.jamesgames.jamesjavautils.time.ElapsedTimeTimer}s
+ * (and {@link org.jamesgames.jamesjavautils.time.ObservableElapsedTimeTimer}s) reaching their target time. Counters and
+ * meters such as {@link org.jamesgames.jamesjavautils.time.ActionsPerTimeFrameCounter} are driven by creating them with
+ * the scheduler's {@link #getClock()}, so that actions added from tasks and timer observers are counted in virtual
+ * time.
+ * <p>
+ * Events run in order of their time, and events at the same time run in the order they were scheduled, so a simulation
+ * runs the same way every time. Randomness has to come from the scheduler for that to hold as well: {@link
+ * #createRandom()} and {@link #createRandomTimeGenerator(RandomTimeGenerator.Distribution)} give generators seeded from
+ * the scheduler's seed (random target times otherwise come from ThreadLocalRandom).
+ * <p>
+ * Registered timers are given their elapsed time the same way as by a {@link org.jamesgames.jamesjavautils.time.HierarchicalTimingWheel},
+ * only when they reach their target time, are unregistered, or are changed through {@link
+ * #changeTimer(ElapsedTimeTimer, java.util.function.Consumer)}, though here they reach their target time at exactly the
+ * nanosecond it is due. An ObservableElapsedTimeTimer re-arms itself and stays scheduled, while an ElapsedTimeTimer that
+ * finished is not checked again until it is changed.
+ * <p>
+ * A timer keeps reusing the same queued event each time it reaches its target time, so a running simulation doesn't
+ * create an object per timer event. Cancelled tasks, and the events of timers that were changed or unregistered while
+ * queued, are left in the queue and skipped when they come up, until they make up more than half of the queue, at which
+ * point they are all cleared out of it.
+ *
+ * @author James Murphy
+ */
+@NotThreadSafe
+public class VirtualTimeScheduler {
+
+    private final ManualNanoClock clock = new ManualNanoClock();
+    private final SplittableRandom seeds;
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private final Map<ElapsedTimeTimer, TimerEvent> timerEvents = new IdentityHashMap<>();
+    private long numberOfEventsScheduled;
+    private int numberOfCancelledEventsQueued;
+
+    /**
+     * Creates a VirtualTimeScheduler with a seed that all the randomness it hands out comes from
+     */
+    public VirtualTimeScheduler(long seed) {
+        this.seeds = new SplittableRandom(seed);
+    }
+
+    /**
+     * @return Clock that tells the virtual time, to be given to counters and anything else that should run in virtual
+     * time. Only the scheduler should advance it.
+     */
+    public ManualNanoClock getClock() {
+        return clock;
+    }
+
+    public long getTimeInNanoSeconds() {
+        return clock.nanoTime();
+    }
+
+    /**
+     * @return A new random number generator, the generators created by schedulers with the same seed generate the same
+     * numbers in the order they are created
+     */
+    public SplittableRandom createRandom() {
+        return new SplittableRandom(seeds.nextLong());
+    }
+
+    /**
+     * @return A new random time generator for the random target times of timers, the generators created by schedulers
+     * with the same seed generate the same times in the order they are created
+     */
+    public SeededRandomTimeGenerator createRandomTimeGenerator(RandomTimeGenerator.Distribution distribution) {
+        return new SeededRandomTimeGenerator(distribution, seeds.nextLong());
+    }
+
+    /**
+     * Schedules a task to run once after a delay of virtual time
+     */
+    public ScheduledTask schedule(long delayInNanoSeconds, Runnable task) {
+        if (delayInNanoSeconds < 0) {
+            throw new IllegalArgumentException("Delay has to be non negative (you passed " + delayInNanoSeconds + ")");
+        }
+        return scheduleTask(delayInNanoSeconds, 0, task);
+    }
+
+    /**
+     * Schedules a task to run after a delay of virtual time and then every period after that, until it is cancelled
+     */
+    public ScheduledTask scheduleAtFixedRate(long initialDelayInNanoSeconds, long periodInNanoSeconds,
+            Runnable task) {
+        if (initialDelayInNanoSeconds < 0) {
+            throw new IllegalArgumentException(
+                    "Initial delay has to be non negative (you passed " + initialDelayInNanoSeconds + ")");
+        }
+        if (periodInNanoSeconds <= 0) {
+            throw new IllegalArgumentException(
+                    "Period has to be greater than zero (you passed " + periodInNanoSeconds + ")");
+        }
+        return scheduleTask(initialDelayInNanoSeconds, periodInNanoSeconds, task);
+    }
+
+    private ScheduledTask scheduleTask(long delayInNanoSeconds, long periodInNanoSeconds, Runnable task) {
+        ScheduledTask scheduledTask = new ScheduledTask(this, Objects.requireNonNull(task, "task cannot be null"),
+                periodInNanoSeconds);
+        TaskEvent taskEvent = new TaskEvent(scheduledTask);
+        taskEvent.timeDueInNanoSeconds = timeAfter(delayInNanoSeconds);
+        enqueue(taskEvent);
+        return scheduledTask;
+    }
+
+    private long timeAfter(long delayInNanoSeconds) {
+        long time = getTimeInNanoSeconds() + delayInNanoSeconds;
+        // Overflowing means the event is so far off that it never happens
+        return time < getTimeInNanoSeconds() ? Long.MAX_VALUE : time;
+    }
+
+    private void enqueue(Event event) {
+        event.sequenceNumber = numberOfEventsScheduled++;
+        event.queued = true;
+        events.add(event);
+    }
+
+    private Event dequeue() {
+        Event event = events.poll();
+        event.queued = false;
+        return event;
+    }
+
+    /**
+     * Counts an event that was cancelled while queued, clearing every cancelled event out of the queue once they make
+     * up more than half of it, so a simulation that keeps changing timers doesn't grow the queue without bound
+     */
+    private void queuedEventCancelled() {
+        numberOfCancelledEventsQueued++;
+        if (numberOfCancelledEventsQueued > events.size() / 2) {
+            events.removeIf(Event::isCancelled);
+            numberOfCancelledEventsQueued = 0;
+        }
+    }
+
+    /**
+     * Registers a timer so it is advanced in virtual time by this scheduler from now on. A timer can only be
+     * registered with one scheduler.
+     */
+    public void register(ElapsedTimeTimer timer) {
+        Objects.requireNonNull(timer, "timer cannot be null");
+        if (timerEvents.containsKey(timer)) {
+            throw new IllegalArgumentException("Timer is already registered");
+        }
+        TimerEvent timerEvent = new TimerEvent(timer, getTimeInNanoSeconds());
+        timerEvents.put(timer, timerEvent);
+        // A timer whose target time has already been reached finishes now, the same as if time was added to it
+        timer.addElapsedTimeInNanoSeconds(0);
+        scheduleTimer(timerEvent);
+    }
+
+    /**
+     * Unregisters a timer, giving it all the virtual time that has elapsed since it was last updated by the scheduler
+     */
+    public void unregister(ElapsedTimeTimer timer) {
+        TimerEvent timerEvent = timerEvents.remove(Objects.requireNonNull(timer, "timer cannot be null"));
+        if (timerEvent == null) {
+            throw new IllegalArgumentException("Timer was not registered");
+        }
+        cancel(timerEvent);
+        giveTimerElapsedTime(timerEvent);
+    }
+
+    /**
+     * Changes a registered timer, such as setting a new target time or resetting its elapsed time. The timer is given
+     * all the virtual time that has elapsed since it was last updated by the scheduler before the change is made, and
+     * is scheduled by its new target time after.
+     */
+    public <T extends ElapsedTimeTimer> void changeTimer(T timer, Consumer<? super T> change) {
+        TimerEvent timerEvent = timerEvents.get(Objects.requireNonNull(timer, "timer cannot be null"));
+        if (timerEvent == null) {
+            throw new IllegalArgumentException("Timer was not registered");
+        }
+        giveTimerElapsedTime(timerEvent);
+        change.accept(timer);
+        // Like register, a change to an already reached target time finishes the timer now
+        timer.addElapsedTimeInNanoSeconds(0);
+        rescheduleTimer(timerEvent);
+    }
+
+    private void giveTimerElapsedTime(TimerEvent timerEvent) {
+        long timeSinceLastUpdate = getTimeInNanoSeconds() - timerEvent.timeOfLastUpdateInNanoSeconds;
+        timerEvent.timeOfLastUpdateInNanoSeconds = getTimeInNanoSeconds();
+        timerEvent.timer.addElapsedTimeInNanoSeconds(timeSinceLastUpdate);
+    }
+
+    /**
+     * Left in the queue if it's queued, but skipped when it comes up
+     */
+    private void cancel(TimerEvent timerEvent) {
+        timerEvent.cancelled = true;
+        if (timerEvent.queued) {
+            queuedEventCancelled();
+        }
+    }
+
+    /**
+     * Schedules a timer by its current target time, reusing its event unless the event is still queued, in which case
+     * it's replaced by a new one and skipped when it comes up
+     */
+    private void rescheduleTimer(TimerEvent timerEvent) {
+        if (timerEvents.get(timerEvent.timer) != timerEvent) {
+            return;
+        }
+        if (!timerEvent.queued) {
+            scheduleTimer(timerEvent);
+            return;
+        }
+        cancel(timerEvent);
+        TimerEvent newTimerEvent = new TimerEvent(timerEvent.timer, timerEvent.timeOfLastUpdateInNanoSeconds);
+        timerEvents.put(timerEvent.timer, newTimerEvent);
+        scheduleTimer(newTimerEvent);
+    }
+
+    private void scheduleTimer(TimerEvent timerEvent) {
+        ElapsedTimeTimer timer = timerEvent.timer;
+        if (timer.isTimerFinished()) {
+            // A finished ElapsedTimeTimer has nothing more to reach until it's changed
+            return;
+        }
+        long timeLeftUntilTarget = timer.getTargetTimeInNanoSeconds() - timer.getTotalElapsedTimeInNanoSeconds();
+        // An unfinished timer with no time left (a target time of zero) needs some time added to finish again
+        timerEvent.timeDueInNanoSeconds = timeAfter(Math.max(1, timeLeftUntilTarget));
+        enqueue(timerEvent);
+    }
+
+    /**
+     * Runs every event due within an amount of virtual time in order, moving the virtual time to each event's time as
+     * it runs and to the end of the amount of time after
+     *
+     * @return Number of events run
+     */
+    public long runFor(long durationInNanoSeconds) {
+        if (durationInNanoSeconds < 0) {
+            throw new IllegalArgumentException(
+                    "Duration has to be non negative (you passed " + durationInNanoSeconds + ")");
+        }
+        long endTime = timeAfter(durationInNanoSeconds);
+        long numberOfEventsRun = 0;
+        while (runNextEventDueBy(endTime)) {
+            numberOfEventsRun++;
+        }
+        clock.setNanoTime(endTime);
+        return numberOfEventsRun;
+    }
+
+    public long runForMilliseconds(long durationInMilliseconds) {
+        return runFor(ElapsedTimeTimer.millisecondsToNanoSeconds(durationInMilliseconds));
+    }
+
+    /**
+     * Moves the virtual time to the next event and runs it
+     *
+     * @return False if there are no events left to run
+     */
+    public boolean runNextEvent() {
+        return runNextEventDueBy(Long.MAX_VALUE);
+    }
+
+    private boolean runNextEventDueBy(long endTime) {
+        Event event;
+        while ((event = events.peek()) != null && event.isCancelled()) {
+            dequeue();
+            numberOfCancelledEventsQueued--;
+        }
+        if (event == null || event.timeDueInNanoSeconds > endTime) {
+            return false;
+        }
+        dequeue();
+        clock.setNanoTime(event.timeDueInNanoSeconds);
+        event.run(this);
+        return true;
+    }
+
+    public boolean isRegistered(ElapsedTimeTimer timer) {
+        return timerEvents.containsKey(timer);
+    }
+
+    public int getNumberOfRegisteredTimers() {
+        return timerEvents.size();
+    }
+
+    /**
+     * @return Number of events in the queue, including cancelled ones that haven't been cleared out yet
+     */
+    public int getNumberOfQueuedEvents() {
+        return events.size();
+    }
+
+    private abstract static class Event implements Comparable<Event> {
+        long timeDueInNanoSeconds;
+        long sequenceNumber;
+        boolean queued;
+
+        abstract void run(VirtualTimeScheduler scheduler);
+
+        abstract boolean isCancelled();
+
+        @Override
+        public int compareTo(Event other) {
+            int comparison = Long.compare(timeDueInNanoSeconds, other.timeDueInNanoSeconds);
+            return comparison != 0 ? comparison : Long.compare(sequenceNumber, other.sequenceNumber);
+        }
+    }
+
+    private static class TimerEvent extends Event {
+        private final ElapsedTimeTimer timer;
+        private long timeOfLastUpdateInNanoSeconds;
+        private boolean cancelled;
+
+        private TimerEvent(ElapsedTimeTimer timer, long timeOfLastUpdateInNanoSeconds) {
+            this.timer = timer;
+            this.timeOfLastUpdateInNanoSeconds = timeOfLastUpdateInNanoSeconds;
+        }
+
+        @Override
+        void run(VirtualTimeScheduler scheduler) {
+            scheduler.giveTimerElapsedTime(this);
+            // An observer may have unregistered or changed the timer, in which case it's already taken care of
+            if (!cancelled && !queued) {
+                scheduler.rescheduleTimer(this);
+            }
+        }
+
+        @Override
+        boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private static class TaskEvent extends Event {
+        private final ScheduledTask scheduledTask;
+
+        private TaskEvent(ScheduledTask scheduledTask) {
+            this.scheduledTask = scheduledTask;
+        }
+
+        @Override
+        void run(VirtualTimeScheduler scheduler) {
+            if (scheduledTask.periodInNanoSeconds > 0) {
+                // Scheduled again before running so the task can cancel itself
+                timeDueInNanoSeconds = scheduler.timeAfter(scheduledTask.periodInNanoSeconds);
+                scheduler.enqueue(this);
+            } else {
+                scheduledTask.done = true;
+            }
+            scheduledTask.task.run();
+        }
+
+        @Override
+        boolean isCancelled() {
+            return scheduledTask.cancelled;
+        }
+    }
+
+    /**
+     * A task scheduled to run in virtual time, which can be cancelled before it runs
+     */
+    public static class ScheduledTask {
+        private final VirtualTimeScheduler scheduler;
+        private final Runnable task;
+        private final long periodInNanoSeconds;
+        private boolean cancelled;
+        private boolean done;
+
+        private ScheduledTask(VirtualTimeScheduler scheduler, Runnable task, long periodInNanoSeconds) {
+            this.scheduler = scheduler;
+            this.task = task;
+            this.periodInNanoSeconds = periodInNanoSeconds;
+        }
+
+        /**
+         * Stops the task from running again
+         */
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            // A task that isn't done is always queued, a repeating task is queued again before it runs
+            if (!done) {
+                scheduler.queuedEventCancelled();
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @return True once a task that runs once has run
+         */
+        public boolean isDone() {
+            return done;
+        }
+    }
+}
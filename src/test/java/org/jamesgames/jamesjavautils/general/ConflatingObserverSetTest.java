@@ -0,0 +1,220 @@
+package org.jamesgames.jamesjavautils.general;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConflatingObserverSetTest {
+
+    private static interface PositionObserver {
+        public void positionChanged(int position);
+    }
+
+    private static class PositionRecorder implements PositionObserver {
+        private final List<Integer> positions = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void positionChanged(int position) {
+            positions.add(position);
+        }
+    }
+
+    /**
+     * Executor that only runs what it was given when asked to, to control when observers are informed
+     */
+    private static class ManualExecutor implements Executor {
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        private void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+    }
+
+    private final ConflatingObserverSet<PositionObserver> observerSet = new ConflatingObserverSet<>();
+    private final ManualExecutor manualExecutor = new ManualExecutor();
+    private final PositionRecorder positionRecorder = new PositionRecorder();
+
+    @Test
+    public void testOnlyLatestEventIsDelivered() throws Exception {
+        observerSet.addObserver(positionRecorder, manualExecutor);
+        for (int position = 1; position <= 5; position++) {
+            int newPosition = position;
+            observerSet.informObservers(observer -> observer.positionChanged(newPosition));
+        }
+        assertEquals(1, manualExecutor.tasks.size());
+        manualExecutor.runAll();
+        assertEquals(Collections.singletonList(5), positionRecorder.positions);
+        assertEquals(4, observerSet.getNumberOfConflatedEvents());
+    }
+
+    @Test
+    public void testEachDeliveredEventIsInformedOnce() throws Exception {
+        observerSet.addObserver(positionRecorder, manualExecutor);
+        observerSet.informObservers(observer -> observer.positionChanged(1));
+        manualExecutor.runAll();
+        observerSet.informObservers(observer -> observer.positionChanged(2));
+        manualExecutor.runAll();
+        manualExecutor.runAll();
+        assertEquals(Arrays.asList(1, 2), positionRecorder.positions);
+        assertEquals(0, observerSet.getNumberOfConflatedEvents());
+    }
+
+    @Test
+    public void testEventPublishedWhileInformingIsDelivered() throws Exception {
+        PositionObserver republishingObserver = new PositionObserver() {
+            @Override
+            public void positionChanged(int position) {
+                positionRecorder.positionChanged(position);
+                if (position == 1) {
+                    observerSet.informObservers(observer -> observer.positionChanged(2));
+                }
+            }
+        };
+        observerSet.addObserver(republishingObserver, manualExecutor);
+        observerSet.informObservers(observer -> observer.positionChanged(1));
+        manualExecutor.runAll();
+        assertEquals(Arrays.asList(1, 2), positionRecorder.positions);
+    }
+
+    @Test
+    public void testRemovedObserverIsNotInformedOfPendingEvent() throws Exception {
+        observerSet.addObserver(positionRecorder, manualExecutor);
+        observerSet.informObservers(observer -> observer.positionChanged(1));
+        observerSet.removeObserver(positionRecorder);
+        manualExecutor.runAll();
+        assertTrue(positionRecorder.positions.isEmpty());
+        assertEquals(0, observerSet.getNumberOfObservers());
+    }
+
+    @Test
+    public void testRejectedObserverDoesNotStopOtherObserversFromBeingInformed() throws Exception {
+        AtomicBoolean rejecting = new AtomicBoolean(true);
+        PositionRecorder rejectedRecorder = new PositionRecorder();
+        observerSet.addObserver(rejectedRecorder, command -> {
+            if (rejecting.get()) {
+                throw new RejectedExecutionException();
+            }
+            command.run();
+        });
+        observerSet.addObserver(positionRecorder, manualExecutor);
+        try {
+            observerSet.informObservers(observer -> observer.positionChanged(1));
+            fail("Expected the rejection to be thrown");
+        } catch (RejectedExecutionException e) {
+            // Expected
+        }
+        manualExecutor.runAll();
+        assertEquals(Collections.singletonList(1), positionRecorder.positions);
+        rejecting.set(false);
+        observerSet.informObservers(observer -> observer.positionChanged(2));
+        // The rejected event was still pending, and was conflated by the newer one
+        assertEquals(Collections.singletonList(2), rejectedRecorder.positions);
+        assertEquals(1, observerSet.getNumberOfConflatedEvents());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddSameObserverTwice() throws Exception {
+        observerSet.addObserver(positionRecorder, manualExecutor);
+        observerSet.addObserver(positionRecorder, manualExecutor);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRemoveObserverWithoutAdding() throws Exception {
+        observerSet.removeObserver(positionRecorder);
+    }
+
+    @Test
+    public void testSlowObserverDoesNotHoldUpFastObserver() throws Exception {
+        ExecutorService slowExecutor = Executors.newSingleThreadExecutor();
+        ExecutorService fastExecutor = Executors.newSingleThreadExecutor();
+        CountDownLatch slowObserverStarted = new CountDownLatch(1);
+        CountDownLatch slowObserverMayContinue = new CountDownLatch(1);
+        CountDownLatch slowObserverSawLastPosition = new CountDownLatch(1);
+        PositionRecorder slowRecorder = new PositionRecorder();
+        observerSet.addObserver(position -> {
+            slowObserverStarted.countDown();
+            try {
+                slowObserverMayContinue.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            slowRecorder.positionChanged(position);
+            if (position == 1000) {
+                slowObserverSawLastPosition.countDown();
+            }
+        }, slowExecutor);
+        CountDownLatch fastObserverSawLastPosition = new CountDownLatch(1);
+        observerSet.addObserver(position -> {
+            positionRecorder.positionChanged(position);
+            if (position == 1000) {
+                fastObserverSawLastPosition.countDown();
+            }
+        }, fastExecutor);
+        observerSet.informObservers(observer -> observer.positionChanged(1));
+        assertTrue(slowObserverStarted.await(10, TimeUnit.SECONDS));
+        for (int position = 2; position <= 1000; position++) {
+            int newPosition = position;
+            observerSet.informObservers(observer -> observer.positionChanged(newPosition));
+        }
+        assertTrue(fastObserverSawLastPosition.await(10, TimeUnit.SECONDS));
+        slowObserverMayContinue.countDown();
+        assertTrue(slowObserverSawLastPosition.await(10, TimeUnit.SECONDS));
+        slowExecutor.shutdown();
+        fastExecutor.shutdown();
+        // The slow observer was stuck on the first position, and everything after it conflated into the last one
+        assertEquals(Arrays.asList(1, 1000), slowRecorder.positions);
+        assertTrue(observerSet.getNumberOfConflatedEvents() >= 998);
+    }
+
+    @Test
+    public void testObserverIsNeverInformedConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        AtomicInteger observersInforming = new AtomicInteger();
+        AtomicBoolean informedConcurrently = new AtomicBoolean();
+        CountDownLatch sawLastPosition = new CountDownLatch(1);
+        List<Integer> positions = Collections.synchronizedList(new ArrayList<>());
+        observerSet.addObserver(position -> {
+            if (observersInforming.incrementAndGet() > 1) {
+                informedConcurrently.set(true);
+            }
+            positions.add(position);
+            observersInforming.decrementAndGet();
+            if (position == 10_000) {
+                sawLastPosition.countDown();
+            }
+        }, executor);
+        for (int position = 1; position <= 10_000; position++) {
+            int newPosition = position;
+            observerSet.informObservers(observer -> observer.positionChanged(newPosition));
+        }
+        assertTrue(sawLastPosition.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertFalse(informedConcurrently.get());
+        for (int i = 1; i < positions.size(); i++) {
+            assertTrue(positions.get(i) > positions.get(i - 1));
+        }
+    }
+}
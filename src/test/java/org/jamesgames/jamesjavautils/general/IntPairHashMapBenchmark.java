@@ -0,0 +1,175 @@
+package org.jamesgames.jamesjavautils.general;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntSupplier;
+
+/**
+ * Compares the IntPair hash maps and set with {@link java.util.HashMap} and {@link java.util.HashSet} keyed on {@link
+ * org.jamesgames.jamesjavautils.general.IntPair}, for a grid of tiles filled in and then looked up, printing the time
+ * and (where the JVM can tell, otherwise a question mark) the bytes allocated per operation. Not a test, run it on its
+ * own with enough warm up for the numbers to settle, for example {@code mvn test-compile exec:java
+ * -Dexec.classpathScope=test -Dexec.mainClass=org.jamesgames.jamesjavautils.general.IntPairHashMapBenchmark}.
+ *
+ * @author James Murphy
+ */
+public class IntPairHashMapBenchmark {
+    private static final int gridSize = 512;
+    private static final int lookupsPerRound = 4_000_000;
+    private static final int warmUpRounds = 5;
+    private static final int measuredRounds = 5;
+
+    /**
+     * Result of every round, kept so the JIT can't remove the work being measured
+     */
+    private static long blackHole;
+
+    public static void main(String[] args) {
+        System.out.println("Grid of " + gridSize + "x" + gridSize + " tiles, " + lookupsPerRound +
+                " lookups per round");
+        run("HashMap<IntPair, Integer> fill", IntPairHashMapBenchmark::fillHashMap, gridSize * gridSize);
+        run("IntPairHashMap<Integer> fill", IntPairHashMapBenchmark::fillIntPairHashMap, gridSize * gridSize);
+        run("IntPairIntHashMap fill", IntPairHashMapBenchmark::fillIntPairIntHashMap, gridSize * gridSize);
+
+        Map<IntPair, Integer> hashMap = new HashMap<>();
+        IntPairHashMap<Integer> intPairHashMap = new IntPairHashMap<>();
+        IntPairIntHashMap intPairIntHashMap = new IntPairIntHashMap();
+        Set<IntPair> hashSet = new HashSet<>();
+        IntPairHashSet intPairHashSet = new IntPairHashSet();
+        for (int x = 0; x < gridSize; x++) {
+            for (int y = 0; y < gridSize; y++) {
+                Integer value = x ^ y;
+                hashMap.put(new IntPair(x, y), value);
+                intPairHashMap.put(x, y, value);
+                intPairIntHashMap.put(x, y, value);
+                hashSet.add(new IntPair(x, y));
+                intPairHashSet.add(x, y);
+            }
+        }
+        run("HashMap<IntPair, Integer> get", () -> {
+            int sum = 0;
+            for (int i = 0; i < lookupsPerRound; i++) {
+                Integer value = hashMap.get(new IntPair(tileX(i), tileY(i)));
+                sum += value == null ? 0 : value;
+            }
+            return sum;
+        }, lookupsPerRound);
+        run("IntPairHashMap<Integer> get", () -> {
+            int sum = 0;
+            for (int i = 0; i < lookupsPerRound; i++) {
+                Integer value = intPairHashMap.get(tileX(i), tileY(i));
+                sum += value == null ? 0 : value;
+            }
+            return sum;
+        }, lookupsPerRound);
+        run("IntPairIntHashMap get", () -> {
+            int sum = 0;
+            for (int i = 0; i < lookupsPerRound; i++) {
+                sum += intPairIntHashMap.get(tileX(i), tileY(i));
+            }
+            return sum;
+        }, lookupsPerRound);
+        run("HashSet<IntPair> contains", () -> {
+            int found = 0;
+            for (int i = 0; i < lookupsPerRound; i++) {
+                found += hashSet.contains(new IntPair(tileX(i), tileY(i))) ? 1 : 0;
+            }
+            return found;
+        }, lookupsPerRound);
+        run("IntPairHashSet contains", () -> {
+            int found = 0;
+            for (int i = 0; i < lookupsPerRound; i++) {
+                found += intPairHashSet.contains(tileX(i), tileY(i)) ? 1 : 0;
+            }
+            return found;
+        }, lookupsPerRound);
+        run("IntPairIntHashMap forEach", () -> {
+            int[] sum = new int[1];
+            intPairIntHashMap.forEach((x, y, value) -> sum[0] += value);
+            return sum[0];
+        }, gridSize * gridSize);
+        System.out.println("(ignore: " + blackHole + ")");
+    }
+
+    /**
+     * Tiles are visited in a scattered order, with some just off the grid so that misses are measured too
+     */
+    private static int tileX(int i) {
+        // In longs, as i times the prime overflows an int and would make most tiles negative
+        return (int) ((long) i * 7919 % (gridSize + 16)) - 8;
+    }
+
+    private static int tileY(int i) {
+        return (int) ((long) i * 104729 % (gridSize + 16)) - 8;
+    }
+
+    private static int fillHashMap() {
+        Map<IntPair, Integer> map = new HashMap<>();
+        for (int x = 0; x < gridSize; x++) {
+            for (int y = 0; y < gridSize; y++) {
+                map.put(new IntPair(x, y), x);
+            }
+        }
+        return map.size();
+    }
+
+    private static int fillIntPairHashMap() {
+        IntPairHashMap<Integer> map = new IntPairHashMap<>();
+        for (int x = 0; x < gridSize; x++) {
+            for (int y = 0; y < gridSize; y++) {
+                map.put(x, y, x);
+            }
+        }
+        return map.size();
+    }
+
+    private static int fillIntPairIntHashMap() {
+        IntPairIntHashMap map = new IntPairIntHashMap();
+        for (int x = 0; x < gridSize; x++) {
+            for (int y = 0; y < gridSize; y++) {
+                map.put(x, y, x);
+            }
+        }
+        return map.size();
+    }
+
+    private static void run(String name, IntSupplier round, int operationsPerRound) {
+        for (int i = 0; i < warmUpRounds; i++) {
+            blackHole += round.getAsInt();
+        }
+        long allocatedBytesBefore = getAllocatedBytesOfThread();
+        long startTime = System.nanoTime();
+        for (int i = 0; i < measuredRounds; i++) {
+            blackHole += round.getAsInt();
+        }
+        long elapsedTime = System.nanoTime() - startTime;
+        long allocatedBytesAfter = getAllocatedBytesOfThread();
+        long operations = (long) operationsPerRound * measuredRounds;
+        // Either reading being unknown means nothing is known about the allocations, which isn't the same as none
+        String allocatedBytesPerOperation = allocatedBytesBefore < 0 || allocatedBytesAfter < 0 ? "? B/op" :
+                String.format("%.2f B/op", (allocatedBytesAfter - allocatedBytesBefore) / (double) operations);
+        System.out.printf("%-32s %8.2f ns/op %10s%n", name, elapsedTime / (double) operations,
+                allocatedBytesPerOperation);
+    }
+
+    /**
+     * @return Bytes allocated by the current thread so far, or -1 if the JVM doesn't measure it (or has it disabled)
+     */
+    private static long getAllocatedBytesOfThread() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        if (!allocationMXBean.isThreadAllocatedMemorySupported() ||
+                !allocationMXBean.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        // Still -1 if measuring was disabled in between
+        return allocationMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
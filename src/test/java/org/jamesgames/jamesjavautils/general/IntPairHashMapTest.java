@@ -0,0 +1,120 @@
+package org.jamesgames.jamesjavautils.general;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class IntPairHashMapTest {
+
+    private final IntPairHashMap<String> map = new IntPairHashMap<>();
+
+    @Test
+    public void testPutAndGet() throws Exception {
+        assertNull(map.put(5, 9, "a"));
+        assertEquals("a", map.get(5, 9));
+        assertEquals("a", map.put(5, 9, "b"));
+        assertEquals("b", map.get(IntPair.pack(5, 9)));
+        assertNull(map.get(9, 5));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testZeroKey() throws Exception {
+        map.put(0, 0, "origin");
+        map.put(0, 1, "above");
+        assertTrue(map.containsKey(0, 0));
+        assertEquals("origin", map.get(0, 0));
+        assertEquals("origin", map.remove(0, 0));
+        assertFalse(map.containsKey(0, 0));
+        assertEquals("above", map.get(0, 1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testNegativeAndExtremeKeys() throws Exception {
+        map.put(-1, -1, "a");
+        map.put(Integer.MIN_VALUE, Integer.MAX_VALUE, "b");
+        map.put(Integer.MAX_VALUE, Integer.MIN_VALUE, "c");
+        assertEquals("a", map.get(-1, -1));
+        assertEquals("b", map.get(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertEquals("c", map.get(Integer.MAX_VALUE, Integer.MIN_VALUE));
+        assertNull(map.get(-1, 0));
+    }
+
+    @Test
+    public void testGrowing() throws Exception {
+        IntPairHashMap<Integer> growingMap = new IntPairHashMap<>(0, 0.9f);
+        for (int x = -50; x < 50; x++) {
+            for (int y = -50; y < 50; y++) {
+                growingMap.put(x, y, x * 1000 + y);
+            }
+        }
+        assertEquals(10_000, growingMap.size());
+        for (int x = -50; x < 50; x++) {
+            for (int y = -50; y < 50; y++) {
+                assertEquals(Integer.valueOf(x * 1000 + y), growingMap.get(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesHashMapThroughRandomChanges() throws Exception {
+        Random random = new Random(7);
+        Map<IntPair, Integer> expected = new HashMap<>();
+        IntPairHashMap<Integer> actual = new IntPairHashMap<>(4);
+        for (int i = 0; i < 100_000; i++) {
+            // A small range of keys so that removals often hit and probe chains get long
+            int x = random.nextInt(40) - 20;
+            int y = random.nextInt(40) - 20;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(new IntPair(x, y)), actual.remove(x, y));
+            } else {
+                assertEquals(expected.put(new IntPair(x, y), i), actual.put(x, y, i));
+            }
+        }
+        assertEquals(expected.size(), actual.size());
+        for (Map.Entry<IntPair, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), actual.get(entry.getKey().getX(), entry.getKey().getY()));
+        }
+    }
+
+    @Test
+    public void testForEach() throws Exception {
+        map.put(1, 2, "a");
+        map.put(0, 0, "b");
+        map.put(-3, 4, "c");
+        Map<IntPair, String> entries = new HashMap<>();
+        map.forEach((x, y, value) -> entries.put(new IntPair(x, y), value));
+        assertEquals(3, entries.size());
+        assertEquals("a", entries.get(new IntPair(1, 2)));
+        assertEquals("b", entries.get(new IntPair(0, 0)));
+        assertEquals("c", entries.get(new IntPair(-3, 4)));
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        map.put(1, 2, "a");
+        map.put(0, 0, "b");
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1, 2));
+        assertNull(map.get(0, 0));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullValue() throws Exception {
+        map.put(1, 2, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoadFactorTooHigh() throws Exception {
+        new IntPairHashMap<String>(16, 1f);
+    }
+}
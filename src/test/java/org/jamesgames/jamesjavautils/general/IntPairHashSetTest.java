@@ -0,0 +1,57 @@
+package org.jamesgames.jamesjavautils.general;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IntPairHashSetTest {
+
+    private final IntPairHashSet set = new IntPairHashSet();
+
+    @Test
+    public void testAddContainsRemove() throws Exception {
+        assertTrue(set.add(5, 9));
+        assertFalse(set.add(5, 9));
+        assertTrue(set.contains(5, 9));
+        assertTrue(set.contains(IntPair.pack(5, 9)));
+        assertFalse(set.contains(9, 5));
+        assertTrue(set.remove(5, 9));
+        assertFalse(set.remove(5, 9));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void testZeroPair() throws Exception {
+        assertTrue(set.add(0, 0));
+        assertTrue(set.contains(0, 0));
+        assertEquals(1, set.size());
+        assertTrue(set.remove(0, 0));
+        assertFalse(set.contains(0, 0));
+    }
+
+    @Test
+    public void testMatchesHashSetThroughRandomChanges() throws Exception {
+        Random random = new Random(13);
+        Set<IntPair> expected = new HashSet<>();
+        IntPairHashSet actual = new IntPairHashSet(2, 0.8f);
+        for (int i = 0; i < 100_000; i++) {
+            int x = random.nextInt(40) - 20;
+            int y = random.nextInt(40) - 20;
+            if (random.nextBoolean()) {
+                assertEquals(expected.remove(new IntPair(x, y)), actual.remove(x, y));
+            } else {
+                assertEquals(expected.add(new IntPair(x, y)), actual.add(x, y));
+            }
+        }
+        Set<IntPair> actualPairs = new HashSet<>();
+        actual.forEach((x, y) -> actualPairs.add(new IntPair(x, y)));
+        assertEquals(expected, actualPairs);
+        assertEquals(expected.size(), actual.size());
+    }
+}
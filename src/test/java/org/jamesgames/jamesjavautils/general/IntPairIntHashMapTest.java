@@ -0,0 +1,66 @@
+package org.jamesgames.jamesjavautils.general;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IntPairIntHashMapTest {
+
+    private final IntPairIntHashMap map = new IntPairIntHashMap();
+
+    @Test
+    public void testPutAndGet() throws Exception {
+        assertEquals(0, map.put(5, 9, 3));
+        assertEquals(3, map.get(5, 9));
+        assertEquals(3, map.put(5, 9, 4));
+        assertEquals(0, map.get(9, 5));
+        assertTrue(map.containsKey(5, 9));
+        assertFalse(map.containsKey(9, 5));
+    }
+
+    @Test
+    public void testNoEntryValue() throws Exception {
+        IntPairIntHashMap mapWithNoEntryValue = new IntPairIntHashMap(16, 0.5f, -1);
+        assertEquals(-1, mapWithNoEntryValue.get(1, 1));
+        assertEquals(-1, mapWithNoEntryValue.put(1, 1, 5));
+        assertEquals(5, mapWithNoEntryValue.remove(1, 1));
+        assertEquals(-1, mapWithNoEntryValue.remove(1, 1));
+    }
+
+    @Test
+    public void testAddTo() throws Exception {
+        assertEquals(2, map.addTo(0, 0, 2));
+        assertEquals(5, map.addTo(0, 0, 3));
+        assertEquals(1, map.addTo(7, -7, 1));
+        assertEquals(5, map.get(0, 0));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void testMatchesHashMapThroughRandomChanges() throws Exception {
+        Random random = new Random(11);
+        Map<IntPair, Integer> expected = new HashMap<>();
+        IntPairIntHashMap actual = new IntPairIntHashMap(0, 0.75f, 0);
+        for (int i = 0; i < 100_000; i++) {
+            int x = random.nextInt(40) - 20;
+            int y = random.nextInt(40) - 20;
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(new IntPair(x, y));
+                assertEquals(removed == null ? 0 : removed, actual.remove(x, y));
+            } else {
+                expected.merge(new IntPair(x, y), 1, Integer::sum);
+                actual.addTo(x, y, 1);
+            }
+        }
+        assertEquals(expected.size(), actual.size());
+        Map<IntPair, Integer> actualEntries = new HashMap<>();
+        actual.forEach((x, y, value) -> actualEntries.put(new IntPair(x, y), value));
+        assertEquals(expected, actualEntries);
+    }
+}
@@ -1,10 +1,20 @@
 package org.jamesgames.jamesjavautils.general;
 
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
 import org.junit.Test;
+import org.junit.runner.RunWith;
 
-import static org.junit.Assert.assertEquals;
+import java.util.HashMap;
+import java.util.Map;
 
+import static junitparams.JUnitParamsRunner.$;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
+@RunWith(JUnitParamsRunner.class)
 public class IntPairTest {
 
     private final IntPair pair =
@@ -19,4 +29,56 @@ public class IntPairTest {
     public void testYRetrieval() throws Exception {
         assertEquals(9, pair.getY());
     }
+
+    @Test
+    public void testEqualsAndHashCode() throws Exception {
+        IntPair samePair = new IntPair(5, 9);
+        assertEquals(pair, samePair);
+        assertEquals(pair.hashCode(), samePair.hashCode());
+        assertNotEquals(pair, new IntPair(9, 5));
+        assertNotEquals(pair, new IntPair(5, 10));
+        assertNotEquals(pair, null);
+    }
+
+    @Test
+    public void testUsableAsHashMapKey() throws Exception {
+        Map<IntPair, String> map = new HashMap<>();
+        map.put(pair, "value");
+        assertEquals("value", map.get(new IntPair(5, 9)));
+    }
+
+    @Test
+    @Parameters(method = "packTestValues")
+    public void testPackAndUnpack(int x, int y) throws Exception {
+        long packedPair = IntPair.pack(x, y);
+        assertEquals(x, IntPair.unpackX(packedPair));
+        assertEquals(y, IntPair.unpackY(packedPair));
+        assertEquals(new IntPair(x, y), IntPair.valueOf(packedPair));
+        assertEquals(packedPair, new IntPair(x, y).toPackedLong());
+    }
+
+    private Object[] packTestValues() {
+        return $($(0, 0), $(5, 9), $(-1, -1), $(-1, 0), $(0, -1), $(Integer.MIN_VALUE, Integer.MAX_VALUE),
+                $(Integer.MAX_VALUE, Integer.MIN_VALUE), $(-123456, 654321));
+    }
+
+    @Test
+    public void testPackedPairsAreUnique() throws Exception {
+        assertNotEquals(IntPair.pack(0, -1), IntPair.pack(-1, 0));
+        assertNotEquals(IntPair.pack(1, 0), IntPair.pack(0, 1));
+    }
+
+    @Test
+    public void testValueOfCachesSmallPairs() throws Exception {
+        assertSame(IntPair.valueOf(5, 9), IntPair.valueOf(5, 9));
+        assertSame(IntPair.valueOf(-32, 127), IntPair.valueOf(-32, 127));
+        assertNotSame(IntPair.valueOf(128, 0), IntPair.valueOf(128, 0));
+        assertNotSame(IntPair.valueOf(0, -33), IntPair.valueOf(0, -33));
+        assertEquals(new IntPair(128, 0), IntPair.valueOf(128, 0));
+    }
+
+    @Test
+    public void testToString() throws Exception {
+        assertEquals("(5, 9)", pair.toString());
+    }
 }
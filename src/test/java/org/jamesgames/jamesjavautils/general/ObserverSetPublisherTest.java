@@ -0,0 +1,279 @@
+package org.jamesgames.jamesjavautils.general;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ObserverSetPublisherTest {
+
+    private static interface PositionObserver {
+        public void positionChanged(int position);
+    }
+
+    /**
+     * Subscriber that records what it's sent, and only requests events when told to
+     */
+    private static class RecordingSubscriber implements Flow.Subscriber<Integer> {
+        private final List<Integer> events = Collections.synchronizedList(new ArrayList<>());
+        private volatile Flow.Subscription subscription;
+        private volatile Throwable error;
+        private volatile boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            events.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    private static final Executor callingThreadExecutor = Runnable::run;
+    private static final Function<Consumer<Integer>, PositionObserver> positionObserverFactory =
+            eventSink -> eventSink::accept;
+
+    private final ObserverSet<PositionObserver> positionObservers = new ObserverSet<>();
+    private final RecordingSubscriber subscriber = new RecordingSubscriber();
+
+    private ObserverSetPublisher<Integer> createPublisher(ObserverSetPublisher.OverflowPolicy overflowPolicy) {
+        return new ObserverSetPublisher<>(positionObservers, positionObserverFactory, callingThreadExecutor, 3,
+                overflowPolicy);
+    }
+
+    private void informPositions(int... positions) {
+        for (int position : positions) {
+            positionObservers.informObservers(observer -> observer.positionChanged(position));
+        }
+    }
+
+    @Test
+    public void testEventsAreOnlySentAsRequested() throws Exception {
+        ObserverSetPublisher<Integer> publisher = createPublisher(ObserverSetPublisher.OverflowPolicy.dropNewest);
+        publisher.subscribe(subscriber);
+        informPositions(1, 2, 3);
+        assertTrue(subscriber.events.isEmpty());
+        assertEquals(3, publisher.getNumberOfBufferedEvents());
+        subscriber.subscription.request(2);
+        assertEquals(Arrays.asList(1, 2), subscriber.events);
+        assertEquals(1, publisher.getSubscriptionSnapshots().get(0).getBufferOccupancy());
+        subscriber.subscription.request(5);
+        informPositions(4);
+        assertEquals(Arrays.asList(1, 2, 3, 4), subscriber.events);
+        assertEquals(3, publisher.getSubscriptionSnapshots().get(0).getDemand());
+    }
+
+    @Test
+    public void testDropNewest() throws Exception {
+        ObserverSetPublisher<Integer> publisher = createPublisher(ObserverSetPublisher.OverflowPolicy.dropNewest);
+        publisher.subscribe(subscriber);
+        informPositions(1, 2, 3, 4, 5);
+        subscriber.subscription.request(10);
+        assertEquals(Arrays.asList(1, 2, 3), subscriber.events);
+        assertEquals(2, publisher.getNumberOfDroppedEvents());
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        ObserverSetPublisher<Integer> publisher = createPublisher(ObserverSetPublisher.OverflowPolicy.dropOldest);
+        publisher.subscribe(subscriber);
+        informPositions(1, 2, 3, 4, 5);
+        assertEquals(2, publisher.getSubscriptionSnapshots().get(0).getNumberOfDroppedEvents());
+        subscriber.subscription.request(10);
+        assertEquals(Arrays.asList(3, 4, 5), subscriber.events);
+    }
+
+    @Test
+    public void testErrorEndsSubscription() throws Exception {
+        ObserverSetPublisher<Integer> publisher = createPublisher(ObserverSetPublisher.OverflowPolicy.error);
+        publisher.subscribe(subscriber);
+        informPositions(1, 2, 3, 4);
+        assertTrue(subscriber.error instanceof IllegalStateException);
+        assertEquals(0, publisher.getNumberOfSubscribers());
+        subscriber.subscription.request(10);
+        assertTrue(subscriber.events.isEmpty());
+    }
+
+    @Test
+    public void testBlockWaitsForSubscriberToMakeRoom() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        ObserverSetPublisher<Integer> publisher = new ObserverSetPublisher<>(positionObservers,
+                positionObserverFactory, executor, 2, ObserverSetPublisher.OverflowPolicy.block);
+        CountDownLatch allEventsSent = new CountDownLatch(1000);
+        publisher.subscribe(new Flow.Subscriber<Integer>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(Integer item) {
+                subscriber.onNext(item);
+                allEventsSent.countDown();
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        for (int position = 0; position < 1000; position++) {
+            informPositions(position);
+            assertTrue(publisher.getNumberOfBufferedEvents() <= 2);
+        }
+        assertTrue(allEventsSent.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(0, publisher.getNumberOfDroppedEvents());
+        for (int position = 0; position < 1000; position++) {
+            assertEquals(Integer.valueOf(position), subscriber.events.get(position));
+        }
+    }
+
+    @Test
+    public void testCloseCompletesAfterBufferedEvents() throws Exception {
+        ObserverSetPublisher<Integer> publisher = createPublisher(ObserverSetPublisher.OverflowPolicy.dropNewest);
+        publisher.subscribe(subscriber);
+        informPositions(1, 2);
+        publisher.close();
+        assertEquals(0, positionObservers.getNumberOfObservers());
+        assertFalse(subscriber.completed);
+        subscriber.subscription.request(2);
+        assertEquals(Arrays.asList(1, 2), subscriber.events);
+        assertTrue(subscriber.completed);
+        assertEquals(0, publisher.getNumberOfSubscribers());
+    }
+
+    @Test
+    public void testObserverEventsAfterCloseAreDropped() throws Exception {
+        AtomicReference<Consumer<Integer>> eventSink = new AtomicReference<>();
+        ObserverSetPublisher<Integer> publisher = new ObserverSetPublisher<>(positionObservers, sink -> {
+            eventSink.set(sink);
+            return sink::accept;
+        }, callingThreadExecutor, 3, ObserverSetPublisher.OverflowPolicy.dropNewest);
+        publisher.subscribe(subscriber);
+        publisher.close();
+        // As if the observed set was still part way through informing the publisher's observer when it was closed
+        eventSink.get().accept(1);
+        subscriber.subscription.request(10);
+        assertTrue(subscriber.events.isEmpty());
+        assertTrue(subscriber.completed);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSubmitAfterCloseIsAnError() throws Exception {
+        ObserverSetPublisher<Integer> publisher = createPublisher(ObserverSetPublisher.OverflowPolicy.dropNewest);
+        publisher.close();
+        publisher.submit(1);
+    }
+
+    @Test
+    public void testRejectedSendingEndsSubscriptionWithError() throws Exception {
+        AtomicBoolean rejecting = new AtomicBoolean();
+        ObserverSetPublisher<Integer> publisher = new ObserverSetPublisher<>(positionObservers,
+                positionObserverFactory, rejectingWhenTold(rejecting), 3, ObserverSetPublisher.OverflowPolicy.block);
+        publisher.subscribe(subscriber);
+        informPositions(1, 2, 3);
+        Thread blockedSubmitter = new Thread(() -> informPositions(4));
+        blockedSubmitter.start();
+        while (blockedSubmitter.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        rejecting.set(true);
+        subscriber.subscription.request(1);
+        assertTrue(subscriber.error instanceof RejectedExecutionException);
+        assertEquals(0, publisher.getNumberOfSubscribers());
+        // The submitter blocked on the full buffer is let go rather than waiting for a subscription that has ended
+        blockedSubmitter.join(10_000);
+        assertFalse(blockedSubmitter.isAlive());
+        publisher.close();
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void testRejectedSubscribeStillSendsSubscriptionBeforeError() throws Exception {
+        AtomicBoolean rejecting = new AtomicBoolean(true);
+        ObserverSetPublisher<Integer> publisher = new ObserverSetPublisher<>(positionObservers,
+                positionObserverFactory, rejectingWhenTold(rejecting), 3, ObserverSetPublisher.OverflowPolicy.block);
+        publisher.subscribe(subscriber);
+        assertTrue(subscriber.subscription != null);
+        assertTrue(subscriber.error instanceof RejectedExecutionException);
+        assertEquals(0, publisher.getNumberOfSubscribers());
+    }
+
+    private static Executor rejectingWhenTold(AtomicBoolean rejecting) {
+        return command -> {
+            if (rejecting.get()) {
+                throw new RejectedExecutionException();
+            }
+            command.run();
+        };
+    }
+
+    @Test
+    public void testCancelStopsEvents() throws Exception {
+        ObserverSetPublisher<Integer> publisher = createPublisher(ObserverSetPublisher.OverflowPolicy.dropNewest);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(10);
+        informPositions(1);
+        subscriber.subscription.cancel();
+        informPositions(2);
+        assertEquals(Collections.singletonList(1), subscriber.events);
+        assertEquals(0, publisher.getNumberOfSubscribers());
+    }
+
+    @Test
+    public void testRequestingZeroIsAnError() throws Exception {
+        ObserverSetPublisher<Integer> publisher = createPublisher(ObserverSetPublisher.OverflowPolicy.dropNewest);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(0);
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testEachSubscriberHasItsOwnBuffer() throws Exception {
+        ObserverSetPublisher<Integer> publisher = createPublisher(ObserverSetPublisher.OverflowPolicy.dropNewest);
+        RecordingSubscriber otherSubscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+        publisher.subscribe(otherSubscriber, 10, ObserverSetPublisher.OverflowPolicy.dropNewest);
+        informPositions(1, 2, 3, 4, 5);
+        subscriber.subscription.request(10);
+        otherSubscriber.subscription.request(10);
+        assertEquals(Arrays.asList(1, 2, 3), subscriber.events);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), otherSubscriber.events);
+    }
+}
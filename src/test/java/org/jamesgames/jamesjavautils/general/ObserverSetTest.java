@@ -2,7 +2,21 @@ package org.jamesgames.jamesjavautils.general;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class ObserverSetTest {
 
@@ -83,4 +97,305 @@ public class ObserverSetTest {
         assertEquals(1, exampleObserverA.timesInformed);
         assertEquals(2, exampleObserverB.timesInformed);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCopyOnWriteInformObservers() throws Exception {
+        ObserverSet<ExampleObserver> copyOnWriteSet = new ObserverSet<>(ObserverSet.DispatchMode.copyOnWrite);
+        copyOnWriteSet.addObserver(exampleObserverA);
+        copyOnWriteSet.addObserver(exampleObserverB);
+        copyOnWriteSet.informObservers(ExampleObserver::someEvent);
+        assertEquals(1, exampleObserverA.timesInformed);
+        assertEquals(1, exampleObserverB.timesInformed);
+        copyOnWriteSet.removeObserver(exampleObserverA);
+        copyOnWriteSet.informObservers(ExampleObserver::someEvent);
+        assertEquals(1, exampleObserverA.timesInformed);
+        assertEquals(2, exampleObserverB.timesInformed);
+        assertEquals(1, copyOnWriteSet.getNumberOfObservers());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCopyOnWriteAddSameObserverTwice() throws Exception {
+        ObserverSet<ExampleObserver> copyOnWriteSet = new ObserverSet<>(ObserverSet.DispatchMode.copyOnWrite);
+        copyOnWriteSet.addObserver(exampleObserverA);
+        copyOnWriteSet.addObserver(exampleObserverA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCopyOnWriteRemoveObserverWithoutAdding() throws Exception {
+        new ObserverSet<ExampleObserver>(ObserverSet.DispatchMode.copyOnWrite).removeObserver(exampleObserverA);
+    }
+
+    @Test
+    public void testCopyOnWriteObserverRemovingItselfWhileInformed() throws Exception {
+        ObserverSet<ExampleObserver> copyOnWriteSet = new ObserverSet<>(ObserverSet.DispatchMode.copyOnWrite);
+        ExampleObserverImp removingObserver = new ExampleObserverImp() {
+            @Override
+            public void someEvent() {
+                super.someEvent();
+                copyOnWriteSet.removeObserver(this);
+            }
+        };
+        copyOnWriteSet.addObserver(removingObserver);
+        copyOnWriteSet.addObserver(exampleObserverA);
+        copyOnWriteSet.informObservers(ExampleObserver::someEvent);
+        copyOnWriteSet.informObservers(ExampleObserver::someEvent);
+        assertEquals(1, removingObserver.timesInformed);
+        assertEquals(2, exampleObserverA.timesInformed);
+    }
+
+    @Test
+    public void testCopyOnWriteSlowObserverDoesNotBlockOtherThreads() throws Exception {
+        ObserverSet<ExampleObserver> copyOnWriteSet = new ObserverSet<>(ObserverSet.DispatchMode.copyOnWrite);
+        CountDownLatch slowObserverStarted = new CountDownLatch(1);
+        CountDownLatch releaseSlowObserver = new CountDownLatch(1);
+        copyOnWriteSet.addObserver(() -> {
+            slowObserverStarted.countDown();
+            try {
+                releaseSlowObserver.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread slowThread = new Thread(() -> copyOnWriteSet.informObservers(ExampleObserver::someEvent));
+        slowThread.start();
+        slowObserverStarted.await();
+        // Neither of these would get past the lock held by the slow observer in the default mode
+        copyOnWriteSet.addObserver(exampleObserverA);
+        copyOnWriteSet.informObservers(observer -> {
+            if (observer == exampleObserverA) {
+                observer.someEvent();
+            }
+        });
+        assertEquals(1, exampleObserverA.timesInformed);
+        releaseSlowObserver.countDown();
+        slowThread.join();
+    }
+
+    @Test
+    public void testParallelInformsEveryObserverOnce() throws Exception {
+        ObserverSet<ExampleObserver> parallelSet = new ObserverSet<>(ForkJoinPool.commonPool(), 10);
+        List<ExampleObserverImp> exampleObservers = new ArrayList<>();
+        for (int i = 0; i < 105; i++) {
+            ExampleObserverImp exampleObserver = new ExampleObserverImp();
+            exampleObservers.add(exampleObserver);
+            parallelSet.addObserver(exampleObserver);
+        }
+        Set<Thread> threadsInforming = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        parallelSet.informObservers(observer -> {
+            threadsInforming.add(Thread.currentThread());
+            observer.someEvent();
+        });
+        for (ExampleObserverImp exampleObserver : exampleObservers) {
+            assertEquals(1, exampleObserver.timesInformed);
+        }
+        assertTrue(threadsInforming.contains(Thread.currentThread()));
+    }
+
+    @Test
+    public void testParallelBelowThresholdStaysOnCallingThread() throws Exception {
+        ObserverSet<ExampleObserver> parallelSet = new ObserverSet<>(command -> {
+            throw new AssertionError("Should not have used the executor");
+        }, 10);
+        parallelSet.addObserver(exampleObserverA);
+        parallelSet.addObserver(exampleObserverB);
+        parallelSet.informObservers(ExampleObserver::someEvent);
+        assertEquals(1, exampleObserverA.timesInformed);
+        assertEquals(1, exampleObserverB.timesInformed);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testParallelRethrowsObserverException() throws Exception {
+        ObserverSet<ExampleObserver> parallelSet = new ObserverSet<>(ForkJoinPool.commonPool(), 1);
+        parallelSet.addObserver(() -> {
+            throw new IllegalStateException();
+        });
+        parallelSet.addObserver(exampleObserverA);
+        parallelSet.informObservers(ExampleObserver::someEvent);
+    }
+
+    @Test
+    public void testParallelKeepsCallingThreadExceptionWithOtherChunkSuppressed() throws Exception {
+        ObserverSet<ExampleObserver> parallelSet = new ObserverSet<>(ForkJoinPool.commonPool(), 1);
+        parallelSet.addObserver(() -> {
+            throw new IllegalArgumentException();
+        });
+        // The last chunk, informed on the calling thread
+        parallelSet.addObserver(() -> {
+            throw new IllegalStateException();
+        });
+        try {
+            parallelSet.informObservers(ExampleObserver::someEvent);
+            fail("Expected the calling thread's observer exception");
+        } catch (IllegalStateException e) {
+            assertEquals(1, e.getSuppressed().length);
+            assertTrue(e.getSuppressed()[0] instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void testParallelInformsChunksTheExecutorRejectsOnCallingThread() throws Exception {
+        int[] chunksAccepted = new int[1];
+        ObserverSet<ExampleObserver> parallelSet = new ObserverSet<>(command -> {
+            // Accepts the first chunk, then rejects the rest
+            if (chunksAccepted[0]++ > 0) {
+                throw new RejectedExecutionException();
+            }
+            command.run();
+        }, 2);
+        List<ExampleObserverImp> exampleObservers = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ExampleObserverImp exampleObserver = new ExampleObserverImp();
+            exampleObservers.add(exampleObserver);
+            parallelSet.addObserver(exampleObserver);
+        }
+        parallelSet.informObservers(ExampleObserver::someEvent);
+        for (ExampleObserverImp exampleObserver : exampleObservers) {
+            assertEquals(1, exampleObserver.timesInformed);
+        }
+    }
+
+    @Test
+    public void testInformObserversWithoutWaiting() throws Exception {
+        CountDownLatch releaseObservers = new CountDownLatch(1);
+        ObserverSet<ExampleObserver> observerSet = new ObserverSet<>();
+        observerSet.addObserver(exampleObserverA);
+        observerSet.addObserver(exampleObserverB);
+        CompletableFuture<Void> informed = observerSet.informObserversWithoutWaiting(observer -> {
+            try {
+                releaseObservers.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            observer.someEvent();
+        });
+        assertFalse(informed.isDone());
+        releaseObservers.countDown();
+        informed.get(10, TimeUnit.SECONDS);
+        assertEquals(1, exampleObserverA.timesInformed);
+        assertEquals(1, exampleObserverB.timesInformed);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParallelSerialThresholdNotPositive() throws Exception {
+        new ObserverSet<ExampleObserver>(ForkJoinPool.commonPool(), 0);
+    }
+
+    @Test
+    public void testInstrumentationOffByDefault() throws Exception {
+        observerSet.addObserver(exampleObserverA);
+        observerSet.informObservers(ExampleObserver::someEvent);
+        assertFalse(observerSet.isInstrumentationEnabled());
+        assertTrue(observerSet.getObserverStatistics().isEmpty());
+    }
+
+    @Test
+    public void testInstrumentationCountsAndSamplesCalls() throws Exception {
+        observerSet.addObserver(exampleObserverA);
+        observerSet.enableInstrumentation(4, TimeUnit.SECONDS.toNanos(1));
+        for (int i = 0; i < 1000; i++) {
+            observerSet.informObservers(ExampleObserver::someEvent);
+        }
+        List<ObserverStatistics<ExampleObserver>> statistics = observerSet.getObserverStatistics();
+        assertEquals(1, statistics.size());
+        assertEquals(exampleObserverA, statistics.get(0).getObserver());
+        assertEquals(1000, statistics.get(0).getNumberOfCalls());
+        // About one in four calls is timed, 250 on average, picked at random
+        long numberOfTimedCalls = statistics.get(0).getNumberOfTimedCalls();
+        assertTrue("timed calls: " + numberOfTimedCalls, numberOfTimedCalls > 150 && numberOfTimedCalls < 350);
+        assertFalse(statistics.get(0).isOverLatencyBudget());
+        assertEquals(1000, exampleObserverA.timesInformed);
+    }
+
+    @Test
+    public void testInstrumentationFlagsSlowObserver() throws Exception {
+        ObserverSet<ExampleObserver> copyOnWriteSet = new ObserverSet<>(ObserverSet.DispatchMode.copyOnWrite);
+        ExampleObserver slowObserver = () -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        copyOnWriteSet.addObserver(exampleObserverA);
+        copyOnWriteSet.addObserver(slowObserver);
+        copyOnWriteSet.enableInstrumentation(1, TimeUnit.MILLISECONDS.toNanos(10));
+        copyOnWriteSet.informObservers(ExampleObserver::someEvent);
+        copyOnWriteSet.informObservers(ExampleObserver::someEvent);
+        List<ObserverStatistics<ExampleObserver>> statistics = copyOnWriteSet.getObserverStatistics();
+        assertEquals(slowObserver, statistics.get(0).getObserver());
+        assertTrue(statistics.get(0).getMaximumTimeInNanoSeconds() >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(2, statistics.get(0).getNumberOfTimedCallsOverLatencyBudget());
+        List<ObserverStatistics<ExampleObserver>> overBudget = copyOnWriteSet.getObserverStatisticsOverLatencyBudget();
+        assertEquals(1, overBudget.size());
+        assertEquals(slowObserver, overBudget.get(0).getObserver());
+    }
+
+    @Test
+    public void testInstrumentationForgetsRemovedObserversAndWhenDisabled() throws Exception {
+        observerSet.addObserver(exampleObserverA);
+        observerSet.addObserver(exampleObserverB);
+        observerSet.enableInstrumentation(1, TimeUnit.SECONDS.toNanos(1));
+        observerSet.informObservers(ExampleObserver::someEvent);
+        observerSet.removeObserver(exampleObserverA);
+        assertEquals(1, observerSet.getObserverStatistics().size());
+        // Still being informed from a snapshot taken before it was removed, which isn't recorded
+        ObserverSet<ExampleObserver> copyOnWriteSet = new ObserverSet<>(ObserverSet.DispatchMode.copyOnWrite);
+        copyOnWriteSet.addObserver(exampleObserverA);
+        copyOnWriteSet.addObserver(exampleObserverB);
+        copyOnWriteSet.enableInstrumentation(1, TimeUnit.SECONDS.toNanos(1));
+        copyOnWriteSet.informObservers(observer -> {
+            if (observer == exampleObserverA) {
+                copyOnWriteSet.removeObserver(exampleObserverB);
+            }
+        });
+        assertEquals(1, copyOnWriteSet.getObserverStatistics().size());
+        assertEquals(exampleObserverA, copyOnWriteSet.getObserverStatistics().get(0).getObserver());
+        observerSet.disableInstrumentation();
+        assertTrue(observerSet.getObserverStatistics().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInstrumentationSamplingRateNotPositive() throws Exception {
+        observerSet.enableInstrumentation(0, 1);
+    }
+
+    @Test
+    public void testWeakReferencesInformObservers() throws Exception {
+        ObserverSet<ExampleObserver> weakSet = new ObserverSet<>(ObserverSet.DispatchMode.weakReferences);
+        weakSet.addObserver(exampleObserverA);
+        weakSet.addObserver(exampleObserverB);
+        weakSet.informObservers(ExampleObserver::someEvent);
+        weakSet.removeObserver(exampleObserverA);
+        weakSet.informObservers(ExampleObserver::someEvent);
+        assertEquals(1, exampleObserverA.timesInformed);
+        assertEquals(2, exampleObserverB.timesInformed);
+        assertEquals(1, weakSet.getNumberOfObservers());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWeakReferencesAddSameObserverTwice() throws Exception {
+        ObserverSet<ExampleObserver> weakSet = new ObserverSet<>(ObserverSet.DispatchMode.weakReferences);
+        weakSet.addObserver(exampleObserverA);
+        weakSet.addObserver(exampleObserverA);
+    }
+
+    @Test
+    public void testWeakReferencesCollectedObserversArePurged() throws Exception {
+        ObserverSet<ExampleObserver> weakSet = new ObserverSet<>(ObserverSet.DispatchMode.weakReferences);
+        weakSet.enableInstrumentation(1, TimeUnit.SECONDS.toNanos(1));
+        weakSet.addObserver(exampleObserverA);
+        for (int i = 0; i < 100; i++) {
+            weakSet.addObserver(new ExampleObserverImp());
+        }
+        weakSet.informObservers(ExampleObserver::someEvent);
+        for (int i = 0; i < 50 && weakSet.getNumberOfObservers() > 1; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(1, weakSet.getNumberOfObservers());
+        weakSet.informObservers(ExampleObserver::someEvent);
+        assertEquals(2, exampleObserverA.timesInformed);
+        // Instrumentation doesn't keep the collected observers around either
+        assertEquals(1, weakSet.getObserverStatistics().size());
+    }
+}
@@ -0,0 +1,199 @@
+package org.jamesgames.jamesjavautils.general;
+
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static junitparams.JUnitParamsRunner.$;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnitParamsRunner.class)
+public class RingBufferEventBusTest {
+
+    private static class ExampleEvent {
+        private int producer;
+        private int value;
+    }
+
+    @Test
+    public void testDrainInformsObserversInOrder() throws Exception {
+        RingBufferEventBus<ExampleEvent> bus = new RingBufferEventBus<>(8, ExampleEvent::new);
+        List<Integer> values = new ArrayList<>();
+        List<Long> sequences = new ArrayList<>();
+        bus.addObserver((event, sequence, endOfBatch) -> {
+            values.add(event.value);
+            sequences.add(sequence);
+        });
+        for (int i = 0; i < 5; i++) {
+            int value = i * 10;
+            bus.publishEvent(event -> event.value = value);
+        }
+        assertEquals(5, bus.drain());
+        assertEquals(0, bus.drain());
+        assertEquals(Integer.valueOf(0), values.get(0));
+        assertEquals(Integer.valueOf(40), values.get(4));
+        assertEquals(Long.valueOf(4), sequences.get(4));
+    }
+
+    @Test
+    public void testEndOfBatch() throws Exception {
+        RingBufferEventBus<ExampleEvent> bus =
+                new RingBufferEventBus<>(8, ExampleEvent::new, RingBufferEventBus.WaitStrategy.spin, 3);
+        List<Boolean> endOfBatches = new ArrayList<>();
+        bus.addObserver((event, sequence, endOfBatch) -> endOfBatches.add(endOfBatch));
+        for (int i = 0; i < 5; i++) {
+            bus.publishEvent(event -> event.value = 1);
+        }
+        assertEquals(3, bus.drain());
+        assertEquals(2, bus.drain());
+        assertEquals(Arrays.asList(false, false, true, false, true), endOfBatches);
+    }
+
+    @Test
+    public void testTryPublishEventWhenFull() throws Exception {
+        RingBufferEventBus<ExampleEvent> bus = new RingBufferEventBus<>(4, ExampleEvent::new);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(bus.tryPublishEvent(event -> event.value = 1));
+        }
+        assertEquals(0, bus.getRemainingCapacity());
+        assertFalse(bus.tryPublishEvent(event -> event.value = 1));
+        bus.drain();
+        assertEquals(4, bus.getRemainingCapacity());
+        assertTrue(bus.tryPublishEvent(event -> event.value = 1));
+    }
+
+    @Test
+    public void testConsumerDoesNotPassUnpublishedSequence() throws Exception {
+        RingBufferEventBus<ExampleEvent> bus = new RingBufferEventBus<>(4, ExampleEvent::new);
+        long first = bus.next();
+        long second = bus.next();
+        bus.publish(second);
+        assertEquals(0, bus.drain());
+        bus.publish(first);
+        assertEquals(2, bus.drain());
+    }
+
+    @Test
+    public void testEventObjectsAreReused() throws Exception {
+        RingBufferEventBus<ExampleEvent> bus = new RingBufferEventBus<>(4, ExampleEvent::new);
+        Set<ExampleEvent> eventsSeen = Collections.newSetFromMap(new IdentityHashMap<>());
+        bus.addObserver((event, sequence, endOfBatch) -> eventsSeen.add(event));
+        for (int i = 0; i < 20; i++) {
+            bus.publishEvent(event -> event.value = 1);
+            bus.drain();
+        }
+        assertEquals(4, eventsSeen.size());
+    }
+
+    @Test
+    public void testThrowingObserverDoesNotStopConsumer() throws Exception {
+        RingBufferEventBus<ExampleEvent> bus = new RingBufferEventBus<>(4, ExampleEvent::new);
+        List<Integer> values = new ArrayList<>();
+        bus.addObserver((event, sequence, endOfBatch) -> {
+            if (event.value == 1) {
+                throw new IllegalStateException();
+            }
+            values.add(event.value);
+        });
+        bus.publishEvent(event -> event.value = 1);
+        bus.publishEvent(event -> event.value = 2);
+        try {
+            bus.drain();
+        } catch (IllegalStateException e) {
+            // Expected, the throwing event is skipped
+        }
+        bus.drain();
+        assertEquals(Collections.singletonList(2), values);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBufferSizeNotPowerOfTwo() throws Exception {
+        new RingBufferEventBus<>(6, ExampleEvent::new);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDrainWhileStarted() throws Exception {
+        RingBufferEventBus<ExampleEvent> bus = new RingBufferEventBus<>(4, ExampleEvent::new);
+        bus.start();
+        try {
+            bus.drain();
+        } finally {
+            bus.stop();
+        }
+    }
+
+    @Test
+    @Parameters(method = "waitStrategiesAndEventsPerProducer")
+    public void testMultipleProducersWithConsumerThread(RingBufferEventBus.WaitStrategy waitStrategy,
+            int eventsPerProducer) throws Exception {
+        int numberOfProducers = 4;
+        RingBufferEventBus<ExampleEvent> bus = new RingBufferEventBus<>(64, ExampleEvent::new, waitStrategy);
+        int[] lastValueFromProducer = new int[numberOfProducers];
+        boolean[] outOfOrder = new boolean[1];
+        CountDownLatch allEventsConsumed = new CountDownLatch(numberOfProducers * eventsPerProducer);
+        bus.addObserver((event, sequence, endOfBatch) -> {
+            if (event.value != lastValueFromProducer[event.producer] + 1) {
+                outOfOrder[0] = true;
+            }
+            lastValueFromProducer[event.producer] = event.value;
+            allEventsConsumed.countDown();
+        });
+        bus.start();
+        List<Thread> producers = new ArrayList<>();
+        for (int producer = 0; producer < numberOfProducers; producer++) {
+            int producerNumber = producer;
+            Thread thread = new Thread(() -> {
+                for (int value = 1; value <= eventsPerProducer; value++) {
+                    int eventValue = value;
+                    bus.publishEvent(event -> {
+                        event.producer = producerNumber;
+                        event.value = eventValue;
+                    });
+                }
+            });
+            producers.add(thread);
+            thread.start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertTrue(allEventsConsumed.await(10, TimeUnit.SECONDS));
+        bus.stop();
+        assertFalse(outOfOrder[0]);
+        for (int lastValue : lastValueFromProducer) {
+            assertEquals(eventsPerProducer, lastValue);
+        }
+    }
+
+    private Object[] waitStrategiesAndEventsPerProducer() {
+        // Spinning threads take the whole time slice of a core from each other, so with few cores they're far slower
+        return $($(RingBufferEventBus.WaitStrategy.spin, 500), $(RingBufferEventBus.WaitStrategy.yield, 10_000),
+                $(RingBufferEventBus.WaitStrategy.park, 10_000));
+    }
+
+    @Test
+    public void testStopInformsObserversOfEventsAlreadyPublished() throws Exception {
+        RingBufferEventBus<ExampleEvent> bus = new RingBufferEventBus<>(1024, ExampleEvent::new);
+        int[] eventsSeen = new int[1];
+        bus.addObserver((event, sequence, endOfBatch) -> eventsSeen[0]++);
+        bus.start();
+        for (int i = 0; i < 1000; i++) {
+            bus.publishEvent(event -> event.value = 1);
+        }
+        bus.stop();
+        assertEquals(1000, eventsSeen[0]);
+        assertFalse(bus.isStarted());
+    }
+}
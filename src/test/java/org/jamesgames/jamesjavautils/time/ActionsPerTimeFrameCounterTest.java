@@ -2,6 +2,9 @@ package org.jamesgames.jamesjavautils.time;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 
 public class ActionsPerTimeFrameCounterTest {
@@ -115,6 +118,36 @@ public class ActionsPerTimeFrameCounterTest {
         assertEquals(0, counter.getActionCountPerTimeFrame(), generousEpsilonForSleepTests);
     }
 
+    @Test
+    public void testCounterWithoutSpecifyingTimeElapsedUsingManualClock() throws Exception {
+        ManualNanoClock clock = new ManualNanoClock();
+        ActionsPerTimeFrameCounter counter = new ActionsPerTimeFrameCounter(oneThousandMillisecondsInNanoSeconds, clock);
+        counter.addActions(0);
+        clock.advanceInMilliseconds(800);
+        counter.addActions(1000);
+        assertEquals(0, counter.getActionCountPerTimeFrame(), actionCountEpsilon);
+        clock.advanceInMilliseconds(400);
+        counter.addActions(0);
+        assertEquals(1000, counter.getActionCountPerTimeFrame(), actionCountEpsilon);
+    }
+
+    @Test
+    public void testTimeFrameCompletedListener() throws Exception {
+        List<Float> publishedActionCounts = new ArrayList<>();
+        counterWith1000MillisecondTimeFrame.setTimeFrameCompletedListener(publishedActionCounts::add);
+        counterWith1000MillisecondTimeFrame.addActionsInMilliseconds(oneAction, oneThousandMinusOneMilliseconds);
+        assertEquals(0, publishedActionCounts.size());
+        counterWith1000MillisecondTimeFrame.addActionsInMilliseconds(2, 2);
+        counterWith1000MillisecondTimeFrame.addActionsInMilliseconds(oneAction, oneThousandMilliseconds);
+        assertEquals(2, publishedActionCounts.size());
+        assertEquals(2, publishedActionCounts.get(0), actionCountEpsilon);
+        assertEquals(counterWith1000MillisecondTimeFrame.getActionCountPerTimeFrame(), publishedActionCounts.get(1),
+                actionCountEpsilon);
+        counterWith1000MillisecondTimeFrame.setTimeFrameCompletedListener(null);
+        counterWith1000MillisecondTimeFrame.addActionsInMilliseconds(oneAction, oneThousandMilliseconds);
+        assertEquals(2, publishedActionCounts.size());
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testAddNegativeAmountOfTime() {
         counterWith1000MillisecondTimeFrame.addActionsInNanoseconds(100, -1);
@@ -0,0 +1,80 @@
+package org.jamesgames.jamesjavautils.time;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ActionsRateMeterTest {
+
+    private final long oneThousandMillisecondsInNanoSeconds = 1000 * 1_000_000L;
+    private final ActionsRateMeter meterWith1000MillisecondInterval =
+            new ActionsRateMeter(oneThousandMillisecondsInNanoSeconds);
+    private final double rateEpsilon = 0.001;
+
+    @Test
+    public void testMeterWithNoIntervalCompleted() throws Exception {
+        meterWith1000MillisecondInterval.addActionsInMilliseconds(10, 1000);
+        assertEquals(0, meterWith1000MillisecondInterval.getOneIntervalRate(), rateEpsilon);
+        assertEquals(0, meterWith1000MillisecondInterval.getFiveIntervalRate(), rateEpsilon);
+        assertEquals(0, meterWith1000MillisecondInterval.getFifteenIntervalRate(), rateEpsilon);
+        assertEquals(10, meterWith1000MillisecondInterval.getMeanRate(), rateEpsilon);
+    }
+
+    @Test
+    public void testAveragesStartAtFirstCompletedInterval() throws Exception {
+        meterWith1000MillisecondInterval.addActionsInMilliseconds(10, 1000);
+        meterWith1000MillisecondInterval.addActionsInMilliseconds(0, 1);
+        assertEquals(10, meterWith1000MillisecondInterval.getOneIntervalRate(), rateEpsilon);
+        assertEquals(10, meterWith1000MillisecondInterval.getFiveIntervalRate(), rateEpsilon);
+        assertEquals(10, meterWith1000MillisecondInterval.getFifteenIntervalRate(), rateEpsilon);
+    }
+
+    @Test
+    public void testAveragesDecayAtDifferentSpeeds() throws Exception {
+        meterWith1000MillisecondInterval.addActionsInMilliseconds(10, 1000);
+        meterWith1000MillisecondInterval.addActionsInMilliseconds(0, 1);
+        meterWith1000MillisecondInterval.addActionsInMilliseconds(0, 1000);
+        assertEquals(10 * Math.exp(-1), meterWith1000MillisecondInterval.getOneIntervalRate(), rateEpsilon);
+        assertEquals(10 * Math.exp(-1 / 5.0), meterWith1000MillisecondInterval.getFiveIntervalRate(), rateEpsilon);
+        assertEquals(10 * Math.exp(-1 / 15.0), meterWith1000MillisecondInterval.getFifteenIntervalRate(),
+                rateEpsilon);
+    }
+
+    @Test
+    public void testManyIntervalsPassingAtOnce() throws Exception {
+        meterWith1000MillisecondInterval.addActionsInMilliseconds(10, 1000);
+        meterWith1000MillisecondInterval.addActionsInMilliseconds(0, 1);
+        // Completes the current interval and 8 full intervals, the last interval is exactly full so it stays current
+        meterWith1000MillisecondInterval.addActionsInMilliseconds(0, 9999);
+        assertEquals(10 * Math.exp(-9 / 5.0), meterWith1000MillisecondInterval.getFiveIntervalRate(), rateEpsilon);
+        assertEquals(10 * Math.exp(-9 / 15.0), meterWith1000MillisecondInterval.getFifteenIntervalRate(),
+                rateEpsilon);
+    }
+
+    @Test
+    public void testSteadyRateOverManyIntervals() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            meterWith1000MillisecondInterval.addActionsInMilliseconds(3, 250);
+        }
+        assertEquals(12, meterWith1000MillisecondInterval.getOneIntervalRate(), rateEpsilon);
+        assertEquals(12, meterWith1000MillisecondInterval.getFifteenIntervalRate(), rateEpsilon);
+        assertEquals(12, meterWith1000MillisecondInterval.getMeanRate(), rateEpsilon);
+    }
+
+    @Test
+    public void testActionsSplitOverIntervalBorders() throws Exception {
+        meterWith1000MillisecondInterval.addActionsInMilliseconds(0, 600);
+        meterWith1000MillisecondInterval.addActionsInMilliseconds(1000, 500);
+        assertEquals(800, meterWith1000MillisecondInterval.getOneIntervalRate(), rateEpsilon);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddNegativeAmountOfTime() {
+        meterWith1000MillisecondInterval.addActionsInNanoseconds(100, -1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddNegativeAmountOfActions() {
+        meterWith1000MillisecondInterval.addActions(-1);
+    }
+}
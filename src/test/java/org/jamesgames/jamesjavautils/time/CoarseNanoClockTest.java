@@ -0,0 +1,38 @@
+package org.jamesgames.jamesjavautils.time;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CoarseNanoClockTest {
+
+    private final long oneMillisecondInNanoSeconds = 1_000_000;
+
+    @Test
+    public void testClockFollowsSystemTime() throws Exception {
+        try (CoarseNanoClock clock = new CoarseNanoClock(oneMillisecondInNanoSeconds)) {
+            long startTime = clock.nanoTime();
+            Thread.sleep(200);
+            long elapsedTime = clock.nanoTime() - startTime;
+            // Generous bounds as the refreshing thread may not be scheduled right on time
+            assertTrue("elapsed time was " + elapsedTime, elapsedTime >= 100 * oneMillisecondInNanoSeconds);
+            assertTrue("elapsed time was " + elapsedTime, elapsedTime <= 1000 * oneMillisecondInNanoSeconds);
+        }
+    }
+
+    @Test
+    public void testClockStopsAfterClose() throws Exception {
+        CoarseNanoClock clock = new CoarseNanoClock(oneMillisecondInNanoSeconds);
+        clock.close();
+        Thread.sleep(50);
+        long timeAfterClose = clock.nanoTime();
+        Thread.sleep(50);
+        assertEquals(timeAfterClose, clock.nanoTime());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveResolution() {
+        new CoarseNanoClock(0);
+    }
+}
@@ -0,0 +1,129 @@
+package org.jamesgames.jamesjavautils.time;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConcurrentActionsPerTimeFrameCounterTest {
+
+    private final long oneThousandMillisecondsInNanoSeconds = 1000 * 1_000_000L;
+    private final ManualNanoClock clock = new ManualNanoClock(12345);
+    private final ConcurrentActionsPerTimeFrameCounter counterWith1000MillisecondTimeFrame =
+            new ConcurrentActionsPerTimeFrameCounter(oneThousandMillisecondsInNanoSeconds, 4, clock);
+    private final float actionCountEpsilon = 0.001f;
+
+    @Test
+    public void testCounterWithNoTimePassed() throws Exception {
+        assertEquals(0, counterWith1000MillisecondTimeFrame.getActionCountPerTimeFrame(), actionCountEpsilon);
+        counterWith1000MillisecondTimeFrame.addActions(5);
+        assertEquals(0, counterWith1000MillisecondTimeFrame.getActionCountPerTimeFrame(), actionCountEpsilon);
+    }
+
+    @Test
+    public void testCounterWithAlmostFullTimeFramePassed() throws Exception {
+        counterWith1000MillisecondTimeFrame.addActions(5);
+        clock.advanceInMilliseconds(999);
+        counterWith1000MillisecondTimeFrame.addActions(5);
+        assertEquals(0, counterWith1000MillisecondTimeFrame.getActionCountPerTimeFrame(), actionCountEpsilon);
+        clock.advanceInMilliseconds(1);
+        assertEquals(10, counterWith1000MillisecondTimeFrame.getActionCountPerTimeFrame(), actionCountEpsilon);
+    }
+
+    @Test
+    public void testCounterPublishesOnlyLastFullTimeFrame() throws Exception {
+        counterWith1000MillisecondTimeFrame.addActions(5);
+        clock.advanceInMilliseconds(1000);
+        counterWith1000MillisecondTimeFrame.addActions(7);
+        assertEquals(5, counterWith1000MillisecondTimeFrame.getActionCountPerTimeFrame(), actionCountEpsilon);
+        clock.advanceInMilliseconds(1000);
+        assertEquals(7, counterWith1000MillisecondTimeFrame.getActionCountPerTimeFrame(), actionCountEpsilon);
+        clock.advanceInMilliseconds(1000);
+        assertEquals(0, counterWith1000MillisecondTimeFrame.getActionCountPerTimeFrame(), actionCountEpsilon);
+    }
+
+    @Test
+    public void testSlotOfOlderTimeFrameWithSameParityIsReplaced() throws Exception {
+        counterWith1000MillisecondTimeFrame.addActions(100);
+        clock.advanceInMilliseconds(2000);
+        counterWith1000MillisecondTimeFrame.addActions(3);
+        clock.advanceInMilliseconds(1000);
+        assertEquals(3, counterWith1000MillisecondTimeFrame.getActionCountPerTimeFrame(), actionCountEpsilon);
+    }
+
+    @Test
+    public void testActionsAddedAfterTheirTimeFrameWasMergedAreCounted() throws Exception {
+        boolean[] mergeAfterNextClockRead = new boolean[1];
+        ConcurrentActionsPerTimeFrameCounter[] counter = new ConcurrentActionsPerTimeFrameCounter[1];
+        // A reader merges the time frame after the writer has read the clock but before it has added its actions
+        NanoClock clockMergingInBetween = () -> {
+            long time = clock.nanoTime();
+            if (mergeAfterNextClockRead[0]) {
+                mergeAfterNextClockRead[0] = false;
+                clock.advanceInMilliseconds(1000);
+                assertEquals(5, counter[0].getActionCountPerTimeFrame(), actionCountEpsilon);
+            }
+            return time;
+        };
+        counter[0] = new ConcurrentActionsPerTimeFrameCounter(oneThousandMillisecondsInNanoSeconds, 4,
+                clockMergingInBetween);
+        counter[0].addActions(5);
+        mergeAfterNextClockRead[0] = true;
+        counter[0].addActions(7);
+        assertEquals(12, counter[0].getActionCountPerTimeFrame(), actionCountEpsilon);
+    }
+
+    @Test
+    public void testActionCountStaysAtMostASlotHolds() throws Exception {
+        for (int i = 0; i < 600; i++) {
+            counterWith1000MillisecondTimeFrame.addActions(Integer.MAX_VALUE);
+        }
+        clock.advanceInMilliseconds(1000);
+        assertEquals((1L << 40) - 1, counterWith1000MillisecondTimeFrame.getActionCountPerTimeFrame(), 1);
+        counterWith1000MillisecondTimeFrame.addActions(3);
+        clock.advanceInMilliseconds(1000);
+        assertEquals(3, counterWith1000MillisecondTimeFrame.getActionCountPerTimeFrame(), actionCountEpsilon);
+    }
+
+    @Test
+    public void testCounterWithManyThreadsAddingActions() throws Exception {
+        int numberOfThreads = 8;
+        int actionsPerThread = 10_000;
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numberOfThreads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int j = 0; j < actionsPerThread; j++) {
+                    counterWith1000MillisecondTimeFrame.addActions(1);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        clock.advanceInMilliseconds(1000);
+        assertEquals(numberOfThreads * actionsPerThread,
+                counterWith1000MillisecondTimeFrame.getActionCountPerTimeFrame(), actionCountEpsilon);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddNegativeAmountOfActions() {
+        counterWith1000MillisecondTimeFrame.addActions(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveTimeFrame() {
+        new ConcurrentActionsPerTimeFrameCounter(0);
+    }
+}
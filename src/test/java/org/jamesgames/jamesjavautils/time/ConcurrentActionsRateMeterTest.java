@@ -0,0 +1,68 @@
+package org.jamesgames.jamesjavautils.time;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConcurrentActionsRateMeterTest {
+
+    private final long oneThousandMillisecondsInNanoSeconds = 1000 * 1_000_000L;
+    private final ManualNanoClock clock = new ManualNanoClock(12345);
+    private final ConcurrentActionsRateMeter meterWith1000MillisecondInterval =
+            new ConcurrentActionsRateMeter(oneThousandMillisecondsInNanoSeconds, clock);
+    private final double rateEpsilon = 0.001;
+
+    @Test
+    public void testMeterWithNoIntervalCompleted() throws Exception {
+        meterWith1000MillisecondInterval.addActions(10);
+        clock.advanceInMilliseconds(999);
+        assertEquals(0, meterWith1000MillisecondInterval.getOneIntervalRate(), rateEpsilon);
+    }
+
+    @Test
+    public void testAveragesDecayAtDifferentSpeeds() throws Exception {
+        meterWith1000MillisecondInterval.addActions(10);
+        clock.advanceInMilliseconds(1000);
+        assertEquals(10, meterWith1000MillisecondInterval.getOneIntervalRate(), rateEpsilon);
+        clock.advanceInMilliseconds(1000);
+        assertEquals(10 * Math.exp(-1), meterWith1000MillisecondInterval.getOneIntervalRate(), rateEpsilon);
+        assertEquals(10 * Math.exp(-1 / 5.0), meterWith1000MillisecondInterval.getFiveIntervalRate(), rateEpsilon);
+        clock.advanceInMilliseconds(3500);
+        assertEquals(10 * Math.exp(-4 / 15.0), meterWith1000MillisecondInterval.getFifteenIntervalRate(),
+                rateEpsilon);
+    }
+
+    @Test
+    public void testMeanRate() throws Exception {
+        meterWith1000MillisecondInterval.addActions(10);
+        clock.advanceInMilliseconds(4000);
+        assertEquals(2.5, meterWith1000MillisecondInterval.getMeanRate(), rateEpsilon);
+    }
+
+    @Test
+    public void testManyThreadsAddingActions() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    meterWith1000MillisecondInterval.addActions(1);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        clock.advanceInMilliseconds(1000);
+        assertEquals(40_000, meterWith1000MillisecondInterval.getOneIntervalRate(), rateEpsilon);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddNegativeAmountOfActions() {
+        meterWith1000MillisecondInterval.addActions(-1);
+    }
+}
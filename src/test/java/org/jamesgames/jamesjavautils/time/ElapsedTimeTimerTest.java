@@ -174,6 +174,19 @@ public class ElapsedTimeTimerTest {
         thousandMillisecondsTimer.setTargetTimeToRandomTimeSpecifiedInNanoSeconds(100, 50);
     }
 
+    @Test
+    public void testRandomTargetTimeFromSeededGenerator() throws Exception {
+        ElapsedTimeTimer timer = new ElapsedTimeTimer(0, oneThousandMillisecondsInNanoSeconds,
+                new SeededRandomTimeGenerator(RandomTimeGenerator.Distribution.truncatedGaussian, 11));
+        ElapsedTimeTimer timerWithSameSeed = new ElapsedTimeTimer(0, oneThousandMillisecondsInNanoSeconds,
+                new SeededRandomTimeGenerator(RandomTimeGenerator.Distribution.truncatedGaussian, 11));
+        assertEquals(timer.getTargetTimeInNanoSeconds(), timerWithSameSeed.getTargetTimeInNanoSeconds());
+        timer.addElapsedTimeInNanoSeconds(timer.getTargetTimeInNanoSeconds() - 1);
+        assertEquals(false, timer.isTimerFinished());
+        timer.addElapsedTimeInNanoSeconds(1);
+        assertEquals(true, timer.isTimerFinished());
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testExclusiveBoundLessThanOneOnRandomTargetTime() {
         thousandMillisecondsTimer.setTargetTimeToRandomTimeSpecifiedInNanoSeconds(50, 0);
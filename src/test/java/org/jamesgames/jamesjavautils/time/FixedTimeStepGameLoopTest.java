@@ -0,0 +1,130 @@
+package org.jamesgames.jamesjavautils.time;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FixedTimeStepGameLoopTest {
+
+    private static final long tenMillisecondsInNanoSeconds = 10_000_000;
+
+    private static class RecordingGame implements FixedTimeStepGame {
+        public int timesUpdated;
+        public final List<Float> interpolations = new ArrayList<>();
+
+        @Override
+        public void update(long timeStepInNanoSeconds) {
+            assertEquals(tenMillisecondsInNanoSeconds, timeStepInNanoSeconds);
+            timesUpdated++;
+        }
+
+        @Override
+        public void render(float interpolation) {
+            interpolations.add(interpolation);
+        }
+
+        public float lastInterpolation() {
+            return interpolations.get(interpolations.size() - 1);
+        }
+    }
+
+    private final ManualNanoClock clock = new ManualNanoClock();
+    private final RecordingGame game = new RecordingGame();
+    private final FixedTimeStepGameLoop loopWith10MillisecondStep =
+            new FixedTimeStepGameLoop(game, tenMillisecondsInNanoSeconds, clock);
+    private final float interpolationEpsilon = 0.0001f;
+
+    @Test
+    public void testFirstFrameOnlyRenders() throws Exception {
+        assertEquals(0, loopWith10MillisecondStep.runFrame());
+        assertEquals(0, game.timesUpdated);
+        assertEquals(1, game.interpolations.size());
+        assertEquals(0, game.lastInterpolation(), interpolationEpsilon);
+    }
+
+    @Test
+    public void testUpdatesForEachFullStepAndInterpolatesTheRest() throws Exception {
+        loopWith10MillisecondStep.runFrame();
+        clock.advanceInMilliseconds(25);
+        assertEquals(2, loopWith10MillisecondStep.runFrame());
+        assertEquals(0.5f, game.lastInterpolation(), interpolationEpsilon);
+        clock.advanceInMilliseconds(4);
+        assertEquals(0, loopWith10MillisecondStep.runFrame());
+        assertEquals(0.9f, game.lastInterpolation(), interpolationEpsilon);
+        clock.advanceInMilliseconds(1);
+        assertEquals(1, loopWith10MillisecondStep.runFrame());
+        assertEquals(0, game.lastInterpolation(), interpolationEpsilon);
+        assertEquals(3, game.timesUpdated);
+    }
+
+    @Test
+    public void testCatchUpIsCappedAndExtraTimeDropped() throws Exception {
+        loopWith10MillisecondStep.setMaxUpdatesPerFrame(3);
+        loopWith10MillisecondStep.runFrame();
+        clock.advanceInMilliseconds(1005);
+        assertEquals(3, loopWith10MillisecondStep.runFrame());
+        assertEquals(0.5f, game.lastInterpolation(), interpolationEpsilon);
+        assertEquals(970 * 1_000_000L, loopWith10MillisecondStep.getDroppedTimeInNanoSeconds());
+        clock.advanceInMilliseconds(5);
+        assertEquals(1, loopWith10MillisecondStep.runFrame());
+    }
+
+    @Test
+    public void testUpdatesAndFramesPerSecond() throws Exception {
+        loopWith10MillisecondStep.runFrame();
+        for (int i = 0; i < 100; i++) {
+            clock.advanceInMilliseconds(20);
+            loopWith10MillisecondStep.runFrame();
+        }
+        assertEquals(100, loopWith10MillisecondStep.getUpdatesPerSecond(), 0.001f);
+        // Frames at 0 and 1000 milliseconds both count towards the first second
+        assertEquals(51, loopWith10MillisecondStep.getFramesPerSecond(), 0.001f);
+    }
+
+    @Test
+    public void testRunningWithTargetFramesPerSecond() throws Exception {
+        RecordingGame realTimeGame = new RecordingGame();
+        FixedTimeStepGameLoop loop = new FixedTimeStepGameLoop(realTimeGame, tenMillisecondsInNanoSeconds);
+        loop.setTargetFramesPerSecond(50);
+        Thread loopThread = new Thread(loop::run);
+        loopThread.start();
+        Thread.sleep(500);
+        loop.stop();
+        loopThread.join(1000);
+        assertFalse(loopThread.isAlive());
+        // Generous bounds as the test thread and loop thread may not be scheduled right on time
+        int framesRendered = realTimeGame.interpolations.size();
+        assertTrue("frames rendered: " + framesRendered, framesRendered >= 10 && framesRendered <= 40);
+        assertTrue("times updated: " + realTimeGame.timesUpdated, realTimeGame.timesUpdated >= 20);
+    }
+
+    @Test
+    public void testStopBeforeRunIsNotLost() throws Exception {
+        RecordingGame realTimeGame = new RecordingGame();
+        FixedTimeStepGameLoop loop = new FixedTimeStepGameLoop(realTimeGame, tenMillisecondsInNanoSeconds);
+        loop.stop();
+        loop.run();
+        assertTrue(realTimeGame.interpolations.isEmpty());
+        assertFalse(loop.isRunning());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveTimeStep() {
+        new FixedTimeStepGameLoop(game, 0, clock);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeTargetFramesPerSecond() {
+        loopWith10MillisecondStep.setTargetFramesPerSecond(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveMaxUpdatesPerFrame() {
+        loopWith10MillisecondStep.setMaxUpdatesPerFrame(0);
+    }
+}
@@ -0,0 +1,165 @@
+package org.jamesgames.jamesjavautils.time;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HierarchicalTimingWheelTest {
+
+    private static final long nanosecondsInMillisecond = 1_000_000;
+
+    private static class CountingObserver implements ElapsedTimeTimerObserver {
+        public int timesInformed;
+
+        @Override
+        public void targetTimePassed(ObservableElapsedTimeTimer timer) {
+            timesInformed++;
+        }
+    }
+
+    private final HierarchicalTimingWheel wheelWithMillisecondTicks = new HierarchicalTimingWheel(nanosecondsInMillisecond);
+
+    @Test
+    public void testTimerFinishesWhenTargetTimeReached() throws Exception {
+        ElapsedTimeTimer timer = new ElapsedTimeTimer(1000 * nanosecondsInMillisecond);
+        wheelWithMillisecondTicks.register(timer);
+        wheelWithMillisecondTicks.advanceInMilliseconds(999);
+        assertFalse(timer.isTimerFinished());
+        wheelWithMillisecondTicks.advanceInMilliseconds(1);
+        assertTrue(timer.isTimerFinished());
+    }
+
+    @Test
+    public void testTimerFinishesPartWayThroughATick() throws Exception {
+        HierarchicalTimingWheel wheelWithLongTicks = new HierarchicalTimingWheel(100 * nanosecondsInMillisecond);
+        ElapsedTimeTimer timer = new ElapsedTimeTimer(150 * nanosecondsInMillisecond);
+        wheelWithLongTicks.register(timer);
+        wheelWithLongTicks.advanceInMilliseconds(149);
+        assertFalse(timer.isTimerFinished());
+        wheelWithLongTicks.advanceInMilliseconds(1);
+        assertTrue(timer.isTimerFinished());
+    }
+
+    @Test
+    public void testObservableTimerFiresEveryTargetTime() throws Exception {
+        ObservableElapsedTimeTimer timer = new ObservableElapsedTimeTimer(10 * nanosecondsInMillisecond);
+        CountingObserver observer = new CountingObserver();
+        timer.addElapsedTimeTimerObserver(observer);
+        wheelWithMillisecondTicks.register(timer);
+        for (int i = 0; i < 100; i++) {
+            wheelWithMillisecondTicks.advanceInMilliseconds(5);
+        }
+        assertEquals(50, observer.timesInformed);
+        wheelWithMillisecondTicks.advanceInMilliseconds(1000);
+        assertEquals(150, observer.timesInformed);
+    }
+
+    @Test
+    public void testObserverCanChangeTargetTime() throws Exception {
+        ObservableElapsedTimeTimer timer = new ObservableElapsedTimeTimer(10 * nanosecondsInMillisecond);
+        CountingObserver observer = new CountingObserver() {
+            @Override
+            public void targetTimePassed(ObservableElapsedTimeTimer timer) {
+                super.targetTimePassed(timer);
+                timer.setTargetTimeInMilliseconds(500);
+            }
+        };
+        timer.addElapsedTimeTimerObserver(observer);
+        wheelWithMillisecondTicks.register(timer);
+        wheelWithMillisecondTicks.advanceInMilliseconds(10);
+        assertEquals(1, observer.timesInformed);
+        wheelWithMillisecondTicks.advanceInMilliseconds(499);
+        assertEquals(1, observer.timesInformed);
+        wheelWithMillisecondTicks.advanceInMilliseconds(1);
+        assertEquals(2, observer.timesInformed);
+    }
+
+    @Test
+    public void testChangingAFinishedTimer() throws Exception {
+        ElapsedTimeTimer timer = new ElapsedTimeTimer(10 * nanosecondsInMillisecond);
+        wheelWithMillisecondTicks.register(timer);
+        wheelWithMillisecondTicks.advanceInMilliseconds(20);
+        assertTrue(timer.isTimerFinished());
+        wheelWithMillisecondTicks.changeTimer(timer, ElapsedTimeTimer::resetElapsedTime);
+        assertFalse(timer.isTimerFinished());
+        wheelWithMillisecondTicks.advanceInMilliseconds(10);
+        assertTrue(timer.isTimerFinished());
+    }
+
+    @Test
+    public void testUnregisteredTimerIsGivenElapsedTimeButNotAdvancedAfter() throws Exception {
+        ElapsedTimeTimer timer = new ElapsedTimeTimer(100 * nanosecondsInMillisecond);
+        wheelWithMillisecondTicks.register(timer);
+        wheelWithMillisecondTicks.advanceInMilliseconds(60);
+        wheelWithMillisecondTicks.unregister(timer);
+        wheelWithMillisecondTicks.advanceInMilliseconds(1000);
+        assertFalse(timer.isTimerFinished());
+        timer.addElapsedTimeInMilliseconds(40);
+        assertTrue(timer.isTimerFinished());
+        assertEquals(0, wheelWithMillisecondTicks.getNumberOfRegisteredTimers());
+    }
+
+    @Test
+    public void testTimersFarInTheFuture() throws Exception {
+        ElapsedTimeTimer timer = new ElapsedTimeTimer(10_000_000 * nanosecondsInMillisecond);
+        wheelWithMillisecondTicks.register(timer);
+        wheelWithMillisecondTicks.advanceInMilliseconds(9_999_999);
+        assertFalse(timer.isTimerFinished());
+        wheelWithMillisecondTicks.advanceInMilliseconds(1);
+        assertTrue(timer.isTimerFinished());
+    }
+
+    @Test
+    public void testWheelMatchesAdvancingTimersOneAtATime() throws Exception {
+        Random random = new Random(42);
+        List<ObservableElapsedTimeTimer> wheelTimers = new ArrayList<>();
+        List<CountingObserver> wheelObservers = new ArrayList<>();
+        List<ObservableElapsedTimeTimer> directTimers = new ArrayList<>();
+        List<CountingObserver> directObservers = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            long targetTime = 1 + random.nextInt(100_000_000);
+            ObservableElapsedTimeTimer wheelTimer = new ObservableElapsedTimeTimer(targetTime);
+            ObservableElapsedTimeTimer directTimer = new ObservableElapsedTimeTimer(targetTime);
+            CountingObserver wheelObserver = new CountingObserver();
+            CountingObserver directObserver = new CountingObserver();
+            wheelTimer.addElapsedTimeTimerObserver(wheelObserver);
+            directTimer.addElapsedTimeTimerObserver(directObserver);
+            wheelTimers.add(wheelTimer);
+            wheelObservers.add(wheelObserver);
+            directTimers.add(directTimer);
+            directObservers.add(directObserver);
+            wheelWithMillisecondTicks.register(wheelTimer);
+        }
+        for (int step = 0; step < 200; step++) {
+            long elapsedTime = random.nextInt(20_000_000);
+            wheelWithMillisecondTicks.advance(elapsedTime);
+            directTimers.forEach(timer -> timer.addElapsedTimeInNanoSeconds(elapsedTime));
+            for (int i = 0; i < wheelObservers.size(); i++) {
+                assertEquals(directObservers.get(i).timesInformed, wheelObservers.get(i).timesInformed);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterTimerTwice() {
+        ElapsedTimeTimer timer = new ElapsedTimeTimer(10);
+        wheelWithMillisecondTicks.register(timer);
+        wheelWithMillisecondTicks.register(timer);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnregisterTimerNotRegistered() {
+        wheelWithMillisecondTicks.unregister(new ElapsedTimeTimer(10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAdvanceNegativeTime() {
+        wheelWithMillisecondTicks.advance(-1);
+    }
+}
@@ -0,0 +1,99 @@
+package org.jamesgames.jamesjavautils.time;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KeyedActionsPerTimeFrameCounterTest {
+
+    private final long oneThousandMillisecondsInNanoSeconds = 1000 * 1_000_000L;
+    private final ManualNanoClock clock = new ManualNanoClock();
+    private final KeyedActionsPerTimeFrameCounter<String> counterWith1000MillisecondTimeFrame =
+            new KeyedActionsPerTimeFrameCounter<>(oneThousandMillisecondsInNanoSeconds, 1024, 4, 3, clock);
+
+    @Test
+    public void testCountsArePublishedAfterTimeFrameCompletes() throws Exception {
+        counterWith1000MillisecondTimeFrame.addActions("a", 5);
+        counterWith1000MillisecondTimeFrame.addActions("b", 2);
+        counterWith1000MillisecondTimeFrame.addActions("a", 1);
+        assertEquals(0, counterWith1000MillisecondTimeFrame.getActionCountPerTimeFrame("a"));
+        clock.advanceInMilliseconds(1000);
+        assertEquals(6, counterWith1000MillisecondTimeFrame.getActionCountPerTimeFrame("a"));
+        assertEquals(2, counterWith1000MillisecondTimeFrame.getActionCountPerTimeFrame("b"));
+        assertEquals(0, counterWith1000MillisecondTimeFrame.getActionCountPerTimeFrame("c"));
+        assertEquals(8, counterWith1000MillisecondTimeFrame.getTotalActionCountPerTimeFrame());
+    }
+
+    @Test
+    public void testOnlyLastFullTimeFrameIsPublished() throws Exception {
+        counterWith1000MillisecondTimeFrame.addActions("a", 5);
+        clock.advanceInMilliseconds(1000);
+        counterWith1000MillisecondTimeFrame.addActions("a", 7);
+        assertEquals(5, counterWith1000MillisecondTimeFrame.getActionCountPerTimeFrame("a"));
+        clock.advanceInMilliseconds(1000);
+        assertEquals(7, counterWith1000MillisecondTimeFrame.getActionCountPerTimeFrame("a"));
+        clock.advanceInMilliseconds(1000);
+        assertEquals(0, counterWith1000MillisecondTimeFrame.getActionCountPerTimeFrame("a"));
+        counterWith1000MillisecondTimeFrame.addActions("a", 3);
+        clock.advanceInMilliseconds(5000);
+        assertEquals(0, counterWith1000MillisecondTimeFrame.getActionCountPerTimeFrame("a"));
+        assertEquals(0, counterWith1000MillisecondTimeFrame.getHeavyHittersPerTimeFrame().size());
+    }
+
+    @Test
+    public void testHeavyHitters() throws Exception {
+        counterWith1000MillisecondTimeFrame.addActions("light", 1);
+        counterWith1000MillisecondTimeFrame.addActions("medium", 50);
+        counterWith1000MillisecondTimeFrame.addActions("lighter", 1);
+        for (int i = 0; i < 100; i++) {
+            counterWith1000MillisecondTimeFrame.addActions("heavy", 1);
+            counterWith1000MillisecondTimeFrame.addActions("key" + i, 1);
+        }
+        counterWith1000MillisecondTimeFrame.addActions("heavier", 500);
+        clock.advanceInMilliseconds(1000);
+        Map<String, Long> heavyHitters = counterWith1000MillisecondTimeFrame.getHeavyHittersPerTimeFrame();
+        assertEquals(3, heavyHitters.size());
+        assertEquals("heavier", new ArrayList<>(heavyHitters.keySet()).get(0));
+        assertEquals("heavy", new ArrayList<>(heavyHitters.keySet()).get(1));
+        assertEquals("medium", new ArrayList<>(heavyHitters.keySet()).get(2));
+        assertEquals(500L, (long) heavyHitters.get("heavier"));
+        assertEquals(100L, (long) heavyHitters.get("heavy"));
+    }
+
+    @Test
+    public void testEstimatesAreNeverUnderAndCloseWithManyKeys() throws Exception {
+        int numberOfKeys = 100_000;
+        for (int i = 0; i < numberOfKeys; i++) {
+            counterWith1000MillisecondTimeFrame.addActions("key" + i, i % 10 + 1);
+        }
+        clock.advanceInMilliseconds(1000);
+        long totalOvercount = 0;
+        for (int i = 0; i < numberOfKeys; i++) {
+            long estimate = counterWith1000MillisecondTimeFrame.getActionCountPerTimeFrame("key" + i);
+            assertTrue(estimate >= i % 10 + 1);
+            totalOvercount += estimate - (i % 10 + 1);
+        }
+        // Each key shares its counters with roughly a hundred others here, the bound being e / 1024 of 550,000 actions
+        double averageOvercount = totalOvercount / (double) numberOfKeys;
+        assertTrue("average overcount: " + averageOvercount, averageOvercount < Math.E / 1024 * 550_000);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullKey() {
+        counterWith1000MillisecondTimeFrame.addActions(null, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddNegativeAmountOfActions() {
+        counterWith1000MillisecondTimeFrame.addActions("a", -1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveDepth() {
+        new KeyedActionsPerTimeFrameCounter<String>(oneThousandMillisecondsInNanoSeconds, 16, 0, 1);
+    }
+}
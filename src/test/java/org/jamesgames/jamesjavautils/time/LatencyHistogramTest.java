@@ -0,0 +1,135 @@
+package org.jamesgames.jamesjavautils.time;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    private static void assertWithinRelativeError(long expected, long actual) {
+        double allowedError = expected / 128.0;
+        assertTrue("expected " + expected + " but was " + actual, Math.abs(expected - actual) <= allowedError);
+    }
+
+    @Test
+    public void testEmptyHistogram() throws Exception {
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getMaxTimeInNanoSeconds());
+        assertEquals(0, histogram.getMinTimeInNanoSeconds());
+        assertEquals(0, histogram.getTimeAtPercentileInNanoSeconds(99));
+        assertEquals(0, histogram.getMeanTimeInNanoSeconds(), 0);
+    }
+
+    @Test
+    public void testSmallTimesAreExact() throws Exception {
+        for (int i = 1; i <= 100; i++) {
+            histogram.recordTimeInNanoseconds(i);
+        }
+        assertEquals(100, histogram.getTotalCount());
+        assertEquals(50, histogram.getTimeAtPercentileInNanoSeconds(50));
+        assertEquals(99, histogram.getTimeAtPercentileInNanoSeconds(99));
+        assertEquals(100, histogram.getTimeAtPercentileInNanoSeconds(100));
+        assertEquals(1, histogram.getTimeAtPercentileInNanoSeconds(0));
+        assertEquals(50.5, histogram.getMeanTimeInNanoSeconds(), 0.0001);
+    }
+
+    @Test
+    public void testPercentilesOfLargeTimes() throws Exception {
+        for (int i = 1; i <= 1000; i++) {
+            histogram.recordTimeInMilliseconds(i);
+        }
+        assertWithinRelativeError(500_000_000L, histogram.getTimeAtPercentileInNanoSeconds(50));
+        assertWithinRelativeError(990_000_000L, histogram.getTimeAtPercentileInNanoSeconds(99));
+        assertWithinRelativeError(999_000_000L, histogram.getTimeAtPercentileInNanoSeconds(99.9));
+        assertEquals(1000_000_000L, histogram.getMaxTimeInNanoSeconds());
+        assertEquals(1_000_000L, histogram.getMinTimeInNanoSeconds());
+    }
+
+    @Test
+    public void testTimesAboveHighestTrackableTimeKeepExactMax() throws Exception {
+        LatencyHistogram smallHistogram = new LatencyHistogram(1000, 3);
+        smallHistogram.recordTimeInNanoseconds(10);
+        smallHistogram.recordTimeInNanoseconds(5000);
+        assertEquals(2, smallHistogram.getTotalCount());
+        assertEquals(5000, smallHistogram.getMaxTimeInNanoSeconds());
+        assertEquals(5000, smallHistogram.getTimeAtPercentileInNanoSeconds(100));
+    }
+
+    @Test
+    public void testRecordManyOfTheSameTime() throws Exception {
+        histogram.recordTimesInNanoseconds(20, 9);
+        histogram.recordTimeInNanoseconds(2000);
+        assertEquals(10, histogram.getTotalCount());
+        assertEquals(20, histogram.getTimeAtPercentileInNanoSeconds(90));
+        assertWithinRelativeError(2000, histogram.getTimeAtPercentileInNanoSeconds(91));
+    }
+
+    @Test
+    public void testMoveIntervalIntoLeavesHistogramEmpty() throws Exception {
+        LatencyHistogram intervalHistogram = histogram.createEmptyCopy();
+        histogram.recordTimeInNanoseconds(10);
+        histogram.recordTimeInNanoseconds(30);
+        histogram.moveIntervalInto(intervalHistogram);
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getMaxTimeInNanoSeconds());
+        assertEquals(2, intervalHistogram.getTotalCount());
+        assertEquals(10, intervalHistogram.getMinTimeInNanoSeconds());
+        assertEquals(30, intervalHistogram.getMaxTimeInNanoSeconds());
+
+        intervalHistogram.reset();
+        histogram.recordTimeInNanoseconds(5);
+        histogram.moveIntervalInto(intervalHistogram);
+        assertEquals(1, intervalHistogram.getTotalCount());
+        assertEquals(5, intervalHistogram.getMaxTimeInNanoSeconds());
+    }
+
+    @Test
+    public void testMergingHistogramsFromManyThreads() throws Exception {
+        int numberOfThreads = 4;
+        int recordsPerThread = 10_000;
+        List<LatencyHistogram> perThreadHistograms = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numberOfThreads; i++) {
+            LatencyHistogram threadHistogram = histogram.createEmptyCopy();
+            perThreadHistograms.add(threadHistogram);
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < recordsPerThread; j++) {
+                    threadHistogram.recordTimeInNanoseconds(j);
+                    histogram.recordTimeInNanoseconds(j);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        LatencyHistogram merged = histogram.createEmptyCopy();
+        perThreadHistograms.forEach(merged::addHistogram);
+        assertEquals(numberOfThreads * recordsPerThread, merged.getTotalCount());
+        assertEquals(numberOfThreads * recordsPerThread, histogram.getTotalCount());
+        assertEquals(histogram.getTimeAtPercentileInNanoSeconds(99), merged.getTimeAtPercentileInNanoSeconds(99));
+        assertEquals(recordsPerThread - 1, merged.getMaxTimeInNanoSeconds());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergingHistogramsWithDifferentBuckets() {
+        histogram.addHistogram(new LatencyHistogram(1000, 3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRecordNegativeTime() {
+        histogram.recordTimeInNanoseconds(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPercentileOver100() {
+        histogram.getTimeAtPercentileInNanoSeconds(100.1);
+    }
+}
@@ -0,0 +1,36 @@
+package org.jamesgames.jamesjavautils.time;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ManualNanoClockTest {
+
+    private final ManualNanoClock clock = new ManualNanoClock();
+
+    @Test
+    public void testClockStartsAtZero() throws Exception {
+        assertEquals(0, clock.nanoTime());
+        assertEquals(0, clock.nanoTime());
+    }
+
+    @Test
+    public void testAdvance() throws Exception {
+        clock.advanceInNanoSeconds(5);
+        assertEquals(5, clock.nanoTime());
+        clock.advanceInMilliseconds(2);
+        assertEquals(2_000_005, clock.nanoTime());
+    }
+
+    @Test
+    public void testSetTimeBackwards() throws Exception {
+        ManualNanoClock clockStartingLater = new ManualNanoClock(100);
+        clockStartingLater.setNanoTime(50);
+        assertEquals(50, clockStartingLater.nanoTime());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAdvanceNegativeTime() {
+        clock.advanceInNanoSeconds(-1);
+    }
+}
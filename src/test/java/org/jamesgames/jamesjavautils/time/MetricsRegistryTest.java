@@ -0,0 +1,103 @@
+package org.jamesgames.jamesjavautils.time;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsRegistryTest {
+
+    private final long oneThousandMillisecondsInNanoSeconds = 1000 * 1_000_000L;
+    private final ManualNanoClock clock = new ManualNanoClock();
+    private final MetricsRegistry registry = new MetricsRegistry();
+
+    @Test
+    public void testSnapshotOfCounter() throws Exception {
+        ActionsPerTimeFrameCounter counter = new ActionsPerTimeFrameCounter(oneThousandMillisecondsInNanoSeconds, clock);
+        registry.registerCounter("requests", counter);
+        counter.addActionsInMilliseconds(7, 1000);
+        counter.addActionsInMilliseconds(0, 1);
+        MetricSnapshot snapshot = registry.snapshot("requests");
+        assertEquals(MetricSnapshot.MetricType.counter, snapshot.getType());
+        assertEquals(7, snapshot.getValue("actionCountPerTimeFrame"), 0.001);
+    }
+
+    @Test
+    public void testSnapshotOfHistogram() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        registry.registerHistogram("latency", histogram);
+        for (int i = 1; i <= 100; i++) {
+            histogram.recordTimeInNanoseconds(i);
+        }
+        MetricSnapshot snapshot = registry.snapshot("latency");
+        assertEquals(100, snapshot.getValue("totalCount"), 0);
+        assertEquals(1, snapshot.getValue("minTimeInNanoSeconds"), 0);
+        assertEquals(100, snapshot.getValue("maxTimeInNanoSeconds"), 0);
+        assertEquals(50, snapshot.getValue("timeAtPercentile50InNanoSeconds"), 0);
+        assertEquals(100, snapshot.getValue("timeAtPercentile99_9InNanoSeconds"), 0);
+    }
+
+    @Test
+    public void testSnapshotOfEverythingSortedByName() throws Exception {
+        ElapsedTimeTimer timer = new ElapsedTimeTimer(100);
+        registry.registerTimer("timer", timer);
+        registry.registerMeter("meter", new ActionsRateMeter(oneThousandMillisecondsInNanoSeconds, clock));
+        registry.registerGauge("answer", () -> 42);
+        timer.addElapsedTimeInNanoSeconds(100);
+        List<MetricSnapshot> snapshots = registry.snapshot();
+        assertEquals(3, snapshots.size());
+        assertEquals("answer", snapshots.get(0).getName());
+        assertEquals(42, snapshots.get(0).getValue("value"), 0);
+        assertEquals("meter", snapshots.get(1).getName());
+        assertEquals("timer", snapshots.get(2).getName());
+        assertEquals(1, snapshots.get(2).getValue("timerFinished"), 0);
+        assertEquals(100, snapshots.get(2).getValue("totalElapsedTimeInNanoSeconds"), 0);
+    }
+
+    @Test
+    public void testExportingToMBeanServer() throws Exception {
+        MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+        ConcurrentActionsPerTimeFrameCounter counter =
+                new ConcurrentActionsPerTimeFrameCounter(oneThousandMillisecondsInNanoSeconds, 1, clock);
+        registry.registerCounter("requests", counter);
+        registry.exportToMBeanServer(mBeanServer, "test");
+        registry.registerGauge("later", () -> 3);
+
+        ObjectName requestsName = registry.getObjectName("requests");
+        assertEquals(new ObjectName("test:type=counter,name=\"requests\""), requestsName);
+        counter.addActions(4);
+        clock.advanceInMilliseconds(1000);
+        assertEquals(4.0, mBeanServer.getAttribute(requestsName, "actionCountPerTimeFrame"));
+        assertEquals(3.0, mBeanServer.getAttribute(registry.getObjectName("later"), "value"));
+
+        registry.unregister("later");
+        assertEquals(1, mBeanServer.queryNames(new ObjectName("test:*"), null).size());
+        registry.stopExporting();
+        assertFalse(mBeanServer.isRegistered(requestsName));
+    }
+
+    @Test
+    public void testUnregister() throws Exception {
+        registry.registerGauge("gauge", () -> 1);
+        assertTrue(registry.isRegistered("gauge"));
+        registry.unregister("gauge");
+        assertFalse(registry.isRegistered("gauge"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisteringSameNameTwice() {
+        registry.registerGauge("gauge", () -> 1);
+        registry.registerGauge("gauge", () -> 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSnapshotOfUnregisteredMetric() {
+        registry.snapshot("missing");
+    }
+}
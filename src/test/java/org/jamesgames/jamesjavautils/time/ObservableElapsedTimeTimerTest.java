@@ -4,6 +4,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class ObservableElapsedTimeTimerTest {
 
@@ -21,6 +23,16 @@ public class ObservableElapsedTimeTimerTest {
         }
     }
 
+    private static class BatchCountingObserver extends CountingObserver {
+        public int timesInformedOfBatch;
+
+        @Override
+        public void targetTimePassed(ObservableElapsedTimeTimer timer, long numberOfTimesPassed) {
+            timesInformedOfBatch++;
+            timesInformed += numberOfTimesPassed;
+        }
+    }
+
     private static class CounterThatAlsoResetTo500MillisecondsObserver extends CountingObserver {
         @Override
         public void targetTimePassed(ObservableElapsedTimeTimer timer) {
@@ -114,4 +126,96 @@ public class ObservableElapsedTimeTimerTest {
         randomTargetTimer.addElapsedTimeInMilliseconds(501);
         assertEquals(1, countingObserver.timesInformed);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testIterativeCatchUpWithoutOverflowingTheStack() throws Exception {
+        timerWithCountingObserver.setCatchUpMode(ObservableElapsedTimeTimer.CatchUpMode.iterative);
+        timerWithCountingObserver.setTargetTimeInNanoSeconds(1);
+        timerWithCountingObserver.addElapsedTimeInNanoSeconds(1_000_000);
+        assertEquals(1_000_000, countingObserver.timesInformed);
+        assertEquals(0, timerWithCountingObserver.getTotalElapsedTimeInNanoSeconds());
+        assertFalse(timerWithCountingObserver.isTimerFinished());
+    }
+
+    @Test
+    public void testIterativeCatchUpDropsPassesOverMaximum() throws Exception {
+        timerWithCountingObserver.setCatchUpMode(ObservableElapsedTimeTimer.CatchUpMode.iterative);
+        timerWithCountingObserver.setMaximumIterativePassesPerAddition(100);
+        timerWithCountingObserver.setTargetTimeInNanoSeconds(1_000);
+        timerWithCountingObserver.addElapsedTimeInMilliseconds(10_000);
+        assertEquals(100, countingObserver.timesInformed);
+        assertEquals(10_000_000 - 100, timerWithCountingObserver.getNumberOfDroppedPasses());
+        assertEquals(0, timerWithCountingObserver.getTotalElapsedTimeInNanoSeconds());
+    }
+
+    @Test
+    public void testIterativeCatchUpDropsPassesOverMaximumAfterObserverChangesTargetTime() throws Exception {
+        timerWithResetObserver.setCatchUpMode(ObservableElapsedTimeTimer.CatchUpMode.iterative);
+        timerWithResetObserver.setMaximumIterativePassesPerAddition(2);
+        timerWithResetObserver.setTargetTimeInMilliseconds(10);
+        // 10 milliseconds for the first pass, then 500 milliseconds for the second and the dropped passes
+        timerWithResetObserver.addElapsedTimeInMilliseconds(2015);
+        assertEquals(2, resetTo500MsObserver.timesInformed);
+        assertEquals(3, timerWithResetObserver.getNumberOfDroppedPasses());
+        assertEquals(5 * nanosecondsInMillisecond, timerWithResetObserver.getTotalElapsedTimeInNanoSeconds());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaximumIterativePassesNotPositive() {
+        timerWithCountingObserver.setMaximumIterativePassesPerAddition(0);
+    }
+
+    @Test
+    public void testIterativeCatchUpLetsObserverChangeTargetTime() throws Exception {
+        timerWithResetObserver.setCatchUpMode(ObservableElapsedTimeTimer.CatchUpMode.iterative);
+        timerWithResetObserver.setTargetTimeInMilliseconds(10);
+        // 10 milliseconds for the first pass, then 500 milliseconds for each one after as the observer changes it
+        timerWithResetObserver.addElapsedTimeInMilliseconds(1015);
+        assertEquals(3, resetTo500MsObserver.timesInformed);
+        assertEquals(5 * nanosecondsInMillisecond, timerWithResetObserver.getTotalElapsedTimeInNanoSeconds());
+    }
+
+    @Test
+    public void testBatchedCatchUpWithSpecifiedTargetTime() throws Exception {
+        BatchCountingObserver batchObserver = new BatchCountingObserver();
+        timerWithCountingObserver.addElapsedTimeTimerObserver(batchObserver);
+        timerWithCountingObserver.setCatchUpMode(ObservableElapsedTimeTimer.CatchUpMode.batched);
+        timerWithCountingObserver.setTargetTimeInMilliseconds(10);
+        timerWithCountingObserver.addElapsedTimeInMilliseconds(1005);
+        assertEquals(1, batchObserver.timesInformedOfBatch);
+        assertEquals(100, batchObserver.timesInformed);
+        // Observers that don't handle batches are informed once per pass
+        assertEquals(100, countingObserver.timesInformed);
+        assertEquals(5 * nanosecondsInMillisecond, timerWithCountingObserver.getTotalElapsedTimeInNanoSeconds());
+        timerWithCountingObserver.addElapsedTimeInMilliseconds(5);
+        assertEquals(2, batchObserver.timesInformedOfBatch);
+        assertEquals(101, batchObserver.timesInformed);
+    }
+
+    @Test
+    public void testBatchedCatchUpWithRandomTargetTime() throws Exception {
+        BatchCountingObserver batchObserver = new BatchCountingObserver();
+        timerWithCountingObserver.addElapsedTimeTimerObserver(batchObserver);
+        timerWithCountingObserver.setCatchUpMode(ObservableElapsedTimeTimer.CatchUpMode.batched);
+        timerWithCountingObserver.resetTargetTimeToRandomTimeSpecifiedInMilliseconds(10, 20);
+        timerWithCountingObserver.addElapsedTimeInMilliseconds(1000);
+        assertEquals(1, batchObserver.timesInformedOfBatch);
+        assertTrue("times passed: " + batchObserver.timesInformed,
+                batchObserver.timesInformed > 50 && batchObserver.timesInformed <= 100);
+        assertTrue(timerWithCountingObserver.getTotalElapsedTimeInNanoSeconds() <
+                timerWithCountingObserver.getTargetTimeInNanoSeconds());
+    }
+
+    @Test
+    public void testZeroTargetTimeOnlyPassedOncePerAddition() throws Exception {
+        timerWithCountingObserver.setCatchUpMode(ObservableElapsedTimeTimer.CatchUpMode.iterative);
+        timerWithCountingObserver.setTargetTimeInNanoSeconds(0);
+        timerWithCountingObserver.addElapsedTimeInMilliseconds(10);
+        assertEquals(1, countingObserver.timesInformed);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullCatchUpMode() {
+        timerWithCountingObserver.setCatchUpMode(null);
+    }
+}
@@ -0,0 +1,89 @@
+package org.jamesgames.jamesjavautils.time;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RandomTimeGeneratorTest {
+
+    private static final long lowerBound = 1000;
+    private static final long upperBound = 2000;
+    private static final int numberOfSamples = 100_000;
+
+    private static double meanOfSamples(RandomTimeGenerator generator) {
+        double total = 0;
+        for (int i = 0; i < numberOfSamples; i++) {
+            long time = generator.nextTimeInNanoSeconds(lowerBound, upperBound);
+            assertTrue("time out of bounds: " + time, time >= lowerBound && time < upperBound);
+            total += time;
+        }
+        return total / numberOfSamples;
+    }
+
+    @Test
+    public void testUniformDistribution() throws Exception {
+        assertEquals(1500, meanOfSamples(new RandomTimeGenerator(RandomTimeGenerator.Distribution.uniform)), 10);
+    }
+
+    @Test
+    public void testExponentialDistributionFavorsLowerBound() throws Exception {
+        // Mean of an exponential truncated at 4 means is about 0.926 means, with a mean of a quarter of the range
+        assertEquals(1231.5,
+                meanOfSamples(new SeededRandomTimeGenerator(RandomTimeGenerator.Distribution.exponential, 7)), 10);
+    }
+
+    @Test
+    public void testTruncatedGaussianDistributionFavorsMiddle() throws Exception {
+        RandomTimeGenerator generator =
+                new SeededRandomTimeGenerator(RandomTimeGenerator.Distribution.truncatedGaussian, 7);
+        int timesWithinOneStandardDeviation = 0;
+        for (int i = 0; i < numberOfSamples; i++) {
+            long time = generator.nextTimeInNanoSeconds(lowerBound, upperBound);
+            assertTrue("time out of bounds: " + time, time >= lowerBound && time < upperBound);
+            if (Math.abs(time - 1500) <= 167) {
+                timesWithinOneStandardDeviation++;
+            }
+        }
+        assertEquals(0.68, timesWithinOneStandardDeviation / (double) numberOfSamples, 0.01);
+    }
+
+    @Test
+    public void testSameSeedGivesSameTimes() throws Exception {
+        RandomTimeGenerator first = new SeededRandomTimeGenerator(RandomTimeGenerator.Distribution.exponential, 42);
+        RandomTimeGenerator second = new SeededRandomTimeGenerator(RandomTimeGenerator.Distribution.exponential, 42);
+        RandomTimeGenerator firstSplit = first.split();
+        RandomTimeGenerator secondSplit = second.split();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(first.nextTimeInNanoSeconds(0, 1_000_000), second.nextTimeInNanoSeconds(0, 1_000_000));
+            assertEquals(firstSplit.nextTimeInNanoSeconds(0, 1_000_000),
+                    secondSplit.nextTimeInNanoSeconds(0, 1_000_000));
+        }
+    }
+
+    @Test
+    public void testSplitOfThreadLocalGeneratorIsShared() throws Exception {
+        RandomTimeGenerator threadLocalGenerator = RandomTimeGenerator.getUniformThreadLocalGenerator();
+        assertSame(threadLocalGenerator, threadLocalGenerator.split());
+        RandomTimeGenerator seeded = new SeededRandomTimeGenerator(RandomTimeGenerator.Distribution.uniform, 1);
+        assertNotSame(seeded, seeded.split());
+    }
+
+    @Test
+    public void testSingleTimeRange() throws Exception {
+        RandomTimeGenerator generator = new RandomTimeGenerator(RandomTimeGenerator.Distribution.truncatedGaussian);
+        assertEquals(5, generator.nextTimeInNanoSeconds(5, 6));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeLowerBound() {
+        RandomTimeGenerator.getUniformThreadLocalGenerator().nextTimeInNanoSeconds(-1, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUpperBoundNotAboveLowerBound() {
+        RandomTimeGenerator.getUniformThreadLocalGenerator().nextTimeInNanoSeconds(10, 10);
+    }
+}
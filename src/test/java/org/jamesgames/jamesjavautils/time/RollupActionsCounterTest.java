@@ -0,0 +1,109 @@
+package org.jamesgames.jamesjavautils.time;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class RollupActionsCounterTest {
+
+    private final long oneThousandMillisecondsInNanoSeconds = 1000 * 1_000_000L;
+    private final ManualNanoClock clock = new ManualNanoClock();
+    // Levels of 1 second (keeping 3), 3 seconds (keeping 2) and 6 seconds (keeping 4)
+    private final RollupActionsCounter counter =
+            new RollupActionsCounter(oneThousandMillisecondsInNanoSeconds, new int[]{3, 2, 4}, clock);
+
+    @Test
+    public void testTimeFramesOfEachLevel() throws Exception {
+        assertEquals(3, counter.getNumberOfLevels());
+        assertEquals(1000 * 1_000_000L, counter.getTimeFrameInNanoSeconds(0));
+        assertEquals(3000 * 1_000_000L, counter.getTimeFrameInNanoSeconds(1));
+        assertEquals(6000 * 1_000_000L, counter.getTimeFrameInNanoSeconds(2));
+    }
+
+    @Test
+    public void testCompletedTimeFramesRollUp() throws Exception {
+        for (int second = 0; second < 12; second++) {
+            counter.addActionsInMilliseconds(second, second == 0 ? 0 : 1000);
+        }
+        counter.addActionsInMilliseconds(0, 1000);
+        // Seconds 11, 10 and 9 at the finest level
+        assertEquals(11, counter.getActionCountPerTimeFrame(0));
+        assertEquals(10, counter.getActionCountInTimeFrame(0, 2));
+        assertEquals(9, counter.getActionCountInTimeFrame(0, 3));
+        assertEquals(30, counter.getActionCountInLastTimeFrames(0, 3));
+        // Seconds 9 to 11 and 6 to 8 at the middle level
+        assertEquals(30, counter.getActionCountPerTimeFrame(1));
+        assertEquals(21, counter.getActionCountInTimeFrame(1, 2));
+        // Seconds 6 to 11 and 0 to 5 at the coarsest level
+        assertEquals(51, counter.getActionCountPerTimeFrame(2));
+        assertEquals(15, counter.getActionCountInTimeFrame(2, 2));
+        assertEquals(0, counter.getActionCountInTimeFrame(2, 3));
+    }
+
+    @Test
+    public void testCurrentTimeFrame() throws Exception {
+        counter.addActionsInMilliseconds(5, 500);
+        counter.addActionsInMilliseconds(2, 499);
+        assertEquals(7, counter.getActionCountInTimeFrame(0, 0));
+        assertEquals(0, counter.getActionCountPerTimeFrame(0));
+        counter.addActionsInMilliseconds(0, 1);
+        assertEquals(7, counter.getActionCountPerTimeFrame(0));
+    }
+
+    @Test
+    public void testLongGapClearsOldTimeFrames() throws Exception {
+        counter.addActionsInMilliseconds(100, 0);
+        counter.addActionsInMilliseconds(1, 60_000);
+        assertEquals(0, counter.getActionCountPerTimeFrame(0));
+        assertEquals(0, counter.getActionCountPerTimeFrame(1));
+        assertEquals(0, counter.getActionCountInLastTimeFrames(2, 4));
+        assertEquals(1, counter.getActionCountInTimeFrame(0, 0));
+        counter.addActionsInMilliseconds(0, 1000);
+        assertEquals(1, counter.getActionCountPerTimeFrame(0));
+    }
+
+    @Test
+    public void testGapShorterThanRingKeepsRolledUpCounts() throws Exception {
+        counter.addActionsInMilliseconds(4, 0);
+        counter.addActionsInMilliseconds(6, 7000);
+        // Second 0 rolled up into the first 3 and 6 second time frames, second 7 is current
+        assertEquals(4, counter.getActionCountInTimeFrame(1, 2));
+        assertEquals(4, counter.getActionCountPerTimeFrame(2));
+        assertEquals(6, counter.getActionCountInTimeFrame(0, 0));
+    }
+
+    @Test
+    public void testAddActionsWithClock() throws Exception {
+        RollupActionsCounter defaultLevels = new RollupActionsCounter(TimeUnit.SECONDS.toNanos(1),
+                new int[]{60, 60, 24}, clock);
+        for (int i = 0; i < 120; i++) {
+            defaultLevels.addActions(2);
+            clock.advanceInMilliseconds(500);
+        }
+        defaultLevels.addActions(0);
+        assertEquals(4, defaultLevels.getActionCountPerTimeFrame(0));
+        assertEquals(240, defaultLevels.getActionCountPerTimeFrame(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTimeFramesAgoMoreThanKept() {
+        counter.getActionCountInTimeFrame(0, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLevelOutOfRange() {
+        counter.getActionCountPerTimeFrame(3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoLevels() {
+        new RollupActionsCounter(oneThousandMillisecondsInNanoSeconds, new int[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddNegativeAmountOfActions() {
+        counter.addActions(-1);
+    }
+}
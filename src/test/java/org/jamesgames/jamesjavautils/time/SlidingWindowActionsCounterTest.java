@@ -0,0 +1,92 @@
+package org.jamesgames.jamesjavautils.time;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SlidingWindowActionsCounterTest {
+
+    private final long oneThousandMillisecondsInNanoSeconds = 1000 * 1_000_000L;
+    private final SlidingWindowActionsCounter counterWith1000MillisecondWindowOf10Buckets =
+            new SlidingWindowActionsCounter(oneThousandMillisecondsInNanoSeconds, 10);
+    private final float actionCountEpsilon = 0.001f;
+
+    @Test
+    public void testCounterWithNoTimePassed() throws Exception {
+        assertEquals(0, counterWith1000MillisecondWindowOf10Buckets.getActionCountInWindow(), actionCountEpsilon);
+    }
+
+    @Test
+    public void testActionsAreVisibleBeforeAFullWindowPasses() throws Exception {
+        counterWith1000MillisecondWindowOf10Buckets.addActionsInMilliseconds(10, 50);
+        assertEquals(10, counterWith1000MillisecondWindowOf10Buckets.getActionCountInWindow(), actionCountEpsilon);
+        counterWith1000MillisecondWindowOf10Buckets.addActionsInMilliseconds(5, 300);
+        assertEquals(15, counterWith1000MillisecondWindowOf10Buckets.getActionCountInWindow(), actionCountEpsilon);
+    }
+
+    @Test
+    public void testActionsSlideOutOfWindow() throws Exception {
+        counterWith1000MillisecondWindowOf10Buckets.addActionsInMilliseconds(10, 50);
+        counterWith1000MillisecondWindowOf10Buckets.addActionsInMilliseconds(0, 950);
+        assertEquals(10, counterWith1000MillisecondWindowOf10Buckets.getActionCountInWindow(), actionCountEpsilon);
+        // Half of the oldest bucket is now outside of the window
+        counterWith1000MillisecondWindowOf10Buckets.addActionsInMilliseconds(0, 50);
+        assertEquals(5, counterWith1000MillisecondWindowOf10Buckets.getActionCountInWindow(), actionCountEpsilon);
+        counterWith1000MillisecondWindowOf10Buckets.addActionsInMilliseconds(0, 50);
+        assertEquals(0, counterWith1000MillisecondWindowOf10Buckets.getActionCountInWindow(), actionCountEpsilon);
+    }
+
+    @Test
+    public void testActionsSplitOverBucketBorders() throws Exception {
+        counterWith1000MillisecondWindowOf10Buckets.addActionsInMilliseconds(0, 900);
+        counterWith1000MillisecondWindowOf10Buckets.addActionsInMilliseconds(1000, 200);
+        assertEquals(1000, counterWith1000MillisecondWindowOf10Buckets.getActionCountInWindow(), actionCountEpsilon);
+        // 500 of the actions were in the 900 to 1000 millisecond bucket, which is now leaving the window
+        counterWith1000MillisecondWindowOf10Buckets.addActionsInMilliseconds(0, 850);
+        assertEquals(750, counterWith1000MillisecondWindowOf10Buckets.getActionCountInWindow(), actionCountEpsilon);
+    }
+
+    @Test
+    public void testActionsAddedOverMoreThanAWholeWindow() throws Exception {
+        counterWith1000MillisecondWindowOf10Buckets.addActionsInMilliseconds(100, 5500);
+        assertEquals(18.1818, counterWith1000MillisecondWindowOf10Buckets.getActionCountInWindow(),
+                actionCountEpsilon);
+        counterWith1000MillisecondWindowOf10Buckets.addActionsInMilliseconds(10, 500);
+        assertEquals(9.0909 + 10, counterWith1000MillisecondWindowOf10Buckets.getActionCountInWindow(),
+                actionCountEpsilon);
+        counterWith1000MillisecondWindowOf10Buckets.addActionsInMilliseconds(0, 1000);
+        assertEquals(0, counterWith1000MillisecondWindowOf10Buckets.getActionCountInWindow(), actionCountEpsilon);
+    }
+
+    @Test
+    public void testRoundingErrorsDoNotBuildUpWhileNeverIdle() throws Exception {
+        // Split over bucket borders every time, for a long time without the counter ever idling for a whole window
+        for (int i = 0; i < 1_000_000; i++) {
+            counterWith1000MillisecondWindowOf10Buckets.addActionsInMilliseconds(i % 2 == 0 ? 1_000_000 : 1, 333);
+        }
+        for (int i = 0; i < 11; i++) {
+            counterWith1000MillisecondWindowOf10Buckets.addActionsInMilliseconds(0, 100);
+        }
+        assertEquals(0, counterWith1000MillisecondWindowOf10Buckets.getActionCountInWindow(), actionCountEpsilon);
+    }
+
+    @Test
+    public void testWindowLengthRoundedToBuckets() throws Exception {
+        assertEquals(999, new SlidingWindowActionsCounter(1000, 3).getWindowLengthInNanoSeconds());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddNegativeAmountOfTime() {
+        counterWith1000MillisecondWindowOf10Buckets.addActionsInNanoseconds(100, -1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddNegativeAmountOfActions() {
+        counterWith1000MillisecondWindowOf10Buckets.addActions(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWindowShorterThanNumberOfBuckets() {
+        new SlidingWindowActionsCounter(5, 10);
+    }
+}
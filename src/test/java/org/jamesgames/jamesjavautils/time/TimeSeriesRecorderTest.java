@@ -0,0 +1,163 @@
+package org.jamesgames.jamesjavautils.time;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TimeSeriesRecorderTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static List<String> readRecords(Path file) throws IOException {
+        List<String> records = new ArrayList<>();
+        TimeSeriesReader.readRecords(file, (timestamp, value) -> records.add(timestamp + "=" + value));
+        return records;
+    }
+
+    @Test
+    public void testRecordsAreReadBackOldestFirst() throws Exception {
+        Path file = temporaryFolder.getRoot().toPath().resolve("history");
+        try (TimeSeriesRecorder recorder = new TimeSeriesRecorder(file, 4)) {
+            recorder.record(1, 10);
+            recorder.record(2, 20);
+            assertEquals(2, recorder.getRecordCount());
+            assertEquals(2, readRecords(file).size());
+            recorder.record(3, 30);
+        }
+        List<String> records = readRecords(file);
+        assertEquals(3, records.size());
+        assertEquals("1=10.0", records.get(0));
+        assertEquals("3=30.0", records.get(2));
+    }
+
+    @Test
+    public void testOldestRecordsAreOverwrittenWhenFull() throws Exception {
+        Path file = temporaryFolder.getRoot().toPath().resolve("history");
+        try (TimeSeriesRecorder recorder = new TimeSeriesRecorder(file, 3)) {
+            for (int i = 1; i <= 7; i++) {
+                recorder.record(i, i * 1.5);
+            }
+        }
+        List<String> records = readRecords(file);
+        assertEquals(3, records.size());
+        assertEquals("5=7.5", records.get(0));
+        assertEquals("6=9.0", records.get(1));
+        assertEquals("7=10.5", records.get(2));
+    }
+
+    @Test
+    public void testRecordBeingOverwrittenWhenStoppedIsLeftOut() throws Exception {
+        Path file = temporaryFolder.getRoot().toPath().resolve("history");
+        try (TimeSeriesRecorder recorder = new TimeSeriesRecorder(file, 3)) {
+            for (int i = 1; i <= 4; i++) {
+                recorder.record(i, i);
+            }
+        }
+        // What a crash leaves after the fifth record's timestamp was written over the second record but not its value
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            buffer.putLong(TimeSeriesRecorder.oldestRecordPosition, 2);
+            buffer.putLong(TimeSeriesRecorder.headerSizeInBytes + TimeSeriesRecorder.recordSizeInBytes, 5);
+        }
+        List<String> records = readRecords(file);
+        assertEquals(2, records.size());
+        assertEquals("3=3.0", records.get(0));
+        assertEquals("4=4.0", records.get(1));
+        // Recording carries on over the half written record
+        try (TimeSeriesRecorder recorder = new TimeSeriesRecorder(file, 3)) {
+            recorder.record(5, 5);
+        }
+        records = readRecords(file);
+        assertEquals(3, records.size());
+        assertEquals("3=3.0", records.get(0));
+        assertEquals("5=5.0", records.get(2));
+    }
+
+    @Test
+    public void testRecordingContinuesAfterReopening() throws Exception {
+        Path file = temporaryFolder.getRoot().toPath().resolve("history");
+        try (TimeSeriesRecorder recorder = new TimeSeriesRecorder(file, 3)) {
+            recorder.record(1, 1);
+            recorder.record(2, 2);
+        }
+        try (TimeSeriesRecorder recorder = new TimeSeriesRecorder(file, 3)) {
+            assertEquals(2, recorder.getRecordCount());
+            recorder.record(3, 3);
+            recorder.record(4, 4);
+        }
+        List<String> records = readRecords(file);
+        assertEquals("2=2.0", records.get(0));
+        assertEquals("4=4.0", records.get(2));
+        // A different capacity starts a new history
+        try (TimeSeriesRecorder recorder = new TimeSeriesRecorder(file, 5)) {
+            assertEquals(0, recorder.getRecordCount());
+        }
+        assertEquals(0, readRecords(file).size());
+        try (TimeSeriesRecorder recorder = new TimeSeriesRecorder(file, 2)) {
+            recorder.record(5, 5);
+        }
+        assertEquals("5=5.0", readRecords(file).get(0));
+    }
+
+    @Test
+    public void testRecordingCompletedTimeFramesOfCounter() throws Exception {
+        Path file = temporaryFolder.getRoot().toPath().resolve("history");
+        ActionsPerTimeFrameCounter counter = new ActionsPerTimeFrameCounter(1000 * 1_000_000L);
+        try (TimeSeriesRecorder recorder = new TimeSeriesRecorder(file, 16)) {
+            counter.setTimeFrameCompletedListener(recorder);
+            for (int i = 0; i < 5; i++) {
+                counter.addActionsInMilliseconds(i, 1000);
+                counter.addActionsInMilliseconds(0, 1);
+            }
+        }
+        List<Double> values = new ArrayList<>();
+        TimeSeriesReader.readRecords(file, (timestamp, value) -> values.add(value));
+        assertEquals(5, values.size());
+        assertEquals(4, values.get(4), 0.01);
+    }
+
+    @Test
+    public void testPrintRecords() throws Exception {
+        Path file = temporaryFolder.getRoot().toPath().resolve("history");
+        try (TimeSeriesRecorder recorder = new TimeSeriesRecorder(file, 2)) {
+            recorder.record(100, 0.5);
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        TimeSeriesReader.printRecords(file, new PrintStream(output, true));
+        assertEquals("timestampInMilliseconds,value" + System.lineSeparator() + "100,0.5" + System.lineSeparator(),
+                output.toString());
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadingFileThatIsNotATimeSeries() throws Exception {
+        Path file = temporaryFolder.newFile().toPath();
+        Files.write(file, new byte[64]);
+        readRecords(file);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRecordingAfterClose() throws Exception {
+        TimeSeriesRecorder recorder = new TimeSeriesRecorder(temporaryFolder.getRoot().toPath().resolve("h"), 2);
+        recorder.close();
+        recorder.record(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveCapacity() throws Exception {
+        new TimeSeriesRecorder(temporaryFolder.getRoot().toPath().resolve("history"), 0);
+    }
+}
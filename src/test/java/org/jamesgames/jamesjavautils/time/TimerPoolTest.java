@@ -0,0 +1,136 @@
+package org.jamesgames.jamesjavautils.time;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimerPoolTest {
+
+    private final TimerPool pool = new TimerPool(4);
+
+    private int[] newlyFinishedHandlesSorted(int numberOfNewlyFinishedTimers) {
+        int[] handles = Arrays.copyOf(pool.getNewlyFinishedHandles(), numberOfNewlyFinishedTimers);
+        Arrays.sort(handles);
+        return handles;
+    }
+
+    @Test
+    public void testTimerFinishesWhenTargetTimeReached() throws Exception {
+        int timer = pool.allocateTimerInMilliseconds(1000);
+        assertEquals(0, pool.advanceAllInMilliseconds(999));
+        assertFalse(pool.isTimerFinished(timer));
+        assertEquals(1, pool.advanceAllInMilliseconds(1));
+        assertEquals(timer, pool.getNewlyFinishedHandles()[0]);
+        assertTrue(pool.isTimerFinished(timer));
+    }
+
+    @Test
+    public void testFinishedTimerIsOnlyReportedOnce() throws Exception {
+        int timer = pool.allocateTimerInMilliseconds(10);
+        assertEquals(1, pool.advanceAllInMilliseconds(20));
+        assertEquals(0, pool.advanceAllInMilliseconds(20));
+        assertTrue(pool.isTimerFinished(timer));
+        assertEquals(40_000_000, pool.getElapsedTimeInNanoSeconds(timer));
+    }
+
+    @Test
+    public void testRandomTargetTimesWithSeededGenerator() throws Exception {
+        pool.setRandomTargetTimeGenerator(
+                new SeededRandomTimeGenerator(RandomTimeGenerator.Distribution.exponential, 3));
+        TimerPool samePool = new TimerPool();
+        samePool.setRandomTargetTimeGenerator(
+                new SeededRandomTimeGenerator(RandomTimeGenerator.Distribution.exponential, 3));
+        for (int i = 0; i < 10; i++) {
+            int timer = pool.allocateTimerWithRandomTargetTime(1000, 2000);
+            int sameTimer = samePool.allocateTimerWithRandomTargetTime(1000, 2000);
+            long targetTime = pool.getTargetTimeInNanoSeconds(timer);
+            assertTrue(targetTime >= 1000 && targetTime < 2000);
+            assertEquals(targetTime, samePool.getTargetTimeInNanoSeconds(sameTimer));
+            pool.setTargetTimeToRandomTimeSpecifiedInNanoSeconds(timer, 5, 10);
+            samePool.setTargetTimeToRandomTimeSpecifiedInNanoSeconds(sameTimer, 5, 10);
+            targetTime = pool.getTargetTimeInNanoSeconds(timer);
+            assertTrue(targetTime >= 5 && targetTime < 10);
+            assertEquals(targetTime, samePool.getTargetTimeInNanoSeconds(sameTimer));
+        }
+    }
+
+    @Test
+    public void testResetElapsedTimeToTimePastCurrentTarget() throws Exception {
+        int timer = pool.allocateTimerInMilliseconds(1000);
+        pool.advanceAllInMilliseconds(1999);
+        pool.resetElapsedTimeToTimePastCurrentTarget(timer);
+        assertFalse(pool.isTimerFinished(timer));
+        assertEquals(0, pool.advanceAllInMilliseconds(0));
+        assertEquals(1, pool.advanceAllInMilliseconds(1));
+    }
+
+    @Test
+    public void testResetElapsedTimeWithNewTarget() throws Exception {
+        int timer = pool.allocateTimerInMilliseconds(1000);
+        pool.advanceAllInMilliseconds(1000);
+        pool.resetElapsedTime(timer);
+        pool.setTargetTimeInMilliseconds(timer, 500);
+        assertEquals(0, pool.advanceAllInMilliseconds(499));
+        assertEquals(1, pool.advanceAllInMilliseconds(1));
+    }
+
+    @Test
+    public void testManyTimersGrowingPastInitialCapacity() throws Exception {
+        int[] timers = new int[1000];
+        for (int i = 0; i < timers.length; i++) {
+            timers[i] = pool.allocateTimer(i);
+        }
+        assertEquals(1000, pool.getNumberOfTimers());
+        assertEquals(500, pool.advanceAllInNanoSeconds(499));
+        int[] expectedFinishedHandles = Arrays.copyOf(timers, 500);
+        assertArrayEquals(expectedFinishedHandles, newlyFinishedHandlesSorted(500));
+        assertEquals(500, pool.advanceAllInNanoSeconds(1000));
+    }
+
+    @Test
+    public void testFreedTimerNeverFinishesAndHandleIsReused() throws Exception {
+        int timerA = pool.allocateTimer(10);
+        int timerB = pool.allocateTimer(10);
+        pool.freeTimer(timerA);
+        assertEquals(1, pool.advanceAllInNanoSeconds(10));
+        assertEquals(timerB, pool.getNewlyFinishedHandles()[0]);
+        int timerC = pool.allocateTimer(5);
+        assertEquals(timerA, timerC);
+        assertEquals(0, pool.getElapsedTimeInNanoSeconds(timerC));
+        assertFalse(pool.isTimerFinished(timerC));
+        assertEquals(1, pool.advanceAllInNanoSeconds(5));
+        assertEquals(timerC, pool.getNewlyFinishedHandles()[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUsingFreedHandle() {
+        int timer = pool.allocateTimer(10);
+        pool.freeTimer(timer);
+        pool.isTimerFinished(timer);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUsingHandleNeverAllocated() {
+        pool.isTimerFinished(3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeTargetTime() {
+        pool.allocateTimer(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAdvanceNegativeTime() {
+        pool.advanceAllInNanoSeconds(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testResettingTargetTimeToAmountOfTimePastElapsedTime() {
+        pool.resetElapsedTimeToTimePastCurrentTarget(pool.allocateTimer(10));
+    }
+}
@@ -0,0 +1,160 @@
+package org.jamesgames.jamesjavautils.time;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TokenBucketRateLimiterTest {
+
+    private final long oneThousandMillisecondsInNanoSeconds = 1000 * 1_000_000L;
+    private final ManualNanoClock clock = new ManualNanoClock(12345);
+    private final TokenBucketRateLimiter tenPerSecondWithBurstOfFive =
+            new TokenBucketRateLimiter(10, oneThousandMillisecondsInNanoSeconds, 5, clock);
+
+    @Test
+    public void testBucketStartsFull() throws Exception {
+        assertEquals(5, tenPerSecondWithBurstOfFive.getAvailablePermits());
+        assertTrue(tenPerSecondWithBurstOfFive.tryAcquire(5));
+        assertEquals(0, tenPerSecondWithBurstOfFive.getAvailablePermits());
+        assertFalse(tenPerSecondWithBurstOfFive.tryAcquire());
+    }
+
+    @Test
+    public void testPermitsRefillContinuously() throws Exception {
+        tenPerSecondWithBurstOfFive.tryAcquire(5);
+        clock.advanceInMilliseconds(99);
+        assertFalse(tenPerSecondWithBurstOfFive.tryAcquire());
+        clock.advanceInMilliseconds(1);
+        assertTrue(tenPerSecondWithBurstOfFive.tryAcquire());
+        assertFalse(tenPerSecondWithBurstOfFive.tryAcquire());
+        clock.advanceInMilliseconds(250);
+        assertEquals(2, tenPerSecondWithBurstOfFive.getAvailablePermits());
+        assertFalse(tenPerSecondWithBurstOfFive.tryAcquire(3));
+        assertTrue(tenPerSecondWithBurstOfFive.tryAcquire(2));
+    }
+
+    @Test
+    public void testIdleTimeIsOnlySavedUpToBurstCapacity() throws Exception {
+        clock.advanceInMilliseconds(60_000);
+        assertEquals(5, tenPerSecondWithBurstOfFive.getAvailablePermits());
+        assertTrue(tenPerSecondWithBurstOfFive.tryAcquire(5));
+        assertFalse(tenPerSecondWithBurstOfFive.tryAcquire());
+    }
+
+    @Test
+    public void testAcquireWithoutWaitingWhenPermitsAvailable() throws Exception {
+        assertEquals(0, tenPerSecondWithBurstOfFive.acquire(5));
+        assertEquals(0, tenPerSecondWithBurstOfFive.getAvailablePermits());
+    }
+
+    @Test
+    public void testAcquireWaitsForPermits() throws Exception {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(100, oneThousandMillisecondsInNanoSeconds, 1);
+        limiter.acquire();
+        long startTime = System.nanoTime();
+        long waitTime = limiter.acquire(5);
+        long timeWaited = System.nanoTime() - startTime;
+        // Five permits at 10 milliseconds each, minus however long it took between the two acquire calls
+        assertTrue("wait time: " + waitTime, waitTime > 40 * 1_000_000L && waitTime <= 50 * 1_000_000L);
+        assertTrue("time waited: " + timeWaited, timeWaited >= waitTime);
+    }
+
+    @Test
+    public void testInterruptedAcquireWaitsWithoutSpinning() throws Exception {
+        AtomicInteger clockReads = new AtomicInteger();
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(100, oneThousandMillisecondsInNanoSeconds, 1, () -> {
+            clockReads.incrementAndGet();
+            return System.nanoTime();
+        });
+        limiter.acquire();
+        Thread.currentThread().interrupt();
+        long startTime = System.nanoTime();
+        long waitTime = limiter.acquire(5);
+        long timeWaited = System.nanoTime() - startTime;
+        assertTrue(Thread.interrupted());
+        assertTrue("time waited: " + timeWaited, timeWaited >= waitTime);
+        // A handful of reads from parking, not one per spin of a loop that never parks
+        assertTrue("clock reads: " + clockReads.get(), clockReads.get() < 100);
+    }
+
+    @Test
+    public void testReportsAcquiredPermitsPerTimeFrame() throws Exception {
+        // The burst of five lets a few extra permits through before the limiter settles on one per 100 milliseconds
+        for (int i = 0; i < 10; i++) {
+            tenPerSecondWithBurstOfFive.tryAcquire();
+            tenPerSecondWithBurstOfFive.tryAcquire();
+            clock.advanceInMilliseconds(100);
+        }
+        assertEquals(14, tenPerSecondWithBurstOfFive.getAcquiredPermitsPerTimeFrame(), 0.001f);
+        for (int i = 0; i < 10; i++) {
+            tenPerSecondWithBurstOfFive.tryAcquire();
+            tenPerSecondWithBurstOfFive.tryAcquire();
+            clock.advanceInMilliseconds(100);
+        }
+        assertEquals(10, tenPerSecondWithBurstOfFive.getAcquiredPermitsPerTimeFrame(), 0.001f);
+    }
+
+    @Test
+    public void testManyThreadsNeverAcquireMoreThanTheBucketHolds() throws Exception {
+        int numberOfThreads = 8;
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1000, oneThousandMillisecondsInNanoSeconds, 1000,
+                clock);
+        AtomicInteger permitsAcquired = new AtomicInteger();
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numberOfThreads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int j = 0; j < 1000; j++) {
+                    if (limiter.tryAcquire()) {
+                        permitsAcquired.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1000, permitsAcquired.get());
+    }
+
+    @Test
+    public void testFractionalTimePerPermit() throws Exception {
+        TokenBucketRateLimiter threePerSecond = new TokenBucketRateLimiter(3, oneThousandMillisecondsInNanoSeconds, 3,
+                clock);
+        assertTrue(threePerSecond.tryAcquire(3));
+        clock.advanceInNanoSeconds(333_333_333);
+        assertEquals(1, threePerSecond.getAvailablePermits());
+        assertTrue(threePerSecond.tryAcquire());
+        assertFalse(threePerSecond.tryAcquire());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTryAcquireMoreThanBurstCapacity() {
+        tenPerSecondWithBurstOfFive.tryAcquire(6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAcquireNonPositivePermits() {
+        tenPerSecondWithBurstOfFive.acquire(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveBurstCapacity() {
+        new TokenBucketRateLimiter(10, oneThousandMillisecondsInNanoSeconds, 0);
+    }
+}
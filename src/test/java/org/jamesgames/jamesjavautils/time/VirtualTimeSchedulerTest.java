@@ -0,0 +1,158 @@
+package org.jamesgames.jamesjavautils.time;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VirtualTimeSchedulerTest {
+
+    private static final long oneMillisecondInNanoSeconds = 1_000_000;
+
+    private final VirtualTimeScheduler scheduler = new VirtualTimeScheduler(1234);
+
+    @Test
+    public void testTasksRunInOrderOfTimeThenScheduling() throws Exception {
+        List<String> ran = new ArrayList<>();
+        scheduler.schedule(20, () -> ran.add("b at 20"));
+        scheduler.schedule(10, () -> ran.add("a at 10"));
+        scheduler.schedule(20, () -> ran.add("c at 20"));
+        scheduler.schedule(30, () -> ran.add("never"));
+        assertEquals(3, scheduler.runFor(25));
+        assertEquals(25, scheduler.getTimeInNanoSeconds());
+        assertEquals("a at 10", ran.get(0));
+        assertEquals("b at 20", ran.get(1));
+        assertEquals("c at 20", ran.get(2));
+    }
+
+    @Test
+    public void testRepeatingTaskCanBeCancelled() throws Exception {
+        List<Long> timesRan = new ArrayList<>();
+        VirtualTimeScheduler.ScheduledTask task =
+                scheduler.scheduleAtFixedRate(5, 10, () -> timesRan.add(scheduler.getTimeInNanoSeconds()));
+        scheduler.runFor(40);
+        assertEquals(4, timesRan.size());
+        assertEquals(35L, (long) timesRan.get(3));
+        task.cancel();
+        assertEquals(0, scheduler.runFor(100));
+        assertFalse(scheduler.runNextEvent());
+    }
+
+    @Test
+    public void testRunNextEventJumpsStraightToIt() throws Exception {
+        VirtualTimeScheduler.ScheduledTask task = scheduler.schedule(TimeUnit.HOURS.toNanos(5), () -> {
+        });
+        assertTrue(scheduler.runNextEvent());
+        assertTrue(task.isDone());
+        assertEquals(TimeUnit.HOURS.toNanos(5), scheduler.getTimeInNanoSeconds());
+    }
+
+    @Test
+    public void testTimerFinishesAtExactlyItsTargetTime() throws Exception {
+        ElapsedTimeTimer timer = new ElapsedTimeTimer(1000);
+        scheduler.register(timer);
+        scheduler.runFor(999);
+        assertFalse(timer.isTimerFinished());
+        scheduler.runNextEvent();
+        assertTrue(timer.isTimerFinished());
+        assertEquals(1000, scheduler.getTimeInNanoSeconds());
+        // A finished timer isn't scheduled again until it's changed
+        assertFalse(scheduler.runNextEvent());
+        scheduler.changeTimer(timer, ElapsedTimeTimer::resetElapsedTime);
+        assertFalse(timer.isTimerFinished());
+        scheduler.runFor(1000);
+        assertTrue(timer.isTimerFinished());
+    }
+
+    @Test
+    public void testObservableTimerDrivesCounterInVirtualTime() throws Exception {
+        ActionsPerTimeFrameCounter counter =
+                new ActionsPerTimeFrameCounter(TimeUnit.SECONDS.toNanos(1), scheduler.getClock());
+        ObservableElapsedTimeTimer timer = new ObservableElapsedTimeTimer(10 * oneMillisecondInNanoSeconds);
+        timer.addElapsedTimeTimerObserver(observableTimer -> counter.addActions(1));
+        scheduler.register(timer);
+        counter.addActions(0);
+        long numberOfEventsRun = scheduler.runFor(TimeUnit.HOURS.toNanos(1));
+        assertEquals(360_000, numberOfEventsRun);
+        assertEquals(100, counter.getActionCountPerTimeFrame(), 0.001f);
+    }
+
+    @Test
+    public void testObserverCanChangeTimerThroughScheduler() throws Exception {
+        ObservableElapsedTimeTimer timer = new ObservableElapsedTimeTimer(10);
+        List<Long> timesPassed = new ArrayList<>();
+        timer.addElapsedTimeTimerObserver(observableTimer -> {
+            timesPassed.add(scheduler.getTimeInNanoSeconds());
+            scheduler.changeTimer(observableTimer, changedTimer -> changedTimer.setTargetTimeInNanoSeconds(100));
+        });
+        scheduler.register(timer);
+        scheduler.runFor(300);
+        assertEquals(3, timesPassed.size());
+        assertEquals(10L, (long) timesPassed.get(0));
+        assertEquals(110L, (long) timesPassed.get(1));
+        assertEquals(210L, (long) timesPassed.get(2));
+    }
+
+    @Test
+    public void testChangedTimersDoNotGrowTheQueue() throws Exception {
+        ElapsedTimeTimer timer = new ElapsedTimeTimer(1000);
+        VirtualTimeScheduler.ScheduledTask task = scheduler.schedule(500, () -> {
+        });
+        scheduler.register(timer);
+        for (int i = 0; i < 10_000; i++) {
+            scheduler.changeTimer(timer, changedTimer -> changedTimer.setTargetTimeInNanoSeconds(2000));
+        }
+        task.cancel();
+        assertTrue(scheduler.getNumberOfQueuedEvents() <= 4);
+        assertEquals(1, scheduler.runFor(5000));
+        assertTrue(timer.isTimerFinished());
+        assertEquals(0, scheduler.getNumberOfQueuedEvents());
+    }
+
+    @Test
+    public void testSameSeedRunsTheSameWay() throws Exception {
+        assertEquals(runRandomSimulation(99), runRandomSimulation(99));
+    }
+
+    private static List<Long> runRandomSimulation(long seed) {
+        VirtualTimeScheduler scheduler = new VirtualTimeScheduler(seed);
+        List<Long> timesPassed = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ObservableElapsedTimeTimer timer = new ObservableElapsedTimeTimer(100, 1000,
+                    scheduler.createRandomTimeGenerator(RandomTimeGenerator.Distribution.exponential));
+            timer.addElapsedTimeTimerObserver(observableTimer -> timesPassed.add(scheduler.getTimeInNanoSeconds()));
+            scheduler.register(timer);
+        }
+        scheduler.runFor(100_000);
+        return timesPassed;
+    }
+
+    @Test
+    public void testUnregisterGivesTimerElapsedTime() throws Exception {
+        ElapsedTimeTimer timer = new ElapsedTimeTimer(1000);
+        scheduler.register(timer);
+        scheduler.runFor(400);
+        scheduler.unregister(timer);
+        assertFalse(scheduler.isRegistered(timer));
+        assertEquals(400, timer.getTotalElapsedTimeInNanoSeconds());
+        assertFalse(scheduler.runNextEvent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisteringTimerTwice() {
+        ElapsedTimeTimer timer = new ElapsedTimeTimer(1000);
+        scheduler.register(timer);
+        scheduler.register(timer);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositivePeriod() {
+        scheduler.scheduleAtFixedRate(0, 0, () -> {
+        });
+    }
+}